@@ -0,0 +1,13 @@
+package com.example.kyc.client;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /bundle/requirements}; the same JSON as the service's BundleKycRequest.
+ *
+ * @param nationality individual bundles only
+ * @param pep         individual bundles only
+ */
+public record KycBundleRequest(String customerType, List<String> products, String nationality, Boolean pep,
+                               String country) {
+}
@@ -0,0 +1,301 @@
+package com.example.kyc.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client for the {@code /api/v1/kyc} requirement, product and catalog routes, served by the
+ * REST application or a KycFunctionalApplication sidecar. It is built by the {@code kyc-client}
+ * module and depends on the JDK HTTP client and Jackson only; its request records serialize to
+ * the same JSON as the service's request models.
+ *
+ * <p>Responses that carry an ETag are kept in a bounded LRU cache keyed by method, path,
+ * query and request body. Within the response's {@code max-age} they are answered from the
+ * cache without a call; after it the call revalidates with {@code If-None-Match}, and a 304
+ * (or, for the POST routes, a 412) says the rule set is unchanged and renews the entry without
+ * transferring or evaluating anything.
+ *
+ * <p>The ETag is the service's rule-set ETag, the same for every response of one deployment:
+ * it changes with the rule set and with every build, so any redeploy invalidates every cached
+ * entry, and the first call for each after max-age gets a full response.
+ *
+ * <p>A cached answer, whether fresh or renewed by a 304 or 412, is the body of the response
+ * that filled the entry: its {@code referenceId} and {@code timestamp} are those of that
+ * original evaluation, shared by every caller it answers, and not ids of this call. Callers
+ * that need a per-call reference must make their own, or use a client with caching off.
+ *
+ * <p>Concurrent identical calls that miss the cache share one HTTP exchange. Connections are
+ * kept alive and reused by the JDK client, which pools them per host; the pool size can be
+ * capped with {@code -Djdk.httpclient.connectionPoolSize}. Instances are thread safe and
+ * meant to be shared.
+ *
+ * <pre>
+ *   try (KycClient client = new KycClient(URI.create("http://kyc-rules:8080"))) {
+ *       KycRequirements requirements = client.getRequirements(
+ *               new KycIndividualRequest("INDIVIDUAL", "SAVINGS", "SINGAPORE", false, "SINGAPORE"));
+ *       requirements.getRequiredDocuments();
+ *   }
+ * </pre>
+ */
+public class KycClient implements AutoCloseable {
+
+    public static final int DEFAULT_CACHE_ENTRIES = 1000;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String BASE_PATH = "/api/v1/kyc";
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private final URI baseUri;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ResponseCache cache;
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder fresh = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder fetched = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Counts since the client was created; calls that fail are in none of the answer counts.
+     *
+     * @param fresh       answered from the cache without a request
+     * @param revalidated answered from the cache after a 304
+     * @param fetched     answered by a full response
+     * @param coalesced   answered by another caller's identical exchange
+     */
+    public record Stats(long calls, long fresh, long revalidated, long fetched, long coalesced, int cachedEntries) {
+    }
+
+    public KycClient(URI baseUri) {
+        this(baseUri, DEFAULT_CACHE_ENTRIES, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param baseUri      scheme, host and port of the service
+     * @param cacheEntries responses to keep; 0 disables caching but not coalescing
+     * @param timeout      per request, from sending it to the response headers
+     */
+    public KycClient(URI baseUri, int cacheEntries, Duration timeout) {
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+        this.cache = new ResponseCache(cacheEntries);
+        // Plain HTTP/1.1: both servers speak it without TLS, so h2c upgrade attempts only cost a round trip
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public KycRequirements getRequirements(KycIndividualRequest request) {
+        return requirements("/requirements", request);
+    }
+
+    public KycRequirements getProductRequirements(KycIndividualProductRequest request) {
+        return requirements("/product/requirements", request);
+    }
+
+    public KycRequirements getCorporateRequirements(KycCorporateRequest request) {
+        return requirements("/corporate/requirements", request);
+    }
+
+    public KycRequirements getBundleRequirements(KycBundleRequest request) {
+        return requirements("/bundle/requirements", request);
+    }
+
+    /**
+     * @param country filters the products; null for all
+     */
+    public List<KycProduct> getIndividualProducts(String country) {
+        return list(get("/products" + countryQuery(country)), "products", KycProduct.class);
+    }
+
+    /**
+     * @param country filters the products; null for all
+     */
+    public List<KycProduct> getCorporateProducts(String country) {
+        return list(get("/corporate/products" + countryQuery(country)), "products", KycProduct.class);
+    }
+
+    public List<KycCountry> getSupportedCountries() {
+        return list(get("/supported-countries"), "countries", KycCountry.class);
+    }
+
+    public List<String> getCustomerTypes() {
+        return list(get("/customer-types"), "customerTypes", String.class);
+    }
+
+    public List<String> getAccountTypes() {
+        return list(get("/account-types"), "accountTypes", String.class);
+    }
+
+    public Stats getStats() {
+        return new Stats(calls.sum(), fresh.sum(), revalidated.sum(), fetched.sum(), coalesced.sum(), cache.size());
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    private KycRequirements requirements(String path, Object request) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(request);
+        } catch (IOException e) {
+            throw new KycClientException("Cannot serialize " + request.getClass().getSimpleName(), 0, e);
+        }
+        return new KycRequirements(parse(call("POST", BASE_PATH + path, body)));
+    }
+
+    private Map<String, Object> get(String path) {
+        return parse(call("GET", BASE_PATH + path, null));
+    }
+
+    private <T> List<T> list(Map<String, Object> response, String field, Class<T> type) {
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+        return objectMapper.convertValue(response.getOrDefault(field, List.of()), listType);
+    }
+
+    // Each caller gets its own copy, so cached bodies are never shared mutable state
+    private Map<String, Object> parse(byte[] body) {
+        Map<String, Object> response;
+        try {
+            response = objectMapper.readValue(body, MAP);
+        } catch (IOException e) {
+            throw new KycClientException("Unreadable response: " + e.getMessage(), 200, e);
+        }
+        if (Boolean.TRUE.equals(response.get("error"))) {
+            throw new KycClientException(String.valueOf(response.get("message")), 200, null);
+        }
+        return response;
+    }
+
+    private byte[] call(String method, String target, byte[] body) {
+        calls.increment();
+        String key = method + " " + target + (body != null ? "\n" + new String(body, StandardCharsets.UTF_8) : "");
+        ResponseCache.Entry cached = cache.get(key);
+        if (cached != null && cached.isFresh(System.nanoTime())) {
+            fresh.increment();
+            return cached.body();
+        }
+        CompletableFuture<byte[]> shared = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, shared);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+        try {
+            shared.complete(exchange(method, target, body, key, cached));
+        } catch (RuntimeException e) {
+            shared.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, shared);
+        }
+        return join(shared);
+    }
+
+    private byte[] exchange(String method, String target, byte[] body, String key, ResponseCache.Entry cached) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(target))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (body != null) {
+            request.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        } else {
+            request.GET();
+        }
+        if (cached != null) {
+            request.header("If-None-Match", cached.etag());
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new KycClientException(method + " " + target + " failed: " + e.getMessage(), 0, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KycClientException(method + " " + target + " interrupted", 0, e);
+        }
+        long maxAgeNanos = maxAgeNanos(response.headers().firstValue("Cache-Control").orElse(null));
+        // The service answers a matching If-None-Match on a POST with 412 instead of 304
+        int notModified = body != null ? 412 : 304;
+        if (response.statusCode() == notModified && cached != null) {
+            revalidated.increment();
+            cache.put(key, cached.refreshed(System.nanoTime() + Math.max(0, maxAgeNanos)));
+            return cached.body();
+        }
+        if (response.statusCode() != 200) {
+            throw new KycClientException(method + " " + target + " returned HTTP " + response.statusCode(),
+                    response.statusCode(), null);
+        }
+        fetched.increment();
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        if (etag != null && maxAgeNanos >= 0) {
+            cache.put(key, new ResponseCache.Entry(etag, response.body(), System.nanoTime() + maxAgeNanos));
+        }
+        return response.body();
+    }
+
+    // No Cache-Control means revalidate every time; no-store means do not cache (-1)
+    private static long maxAgeNanos(String cacheControl) {
+        if (cacheControl == null) {
+            return 0;
+        }
+        long maxAge = 0;
+        for (String directive : cacheControl.split(",")) {
+            String value = directive.trim().toLowerCase();
+            if (value.equals("no-store")) {
+                return -1;
+            }
+            if (value.equals("no-cache")) {
+                return 0;
+            }
+            if (value.startsWith("max-age=")) {
+                try {
+                    maxAge = Long.parseLong(value.substring("max-age=".length()));
+                } catch (NumberFormatException e) {
+                    maxAge = 0;
+                }
+            }
+        }
+        return Duration.ofSeconds(maxAge).toNanos();
+    }
+
+    private static String countryQuery(String country) {
+        return country == null ? "" : "?country=" + URLEncoder.encode(country, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> shared) {
+        try {
+            return shared.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof KycClientException clientException) {
+                throw clientException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.kyc.client;
+
+/**
+ * A call that got no usable answer: a transport failure (status 0), an HTTP error status, or
+ * a 200 response with the service's {@code error} flag, whose message it carries.
+ */
+public class KycClientException extends RuntimeException {
+
+    private final int status;
+
+    public KycClientException(String message, int status, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.kyc.client;
+
+/**
+ * Body of {@code POST /corporate/requirements}; the same JSON as the service's
+ * CorporateKycRequest.
+ */
+public record KycCorporateRequest(String product, String country) {
+}
@@ -0,0 +1,7 @@
+package com.example.kyc.client;
+
+/**
+ * A country from {@code /supported-countries}.
+ */
+public record KycCountry(String code, String name) {
+}
@@ -0,0 +1,8 @@
+package com.example.kyc.client;
+
+/**
+ * Body of {@code POST /product/requirements}; the same JSON as the service's
+ * IndividualProductKycRequest.
+ */
+public record KycIndividualProductRequest(String product, String country) {
+}
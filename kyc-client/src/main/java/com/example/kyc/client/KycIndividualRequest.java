@@ -0,0 +1,15 @@
+package com.example.kyc.client;
+
+/**
+ * Body of {@code POST /requirements}; the same JSON as the service's IndividualKycRequest.
+ *
+ * @param initialDeposit planned initial deposit in SGD; null if not known
+ */
+public record KycIndividualRequest(String customerType, String accountType, String nationality, Boolean pep,
+                                   Double initialDeposit, String country) {
+
+    public KycIndividualRequest(String customerType, String accountType, String nationality, Boolean pep,
+                                String country) {
+        this(customerType, accountType, nationality, pep, null, country);
+    }
+}
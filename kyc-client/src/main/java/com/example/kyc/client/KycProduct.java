@@ -0,0 +1,7 @@
+package com.example.kyc.client;
+
+/**
+ * A product from {@code /products} or {@code /corporate/products}.
+ */
+public record KycProduct(String code, String name, String description) {
+}
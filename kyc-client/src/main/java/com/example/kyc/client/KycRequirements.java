@@ -0,0 +1,69 @@
+package com.example.kyc.client;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A requirements response: the JSON Schema of the KYC form and the typed {@code x-metadata}
+ * fields callers act on.
+ *
+ * @param schema the full response, including {@code properties}, {@code required} and
+ *               {@code x-metadata}
+ */
+public record KycRequirements(Map<String, Object> schema) {
+
+    /**
+     * @return the id of the evaluation that produced this body; a cached answer repeats the
+     *         one of the call that filled the cache entry
+     */
+    public String getReferenceId() {
+        return (String) metadata().get("referenceId");
+    }
+
+    public String getRiskLevel() {
+        return (String) metadata().get("riskLevel");
+    }
+
+    public boolean isEnhancedDueDiligenceRequired() {
+        return Boolean.TRUE.equals(metadata().get("enhancedDueDiligenceRequired"));
+    }
+
+    public int getTotalRequiredFields() {
+        return number("totalRequiredFields");
+    }
+
+    public int getEstimatedProcessingDays() {
+        return number("estimatedProcessingDays");
+    }
+
+    public List<String> getRequiredDocuments() {
+        return strings("requiredDocuments");
+    }
+
+    public List<String> getSpecialInstructions() {
+        return strings("specialInstructions");
+    }
+
+    public List<String> getAppliedRules() {
+        return strings("appliedRules");
+    }
+
+    public List<String> getCategories() {
+        return strings("categories");
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> metadata() {
+        Object metadata = schema.get("x-metadata");
+        return metadata instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+    }
+
+    private int number(String name) {
+        return metadata().get(name) instanceof Number number ? number.intValue() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> strings(String name) {
+        return metadata().get(name) instanceof List<?> list ? (List<String>) list : List.of();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.kyc.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used response bodies with their ETag and freshness deadline, bounded by
+ * entry count.
+ *
+ * <p>Bodies are kept and replayed verbatim, so the {@code referenceId} and {@code timestamp}
+ * in their {@code x-metadata} stay those of the call that stored them, including when a 304 or
+ * 412 renews the entry. The ETag is the service-wide rule-set ETag rather than one per
+ * response, so a redeploy of the service invalidates every entry at once.
+ */
+final class ResponseCache {
+
+    record Entry(String etag, byte[] body, long freshUntilNanos) {
+
+        boolean isFresh(long nowNanos) {
+            return nowNanos - freshUntilNanos < 0;
+        }
+
+        Entry refreshed(long freshUntilNanos) {
+            return new Entry(etag, body, freshUntilNanos);
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    ResponseCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -18,6 +18,7 @@ public class DroolsApplication {
         KieServices kieServices = KieServices.Factory.get();
         KieContainer kieContainer = kieServices.getKieClasspathContainer();
         KieSession kieSession = kieContainer.newKieSession("ksession-rules");
+        kieSession.setGlobal("sink", OrderSink.CONSOLE);
 
         try {
             // Create sample orders
@@ -0,0 +1,22 @@
+package com.example.drools;
+
+/**
+ * Receives the messages emitted by the Order rule consequences (the {@code sink} global
+ * in OrderRules.drl). Implementations used by the batch engine are shared by all worker
+ * sessions and must be thread-safe.
+ */
+@FunctionalInterface
+public interface OrderSink {
+
+    /**
+     * Discards all rule output.
+     */
+    OrderSink NONE = message -> { };
+
+    /**
+     * Prints rule output to standard out, as the demo does.
+     */
+    OrderSink CONSOLE = System.out::println;
+
+    void emit(String message);
+}
@@ -0,0 +1,17 @@
+package com.example.drools.batch;
+
+/**
+ * Totals of one batch run.
+ */
+public record BatchResult(long orders, long rulesFired, int threads, int chunkSize, long elapsedNanos) {
+
+    public double ordersPerSecond() {
+        return elapsedNanos == 0 ? 0 : orders * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("threads=%-3d chunk=%-6d orders=%d rulesFired=%d time=%.2fs throughput=%.0f orders/s",
+                threads, chunkSize, orders, rulesFired, elapsedNanos / 1e9, ordersPerSecond());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.drools.batch;
+
+import com.example.drools.OrderSink;
+import com.example.drools.model.Order;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Reprices a stream of orders with the Order rules on a fork-join pool.
+ *
+ * <p>The input stream is consumed on the calling thread and cut into chunks. Each chunk is
+ * handled by one pool worker, which keeps its own KieSession for the whole run: the chunk
+ * is inserted, the rules fire, the orders are written and then retracted again so the
+ * session is empty for the next chunk. Only a bounded number of chunks is queued at a time,
+ * so memory stays flat however large the input is.
+ */
+public class OrderBatchEngine {
+
+    private final KieContainer kieContainer;
+    private final String sessionName;
+    private final int parallelism;
+    private final int chunkSize;
+    private final OrderSink sink;
+
+    public OrderBatchEngine(KieContainer kieContainer, String sessionName, int parallelism, int chunkSize, OrderSink sink) {
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be positive");
+        }
+        this.kieContainer = kieContainer;
+        this.sessionName = sessionName;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.sink = sink;
+    }
+
+    public BatchResult run(Stream<Order> orders, OrderResultWriter writer) throws IOException {
+        Map<Thread, KieSession> sessions = new ConcurrentHashMap<>();
+        AtomicLong rulesFired = new AtomicLong();
+        Semaphore queued = new Semaphore(parallelism * 2);
+        List<Future<?>> pending = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long count = 0;
+        long start = System.nanoTime();
+        try {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                List<Order> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                count += chunk.size();
+                queued.acquireUninterruptibly();
+                pending.add(pool.submit(() -> {
+                    try {
+                        KieSession session = sessions.computeIfAbsent(Thread.currentThread(), t -> newSession());
+                        rulesFired.addAndGet(process(session, chunk, writer));
+                    } finally {
+                        queued.release();
+                    }
+                }));
+                rethrowFailures(pending);
+                pending.removeIf(Future::isDone);
+            }
+            for (Future<?> future : pending) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+            awaitTermination(pool);
+            sessions.values().forEach(KieSession::dispose);
+        }
+        return new BatchResult(count, rulesFired.get(), parallelism, chunkSize, System.nanoTime() - start);
+    }
+
+    private KieSession newSession() {
+        KieSession session = kieContainer.newKieSession(sessionName);
+        session.setGlobal("sink", sink);
+        return session;
+    }
+
+    private static int process(KieSession session, List<Order> chunk, OrderResultWriter writer) {
+        List<FactHandle> handles = new ArrayList<>(chunk.size());
+        for (Order order : chunk) {
+            handles.add(session.insert(order));
+        }
+        int fired = session.fireAllRules();
+        try {
+            writer.write(chunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            handles.forEach(session::delete);
+        }
+        return fired;
+    }
+
+    private static void rethrowFailures(List<Future<?>> futures) throws IOException {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                await(future);
+            }
+        }
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch chunk", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IllegalStateException("Batch chunk failed", e.getCause());
+        }
+    }
+
+    private static void awaitTermination(ForkJoinPool pool) {
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
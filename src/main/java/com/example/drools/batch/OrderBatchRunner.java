@@ -0,0 +1,97 @@
+package com.example.drools.batch;
+
+import com.example.drools.OrderSink;
+import com.example.drools.model.Order;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point for repricing an order file, and for measuring throughput at
+ * different thread counts.
+ *
+ * <p>Usage:
+ * <pre>
+ *   # Generate one million random orders
+ *   mvn -q compile exec:java -Dexec.mainClass=com.example.drools.batch.OrderBatchRunner \
+ *       -Dexec.args="--generate 1000000 --input orders.csv"
+ *   # Reprice them with 1, 2, 4 and 8 workers
+ *   mvn -q exec:java -Dexec.mainClass=com.example.drools.batch.OrderBatchRunner \
+ *       -Dexec.args="--input orders.csv --output repriced.csv --threads 1,2,4,8 --chunk 1000"
+ * </pre>
+ *
+ * <p>The first {@code --warmup} orders (default 200000) are repriced once before the
+ * measured runs. Each measured run rewrites the output file.
+ */
+public class OrderBatchRunner {
+
+    public static void main(String[] args) throws Exception {
+        Path input = null;
+        Path output = Path.of("repriced-orders.csv");
+        String threads = String.valueOf(Runtime.getRuntime().availableProcessors());
+        int chunkSize = 1000;
+        int bufferSize = 1 << 20;
+        long generate = 0;
+        long warmup = 200_000;
+        boolean console = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input" -> input = Path.of(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                case "--threads" -> threads = args[++i];
+                case "--chunk" -> chunkSize = Integer.parseInt(args[++i]);
+                case "--buffer" -> bufferSize = Integer.parseInt(args[++i]);
+                case "--generate" -> generate = Long.parseLong(args[++i]);
+                case "--warmup" -> warmup = Long.parseLong(args[++i]);
+                case "--console" -> console = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (input == null) {
+            throw new IllegalArgumentException("--input is required");
+        }
+        if (generate > 0) {
+            OrderFiles.generate(input, generate, 42);
+            System.out.printf("Generated %d orders in %s%n", generate, input);
+            return;
+        }
+
+        KieContainer kieContainer = KieServices.Factory.get().getKieClasspathContainer();
+        OrderSink sink = console ? OrderSink.CONSOLE : OrderSink.NONE;
+
+        // Warm up the JIT so the first thread count is not penalized
+        if (warmup > 0) {
+            OrderBatchEngine engine = new OrderBatchEngine(kieContainer, "ksession-rules", 1, chunkSize, sink);
+            try (Stream<Order> orders = OrderFiles.read(input).limit(warmup);
+                 OrderResultWriter writer = new OrderResultWriter(output, bufferSize)) {
+                engine.run(orders, writer);
+            }
+        }
+
+        List<BatchResult> results = new ArrayList<>();
+        for (String count : threads.split(",")) {
+            int parallelism = Integer.parseInt(count.trim());
+            OrderBatchEngine engine = new OrderBatchEngine(kieContainer, "ksession-rules", parallelism, chunkSize, sink);
+            try (Stream<Order> orders = OrderFiles.read(input);
+                 OrderResultWriter writer = new OrderResultWriter(output, bufferSize)) {
+                BatchResult result = engine.run(orders, writer);
+                results.add(result);
+                System.out.println(result);
+            }
+        }
+
+        System.out.printf("%nResults in %s (%d bytes)%n", output, Files.size(output));
+        System.out.println("threads  orders/s   speedup");
+        double base = results.get(0).ordersPerSecond() / results.get(0).threads();
+        for (BatchResult result : results) {
+            System.out.printf("%-8d %-10.0f %.2fx%n", result.threads(), result.ordersPerSecond(),
+                    result.ordersPerSecond() / base);
+        }
+    }
+}
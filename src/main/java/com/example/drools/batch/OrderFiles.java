@@ -0,0 +1,58 @@
+package com.example.drools.batch;
+
+import com.example.drools.model.Order;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Reads and generates order files. The format is one order per line:
+ * {@code orderId,category,amount}. Lines starting with {@code #} and blank lines are skipped.
+ */
+public final class OrderFiles {
+
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Groceries"};
+
+    private OrderFiles() {
+    }
+
+    /**
+     * Lazily streams the orders of a file; the caller must close the stream.
+     */
+    public static Stream<Order> read(Path file) throws IOException {
+        return Files.lines(file, StandardCharsets.UTF_8)
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .map(OrderFiles::parse);
+    }
+
+    static Order parse(String line) {
+        String[] columns = line.split(",", 3);
+        if (columns.length != 3) {
+            throw new IllegalArgumentException("Expected orderId,category,amount but got: " + line);
+        }
+        return new Order(columns[0].trim(), columns[1].trim(), Double.parseDouble(columns[2].trim()));
+    }
+
+    /**
+     * Writes {@code count} random orders, for benchmarking. The same seed gives the same file.
+     */
+    public static void generate(Path file, long count, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 1; i <= count; i++) {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                double amount = Math.round(random.nextDouble() * 60_000) / 100.0;
+                writer.write(String.format(Locale.ROOT, "ORD-%d,%s,%.2f%n", i, category, amount));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.drools.batch;
+
+import com.example.drools.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes repriced orders as CSV through a FileChannel. Workers format a whole chunk into
+ * a byte array without holding the lock, then append it to a shared direct buffer that is
+ * written to the channel whenever it fills up. Chunks appear in completion order.
+ */
+public class OrderResultWriter implements AutoCloseable {
+
+    static final String HEADER = "orderId,category,amount,discount,finalAmount,discountReason\n";
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    public OrderResultWriter(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        append(HEADER.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void write(List<Order> orders) throws IOException {
+        StringBuilder lines = new StringBuilder(orders.size() * 64);
+        for (Order order : orders) {
+            lines.append(order.getOrderId()).append(',')
+                    .append(order.getCategory()).append(',')
+                    .append(String.format(Locale.ROOT, "%.2f,%.1f,%.2f", order.getAmount(), order.getDiscount(),
+                            order.getFinalAmount())).append(',')
+                    .append(order.getDiscountReason()).append('\n');
+        }
+        append(lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void append(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+}
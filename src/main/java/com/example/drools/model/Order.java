@@ -6,10 +6,12 @@ package com.example.drools.model;
 public class Order {
 
     private String orderId;
+    private String customerId;
     private String category;
     private double amount;
     private double discount;
     private String discountReason;
+    private long placedAt;
 
     public Order() {
     }
@@ -22,6 +24,12 @@ public class Order {
         this.discountReason = "No discount applied";
     }
 
+    public Order(String orderId, String customerId, String category, double amount, long placedAt) {
+        this(orderId, category, amount);
+        this.customerId = customerId;
+        this.placedAt = placedAt;
+    }
+
     // Getters and Setters
     public String getOrderId() {
         return orderId;
@@ -31,6 +39,14 @@ public class Order {
         this.orderId = orderId;
     }
 
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
     public String getCategory() {
         return category;
     }
@@ -63,6 +79,17 @@ public class Order {
         this.discountReason = discountReason;
     }
 
+    /**
+     * When the order was placed, in epoch milliseconds. Used as the event time in stream mode.
+     */
+    public long getPlacedAt() {
+        return placedAt;
+    }
+
+    public void setPlacedAt(long placedAt) {
+        this.placedAt = placedAt;
+    }
+
     public double getFinalAmount() {
         return amount - (amount * discount / 100);
     }
@@ -0,0 +1,27 @@
+package com.example.drools.stream;
+
+import com.example.drools.model.Order;
+
+/**
+ * A change to an order in stream mode. Orders are identified by their orderId: an UPDATE
+ * replaces the amount and category of the order with the same id and reprices it, a RETRACT
+ * removes it (and its contribution to any time window) from the session.
+ */
+public record OrderEvent(Type type, Order order) {
+
+    public enum Type {
+        INSERT, UPDATE, RETRACT
+    }
+
+    public static OrderEvent insert(Order order) {
+        return new OrderEvent(Type.INSERT, order);
+    }
+
+    public static OrderEvent update(Order order) {
+        return new OrderEvent(Type.UPDATE, order);
+    }
+
+    public static OrderEvent retract(Order order) {
+        return new OrderEvent(Type.RETRACT, order);
+    }
+}
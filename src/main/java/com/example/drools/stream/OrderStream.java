@@ -0,0 +1,183 @@
+package com.example.drools.stream;
+
+import com.example.drools.OrderSink;
+import com.example.drools.model.Order;
+import org.drools.core.time.SessionPseudoClock;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running Order session in stream mode (the {@code orderStream} kbase).
+ *
+ * <p>Events are applied one at a time with {@link #accept(OrderEvent)} or as a micro-batch
+ * with {@link #accept(List)}; rules fire once per call. With a pseudo clock (the default
+ * from kmodule.xml) the session time is driven by the events: before an event is applied
+ * the clock is moved forward to the order's {@code placedAt}, so time windows and
+ * expiration behave identically in tests and replays, without depending on wall time.
+ * Orders without a {@code placedAt} are stamped with the current session time.
+ *
+ * <p>Instances are not thread-safe; feed each stream from a single thread.
+ */
+public class OrderStream implements AutoCloseable {
+
+    public static final String KBASE = "orderStream";
+    public static final String SESSION = "ksession-order-stream";
+
+    private final KieSession session;
+    private final SessionPseudoClock pseudoClock;
+    // Insertion (and so roughly event-time) order, for pruning expired orders from the head
+    private final LinkedHashMap<String, FactHandle> handles = new LinkedHashMap<>();
+
+    public OrderStream(KieSession session, OrderSink sink) {
+        this.session = session;
+        this.pseudoClock = session.getSessionClock() instanceof SessionPseudoClock clock ? clock : null;
+        session.setGlobal("sink", sink);
+    }
+
+    /**
+     * Opens a stream on the pseudo-clock session declared in kmodule.xml, starting at
+     * {@code startMillis}.
+     */
+    public static OrderStream withPseudoClock(KieContainer kieContainer, OrderSink sink, long startMillis) {
+        OrderStream stream = new OrderStream(kieContainer.newKieSession(SESSION), sink);
+        if (stream.pseudoClock == null) {
+            stream.close();
+            throw new IllegalStateException(SESSION + " is not configured with clockType=\"pseudo\"");
+        }
+        stream.pseudoClock.advanceTime(startMillis - stream.pseudoClock.getCurrentTime(), TimeUnit.MILLISECONDS);
+        return stream;
+    }
+
+    /**
+     * Opens a stream driven by wall-clock time, for live feeds.
+     */
+    public static OrderStream withRealtimeClock(KieContainer kieContainer, OrderSink sink) {
+        KieSessionConfiguration configuration = KieServices.Factory.get().newKieSessionConfiguration();
+        configuration.setOption(ClockTypeOption.REALTIME);
+        return new OrderStream(kieContainer.getKieBase(KBASE).newKieSession(configuration, null), sink);
+    }
+
+    /**
+     * Applies a single event and fires the rules.
+     *
+     * @return the number of rules fired
+     */
+    public int accept(OrderEvent event) {
+        apply(event);
+        return fire();
+    }
+
+    /**
+     * Applies a micro-batch of events in order and fires the rules once.
+     *
+     * @return the number of rules fired
+     */
+    public int accept(List<OrderEvent> events) {
+        events.forEach(this::apply);
+        return fire();
+    }
+
+    /**
+     * Moves the pseudo clock forward without an event, e.g. on a heartbeat, so that
+     * windows slide and old orders expire. Has no effect with a realtime clock.
+     */
+    public int advanceTo(long epochMillis) {
+        advanceClock(epochMillis);
+        return fire();
+    }
+
+    public long getCurrentTime() {
+        return session.getSessionClock().getCurrentTime();
+    }
+
+    /**
+     * Number of orders currently held by the session.
+     */
+    public long getOrderCount() {
+        return session.getFactCount();
+    }
+
+    private void apply(OrderEvent event) {
+        Order order = event.order();
+        if (order.getPlacedAt() == 0) {
+            order.setPlacedAt(getCurrentTime());
+        } else {
+            advanceClock(order.getPlacedAt());
+        }
+
+        FactHandle handle = liveHandle(order.getOrderId());
+        switch (event.type()) {
+            case INSERT -> {
+                if (handle != null) {
+                    throw new IllegalArgumentException("Order " + order.getOrderId() + " is already in the stream");
+                }
+                handles.put(order.getOrderId(), session.insert(order));
+            }
+            case UPDATE -> {
+                if (handle == null) {
+                    // Already expired (or never seen): treat as a new order
+                    handles.put(order.getOrderId(), session.insert(order));
+                } else {
+                    Order current = (Order) session.getObject(handle);
+                    current.setCategory(order.getCategory());
+                    current.setAmount(order.getAmount());
+                    current.setDiscount(0.0);
+                    current.setDiscountReason("No discount applied");
+                    session.update(handle, current);
+                }
+            }
+            case RETRACT -> {
+                if (handle != null) {
+                    session.delete(handle);
+                    handles.remove(order.getOrderId());
+                }
+            }
+        }
+    }
+
+    private int fire() {
+        int fired = session.fireAllRules();
+        pruneExpiredHandles();
+        return fired;
+    }
+
+    private FactHandle liveHandle(String orderId) {
+        FactHandle handle = handles.get(orderId);
+        if (handle != null && session.getObject(handle) == null) {
+            handles.remove(orderId);
+            return null;
+        }
+        return handle;
+    }
+
+    /**
+     * Drools expires events without a delete notification, so handles of expired orders
+     * are dropped here. They are the oldest entries, so only the head of the map is checked.
+     */
+    private void pruneExpiredHandles() {
+        Iterator<FactHandle> iterator = handles.values().iterator();
+        while (iterator.hasNext() && session.getObject(iterator.next()) == null) {
+            iterator.remove();
+        }
+    }
+
+    private void advanceClock(long epochMillis) {
+        if (pseudoClock != null && epochMillis > pseudoClock.getCurrentTime()) {
+            pseudoClock.advanceTime(epochMillis - pseudoClock.getCurrentTime(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        session.dispose();
+    }
+}
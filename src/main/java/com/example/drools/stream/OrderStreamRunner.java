@@ -0,0 +1,143 @@
+package com.example.drools.stream;
+
+import com.example.drools.OrderSink;
+import com.example.drools.model.Order;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Demonstrates the Electronics tier window and checks that a long stream runs in flat
+ * latency and memory.
+ *
+ * <p>The soak phase replays synthetic order events on the pseudo clock (one every
+ * {@code --interval-ms}), with occasional updates and retractions, and prints per-event
+ * latency, the number of orders held by the session and the live heap every
+ * {@code --report-every} events. Because orders expire after an hour of stream time, the
+ * order count levels off at roughly one hour's worth of events.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q compile exec:java -Dexec.mainClass=com.example.drools.stream.OrderStreamRunner \
+ *       -Dexec.args="--events 2000000 --batch 1 --interval-ms 50"
+ * </pre>
+ */
+public class OrderStreamRunner {
+
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Clothing", "Groceries"};
+    private static final long HOUR = 3_600_000L;
+
+    public static void main(String[] args) {
+        long events = 1_000_000;
+        int batch = 1;
+        long intervalMillis = 50;
+        long reportEvery = 100_000;
+        int customers = 5_000;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--events" -> events = Long.parseLong(args[++i]);
+                case "--batch" -> batch = Integer.parseInt(args[++i]);
+                case "--interval-ms" -> intervalMillis = Long.parseLong(args[++i]);
+                case "--report-every" -> reportEvery = Long.parseLong(args[++i]);
+                case "--customers" -> customers = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        KieContainer kieContainer = KieServices.Factory.get().getKieClasspathContainer();
+        demo(kieContainer);
+        soak(kieContainer, events, batch, intervalMillis, reportEvery, customers);
+    }
+
+    /**
+     * A short, fully deterministic scenario for one customer.
+     */
+    private static void demo(KieContainer kieContainer) {
+        System.out.println("=== Electronics tier window ===");
+        try (OrderStream stream = OrderStream.withPseudoClock(kieContainer, OrderSink.CONSOLE, 0)) {
+            Order first = new Order("S-1", "C-1", "Electronics", 450.00, 0);
+            Order second = new Order("S-2", "C-1", "Electronics", 400.00, 10 * 60_000L);
+            Order third = new Order("S-3", "C-1", "Electronics", 300.00, 40 * 60_000L);
+            Order late = new Order("S-4", "C-1", "Electronics", 500.00, 2 * HOUR);
+            stream.accept(OrderEvent.insert(first));
+            stream.accept(OrderEvent.insert(second));
+            // 450 + 400 + 300 within the hour unlocks the tier
+            stream.accept(OrderEvent.insert(third));
+            // Two hours later the window only holds this order again
+            stream.accept(OrderEvent.insert(late));
+            for (Order order : List.of(first, second, third, late)) {
+                System.out.println(order);
+            }
+            System.out.println("Orders still in session: " + stream.getOrderCount());
+        }
+    }
+
+    private static void soak(KieContainer kieContainer, long events, int batch, long intervalMillis,
+                             long reportEvery, int customers) {
+        System.out.printf("%n=== Soak: %d events, batch %d, one event every %d ms of stream time ===%n",
+                events, batch, intervalMillis);
+        System.out.printf("%12s %12s %10s %10s %10s %10s%n", "events", "streamTime", "orders", "p50(us)", "p99(us)", "live(MB)");
+
+        Random random = new Random(42);
+        // Per-event latency in microseconds since the last report
+        long[] latency = new long[(int) Math.min(reportEvery, Integer.MAX_VALUE - 8)];
+        int recorded = 0;
+        List<OrderEvent> pending = new ArrayList<>(batch);
+        long time = 0;
+        try (OrderStream stream = OrderStream.withPseudoClock(kieContainer, OrderSink.NONE, 0)) {
+            for (long i = 1; i <= events; i++) {
+                time += intervalMillis;
+                pending.add(nextEvent(random, i, time, customers));
+                if (pending.size() == batch) {
+                    long start = System.nanoTime();
+                    stream.accept(pending);
+                    if (recorded < latency.length) {
+                        latency[recorded++] = (System.nanoTime() - start) / 1000 / pending.size();
+                    }
+                    pending.clear();
+                }
+                if (i % reportEvery == 0) {
+                    // Live heap, not garbage waiting for the next collection
+                    System.gc();
+                    Runtime runtime = Runtime.getRuntime();
+                    System.out.printf("%12d %11.1fh %10d %10d %10d %10d%n", i, time / (double) HOUR,
+                            stream.getOrderCount(), percentile(latency, recorded, 50), percentile(latency, recorded, 99),
+                            (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+                    recorded = 0;
+                }
+            }
+        }
+    }
+
+    private static long percentile(long[] values, int count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, count);
+        return values[(int) Math.min(count - 1, Math.ceil(percentile / 100 * count) - 1)];
+    }
+
+    private static OrderEvent nextEvent(Random random, long sequence, long time, int customers) {
+        int roll = random.nextInt(100);
+        if (roll < 5 && sequence > 10) {
+            // Update a recent order
+            long target = sequence - 1 - random.nextInt(10);
+            return OrderEvent.update(new Order("O-" + target, "C-" + random.nextInt(customers),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], amount(random), 0));
+        }
+        if (roll < 8 && sequence > 10) {
+            return OrderEvent.retract(new Order("O-" + (sequence - 1 - random.nextInt(10)), null, null, 0, 0));
+        }
+        return OrderEvent.insert(new Order("O-" + sequence, "C-" + random.nextInt(customers),
+                CATEGORIES[random.nextInt(CATEGORIES.length)], amount(random), time));
+    }
+
+    private static double amount(Random random) {
+        return Math.round(random.nextDouble() * 60_000) / 100.0;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.kyc;
+
+import com.example.kyc.config.DroolsConfig;
+import com.example.kyc.config.KycQueueConfig;
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.engine.KycRuleEngine;
+import com.example.kyc.function.KycFunctions;
+import com.example.kyc.http.KycHttpServer;
+import com.example.kyc.http.RuleSetETag;
+import com.example.kyc.index.RequirementsIndex;
+import com.example.kyc.queue.KycResultSink;
+import com.example.kyc.schema.BaseSchemaRegistry;
+import com.example.kyc.schema.ConditionalSchemaCompiler;
+import com.example.kyc.schema.SchemaFragmentCache;
+import com.example.kyc.store.PersistentSchemaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.springframework.cloud.function.context.FunctionRegistration;
+import org.springframework.cloud.function.context.FunctionalSpringApplication;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Serverless start class that registers the KYC functions with Spring Cloud Function's
+ * functional bean registration instead of {@link KycRulesApplication}.
+ *
+ * <p>There is no component scan, no auto-configuration and no web server: only the rule
+ * engine, its caches and stores, and the functions are registered, so a cold start is
+ * mostly the Drools build. The functions are the same {@link KycFunctions} instances as in
+ * the REST application and read the same {@code kyc.*} settings. Spring MVC, springdoc,
+ * actuator, gRPC and trace export are not available in this mode.
+ *
+ * <p>Select it with {@code MAIN_CLASS=com.example.kyc.KycFunctionalApplication}, which the
+ * serverless adapters read to find the start class, and choose the function with
+ * {@code spring.cloud.function.definition}.
+ *
+ * <p>With {@code kyc.http.enabled=true} it also serves the REST API on {@code kyc.http.port}
+ * through {@link KycHttpServer}, for sidecar deployments that need the HTTP contract but not
+ * the rest of the Spring Boot stack.
+ */
+public class KycFunctionalApplication implements ApplicationContextInitializer<GenericApplicationContext> {
+
+    private static final Type MAP_FUNCTION = ResolvableType.forClassWithGenerics(Function.class,
+            ResolvableType.forClassWithGenerics(Map.class, String.class, Object.class),
+            ResolvableType.forClassWithGenerics(Map.class, String.class, Object.class)).getType();
+
+    public static void main(String[] args) {
+        FunctionalSpringApplication.run(KycFunctionalApplication.class, args);
+    }
+
+    @Override
+    public void initialize(GenericApplicationContext context) {
+        ConfigurableEnvironment environment = context.getEnvironment();
+        // spring-cloud-function-web is on the classpath for the REST application; nothing is exported here
+        environment.getPropertySources().addLast(new MapPropertySource("kycFunctional",
+                Map.of("spring.cloud.function.web.export.enabled", false)));
+        DroolsConfig droolsConfig = new DroolsConfig();
+
+        context.registerBean(ObjectMapper.class, () -> Jackson2ObjectMapperBuilder.json().build());
+        context.registerBean(ObservationRegistry.class, () -> ObservationRegistry.NOOP);
+        context.registerBean(KieServices.class, droolsConfig::kieServices);
+        context.registerBean(KieContainer.class, () -> {
+            try {
+                return droolsConfig.kieContainer(context.getBean(KieServices.class), context.getBean(RuleSetFingerprint.class),
+                        environment.getProperty("kyc.rules.cache.enabled", Boolean.class, false),
+                        environment.resolvePlaceholders("${kyc.rules.cache.dir:${java.io.tmpdir}/kyc-kiebase-cache}"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        context.registerBean(RuleSetFingerprint.class, () -> {
+            try {
+                return droolsConfig.ruleSetFingerprint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        context.registerBean(KycResultSink.class, () -> {
+            try {
+                return new KycQueueConfig().kycResultSink(context.getBean(ObjectMapper.class),
+                        environment.getProperty("kyc.queue.sink", "log"),
+                        environment.resolvePlaceholders("${kyc.queue.sink-dir:${java.io.tmpdir}/kyc-results}"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        // Constructor injection and @Value defaults as in the REST application
+        context.registerBean(PersistentSchemaStore.class);
+        context.registerBean(KycRuleEngine.class);
+        context.registerBean(SchemaFragmentCache.class);
+        context.registerBean(ConditionalSchemaCompiler.class);
+        context.registerBean(BaseSchemaRegistry.class);
+        // Off unless asked for: a serverless instance would spend its first seconds indexing
+        context.registerBean(RequirementsIndex.class, () -> new RequirementsIndex(context.getBean(RuleSetFingerprint.class),
+                environment.getProperty("kyc.index.enabled", Boolean.class, false),
+                environment.getProperty("kyc.index.retry-delay", Duration.class, Duration.ofSeconds(1))));
+        context.registerBean(KycFunctions.class);
+
+        functions(context).forEach((name, function) -> context.registerBean(name, FunctionRegistration.class,
+                () -> new FunctionRegistration<>(function.apply(context.getBean(KycFunctions.class)), name)
+                        .type(MAP_FUNCTION)));
+
+        if (environment.getProperty("kyc.http.enabled", Boolean.class, false)) {
+            context.registerBean(RuleSetETag.class);
+            context.registerBean(KycHttpServer.class, () -> new KycHttpServer(httpFunctions(context),
+                    context.getBean(ObjectMapper.class),
+                    Integer.parseInt(environment.resolvePlaceholders("${kyc.http.port:${PORT:8080}}")),
+                    context.getBean(RuleSetETag.class)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Function<Map<String, Object>, Map<String, Object>>> httpFunctions(
+            GenericApplicationContext context) {
+        Map<String, Function<Map<String, Object>, Map<String, Object>>> functions = new LinkedHashMap<>();
+        context.getBeansOfType(FunctionRegistration.class).forEach((name, registration) ->
+                functions.put(name, (Function<Map<String, Object>, Map<String, Object>>) registration.getTarget()));
+        return functions;
+    }
+
+    private static Map<String, Function<KycFunctions, Function<Map<String, Object>, Map<String, Object>>>> functions(
+            GenericApplicationContext context) {
+        Map<String, Function<KycFunctions, Function<Map<String, Object>, Map<String, Object>>>> functions =
+                new LinkedHashMap<>();
+        functions.put("getKycRequirements", KycFunctions::getKycRequirements);
+        functions.put("getConditionalKycRequirements", KycFunctions::getConditionalKycRequirements);
+        functions.put("getBaseSchema", KycFunctions::getBaseSchema);
+        functions.put("getKycRequirementsDelta", KycFunctions::getKycRequirementsDelta);
+        functions.put("getCorporateKycRequirementsDelta", KycFunctions::getCorporateKycRequirementsDelta);
+        functions.put("health", KycFunctions::health);
+        functions.put("getCustomerTypes", KycFunctions::getCustomerTypes);
+        functions.put("getAccountTypes", KycFunctions::getAccountTypes);
+        functions.put("getIndividualProducts", KycFunctions::getIndividualProducts);
+        functions.put("getIndividualProductKycRequirements", KycFunctions::getIndividualProductKycRequirements);
+        functions.put("getCorporateKycRequirements", KycFunctions::getCorporateKycRequirements);
+        functions.put("getBundleKycRequirements", KycFunctions::getBundleKycRequirements);
+        functions.put("getCorporateProducts", KycFunctions::getCorporateProducts);
+        functions.put("getSupportedCountries", KycFunctions::getSupportedCountries);
+        functions.put("findKycProfiles", KycFunctions::findKycProfiles);
+        functions.put("processKycQueueBatch", kycFunctions -> kycFunctions.processKycQueueBatch(
+                context.getBean(ObjectMapper.class), context.getBean(KycResultSink.class),
+                context.getEnvironment().getProperty("kyc.queue.deduplicate", Boolean.class, true)));
+        return functions;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.kyc.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Map bounded by entry count that evicts least recently used entries. The entries are
+ * spread over up to 16 segments by key hash, each an access-ordered map behind its own
+ * short lock, so concurrent lookups of different keys rarely wait on each other. Recency
+ * and the bound are kept per segment: each segment holds its share of {@code maxEntries}
+ * and evicts its own least recently used entry. Callers build values outside of any lock
+ * and offer them with {@link #putIfAbsent}.
+ */
+public final class LruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int maxEntries;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries entries to keep; 0 keeps nothing
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        // Fewer segments than entries would leave some segments unable to hold anything
+        int count = maxEntries <= 1 ? 1 : Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maxEntries / count + (i < maxEntries % count ? 1 : 0), evictions);
+        }
+        this.segmentMask = count - 1;
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Caches the value unless the key is present, and returns the cached value: the existing
+     * one, or the given one (also when it was evicted right away because the cache holds
+     * nothing).
+     */
+    public V putIfAbsent(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        V existing;
+        synchronized (segment) {
+            existing = segment.putIfAbsent(key, value);
+        }
+        return existing != null ? existing : value;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public V remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Entries evicted to stay within {@code maxEntries} since the cache was created.
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        // Spread the high bits, as HashMap does, before taking the low ones
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.kyc.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads capture files written by {@link TrafficCaptureFilter}: gzip-compressed JSON lines,
+ * a header object followed by one {@link CapturedRequest} per line.
+ *
+ * <p>The writer flushes after every batch, so the file of a running or killed instance can
+ * be read up to its last complete line.
+ */
+public final class CaptureFile {
+
+    static final String FORMAT = "kyc-capture/1";
+
+    private CaptureFile() {
+    }
+
+    /**
+     * The header and requests of a capture file.
+     *
+     * @param sampleRate fraction of requests that was captured
+     */
+    public record Contents(String started, double sampleRate, List<CapturedRequest> requests) {
+    }
+
+    public static Contents read(Path file, ObjectMapper objectMapper) throws IOException {
+        List<CapturedRequest> requests = new ArrayList<>();
+        Map<?, ?> header = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = readLine(reader)) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (header == null) {
+                    header = objectMapper.readValue(line, Map.class);
+                    if (!FORMAT.equals(header.get("format"))) {
+                        throw new IOException(file + " is not a KYC capture file");
+                    }
+                    continue;
+                }
+                try {
+                    requests.add(objectMapper.readValue(line, CapturedRequest.class));
+                } catch (IOException e) {
+                    // Last line of a capture that was still being written
+                    break;
+                }
+            }
+        }
+        if (header == null) {
+            throw new IOException(file + " is empty");
+        }
+        return new Contents(String.valueOf(header.get("started")), ((Number) header.get("sampleRate")).doubleValue(),
+                requests);
+    }
+
+    // A capture that is still open has no gzip trailer yet
+    private static String readLine(BufferedReader reader) throws IOException {
+        try {
+            return reader.readLine();
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.kyc.capture;
+
+/**
+ * One captured API request, as written to a capture file.
+ *
+ * @param atMicros      arrival time since the capture started
+ * @param gapMicros     time since the previous captured request
+ * @param method        HTTP method
+ * @param path          request path without the query string
+ * @param query         raw query string, or null
+ * @param contentType   request content type, or null
+ * @param body          request body; JSON bodies are rewritten compactly, or null
+ * @param status        response status the service returned
+ * @param latencyMicros time the service took to answer
+ */
+public record CapturedRequest(long atMicros, long gapMicros, String method, String path, String query,
+                              String contentType, String body, int status, long latencyMicros) {
+
+    /**
+     * Method and path, used to group requests in replay reports.
+     */
+    public String route() {
+        return method + " " + path;
+    }
+}
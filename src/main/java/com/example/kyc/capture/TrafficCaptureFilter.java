@@ -0,0 +1,369 @@
+package com.example.kyc.capture;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.function.context.FunctionCatalog;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in capture of live API traffic for replay against other builds (see
+ * {@code com.example.loadgen.TrafficReplay}).
+ *
+ * <p>With {@code kyc.capture.enabled}, a {@code kyc.capture.sample-rate} share of the
+ * requests to the KycController routes and the Spring Cloud Function endpoints is recorded
+ * with its arrival time, the gap to the previous captured request, the service's status and
+ * latency. Only the method, path, query, content type and body are kept. Bodies are JSON
+ * rewritten compactly with only the {@code kyc.capture.fields} the service reads, so names,
+ * identity numbers and anything else a client sends along never reach the file; bodies that
+ * are not JSON or larger than {@code kyc.capture.max-body-size} are passed through without
+ * being captured. A background thread appends the records to a gzip-compressed JSON lines
+ * file in {@code kyc.capture.dir} (see {@link CaptureFile}), which has no default and is
+ * created readable by the service's user only, so request threads never write to disk.
+ * Capturing stops after {@code kyc.capture.max-records}, and records are dropped rather than
+ * queued without bound when the writer falls behind.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TrafficCaptureFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficCaptureFilter.class);
+
+    private static final String API_PREFIX = "/api/v1/kyc/";
+    // The request properties the controller and the functions read
+    private static final String DEFAULT_FIELDS = "customerType,accountType,country,nationality,pep,initialDeposit,"
+            + "product,products,projection,baseId,segment,document,field,rule,limit";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final CapturedRequest END = new CapturedRequest(0, 0, null, null, null, null, null, 0, 0);
+
+    private final ObjectMapper objectMapper;
+    private final FunctionCatalog functionCatalog;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final Path directory;
+    private final long maxRecords;
+    private final int maxBodyBytes;
+    private final Set<String> fields;
+    private final BlockingQueue<CapturedRequest> queue = new ArrayBlockingQueue<>(10_000);
+    private final AtomicLong admitted = new AtomicLong();
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private long lastArrivalMicros;
+    private volatile Set<String> functionNames;
+    private Thread writer;
+
+    public TrafficCaptureFilter(ObjectMapper objectMapper, FunctionCatalog functionCatalog,
+                                @Value("${kyc.capture.enabled:false}") boolean enabled,
+                                @Value("${kyc.capture.sample-rate:0.1}") double sampleRate,
+                                @Value("${kyc.capture.dir:}") String directory,
+                                @Value("${kyc.capture.max-records:100000}") long maxRecords,
+                                @Value("${kyc.capture.max-body-size:16KB}") DataSize maxBodySize,
+                                @Value("${kyc.capture.fields:" + DEFAULT_FIELDS + "}") Set<String> fields) throws IOException {
+        if (enabled && directory.isBlank()) {
+            // Captured bodies are customer data; they do not belong in a shared temp directory by default
+            throw new IllegalStateException("kyc.capture.dir must be set when kyc.capture.enabled is true");
+        }
+        this.objectMapper = objectMapper;
+        this.functionCatalog = functionCatalog;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.maxRecords = maxRecords;
+        this.maxBodyBytes = (int) Math.min(maxBodySize.toBytes(), Integer.MAX_VALUE - 1);
+        this.fields = Set.copyOf(fields);
+        if (enabled) {
+            startWriter();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || admitted.get() >= maxRecords || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !path.startsWith(API_PREFIX) && !isFunctionPath(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long arrivalNanos = System.nanoTime();
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            skipped.increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        // Read the body up front so it is captured even when the controller rejects it unread;
+        // a body without a length is read only up to the cap and the rest streamed through
+        ServletInputStream in = request.getInputStream();
+        byte[] body = in.readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            skipped.increment();
+            chain.doFilter(new CachedBodyRequest(request, new SequenceInputStream(new ByteArrayInputStream(body), in)),
+                    response);
+            return;
+        }
+        String captureBody;
+        try {
+            captureBody = redact(body);
+        } catch (IOException e) {
+            // Only JSON can be reduced to the allowed fields, so anything else is not kept
+            captureBody = null;
+            skipped.increment();
+        }
+        boolean capture = captureBody != null || body.length == 0;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, new ByteArrayInputStream(body)), response);
+        } finally {
+            long latencyMicros = (System.nanoTime() - arrivalNanos) / 1000;
+            if (capture && admitted.incrementAndGet() <= maxRecords) {
+                CapturedRequest record = record(request, captureBody, response.getStatus(),
+                        (arrivalNanos - startNanos) / 1000, latencyMicros);
+                if (!queue.offer(record)) {
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    private synchronized CapturedRequest record(HttpServletRequest request, String body, int status,
+                                                long atMicros, long latencyMicros) {
+        // Requests finish out of order; the gap is to the latest arrival seen so far
+        long gapMicros = Math.max(0, atMicros - lastArrivalMicros);
+        lastArrivalMicros = Math.max(lastArrivalMicros, atMicros);
+        return new CapturedRequest(atMicros, gapMicros, request.getMethod(), request.getRequestURI(),
+                request.getQueryString(), request.getContentType(), body, status, latencyMicros);
+    }
+
+    private String redact(byte[] body) throws IOException {
+        if (body.length == 0) {
+            return null;
+        }
+        JsonNode tree = objectMapper.readTree(body);
+        if (tree == null) {
+            throw new IOException("Body is blank");
+        }
+        if (tree instanceof ObjectNode object) {
+            object.retain(fields);
+        } else if (tree instanceof ArrayNode array) {
+            array.forEach(element -> {
+                if (element instanceof ObjectNode object) {
+                    object.retain(fields);
+                }
+            });
+        }
+        return objectMapper.writeValueAsString(tree);
+    }
+
+    private boolean isFunctionPath(String path) {
+        Set<String> names = functionNames;
+        if (names == null) {
+            names = functionCatalog.getNames(null);
+            functionNames = names;
+        }
+        int end = path.indexOf('/', 1);
+        return names.contains(end < 0 ? path.substring(1) : path.substring(1, end));
+    }
+
+    private void startWriter() throws IOException {
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            if (posix) {
+                Files.setPosixFilePermissions(directory, OWNER_ONLY_DIRECTORY);
+            }
+        }
+        String started = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        Path file = directory.resolve("capture-" + started.replace(":", "").replace(".", "-") + ".jsonl.gz");
+        // Owner-only from creation, so the file is never briefly readable by others
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        } else {
+            Files.createFile(file);
+        }
+        OutputStream out = new GZIPOutputStream(Files.newOutputStream(file), true);
+        Writer fileWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("format", CaptureFile.FORMAT);
+        header.put("started", started);
+        header.put("sampleRate", sampleRate);
+        fileWriter.write(objectMapper.writeValueAsString(header) + "\n");
+        fileWriter.flush();
+
+        writer = new Thread(() -> drain(fileWriter), "kyc-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Capturing {}% of API requests to {}", sampleRate * 100, file);
+    }
+
+    private void drain(Writer fileWriter) {
+        List<CapturedRequest> batch = new ArrayList<>();
+        try (fileWriter) {
+            while (true) {
+                CapturedRequest first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                for (CapturedRequest record : batch) {
+                    if (record == END) {
+                        return;
+                    }
+                    write(fileWriter, record);
+                }
+                fileWriter.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Traffic capture stopped: {}", e.getMessage());
+        }
+    }
+
+    private void write(Writer fileWriter, CapturedRequest record) throws IOException {
+        try {
+            fileWriter.write(objectMapper.writeValueAsString(record));
+            fileWriter.write('\n');
+            captured.increment();
+        } catch (JsonProcessingException e) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            // Block until the writer has room for the end marker, then let it finish the file
+            queue.put(END);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Traffic capture closed: {} requests captured, {} dropped", captured.sum(), dropped.sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("kyc.capture.records", captured, LongAdder::sum)
+                .description("API requests written to the capture file")
+                .register(registry);
+        FunctionCounter.builder("kyc.capture.dropped", dropped, LongAdder::sum)
+                .description("Sampled API requests not captured because the writer fell behind")
+                .register(registry);
+        FunctionCounter.builder("kyc.capture.skipped", skipped, LongAdder::sum)
+                .description("Sampled API requests not captured because the body was too large or not JSON")
+                .register(registry);
+    }
+
+    /**
+     * Serves a body that was already read, in whole or in part, from the original request.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final InputStream body;
+
+        CachedBodyRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            InputStream in = body;
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Asynchronous reads are not supported");
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = in.read(b, off, len);
+                    finished = read < 0;
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,21 +1,31 @@
 package com.example.kyc.config;
 
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
 import org.kie.api.KieServices;
 import org.kie.api.builder.KieBuilder;
 import org.kie.api.builder.KieFileSystem;
 import org.kie.api.builder.KieModule;
 import org.kie.api.runtime.KieContainer;
+import org.kie.internal.conf.ParallelExecutionOption;
 import org.kie.internal.io.ResourceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
 
 @Configuration
 public class DroolsConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(DroolsConfig.class);
+
     private static final String RULES_PATH = "rules/";
 
     @Bean
@@ -23,13 +33,40 @@ public class DroolsConfig {
         return KieServices.Factory.get();
     }
 
+    /**
+     * The container over the DRL files, compiled at every boot unless {@code kyc.rules.cache.enabled}
+     * is set. Then it is loaded from the {@link KieModuleCache} in {@code kyc.rules.cache.dir} when
+     * that holds this rule set, and compiled and cached otherwise.
+     */
     @Bean
-    public KieContainer kieContainer(KieServices kieServices) throws IOException {
+    public KieContainer kieContainer(KieServices kieServices, RuleSetFingerprint ruleSetFingerprint,
+                                     @Value("${kyc.rules.cache.enabled:false}") boolean cacheEnabled,
+                                     @Value("${kyc.rules.cache.dir:${java.io.tmpdir}/kyc-kiebase-cache}") String cacheDir)
+            throws IOException {
+        if (!cacheEnabled) {
+            return compile(kieServices);
+        }
+        KieModuleCache cache = new KieModuleCache(Path.of(cacheDir), ruleSetFingerprint);
+        Optional<KieContainer> cached = cache.load(kieServices);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long start = System.nanoTime();
+        KieContainer kieContainer = compile(kieServices);
+        long compileMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Compiled rule base {} in {} ms", ruleSetFingerprint.getShortHash(), compileMillis);
+        cache.store(kieContainer, compileMillis);
+        return kieContainer;
+    }
+
+    /**
+     * Parses and compiles the DRL files into a new container.
+     */
+    public static KieContainer compile(KieServices kieServices) throws IOException {
         KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
         
         // Load all .drl files from classpath
-        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-        Resource[] ruleFiles = resolver.getResources("classpath*:" + RULES_PATH + "*.drl");
+        Resource[] ruleFiles = ruleResources();
         
         for (Resource ruleFile : ruleFiles) {
             String path = RULES_PATH + ruleFile.getFilename();
@@ -46,4 +83,32 @@ public class DroolsConfig {
         KieModule kieModule = kieBuilder.getKieModule();
         return kieServices.newKieContainer(kieModule.getReleaseId());
     }
+
+    /**
+     * A KieBase over the container's rules, evaluated sequentially or with Drools' parallel
+     * (partitioned) network evaluation. Only PARALLEL_EVALUATION is offered: FULLY_PARALLEL
+     * also fires rules in parallel and ignores salience, which the DRL files rely on.
+     */
+    public static KieBase kieBase(KieServices kieServices, KieContainer kieContainer, boolean parallelEvaluation) {
+        if (!parallelEvaluation) {
+            return kieContainer.getKieBase();
+        }
+        KieBaseConfiguration configuration = kieServices.newKieBaseConfiguration();
+        configuration.setOption(ParallelExecutionOption.PARALLEL_EVALUATION);
+        return kieContainer.newKieBase(configuration);
+    }
+
+    /**
+     * Content hash of the DRL files the container is built from. Anything persisted
+     * from rule output is keyed by this so that a rule change invalidates it.
+     */
+    @Bean
+    public RuleSetFingerprint ruleSetFingerprint() throws IOException {
+        return RuleSetFingerprint.of(ruleResources());
+    }
+
+    static Resource[] ruleResources() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        return resolver.getResources("classpath*:" + RULES_PATH + "*.drl");
+    }
 }
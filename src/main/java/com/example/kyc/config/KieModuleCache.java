@@ -0,0 +1,279 @@
+package com.example.kyc.config;
+
+import org.drools.base.common.DroolsObjectInputStream;
+import org.drools.base.common.DroolsObjectOutputStream;
+import org.drools.base.definitions.InternalKnowledgePackage;
+import org.drools.base.util.Drools;
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.compiler.kie.builder.impl.KieContainerImpl;
+import org.kie.api.KieServices;
+import org.kie.api.definition.KiePackage;
+import org.kie.api.runtime.KieContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * On-disk cache of the compiled rule base, so that a boot with unchanged rules skips the
+ * DRL parse and Java compilation of {@link DroolsConfig#compile}.
+ *
+ * <p>An entry holds the kjar and the compiled packages of each KieBase, serialized by Drools
+ * with the class bytes of the rule consequences. It is named after the {@link RuleSetFingerprint}
+ * (DRL content and Drools version) and the Java feature version, so a change to either is a
+ * miss. On a hit the packages are handed to the loaded kjar as its build result, and the
+ * KieBases are assembled from them without compiling.
+ *
+ * <p>Entries are written to a temp file and atomically renamed, so instances booting together
+ * may both compile but never read a partial entry. A SHA-256 trailer detects corrupt entries,
+ * which are deleted and rebuilt. Because entries are deserialized, the cache is off unless
+ * {@code kyc.rules.cache.enabled} is set, the directory must belong to the current user and
+ * not be writable by others, and only the classes compiled packages are made of are accepted
+ * from it. An entry needing any other class is not written, so a rule edit that brings in a
+ * new kind of condition means compiling at every boot, with a warning naming the class, until
+ * {@link #PACKAGE_FILTER} admits it.
+ */
+public final class KieModuleCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(KieModuleCache.class);
+
+    private static final String MAGIC = "KYC-KIEBASE-1";
+    private static final int DIGEST_LENGTH = 32;
+    // What the packages of the service's DRL files consist of; the rule model packages are
+    // admitted whole so that new kinds of conditions do not turn the cache off
+    static final ObjectInputFilter PACKAGE_FILTER = ObjectInputFilter.Config.createFilter(String.join(";",
+            "maxdepth=50",
+            "java.lang.Object", "java.lang.String", "java.lang.Enum", "java.lang.Boolean", "java.lang.Number",
+            "java.lang.Integer", "java.lang.Long", "java.lang.Double",
+            "java.util.ArrayList", "java.util.List", "java.util.Map", "java.util.Map$Entry", "java.util.HashMap",
+            "java.util.HashSet", "java.util.LinkedHashMap", "java.util.LinkedHashSet", "java.util.IdentityHashMap",
+            "java.util.Collections$EmptyMap", "java.util.Collections$EmptySet", "java.util.Collections$EmptyList",
+            "java.util.Collections$SynchronizedMap",
+            "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap$Segment",
+            "java.util.concurrent.ConcurrentHashMap$CollectionView", "java.util.concurrent.ConcurrentHashMap$KeySetView",
+            "java.util.concurrent.locks.ReentrantLock", "java.util.concurrent.locks.ReentrantLock$Sync",
+            "java.util.concurrent.locks.ReentrantLock$NonfairSync", "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+            "java.util.concurrent.locks.AbstractOwnableSynchronizer",
+            "org.drools.base.base.*", "org.drools.base.base.extractors.*", "org.drools.base.definitions.**",
+            "org.drools.base.factmodel.*", "org.drools.base.rule.**", "org.drools.base.util.index.*",
+            "org.drools.core.rule.JavaDialectRuntimeData", "org.drools.compiler.rule.builder.EvaluatorWrapper",
+            "org.drools.io.BaseResource", "org.drools.io.ClassPathResource", "org.drools.io.ResourceConfigurationImpl",
+            "org.drools.mvel.**", "org.drools.util.PortablePath",
+            "org.kie.api.definition.type.Role$Type", "org.kie.api.io.ResourceType",
+            "!*"));
+
+    private final Path directory;
+    private final RuleSetFingerprint fingerprint;
+    private final Path entry;
+
+    public KieModuleCache(Path directory, RuleSetFingerprint fingerprint) {
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+        this.entry = directory.resolve(fingerprint.getShortHash() + "-java" + Runtime.version().feature() + ".kbc");
+    }
+
+    public Path getEntry() {
+        return entry;
+    }
+
+    /**
+     * A container over the cached rule base, or empty when there is no usable entry.
+     */
+    public Optional<KieContainer> load(KieServices kieServices) {
+        byte[] content;
+        try {
+            checkDirectory();
+            content = Files.readAllBytes(entry);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Not using the rule base cache at {}: {}", directory, e.getMessage());
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        try {
+            if (content.length < DIGEST_LENGTH || !MessageDigest.isEqual(
+                    digest(content, content.length - DIGEST_LENGTH),
+                    Arrays.copyOfRange(content, content.length - DIGEST_LENGTH, content.length))) {
+                throw new IOException("checksum mismatch");
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - DIGEST_LENGTH));
+            if (!MAGIC.equals(in.readUTF()) || !fingerprint.getHash().equals(in.readUTF())) {
+                throw new IOException("entry is for another rule set");
+            }
+            long compileMillis = in.readLong();
+            InternalKieModule kieModule = (InternalKieModule) kieServices.getRepository()
+                    .addKieModule(kieServices.getResources().newByteArrayResource(readBlock(in)));
+            int kieBases = in.readInt();
+            for (int i = 0; i < kieBases; i++) {
+                String kieBaseName = in.readUTF();
+                KnowledgeBuilderImpl builder = new KnowledgeBuilderImpl();
+                for (InternalKnowledgePackage kiePackage : readPackages(readBlock(in))) {
+                    builder.addPackage(kiePackage);
+                }
+                kieModule.cacheKnowledgeBuilderForKieBase(kieBaseName, builder);
+            }
+            KieContainer kieContainer = kieServices.newKieContainer(kieModule.getReleaseId());
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Loaded rule base {} from cache in {} ms (compiling it took {} ms)", fingerprint.getShortHash(),
+                    loadMillis, compileMillis);
+            return Optional.of(kieContainer);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            logger.warn("Discarding unreadable rule base cache entry {}: {}", entry.getFileName(), e.getMessage());
+            deleteQuietly(entry);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the compiled rule base of a freshly built container, unless an entry exists.
+     */
+    public void store(KieContainer kieContainer, long compileMillis) {
+        Path temp = null;
+        try {
+            checkDirectory();
+            if (Files.exists(entry)) {
+                return;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(MAGIC);
+            out.writeUTF(fingerprint.getHash());
+            out.writeLong(compileMillis);
+            InternalKieModule kieModule = (InternalKieModule) ((KieContainerImpl) kieContainer).getKieModuleForKBase(
+                    kieContainer.getKieBaseNames().iterator().next());
+            writeBlock(out, kieModule.getBytes());
+            Map<String, Collection<KiePackage>> packages = new LinkedHashMap<>();
+            for (String kieBaseName : kieContainer.getKieBaseNames()) {
+                packages.put(kieBaseName, kieModule.getKnowledgePackagesForKieBase(kieBaseName));
+            }
+            out.writeInt(packages.size());
+            for (Map.Entry<String, Collection<KiePackage>> kieBase : packages.entrySet()) {
+                byte[] block = writePackages(kieBase.getValue());
+                try {
+                    // Only write what a later boot will accept
+                    readPackages(block);
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+                out.writeUTF(kieBase.getKey());
+                writeBlock(out, block);
+            }
+            out.flush();
+            out.write(digest(bytes.toByteArray(), bytes.size()));
+
+            temp = Files.createTempFile(directory, ".entry-", ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Cached rule base {} for Drools {} at {} ({} KB)", fingerprint.getShortHash(),
+                    Drools.getFullVersion(), entry, bytes.size() / 1024);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not cache the rule base at {}: {}", entry, e.getMessage());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    // Entries are deserialized, so refuse a directory someone else could have written to
+    private void checkDirectory() throws IOException {
+        if (!Files.exists(directory)) {
+            try {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } catch (UnsupportedOperationException e) {
+                Files.createDirectories(directory);
+            }
+        }
+        if (!Files.getOwner(directory).getName().equals(System.getProperty("user.name"))) {
+            throw new IOException(directory + " is not owned by " + System.getProperty("user.name"));
+        }
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+            if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                throw new IOException(directory + " is writable by other users");
+            }
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system; ownership was checked above
+        }
+    }
+
+    private static byte[] writePackages(Collection<KiePackage> packages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new DroolsObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(packages));
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<InternalKnowledgePackage> readPackages(byte[] bytes) throws IOException, ClassNotFoundException {
+        List<String> rejected = new ArrayList<>();
+        try (ObjectInputStream in = new DroolsObjectInputStream(new ByteArrayInputStream(bytes),
+                KieModuleCache.class.getClassLoader())) {
+            in.setObjectInputFilter(info -> {
+                ObjectInputFilter.Status status = PACKAGE_FILTER.checkInput(info);
+                if (status == ObjectInputFilter.Status.REJECTED) {
+                    rejected.add(info.serialClass() != null ? info.serialClass().getName() : "limits exceeded");
+                }
+                return status;
+            });
+            return (List<InternalKnowledgePackage>) in.readObject();
+        } catch (InvalidClassException e) {
+            throw rejected.isEmpty() ? e : new InvalidClassException("not accepted from the cache: " + rejected.get(0));
+        }
+    }
+
+    private static void writeBlock(DataOutputStream out, byte[] block) throws IOException {
+        out.writeInt(block.length);
+        out.write(block);
+    }
+
+    private static byte[] readBlock(DataInputStream in) throws IOException {
+        byte[] block = new byte[in.readInt()];
+        in.readFully(block);
+        return block;
+    }
+
+    private static byte[] digest(byte[] content, int length) {
+        MessageDigest digest = RuleSetFingerprint.sha256();
+        digest.update(content, 0, length);
+        return digest.digest();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+}
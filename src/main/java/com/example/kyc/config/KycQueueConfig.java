@@ -0,0 +1,43 @@
+package com.example.kyc.config;
+
+import com.example.kyc.queue.JsonLinesResultSink;
+import com.example.kyc.queue.KycResultSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Result sink for queue-driven evaluation (processKycQueueBatch), selected by
+ * {@code kyc.queue.sink}:
+ * <ul>
+ *   <li>{@code log}: one log line per record with its status and metadata or error message</li>
+ *   <li>{@code file}: JSON lines appended to {@code kyc.queue.sink-dir}/kyc-results.jsonl</li>
+ *   <li>{@code none}: results are discarded</li>
+ * </ul>
+ */
+@Configuration
+public class KycQueueConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycQueueConfig.class);
+
+    @Bean
+    public KycResultSink kycResultSink(ObjectMapper objectMapper,
+                                       @Value("${kyc.queue.sink:log}") String sink,
+                                       @Value("${kyc.queue.sink-dir:${java.io.tmpdir}/kyc-results}") String sinkDir)
+            throws IOException {
+        return switch (sink) {
+            case "log" -> result -> logger.info("Queue record {}: {} {}", result.messageId(), result.status(),
+                    result.response().containsKey("error") ? result.response().get("message")
+                            : result.response().get("x-metadata"));
+            case "file" -> new JsonLinesResultSink(objectMapper, Path.of(sinkDir));
+            case "none" -> KycResultSink.NONE;
+            default -> throw new IllegalArgumentException("kyc.queue.sink must be log, file or none, not " + sink);
+        };
+    }
+}
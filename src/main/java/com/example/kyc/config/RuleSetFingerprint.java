@@ -0,0 +1,67 @@
+package com.example.kyc.config;
+
+import org.drools.base.util.Drools;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 over the Drools version and the name and content of every DRL file,
+ * taken in file name order so the result does not depend on classpath ordering.
+ */
+public final class RuleSetFingerprint {
+
+    private final String hash;
+
+    private RuleSetFingerprint(String hash) {
+        this.hash = hash;
+    }
+
+    public static RuleSetFingerprint of(Resource[] ruleFiles) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(Drools.getFullVersion().getBytes(StandardCharsets.UTF_8));
+
+        Resource[] sorted = ruleFiles.clone();
+        Arrays.sort(sorted, Comparator.comparing(r -> String.valueOf(r.getFilename())));
+        for (Resource ruleFile : sorted) {
+            digest.update(String.valueOf(ruleFile.getFilename()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream in = ruleFile.getInputStream()) {
+                digest.update(in.readAllBytes());
+            }
+            digest.update((byte) 0);
+        }
+        return new RuleSetFingerprint(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * First 16 hex characters, enough to name directories and files.
+     */
+    public String getShortHash() {
+        return hash.substring(0, 16);
+    }
+
+    @Override
+    public String toString() {
+        return hash;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.kyc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.ReceiverContext;
+import org.springframework.cloud.function.context.catalog.FunctionAroundWrapper;
+import org.springframework.cloud.function.context.catalog.SimpleFunctionRegistry.FunctionInvocationWrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.messaging.Message;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Tracing additions on top of Spring Boot's observation support.
+ *
+ * <p>Spring MVC already traces each KycController call as an {@code http.server.requests}
+ * span and continues the caller's trace. Spring Cloud Function's own invocation
+ * observation does not read the message headers, so this configuration replaces it with
+ * one that continues a W3C {@code traceparent} header on the invocation message (the aws
+ * adapter, FunctionCatalog lookups). KycRuleEngine and KycFunctions add the rule evaluation
+ * spans underneath; this configuration also adds the last piece, JSON serialization of
+ * the response body.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   ObservationRegistry observationRegistry) {
+        return new ObservedJacksonHttpMessageConverter(objectMapper, observationRegistry);
+    }
+
+    @Bean
+    public FunctionAroundWrapper functionAroundWrapper(ObservationRegistry observationRegistry) {
+        return new PropagatingFunctionAroundWrapper(observationRegistry);
+    }
+
+    /**
+     * Same {@code spring.cloud.function} observation as Spring Cloud Function's wrapper, but
+     * as a receiver of the message so the tracing handler extracts the trace context from
+     * its headers.
+     */
+    static class PropagatingFunctionAroundWrapper extends FunctionAroundWrapper {
+
+        private final ObservationRegistry observationRegistry;
+
+        PropagatingFunctionAroundWrapper(ObservationRegistry observationRegistry) {
+            this.observationRegistry = observationRegistry;
+        }
+
+        @Override
+        protected Object doApply(Object input, FunctionInvocationWrapper targetFunction) {
+            Message<?> message = (Message<?>) input;
+            ReceiverContext<Message<?>> context = new ReceiverContext<>((carrier, key) -> {
+                Object value = carrier.getHeaders().get(key);
+                return value != null ? value.toString() : null;
+            });
+            context.setCarrier(message);
+            String definition = targetFunction.getFunctionDefinition();
+            return Observation.createNotStarted("spring.cloud.function", () -> context, observationRegistry)
+                    .contextualName(definition)
+                    .lowCardinalityKeyValue("spring.cloud.function.definition", definition)
+                    .observe(() -> targetFunction.apply(message));
+        }
+    }
+
+    static class ObservedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+        private final ObservationRegistry observationRegistry;
+
+        ObservedJacksonHttpMessageConverter(ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+            super(objectMapper);
+            this.observationRegistry = observationRegistry;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            Observation observation = Observation.createNotStarted("kyc.response.serialize", observationRegistry)
+                    .contextualName("kyc serialize response")
+                    .start();
+            try (Observation.Scope scope = observation.openScope()) {
+                super.writeInternal(object, type, outputMessage);
+            } catch (IOException | RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.kyc.controller;
 
+import com.example.kyc.model.BundleKycRequest;
 import com.example.kyc.model.CorporateKycRequest;
 import com.example.kyc.model.IndividualKycRequest;
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,6 +35,12 @@ public class KycController {
     private final Function<Map<String, Object>, Map<String, Object>> getSupportedCountries;
     private final Function<Map<String, Object>, Map<String, Object>> getIndividualProductsFunc;
     private final Function<Map<String, Object>, Map<String, Object>> getIndividualProductKycRequirements;
+    private final Function<Map<String, Object>, Map<String, Object>> getBundleKycRequirements;
+    private final Function<Map<String, Object>, Map<String, Object>> getConditionalKycRequirements;
+    private final Function<Map<String, Object>, Map<String, Object>> getBaseSchema;
+    private final Function<Map<String, Object>, Map<String, Object>> getKycRequirementsDelta;
+    private final Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirementsDelta;
+    private final Function<Map<String, Object>, Map<String, Object>> findKycProfiles;
 
     public KycController(
             Function<Map<String, Object>, Map<String, Object>> getKycRequirements,
@@ -44,7 +51,13 @@ public class KycController {
             Function<Map<String, Object>, Map<String, Object>> getCorporateProducts,
             Function<Map<String, Object>, Map<String, Object>> getSupportedCountries,
             Function<Map<String, Object>, Map<String, Object>> getIndividualProducts,
-            Function<Map<String, Object>, Map<String, Object>> getIndividualProductKycRequirements) {
+            Function<Map<String, Object>, Map<String, Object>> getIndividualProductKycRequirements,
+            Function<Map<String, Object>, Map<String, Object>> getBundleKycRequirements,
+            Function<Map<String, Object>, Map<String, Object>> getConditionalKycRequirements,
+            Function<Map<String, Object>, Map<String, Object>> getBaseSchema,
+            Function<Map<String, Object>, Map<String, Object>> getKycRequirementsDelta,
+            Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirementsDelta,
+            Function<Map<String, Object>, Map<String, Object>> findKycProfiles) {
         this.getKycRequirements = getKycRequirements;
         this.health = health;
         this.getCustomerTypes = getCustomerTypes;
@@ -54,12 +67,21 @@ public class KycController {
         this.getSupportedCountries = getSupportedCountries;
         this.getIndividualProductsFunc = getIndividualProducts;
         this.getIndividualProductKycRequirements = getIndividualProductKycRequirements;
+        this.getBundleKycRequirements = getBundleKycRequirements;
+        this.getConditionalKycRequirements = getConditionalKycRequirements;
+        this.getBaseSchema = getBaseSchema;
+        this.getKycRequirementsDelta = getKycRequirementsDelta;
+        this.getCorporateKycRequirementsDelta = getCorporateKycRequirementsDelta;
+        this.findKycProfiles = findKycProfiles;
     }
 
     @PostMapping("/requirements")
     @Operation(
             summary = "Get Individual KYC Requirements",
-            description = "Returns nested JSON Schema with KYC requirements for individual customers based on customer type, account type, nationality, and PEP status"
+            description = "Returns nested JSON Schema with KYC requirements for individual customers based on customer type, account type, nationality, PEP status and initial deposit. "
+                    + "With mode=conditional the schema covers every answer to nationality, PEP status and initial deposit through if/then branches on kyc_profile. "
+                    + "With mode=delta and base=<x-base-id> only a JSON Patch against the cached individual base schema is returned (full schema if the base is stale). "
+                    + "With projection=metadata or projection=<CATEGORY,...> only x-metadata and the listed categories are returned"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved KYC requirements",
@@ -78,13 +100,28 @@ public class KycController {
                             schema = @Schema(implementation = IndividualKycRequest.class)
                     )
             )
-            @RequestBody IndividualKycRequest request) {
+            @RequestBody IndividualKycRequest request,
+            @Parameter(description = "full (default), conditional or delta")
+            @RequestParam(required = false, defaultValue = "full") String mode,
+            @Parameter(description = "x-base-id of the cached base schema, for mode=delta")
+            @RequestParam(required = false) String base,
+            @Parameter(description = "metadata, or comma separated categories such as IDENTIFICATION,EMPLOYMENT; only rules for those categories fire")
+            @RequestParam(required = false) String projection) {
         Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("projection", projection);
         requestMap.put("customerType", request.getCustomerType());
         requestMap.put("accountType", request.getAccountType());
         requestMap.put("nationality", request.getNationality());
         requestMap.put("pep", request.getPep());
+        requestMap.put("initialDeposit", request.getInitialDeposit());
         requestMap.put("country", request.getCountry());
+        if ("conditional".equalsIgnoreCase(mode)) {
+            return getConditionalKycRequirements.apply(requestMap);
+        }
+        if ("delta".equalsIgnoreCase(mode)) {
+            requestMap.put("baseId", base);
+            return getKycRequirementsDelta.apply(requestMap);
+        }
         return getKycRequirements.apply(requestMap);
     }
 
@@ -133,7 +170,8 @@ public class KycController {
     @PostMapping("/product/requirements")
     @Operation(
             summary = "Get Individual Product KYC Requirements",
-            description = "Returns nested JSON Schema with product-specific KYC requirements for individual customers (SAVINGS, CURRENT, FIXED_DEPOSIT, INVESTMENT, LOAN, CREDIT_CARD)"
+            description = "Returns nested JSON Schema with product-specific KYC requirements for individual customers (SAVINGS, CURRENT, FIXED_DEPOSIT, INVESTMENT, LOAN, CREDIT_CARD). "
+                    + "With projection=metadata or projection=<CATEGORY,...> only x-metadata and the listed categories are returned"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved individual product KYC requirements",
@@ -152,8 +190,11 @@ public class KycController {
                             schema = @Schema(implementation = com.example.kyc.model.IndividualProductKycRequest.class)
                     )
             )
-            @RequestBody com.example.kyc.model.IndividualProductKycRequest request) {
+            @RequestBody com.example.kyc.model.IndividualProductKycRequest request,
+            @Parameter(description = "metadata, or comma separated categories such as IDENTIFICATION,EMPLOYMENT; only rules for those categories fire")
+            @RequestParam(required = false) String projection) {
         Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("projection", projection);
         requestMap.put("product", request.getProduct());
         requestMap.put("country", request.getCountry());
         return getIndividualProductKycRequirements.apply(requestMap);
@@ -162,7 +203,9 @@ public class KycController {
     @PostMapping("/corporate/requirements")
     @Operation(
             summary = "Get Corporate KYC Requirements",
-            description = "Returns nested JSON Schema with product-specific KYC requirements for corporate customers (CASA, FX, TRADING)"
+            description = "Returns nested JSON Schema with product-specific KYC requirements for corporate customers (CASA, FX, TRADING). "
+                    + "With mode=delta and base=<x-base-id> only a JSON Patch against the cached corporate base schema is returned (full schema if the base is stale). "
+                    + "With projection=metadata or projection=<CATEGORY,...> (e.g. DIRECTORS_SHAREHOLDERS) only x-metadata and the listed categories are returned"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved corporate KYC requirements",
@@ -181,13 +224,70 @@ public class KycController {
                             schema = @Schema(implementation = CorporateKycRequest.class)
                     )
             )
-            @RequestBody CorporateKycRequest request) {
+            @RequestBody CorporateKycRequest request,
+            @Parameter(description = "full (default) or delta")
+            @RequestParam(required = false, defaultValue = "full") String mode,
+            @Parameter(description = "x-base-id of the cached base schema, for mode=delta")
+            @RequestParam(required = false) String base,
+            @Parameter(description = "metadata, or comma separated categories such as IDENTIFICATION,EMPLOYMENT; only rules for those categories fire")
+            @RequestParam(required = false) String projection) {
         Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("projection", projection);
         requestMap.put("product", request.getProduct());
         requestMap.put("country", request.getCountry());
+        if ("delta".equalsIgnoreCase(mode)) {
+            requestMap.put("baseId", base);
+            return getCorporateKycRequirementsDelta.apply(requestMap);
+        }
         return getCorporateKycRequirements.apply(requestMap);
     }
 
+    @GetMapping("/base-schemas/{segment}")
+    @Operation(summary = "Get Base Schema",
+            description = "Versioned schema with the requirements most profiles of a segment (individual or corporate) share. "
+                    + "Cache it by x-base-id and request profile requirements with mode=delta")
+    @ApiResponse(responseCode = "200", description = "Base schema of the segment",
+            content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"$schema\":\"http://json-schema.org/draft-07/schema#\",\"title\":\"Singapore KYC Form\",\"description\":\"Requirements shared by most individual profiles\",\"type\":\"object\",\"properties\":{\"personal_details\":{}},\"required\":[\"personal_details\"],\"x-base-id\":\"individual-3f9c1a2b7d40\"}")
+            ))
+    public Map<String, Object> getBaseSchema(@PathVariable String segment) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("segment", segment);
+        return getBaseSchema.apply(request);
+    }
+
+    @PostMapping("/bundle/requirements")
+    @Operation(
+            summary = "Get Multi-Product Bundle KYC Requirements",
+            description = "Evaluates several products opened together in one rule pass and returns a single merged JSON Schema. Shared fields appear once with x-required-by listing the products that need them; risk level and processing days are the highest of the products"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved bundle KYC requirements",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(name = "SAVINGS + CREDIT_CARD bundle",
+                                    value = "{\"$schema\":\"http://json-schema.org/draft-07/schema#\",\"title\":\"Singapore KYC Form - Bundle\",\"type\":\"object\",\"properties\":{\"personal_details\":{\"type\":\"object\",\"title\":\"Personal Details\",\"properties\":{\"full_name\":{\"type\":\"string\",\"x-required-by\":[\"SAVINGS\",\"CREDIT_CARD\"]}}},\"credit_assessment\":{\"type\":\"object\",\"properties\":{\"credit_bureau_consent\":{\"type\":\"boolean\",\"x-required-by\":[\"CREDIT_CARD\"]}}}},\"x-metadata\":{\"products\":[\"SAVINGS\",\"CREDIT_CARD\"],\"riskLevel\":\"LOW\",\"estimatedProcessingDays\":3}}")
+                    ))
+    })
+    public Map<String, Object> getBundleRequirements(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Bundle KYC request with the products opened together",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BundleKycRequest.class)
+                    )
+            )
+            @RequestBody BundleKycRequest request) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("customerType", request.getCustomerType());
+        requestMap.put("products", request.getProducts());
+        requestMap.put("nationality", request.getNationality());
+        requestMap.put("pep", request.getPep());
+        requestMap.put("country", request.getCountry());
+        return getBundleKycRequirements.apply(requestMap);
+    }
+
     @GetMapping("/corporate/products")
     @Operation(summary = "Get Corporate Products", description = "List all available corporate banking products with descriptions")
     @ApiResponse(responseCode = "200", description = "List of corporate products with descriptions",
@@ -209,4 +309,29 @@ public class KycController {
     public Map<String, Object> getSupportedCountries() {
         return getSupportedCountries.apply(null);
     }
+
+    @GetMapping("/profiles")
+    @Operation(summary = "Find Profiles by Requirement",
+            description = "Profiles (customer type, account type and answer ranges, or corporate product) whose requirements contain the given document, field id or rule, "
+                    + "answered from an index built over every profile when the rule base loads. Without a parameter, lists the documents, fields and rules in the index")
+    @ApiResponse(responseCode = "200", description = "Matching profiles",
+            content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"field\":\"fx_experience\",\"matchingProfiles\":1,\"totalProfiles\":435,\"customerTypes\":[\"CORPORATE\"],\"accountTypes\":[],\"products\":[\"FX\"],\"profiles\":[{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}],\"truncated\":false}")
+            ))
+    public Map<String, Object> findProfiles(
+            @Parameter(description = "Required document, e.g. NRIC Back")
+            @RequestParam(required = false) String document,
+            @Parameter(description = "Field id, e.g. fx_experience")
+            @RequestParam(required = false) String field,
+            @Parameter(description = "Rule name")
+            @RequestParam(required = false) String rule,
+            @Parameter(description = "Maximum number of profiles listed (default 100)")
+            @RequestParam(required = false) Integer limit) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("document", document);
+        request.put("field", field);
+        request.put("rule", rule);
+        request.put("limit", limit);
+        return findKycProfiles.apply(request);
+    }
 }
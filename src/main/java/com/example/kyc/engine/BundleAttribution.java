@@ -0,0 +1,180 @@
+package com.example.kyc.engine;
+
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Attributes rule output to the bundle fact that a rule matched. Rules fire one at a time,
+ * so everything a consequence appends to the shared globals between beforeMatchFired and
+ * afterMatchFired belongs to the matched fact. responseData and rulesList are different
+ * because rules also read them (the current processing days, whether a rule name is already
+ * listed): those globals are views pointed at the matched product's own map and list while its
+ * consequence runs, so each product sees what it would see evaluated on its own.
+ */
+class BundleAttribution extends DefaultAgendaEventListener {
+
+    private final List<Map<String, Object>> facts;
+    private final List<Map<String, Object>> fieldsList;
+    private final List<String> documentsList;
+    private final List<String> instructionsList;
+    private final ProductData responseData;
+    private final ProductRules rulesList;
+
+    private final List<List<Map<String, Object>>> fields = new ArrayList<>();
+    private final List<List<String>> documents = new ArrayList<>();
+    private final List<List<String>> instructions = new ArrayList<>();
+    private final List<List<String>> rules = new ArrayList<>();
+    private final List<Map<String, Object>> productData = new ArrayList<>();
+    private final int[] fired;
+
+    private int current = -1;
+    private int fieldsMark;
+    private int documentsMark;
+    private int instructionsMark;
+
+    BundleAttribution(List<Map<String, Object>> facts, Map<String, Object> responseDefaults,
+                      List<Map<String, Object>> fieldsList, List<String> rulesList, List<String> documentsList,
+                      List<String> instructionsList) {
+        this.facts = facts;
+        this.fieldsList = fieldsList;
+        this.documentsList = documentsList;
+        this.instructionsList = instructionsList;
+        this.responseData = new ProductData();
+        this.rulesList = new ProductRules(rulesList);
+        this.fired = new int[facts.size()];
+        for (int i = 0; i < facts.size(); i++) {
+            fields.add(new ArrayList<>());
+            documents.add(new ArrayList<>());
+            instructions.add(new ArrayList<>());
+            rules.add(new ArrayList<>());
+            productData.add(new HashMap<>(responseDefaults));
+        }
+    }
+
+    /**
+     * The map to register as the responseData global.
+     */
+    Map<String, Object> responseData() {
+        return responseData;
+    }
+
+    /**
+     * The list to register as the rulesList global.
+     */
+    List<String> rulesList() {
+        return rulesList;
+    }
+
+    @Override
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+        current = factIndex(event.getMatch().getObjects());
+        responseData.target = productData.get(current);
+        rulesList.target = rules.get(current);
+        fieldsMark = fieldsList.size();
+        documentsMark = documentsList.size();
+        instructionsMark = instructionsList.size();
+        fired[current]++;
+    }
+
+    @Override
+    public void afterMatchFired(AfterMatchFiredEvent event) {
+        fields.get(current).addAll(fieldsList.subList(fieldsMark, fieldsList.size()));
+        documents.get(current).addAll(documentsList.subList(documentsMark, documentsList.size()));
+        instructions.get(current).addAll(instructionsList.subList(instructionsMark, instructionsList.size()));
+    }
+
+    List<RuleOutcome> outcomes() {
+        List<RuleOutcome> outcomes = new ArrayList<>(facts.size());
+        for (int i = 0; i < facts.size(); i++) {
+            outcomes.add(new RuleOutcome(fields.get(i), rules.get(i), documents.get(i), instructions.get(i),
+                    productData.get(i), fired[i]));
+        }
+        return outcomes;
+    }
+
+    private int factIndex(List<Object> matched) {
+        for (Object object : matched) {
+            for (int i = 0; i < facts.size(); i++) {
+                if (facts.get(i) == object) {
+                    return i;
+                }
+            }
+        }
+        // Rules without a request pattern count towards the first product
+        return 0;
+    }
+
+    /**
+     * responseData view that forwards to the product whose rule is currently firing.
+     */
+    static final class ProductData extends AbstractMap<String, Object> {
+
+        private Map<String, Object> target = new HashMap<>();
+
+        @Override
+        public Object get(Object key) {
+            return target.get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return target.put(key, value);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return target.containsKey(key);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return target.remove(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return target.entrySet();
+        }
+    }
+
+    /**
+     * rulesList view that lists each rule name once per product, and once in the merged list
+     * of the whole bundle.
+     */
+    static final class ProductRules extends AbstractList<String> {
+
+        private final List<String> merged;
+        private List<String> target = new ArrayList<>();
+
+        ProductRules(List<String> merged) {
+            this.merged = merged;
+        }
+
+        @Override
+        public boolean add(String ruleName) {
+            if (!merged.contains(ruleName)) {
+                merged.add(ruleName);
+            }
+            return target.add(ruleName);
+        }
+
+        @Override
+        public String get(int index) {
+            return target.get(index);
+        }
+
+        @Override
+        public int size() {
+            return target.size();
+        }
+    }
+}
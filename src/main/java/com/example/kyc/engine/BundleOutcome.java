@@ -0,0 +1,50 @@
+package com.example.kyc.engine;
+
+import java.util.List;
+
+/**
+ * Result of evaluating several product requests in one session. Each product gets its own
+ * RuleOutcome with the fields, documents, instructions and responseData produced by the
+ * rules that matched that product's fact; appliedRules, documents and instructions are
+ * also kept merged across the whole bundle.
+ */
+public class BundleOutcome {
+
+    private final List<RuleOutcome> products;
+    private final List<String> appliedRules;
+    private final List<String> documents;
+    private final List<String> instructions;
+    private final int rulesFired;
+
+    public BundleOutcome(List<RuleOutcome> products, List<String> appliedRules, List<String> documents,
+                         List<String> instructions, int rulesFired) {
+        this.products = products;
+        this.appliedRules = appliedRules;
+        this.documents = documents;
+        this.instructions = instructions;
+        this.rulesFired = rulesFired;
+    }
+
+    /**
+     * One outcome per request fact, in the order the facts were passed in.
+     */
+    public List<RuleOutcome> getProducts() {
+        return products;
+    }
+
+    public List<String> getAppliedRules() {
+        return appliedRules;
+    }
+
+    public List<String> getDocuments() {
+        return documents;
+    }
+
+    public List<String> getInstructions() {
+        return instructions;
+    }
+
+    public int getRulesFired() {
+        return rulesFired;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.kyc.engine;
+
+import com.example.kyc.jfr.RuleFiredEvent;
+import jdk.jfr.EventType;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watches one evaluation for runaway rules. Before each firing it checks the deadline and
+ * halts the session once it has passed, so a modify loop or a chain of slow consequences
+ * cannot hold the request thread.
+ *
+ * <p>To name the culprits it remembers the most recent firings with their consequence
+ * times, and which rules changed working memory. The KYC rules only read the request fact,
+ * so any rule that updates, inserts or deletes a fact is reported first: that is what
+ * re-activates the other rules in a loop.
+ *
+ * <p>Halting takes effect between firings: a single consequence that never returns is not
+ * interrupted.
+ *
+ * <p>While a flight recording enables it, the guard also emits a {@link RuleFiredEvent} per
+ * firing. It sees every firing anyway, and a second agenda listener per session costs more
+ * than the events themselves.
+ */
+class EvaluationGuard extends DefaultAgendaEventListener implements RuleRuntimeEventListener {
+
+    private static final int RECENT_FIRINGS = 256;
+    private static final int REPORTED_RULES = 5;
+    private static final EventType RULE_FIRED = EventType.getEventType(RuleFiredEvent.class);
+
+    private final KieSession session;
+    private final long deadlineNanos;
+    private final String[] recentRules = new String[RECENT_FIRINGS];
+    private final long[] recentNanos = new long[RECENT_FIRINGS];
+    private final Map<String, Integer> factChanges = new LinkedHashMap<>();
+    private final boolean ruleFiredEvents = RULE_FIRED.isEnabled();
+    private RuleFiredEvent ruleFired;
+    private int fired;
+    private long firingStart;
+    private boolean deadlineExceeded;
+
+    /**
+     * @param deadlineMillis time allowed from now; zero or less disables the deadline
+     */
+    EvaluationGuard(KieSession session, long deadlineMillis) {
+        this.session = session;
+        this.deadlineNanos = deadlineMillis > 0 ? System.nanoTime() + deadlineMillis * 1_000_000 : 0;
+    }
+
+    @Override
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+        recentRules[fired % RECENT_FIRINGS] = event.getMatch().getRule().getName();
+        firingStart = System.nanoTime();
+        if (ruleFiredEvents) {
+            ruleFired = new RuleFiredEvent();
+            ruleFired.begin();
+        }
+        if (deadlineNanos != 0 && !deadlineExceeded && firingStart - deadlineNanos > 0) {
+            // The current match still fires; the agenda stops after it
+            deadlineExceeded = true;
+            session.halt();
+        }
+    }
+
+    @Override
+    public void afterMatchFired(AfterMatchFiredEvent event) {
+        recentNanos[fired % RECENT_FIRINGS] = System.nanoTime() - firingStart;
+        fired++;
+        if (ruleFired != null) {
+            ruleFired.end();
+            if (ruleFired.shouldCommit()) {
+                Rule rule = event.getMatch().getRule();
+                ruleFired.rule = rule.getName();
+                ruleFired.ruleGroup = RuleGroupObservations.groupOf(rule.getName());
+                ruleFired.rulePackage = rule.getPackageName();
+                ruleFired.commit();
+            }
+            ruleFired = null;
+        }
+    }
+
+    @Override
+    public void objectInserted(ObjectInsertedEvent event) {
+        recordFactChange(event.getRule());
+    }
+
+    @Override
+    public void objectUpdated(ObjectUpdatedEvent event) {
+        recordFactChange(event.getRule());
+    }
+
+    @Override
+    public void objectDeleted(ObjectDeletedEvent event) {
+        recordFactChange(event.getRule());
+    }
+
+    // Inserts by the engine itself (the request fact) have no rule
+    private void recordFactChange(Rule rule) {
+        if (rule != null) {
+            factChanges.merge(rule.getName(), 1, Integer::sum);
+        }
+    }
+
+    boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * Rules that changed working memory, then the rules with the most consequence time
+     * among the recent firings, e.g. {@code "FX - Trading Requirements (x12, 240.5 ms)"}.
+     */
+    List<String> activeRules() {
+        Map<String, long[]> recent = new LinkedHashMap<>();
+        for (int i = Math.max(0, fired - RECENT_FIRINGS); i < fired; i++) {
+            long[] stats = recent.computeIfAbsent(recentRules[i % RECENT_FIRINGS], rule -> new long[2]);
+            stats[0]++;
+            stats[1] += recentNanos[i % RECENT_FIRINGS];
+        }
+
+        List<String> active = new ArrayList<>();
+        factChanges.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(REPORTED_RULES)
+                .forEach(entry -> active.add(String.format("%s (changed facts x%d, %.1f ms)", entry.getKey(),
+                        entry.getValue(), recent.getOrDefault(entry.getKey(), new long[2])[1] / 1e6)));
+        recent.entrySet().stream()
+                .filter(entry -> !factChanges.containsKey(entry.getKey()))
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1]).reversed())
+                .limit(Math.max(0, REPORTED_RULES - active.size()))
+                .forEach(entry -> active.add(String.format("%s (x%d, %.1f ms)",
+                        entry.getKey(), entry.getValue()[0], entry.getValue()[1] / 1e6)));
+        return active;
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.kyc.engine;
+
+import com.example.kyc.jfr.FireAllRulesEvent;
+import com.example.kyc.jfr.SessionCreatedEvent;
+import com.example.kyc.store.PersistentSchemaStore;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.kie.api.KieBase;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs the KYC rule base against a single request fact.
+ * All KycFunctions evaluations go through here so that session handling and
+ * the globals contract of the DRL files live in one place.
+ *
+ * <p>Each evaluation is traced as a {@code kyc.evaluate} observation with child
+ * observations for session acquisition and rule firing, and optionally one child per
+ * rule group (see {@link RuleGroupObservations}). For JDK Flight Recorder it emits
+ * {@link SessionCreatedEvent}, {@link FireAllRulesEvent} and, while a recording enables it,
+ * one {@link com.example.kyc.jfr.RuleFiredEvent} per firing (from {@link EvaluationGuard}).
+ *
+ * <p>Every evaluation runs under a cap on rule firings and, when configured, a deadline (see
+ * {@link EvaluationGuard}); a stopped evaluation throws {@link RuleEvaluationException}.
+ * Profiles that keep hitting the cap are rejected up front by a {@link ProfileCircuitBreaker}.
+ *
+ * <p>Sessions come from the KieBase of the request's segment, individual or corporate, which
+ * is sequential or uses parallel network evaluation as {@code kyc.evaluation.parallel.*}
+ * selects (see {@link SegmentKieBases}). Segments set to {@code auto} stay sequential until
+ * {@link #calibrateParallelEvaluation()} has run.
+ */
+@Component
+public class KycRuleEngine {
+
+    private final PersistentSchemaStore schemaStore;
+    private final ObservationRegistry observationRegistry;
+    private final boolean ruleGroupObservations;
+    private final long deadlineMillis;
+    private final int maxFirings;
+    private final ProfileCircuitBreaker circuitBreaker;
+    private final SegmentKieBases kieBases;
+
+    public KycRuleEngine(KieContainer kieContainer, PersistentSchemaStore schemaStore,
+                         ObservationRegistry observationRegistry,
+                         @Value("${kyc.tracing.rule-group-spans:false}") boolean ruleGroupObservations,
+                         @Value("${kyc.evaluation.deadline-ms:0}") long deadlineMillis,
+                         @Value("${kyc.evaluation.max-firings:1000}") int maxFirings,
+                         @Value("${kyc.evaluation.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                         @Value("${kyc.evaluation.circuit-breaker.open-ms:30000}") long openMillis,
+                         @Value("${kyc.evaluation.parallel.individual:sequential}") String individualMode,
+                         @Value("${kyc.evaluation.parallel.corporate:sequential}") String corporateMode) {
+        this.schemaStore = schemaStore;
+        this.observationRegistry = observationRegistry;
+        this.ruleGroupObservations = ruleGroupObservations;
+        this.deadlineMillis = deadlineMillis;
+        this.maxFirings = maxFirings;
+        this.circuitBreaker = new ProfileCircuitBreaker(failureThreshold, openMillis);
+        this.kieBases = new SegmentKieBases(kieContainer, Map.of(
+                SegmentKieBases.Segment.INDIVIDUAL, individualMode,
+                SegmentKieBases.Segment.CORPORATE, corporateMode),
+                (kieBase, fact, defaults) -> calibrationNanos(kieBase, fact, defaults, maxFirings));
+    }
+
+    /**
+     * How many KieBases the engine holds: the container's default one, plus the parallel one
+     * when a segment uses parallel network evaluation.
+     */
+    public int getKieBaseCount() {
+        return kieBases.getModes().containsValue(SegmentKieBases.Mode.PARALLEL) ? 2 : 1;
+    }
+
+    /**
+     * Whether a segment set to {@code auto} is evaluated sequentially until
+     * {@link #calibrateParallelEvaluation()} has run.
+     */
+    public boolean needsParallelCalibration() {
+        return kieBases.needsCalibration();
+    }
+
+    /**
+     * Times the segments set to {@code auto} with both KieBases and switches those that gain
+     * to parallel network evaluation. Blocks for a few seconds of CPU; later calls do nothing.
+     */
+    public void calibrateParallelEvaluation() {
+        kieBases.calibrate();
+    }
+
+    /**
+     * Evaluates the rules for the given fact.
+     *
+     * @param fact             the request map inserted into the session
+     * @param responseDefaults initial content of the responseData global (riskLevel, ...)
+     * @throws RuleEvaluationException when the evaluation is stopped or its circuit is open
+     */
+    public RuleOutcome evaluate(Map<String, Object> fact, Map<String, Object> responseDefaults) {
+        return evaluate(fact, responseDefaults, Projection.FULL);
+    }
+
+    /**
+     * Evaluates the rules for the given fact, firing only the rules the projection needs.
+     * The returned outcome holds the fields of the projected categories; risk level,
+     * documents and instructions are the same as for the full evaluation. Projected
+     * outcomes are served from the persistent schema store but never written to it.
+     *
+     * @param fact             the request map inserted into the session
+     * @param responseDefaults initial content of the responseData global (riskLevel, ...)
+     * @param projection       the categories the caller asked for
+     * @throws RuleEvaluationException when the evaluation is stopped or its circuit is open
+     */
+    public RuleOutcome evaluate(Map<String, Object> fact, Map<String, Object> responseDefaults, Projection projection) {
+        Observation evaluation = Observation.createNotStarted("kyc.evaluate", observationRegistry)
+                .contextualName("kyc evaluate")
+                .lowCardinalityKeyValue("kyc.projection", projection.kind())
+                .start();
+        try (Observation.Scope scope = evaluation.openScope()) {
+            RuleOutcome outcome = doEvaluate(fact, responseDefaults, projection, evaluation);
+            Object riskLevel = outcome.getResponseData().get("riskLevel");
+            evaluation.lowCardinalityKeyValue("kyc.source", outcome.isFromStore() ? "store" : "rules")
+                    .lowCardinalityKeyValue("kyc.risk.level", riskLevel != null ? riskLevel.toString() : "NONE")
+                    .highCardinalityKeyValue("kyc.rules.fired", String.valueOf(outcome.getRulesFired()))
+                    .highCardinalityKeyValue("kyc.field.count", String.valueOf(outcome.getFields().size()));
+            return outcome;
+        } catch (RuntimeException e) {
+            evaluation.error(e);
+            throw e;
+        } finally {
+            evaluation.stop();
+        }
+    }
+
+    /**
+     * Evaluates several request facts (one per product of a bundle) in a single session.
+     * Bundles bypass the persistent schema store.
+     *
+     * @param facts            one request map per product
+     * @param responseDefaults initial responseData content for every product
+     * @throws RuleEvaluationException when the evaluation is stopped or its circuit is open
+     */
+    public BundleOutcome evaluateBundle(List<Map<String, Object>> facts, Map<String, Object> responseDefaults) {
+        Observation evaluation = Observation.createNotStarted("kyc.evaluate", observationRegistry)
+                .contextualName("kyc evaluate bundle")
+                .lowCardinalityKeyValue("kyc.source", "bundle")
+                .highCardinalityKeyValue("kyc.bundle.size", String.valueOf(facts.size()))
+                .start();
+        try (Observation.Scope scope = evaluation.openScope()) {
+            BundleOutcome outcome = doEvaluateBundle(facts, responseDefaults, evaluation);
+            evaluation.highCardinalityKeyValue("kyc.rules.fired", String.valueOf(outcome.getRulesFired()));
+            return outcome;
+        } catch (RuntimeException e) {
+            evaluation.error(e);
+            throw e;
+        } finally {
+            evaluation.stop();
+        }
+    }
+
+    private BundleOutcome doEvaluateBundle(List<Map<String, Object>> facts, Map<String, Object> responseDefaults,
+                                           Observation parent) {
+        List<Map<String, Object>> fieldsList = new ArrayList<>();
+        List<String> rulesList = new ArrayList<>();
+        List<String> documentsList = new ArrayList<>();
+        List<String> instructionsList = new ArrayList<>();
+        BundleAttribution attribution = new BundleAttribution(facts, responseDefaults, fieldsList, rulesList,
+                documentsList, instructionsList);
+        circuitBreaker.acquire(facts);
+
+        KieSession kieSession = newSession(kieBases.kieBase(facts), facts.size(), fieldsList, attribution.rulesList(),
+                documentsList, instructionsList, attribution.responseData());
+        int rulesFired;
+        try {
+            kieSession.addEventListener(attribution);
+            facts.forEach(kieSession::insert);
+            rulesFired = fireAllRules(kieSession, Projection.FULL, parent);
+        } catch (RuleEvaluationException e) {
+            circuitBreaker.recordFailure(facts, e);
+            throw e;
+        } finally {
+            kieSession.dispose();
+        }
+        circuitBreaker.recordSuccess(facts);
+        return new BundleOutcome(attribution.outcomes(), rulesList, documentsList, instructionsList, rulesFired);
+    }
+
+    private KieSession newSession(KieBase kieBase, int facts, List<Map<String, Object>> fieldsList, List<String> rulesList,
+                                  List<String> documentsList, List<String> instructionsList,
+                                  Map<String, Object> responseData) {
+        return Observation.createNotStarted("kyc.session.acquire", observationRegistry)
+                .contextualName("kyc session acquire")
+                .observe(() -> {
+                    SessionCreatedEvent created = new SessionCreatedEvent();
+                    created.begin();
+                    KieSession session = withGlobals(kieBase.newKieSession(), fieldsList, rulesList, documentsList,
+                            instructionsList, responseData);
+                    created.facts = facts;
+                    created.commit();
+                    return session;
+                });
+    }
+
+    private static KieSession withGlobals(KieSession session, List<Map<String, Object>> fieldsList,
+                                          List<String> rulesList, List<String> documentsList,
+                                          List<String> instructionsList, Map<String, Object> responseData) {
+        session.setGlobal("fieldsList", fieldsList);
+        session.setGlobal("rulesList", rulesList);
+        session.setGlobal("documentsList", documentsList);
+        session.setGlobal("instructionsList", instructionsList);
+        session.setGlobal("responseData", responseData);
+        return session;
+    }
+
+    private RuleOutcome doEvaluate(Map<String, Object> fact, Map<String, Object> responseDefaults,
+                                   Projection projection, Observation parent) {
+        Optional<RuleOutcome> stored = schemaStore.read(fact, responseDefaults);
+        if (stored.isPresent()) {
+            stored.get().markFromStore();
+            return projection.apply(stored.get());
+        }
+
+        List<Map<String, Object>> profile = List.of(fact);
+        circuitBreaker.acquire(profile);
+
+        // Initialize collections for rule outputs
+        List<Map<String, Object>> fieldsList = new ArrayList<>();
+        List<String> rulesList = new ArrayList<>();
+        List<String> documentsList = new ArrayList<>();
+        List<String> instructionsList = new ArrayList<>();
+        Map<String, Object> responseData = new HashMap<>(responseDefaults);
+
+        KieSession kieSession = newSession(kieBases.kieBase(profile), 1, fieldsList, rulesList, documentsList,
+                instructionsList, responseData);
+
+        int rulesFired;
+        try {
+            kieSession.insert(fact);
+            rulesFired = fireAllRules(kieSession, projection, parent);
+        } catch (RuleEvaluationException e) {
+            circuitBreaker.recordFailure(profile, e);
+            throw e;
+        } finally {
+            kieSession.dispose();
+        }
+        circuitBreaker.recordSuccess(profile);
+
+        RuleOutcome outcome = new RuleOutcome(fieldsList, rulesList, documentsList, instructionsList, responseData, rulesFired);
+        if (!projection.isFull()) {
+            // Risk-affecting rules may still add fields of other categories
+            return projection.apply(outcome);
+        }
+        schemaStore.write(fact, responseDefaults, outcome);
+        return outcome;
+    }
+
+    // One evaluation without deadline, observations or events, for choosing a segment's KieBase
+    private static long calibrationNanos(KieBase kieBase, Map<String, Object> fact, Map<String, Object> responseDefaults,
+                                         int maxFirings) {
+        long start = System.nanoTime();
+        KieSession kieSession = withGlobals(kieBase.newKieSession(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new HashMap<>(responseDefaults));
+        try {
+            kieSession.insert(new HashMap<>(fact));
+            kieSession.fireAllRules(maxFirings > 0 ? maxFirings : -1);
+        } finally {
+            kieSession.dispose();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private int fireAllRules(KieSession kieSession, Projection projection, Observation parent) {
+        Observation firing = Observation.createNotStarted("kyc.rules.fire", observationRegistry)
+                .contextualName("kyc fireAllRules")
+                .parentObservation(parent)
+                .start();
+        RuleGroupObservations groups = null;
+        if (ruleGroupObservations && !observationRegistry.isNoop()) {
+            groups = new RuleGroupObservations(observationRegistry, firing);
+            kieSession.addEventListener(groups);
+        }
+        EvaluationGuard guard = new EvaluationGuard(kieSession, deadlineMillis);
+        kieSession.addEventListener((AgendaEventListener) guard);
+        kieSession.addEventListener((RuleRuntimeEventListener) guard);
+        FireAllRulesEvent fireAllRules = new FireAllRulesEvent();
+        fireAllRules.projection = projection.kind();
+        fireAllRules.outcome = "COMPLETED";
+        fireAllRules.begin();
+        try (Observation.Scope scope = firing.openScope()) {
+            // One firing over the cap tells a runaway apart from an evaluation that needs exactly the cap
+            int rulesFired = kieSession.fireAllRules(projection.isFull() ? null : projection,
+                    maxFirings > 0 ? maxFirings + 1 : -1);
+            firing.highCardinalityKeyValue("kyc.rules.fired", String.valueOf(rulesFired));
+            fireAllRules.rulesFired = rulesFired;
+            if (guard.isDeadlineExceeded()) {
+                fireAllRules.outcome = RuleEvaluationException.Reason.DEADLINE_EXCEEDED.name();
+                throw new RuleEvaluationException(RuleEvaluationException.Reason.DEADLINE_EXCEEDED,
+                        "Rule evaluation exceeded its " + deadlineMillis + " ms deadline after " + rulesFired + " firings",
+                        guard.activeRules(), rulesFired);
+            }
+            if (maxFirings > 0 && rulesFired > maxFirings) {
+                fireAllRules.outcome = RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED.name();
+                throw new RuleEvaluationException(RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED,
+                        "Rule evaluation stopped after " + maxFirings + " firings, the cap per evaluation",
+                        guard.activeRules(), rulesFired);
+            }
+            return rulesFired;
+        } catch (RuntimeException e) {
+            if ("COMPLETED".equals(fireAllRules.outcome)) {
+                fireAllRules.outcome = "FAILED";
+            }
+            firing.error(e);
+            throw e;
+        } finally {
+            fireAllRules.commit();
+            if (groups != null) {
+                groups.close();
+            }
+            firing.stop();
+        }
+    }
+}
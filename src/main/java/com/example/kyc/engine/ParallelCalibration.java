@@ -0,0 +1,34 @@
+package com.example.kyc.engine;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calibrates the segments set to {@code kyc.evaluation.parallel.*: auto} on a background
+ * thread once the REST application is ready, so startup does not wait for it and requests
+ * are answered sequentially meanwhile.
+ *
+ * <p>Found by component scanning only: {@code KycFunctionalApplication} does not register it,
+ * because a short-lived serverless instance would spend its first seconds calibrating. There
+ * {@code auto} means sequential.
+ */
+@Component
+public class ParallelCalibration implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final KycRuleEngine ruleEngine;
+
+    public ParallelCalibration(KycRuleEngine ruleEngine) {
+        this.ruleEngine = ruleEngine;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!ruleEngine.needsParallelCalibration()) {
+            return;
+        }
+        Thread calibration = new Thread(ruleEngine::calibrateParallelEvaluation, "kyc-parallel-calibration");
+        calibration.setDaemon(true);
+        calibration.start();
+    }
+}
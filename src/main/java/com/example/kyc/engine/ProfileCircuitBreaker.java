@@ -0,0 +1,118 @@
+package com.example.kyc.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fails fast for profiles whose evaluations keep being stopped. After
+ * {@code failureThreshold} consecutive firing-cap failures the profile's circuit opens and
+ * evaluations are rejected without a session for {@code openMillis}. Then a single trial
+ * evaluation is let through: success closes the circuit, failure opens it again.
+ *
+ * <p>Deadline trips neither count nor reset the failures. A GC pause or a busy host stops
+ * every evaluation in flight, whatever its profile, while the firing cap is only reached by
+ * the profile's own rules.
+ *
+ * <p>Only failing profiles are tracked, so the map stays empty under normal traffic.
+ */
+class ProfileCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileCircuitBreaker.class);
+
+    // Bounds memory if every request is a new failing profile
+    private static final int MAX_TRACKED_PROFILES = 10_000;
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    private static final class State {
+        int consecutiveFailures;
+        long openUntil;
+        RuleEvaluationException lastFailure;
+    }
+
+    /**
+     * @param failureThreshold consecutive failures that open the circuit; zero or less disables it
+     * @param openMillis       how long an open circuit rejects evaluations before a trial
+     */
+    ProfileCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * @throws RuleEvaluationException with reason CIRCUIT_OPEN when the profile is rejected
+     */
+    void acquire(List<Map<String, Object>> facts) {
+        if (failureThreshold <= 0 || states.isEmpty()) {
+            return;
+        }
+        State state = states.get(keyOf(facts));
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.consecutiveFailures < failureThreshold) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - state.openUntil >= 0) {
+                // Let one trial through and keep rejecting the rest for another period
+                state.openUntil = now + openNanos;
+                return;
+            }
+            RuleEvaluationException last = state.lastFailure;
+            long remainingMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(state.openUntil - now));
+            throw new RuleEvaluationException(RuleEvaluationException.Reason.CIRCUIT_OPEN,
+                    "Rule evaluation for this profile is suspended for " + remainingMillis + " ms after "
+                            + state.consecutiveFailures + " consecutive failures; last failure: " + last.getMessage(),
+                    last.getActiveRules(), 0);
+        }
+    }
+
+    void recordSuccess(List<Map<String, Object>> facts) {
+        if (states.isEmpty()) {
+            return;
+        }
+        String profile = keyOf(facts);
+        if (states.remove(profile) != null) {
+            logger.info("Circuit closed for profile {}", profile);
+        }
+    }
+
+    void recordFailure(List<Map<String, Object>> facts, RuleEvaluationException failure) {
+        if (failureThreshold <= 0 || failure.getReason() != RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED) {
+            return;
+        }
+        String profile = keyOf(facts);
+        if (states.size() >= MAX_TRACKED_PROFILES && !states.containsKey(profile)) {
+            return;
+        }
+        State state = states.computeIfAbsent(profile, key -> new State());
+        synchronized (state) {
+            state.consecutiveFailures++;
+            state.lastFailure = failure;
+            if (state.consecutiveFailures >= failureThreshold) {
+                state.openUntil = System.nanoTime() + openNanos;
+                logger.warn("Circuit open for profile {} after {} consecutive failures: {}",
+                        profile, state.consecutiveFailures, failure.getMessage());
+            }
+        }
+    }
+
+    // Sorted keys, so equal requests map to the same circuit whatever their key order
+    private static String keyOf(List<Map<String, Object>> facts) {
+        StringBuilder key = new StringBuilder();
+        for (Map<String, Object> fact : facts) {
+            key.append(new TreeMap<>(fact));
+        }
+        return key.toString();
+    }
+}
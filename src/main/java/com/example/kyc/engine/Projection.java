@@ -0,0 +1,161 @@
+package com.example.kyc.engine;
+
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.rule.AgendaFilter;
+import org.kie.api.runtime.rule.Match;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The part of a requirements response a caller asked for: everything, only the x-metadata
+ * (risk level, documents, processing days, ...) or the metadata plus some field categories.
+ *
+ * <p>A projection is also an {@link AgendaFilter}. Rules tagged {@code @projection("CATEGORY")}
+ * in the DRL only contribute fields of that category, so they are skipped unless the
+ * category is requested. Untagged rules always fire because they set the risk level,
+ * documents or instructions that every projection reports.
+ */
+public final class Projection implements AgendaFilter {
+
+    public static final Projection FULL = new Projection(null);
+    public static final Projection METADATA = new Projection(Set.of());
+
+    /**
+     * The field categories the DRL files assign, individual and corporate.
+     */
+    public static final Set<String> CATEGORIES = Set.of(
+            "AML_CFT", "COMPANY_DETAILS", "COMPANY_INFORMATION", "CONTACT_DETAILS", "CREDIT_ASSESSMENT",
+            "DECLARATIONS", "DIRECTORS_SHAREHOLDERS", "EMPLOYMENT", "FINANCIAL", "FINANCIAL_INFORMATION",
+            "IDENTIFICATION", "INVESTMENT_PROFILE", "PEP_DECLARATION", "PERSONAL_DETAILS", "PRODUCT_CASA",
+            "PRODUCT_FX", "PRODUCT_TRADING", "TAX_COMPLIANCE", "TAX_INFORMATION");
+
+    static final String RULE_METADATA_KEY = "projection";
+
+    // null for the full response, empty for metadata only
+    private final Set<String> categories;
+
+    private Projection(Set<String> categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * Parses a projection parameter: absent, blank or {@code full} for the full response,
+     * {@code metadata} for metadata only, otherwise a comma separated list (or a JSON array)
+     * of field categories such as {@code IDENTIFICATION,DIRECTORS_SHAREHOLDERS}.
+     *
+     * @throws IllegalArgumentException for a category not in {@link #CATEGORIES}; the message
+     *                                  lists the valid values
+     */
+    public static Projection parse(Object value) {
+        if (value == null) {
+            return FULL;
+        }
+        String text = value instanceof Collection<?> list
+                ? list.stream().map(String::valueOf).collect(Collectors.joining(","))
+                : value.toString().trim();
+        if (text.isEmpty() || text.equalsIgnoreCase("full")) {
+            return FULL;
+        }
+        if (text.equalsIgnoreCase("metadata")) {
+            return METADATA;
+        }
+        Set<String> categories = new TreeSet<>();
+        for (String category : text.split(",")) {
+            if (!category.isBlank()) {
+                categories.add(category.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        Set<String> unknown = new TreeSet<>(categories);
+        unknown.removeAll(CATEGORIES);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown projection " + String.join(",", unknown)
+                    + "; valid values are full, metadata or a comma separated list of "
+                    + String.join(", ", new TreeSet<>(CATEGORIES)));
+        }
+        return categories.isEmpty() ? FULL : new Projection(Set.copyOf(categories));
+    }
+
+    public boolean isFull() {
+        return categories == null;
+    }
+
+    public boolean includes(String category) {
+        return categories == null || categories.contains(category);
+    }
+
+    /**
+     * Label used in x-metadata and observations: {@code full}, {@code metadata} or the sorted
+     * category list.
+     */
+    public String describe() {
+        if (categories == null) {
+            return "full";
+        }
+        return categories.isEmpty() ? "metadata" : String.join(",", new TreeSet<>(categories));
+    }
+
+    /**
+     * Low cardinality variant of {@link #describe()} for metrics and traces.
+     */
+    public String kind() {
+        if (categories == null) {
+            return "full";
+        }
+        return categories.isEmpty() ? "metadata" : "categories";
+    }
+
+    /**
+     * Fields of the requested categories, in their original order.
+     */
+    public List<Map<String, Object>> filter(List<Map<String, Object>> fields) {
+        if (categories == null) {
+            return fields;
+        }
+        return fields.stream()
+                .filter(field -> categories.contains(String.valueOf(field.get("category"))))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Narrows an outcome to the requested categories. Metadata is kept as is.
+     */
+    RuleOutcome apply(RuleOutcome outcome) {
+        if (categories == null) {
+            return outcome;
+        }
+        RuleOutcome projected = new RuleOutcome(filter(outcome.getFields()), outcome.getAppliedRules(),
+                outcome.getDocuments(), outcome.getInstructions(), outcome.getResponseData(), outcome.getRulesFired());
+        if (outcome.isFromStore()) {
+            projected.markFromStore();
+        }
+        return projected;
+    }
+
+    @Override
+    public boolean accept(Match match) {
+        if (categories == null) {
+            return true;
+        }
+        Rule rule = match.getRule();
+        Object category = rule.getMetaData().get(RULE_METADATA_KEY);
+        return category == null || categories.contains(unquote(category.toString()));
+    }
+
+    // Older DRL parsers keep the quotes of @key("value")
+    private static String unquote(String value) {
+        return value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.kyc.engine;
+
+import java.util.List;
+
+/**
+ * Thrown when an evaluation is stopped before the rules finished: the deadline passed,
+ * the firing cap was reached, or the profile's circuit breaker is open after repeated
+ * failures. Carries the rules that were firing, most active first, so a runaway rule
+ * can be identified from the error response alone.
+ */
+public class RuleEvaluationException extends RuntimeException {
+
+    public enum Reason {
+        DEADLINE_EXCEEDED,
+        MAX_FIRINGS_EXCEEDED,
+        CIRCUIT_OPEN
+    }
+
+    private final Reason reason;
+    private final List<String> activeRules;
+    private final int rulesFired;
+
+    public RuleEvaluationException(Reason reason, String message, List<String> activeRules, int rulesFired) {
+        super(message);
+        this.reason = reason;
+        this.activeRules = List.copyOf(activeRules);
+        this.rulesFired = rulesFired;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * The rules most likely responsible: rules that changed facts first, then the rules
+     * with the most recent consequence time, e.g. {@code "FX - Trading Requirements (x12, 240.5 ms)"}.
+     */
+    public List<String> getActiveRules() {
+        return activeRules;
+    }
+
+    public int getRulesFired() {
+        return rulesFired;
+    }
+}
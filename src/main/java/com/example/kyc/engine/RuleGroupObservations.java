@@ -0,0 +1,55 @@
+package com.example.kyc.engine;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+
+/**
+ * Opens one child observation per rule group while rules fire. A rule group is the
+ * part of the rule name before {@code " - "} ("Corporate", "FX", "PEP", ...), and
+ * consecutive firings of the same group share one observation. Rules fire in salience
+ * order on the calling thread, so at most one group observation is open at a time.
+ */
+class RuleGroupObservations extends DefaultAgendaEventListener {
+
+    private final ObservationRegistry observationRegistry;
+    private final Observation parent;
+    private Observation current;
+    private String currentGroup;
+    private int firedInGroup;
+
+    RuleGroupObservations(ObservationRegistry observationRegistry, Observation parent) {
+        this.observationRegistry = observationRegistry;
+        this.parent = parent;
+    }
+
+    static String groupOf(String ruleName) {
+        int separator = ruleName.indexOf(" - ");
+        return separator > 0 ? ruleName.substring(0, separator) : ruleName;
+    }
+
+    @Override
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+        String group = groupOf(event.getMatch().getRule().getName());
+        if (!group.equals(currentGroup)) {
+            close();
+            currentGroup = group;
+            current = Observation.createNotStarted("kyc.rules.group", observationRegistry)
+                    .contextualName("kyc rule group " + group)
+                    .parentObservation(parent)
+                    .lowCardinalityKeyValue("kyc.rule.group", group)
+                    .start();
+        }
+        firedInGroup++;
+    }
+
+    void close() {
+        if (current != null) {
+            current.highCardinalityKeyValue("kyc.rules.fired", String.valueOf(firedInGroup)).stop();
+            current = null;
+            currentGroup = null;
+            firedInGroup = 0;
+        }
+    }
+}
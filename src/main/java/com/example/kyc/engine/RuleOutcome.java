@@ -0,0 +1,79 @@
+package com.example.kyc.engine;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the KYC rules write into their globals during one evaluation:
+ * the generated fields, the names of the rules that contributed, required
+ * documents, special instructions and the responseData map (riskLevel,
+ * estimatedProcessingDays, products, ...).
+ */
+public class RuleOutcome {
+
+    private final List<Map<String, Object>> fields;
+    private final List<String> appliedRules;
+    private final List<String> documents;
+    private final List<String> instructions;
+    private final Map<String, Object> responseData;
+    private final int rulesFired;
+    private boolean fromStore;
+
+    @JsonCreator
+    public RuleOutcome(@JsonProperty("fields") List<Map<String, Object>> fields,
+                       @JsonProperty("appliedRules") List<String> appliedRules,
+                       @JsonProperty("documents") List<String> documents,
+                       @JsonProperty("instructions") List<String> instructions,
+                       @JsonProperty("responseData") Map<String, Object> responseData,
+                       @JsonProperty("rulesFired") int rulesFired) {
+        this.fields = fields != null ? fields : new ArrayList<>();
+        this.appliedRules = appliedRules != null ? appliedRules : new ArrayList<>();
+        this.documents = documents != null ? documents : new ArrayList<>();
+        this.instructions = instructions != null ? instructions : new ArrayList<>();
+        this.responseData = responseData != null ? responseData : new HashMap<>();
+        this.rulesFired = rulesFired;
+    }
+
+    public List<Map<String, Object>> getFields() {
+        return fields;
+    }
+
+    public List<String> getAppliedRules() {
+        return appliedRules;
+    }
+
+    public List<String> getDocuments() {
+        return documents;
+    }
+
+    public List<String> getInstructions() {
+        return instructions;
+    }
+
+    public Map<String, Object> getResponseData() {
+        return responseData;
+    }
+
+    public int getRulesFired() {
+        return rulesFired;
+    }
+
+    /**
+     * True when the outcome was read from the persistent schema store instead of
+     * being produced by firing the rules.
+     */
+    @JsonIgnore
+    public boolean isFromStore() {
+        return fromStore;
+    }
+
+    void markFromStore() {
+        this.fromStore = true;
+    }
+}
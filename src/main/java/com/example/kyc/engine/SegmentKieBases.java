@@ -0,0 +1,197 @@
+package com.example.kyc.engine;
+
+import com.example.kyc.config.DroolsConfig;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The KieBase each customer segment is evaluated with: sequential, or with Drools' parallel
+ * network evaluation (see {@link DroolsConfig#kieBase}).
+ *
+ * <p>A segment set to {@code auto} is evaluated sequentially until {@link #calibrate()} has
+ * run, which {@link ParallelCalibration} does once in the background after the REST
+ * application is ready; the functional application never calibrates. Calibration evaluates
+ * the segment's heaviest profile (PEP individual, corporate TRADING) with both KieBases in
+ * alternating rounds, and switches to the parallel one only when its median is at least 10%
+ * below the sequential one. With a single available processor the partitions cannot run
+ * concurrently, so {@code auto} means sequential without calibrating.
+ */
+class SegmentKieBases {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentKieBases.class);
+
+    private static final int CALIBRATION_ROUNDS = 20;
+    private static final int CALIBRATION_BATCH = 50;
+    private static final double REQUIRED_GAIN = 0.10;
+
+    enum Mode { SEQUENTIAL, PARALLEL, AUTO }
+
+    /**
+     * Customer segments, with the profile that activates the most rules and the response
+     * defaults it is evaluated with.
+     */
+    enum Segment {
+        INDIVIDUAL(Map.of("customerType", "INDIVIDUAL", "accountType", "INVESTMENT", "pep", true,
+                "nationality", "MALAYSIA", "initialDeposit", 250000, "country", "SINGAPORE"),
+                Map.of("riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 3)),
+        CORPORATE(Map.of("customerType", "CORPORATE", "product", "TRADING", "country", "SINGAPORE"),
+                Map.of("riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 7));
+
+        private final Map<String, Object> heaviestProfile;
+        private final Map<String, Object> responseDefaults;
+
+        Segment(Map<String, Object> heaviestProfile, Map<String, Object> responseDefaults) {
+            this.heaviestProfile = heaviestProfile;
+            this.responseDefaults = responseDefaults;
+        }
+
+        static Segment of(List<Map<String, Object>> facts) {
+            return facts.stream().anyMatch(fact -> "CORPORATE".equals(fact.get("customerType"))) ? CORPORATE : INDIVIDUAL;
+        }
+    }
+
+    /**
+     * Times one evaluation of a fact, with response defaults, on a KieBase.
+     */
+    interface Calibration {
+        long evaluationNanos(KieBase kieBase, Map<String, Object> fact, Map<String, Object> responseDefaults);
+    }
+
+    private final KieServices kieServices = KieServices.Factory.get();
+    private final KieContainer kieContainer;
+    private final Calibration calibration;
+    private final KieBase sequential;
+    private final Set<Segment> uncalibrated = EnumSet.noneOf(Segment.class);
+    private KieBase parallel;
+    // Replaced as a whole, so request threads never see a half-calibrated state
+    private volatile Map<Segment, KieBase> kieBases;
+    private volatile Map<Segment, Mode> modes;
+
+    SegmentKieBases(KieContainer kieContainer, Map<Segment, String> configuredModes, Calibration calibration) {
+        this.kieContainer = kieContainer;
+        this.calibration = calibration;
+        this.sequential = DroolsConfig.kieBase(kieServices, kieContainer, false);
+        Map<Segment, KieBase> selected = new EnumMap<>(Segment.class);
+        Map<Segment, Mode> selectedModes = new EnumMap<>(Segment.class);
+        for (Segment segment : Segment.values()) {
+            String name = segment.name().toLowerCase(Locale.ROOT);
+            Mode mode = parse(segment, configuredModes.get(segment));
+            if (mode == Mode.AUTO && Runtime.getRuntime().availableProcessors() < 2) {
+                logger.info("Evaluating {} profiles sequentially (auto: one available processor)", name);
+                mode = Mode.SEQUENTIAL;
+            } else if (mode == Mode.AUTO) {
+                logger.info("Evaluating {} profiles sequentially until calibrated (auto)", name);
+                uncalibrated.add(segment);
+                mode = Mode.SEQUENTIAL;
+            } else if (mode == Mode.PARALLEL) {
+                logger.info("Evaluating {} profiles with parallel network evaluation", name);
+            }
+            selected.put(segment, mode == Mode.PARALLEL ? parallel() : sequential);
+            selectedModes.put(segment, mode);
+        }
+        this.kieBases = selected;
+        this.modes = selectedModes;
+    }
+
+    KieBase kieBase(List<Map<String, Object>> facts) {
+        return kieBases.get(Segment.of(facts));
+    }
+
+    /**
+     * SEQUENTIAL or PARALLEL per segment; segments set to auto are SEQUENTIAL until calibrated.
+     */
+    Map<Segment, Mode> getModes() {
+        return modes;
+    }
+
+    /**
+     * Whether a segment set to auto is still waiting for {@link #calibrate()}.
+     */
+    synchronized boolean needsCalibration() {
+        return !uncalibrated.isEmpty();
+    }
+
+    /**
+     * Calibrates the segments set to auto and switches those that gain to the parallel
+     * KieBase. Takes a few seconds of CPU; later calls do nothing.
+     */
+    synchronized void calibrate() {
+        for (Segment segment : uncalibrated) {
+            Mode mode = calibrate(segment, sequential, parallel(), calibration);
+            Map<Segment, KieBase> selected = new EnumMap<>(kieBases);
+            Map<Segment, Mode> selectedModes = new EnumMap<>(modes);
+            selected.put(segment, mode == Mode.PARALLEL ? parallel() : sequential);
+            selectedModes.put(segment, mode);
+            kieBases = selected;
+            modes = selectedModes;
+        }
+        uncalibrated.clear();
+        if (!modes.containsValue(Mode.PARALLEL)) {
+            // Built only to calibrate against
+            parallel = null;
+        }
+    }
+
+    private synchronized KieBase parallel() {
+        if (parallel == null) {
+            parallel = DroolsConfig.kieBase(kieServices, kieContainer, true);
+        }
+        return parallel;
+    }
+
+    private static Mode parse(Segment segment, String value) {
+        try {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("kyc.evaluation.parallel." + segment.name().toLowerCase(Locale.ROOT)
+                    + " must be sequential, parallel or auto, not " + value);
+        }
+    }
+
+    private static Mode calibrate(Segment segment, KieBase sequential, KieBase parallel, Calibration calibration) {
+        String name = segment.name().toLowerCase(Locale.ROOT);
+        // Alternate batches so JIT warm-up and background load affect both KieBases alike
+        long[] sequentialNanos = new long[CALIBRATION_ROUNDS];
+        long[] parallelNanos = new long[CALIBRATION_ROUNDS];
+        for (int round = -CALIBRATION_ROUNDS; round < CALIBRATION_ROUNDS; round++) {
+            long sequentialBatch = batch(calibration, sequential, segment);
+            long parallelBatch = batch(calibration, parallel, segment);
+            if (round >= 0) {
+                sequentialNanos[round] = sequentialBatch;
+                parallelNanos[round] = parallelBatch;
+            }
+        }
+        long sequentialMedian = median(sequentialNanos) / CALIBRATION_BATCH;
+        long parallelMedian = median(parallelNanos) / CALIBRATION_BATCH;
+        Mode mode = parallelMedian < sequentialMedian * (1 - REQUIRED_GAIN) ? Mode.PARALLEL : Mode.SEQUENTIAL;
+        logger.info("Evaluating {} profiles {} (auto: {} us sequential, {} us parallel on {} processors)", name,
+                mode == Mode.PARALLEL ? "with parallel network evaluation" : "sequentially",
+                sequentialMedian / 1000, parallelMedian / 1000, Runtime.getRuntime().availableProcessors());
+        return mode;
+    }
+
+    private static long batch(Calibration calibration, KieBase kieBase, Segment segment) {
+        long total = 0;
+        for (int i = 0; i < CALIBRATION_BATCH; i++) {
+            total += calibration.evaluationNanos(kieBase, segment.heaviestProfile, segment.responseDefaults);
+        }
+        return total;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
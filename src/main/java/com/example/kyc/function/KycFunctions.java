@@ -1,16 +1,37 @@
 package com.example.kyc.function;
 
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import com.example.kyc.engine.BundleOutcome;
+import com.example.kyc.engine.KycRuleEngine;
+import com.example.kyc.engine.Projection;
+import com.example.kyc.engine.RuleEvaluationException;
+import com.example.kyc.engine.RuleOutcome;
+import com.example.kyc.index.RequirementsIndex;
+import com.example.kyc.jfr.SchemaRenderedEvent;
+import com.example.kyc.queue.KycBatchProcessor;
+import com.example.kyc.queue.KycQueueResult;
+import com.example.kyc.queue.KycResultSink;
+import com.example.kyc.queue.KycStreamProcessor;
+import com.example.kyc.schema.BaseSchemaRegistry;
+import com.example.kyc.schema.ConditionalSchemaCompiler;
+import com.example.kyc.schema.InputDimension;
+import com.example.kyc.schema.SchemaFragmentCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -22,10 +43,35 @@ public class KycFunctions {
 
     private static final Logger logger = LoggerFactory.getLogger(KycFunctions.class);
 
-    private final KieContainer kieContainer;
+    private static final Map<String, Object> INDIVIDUAL_DEFAULTS = Map.of(
+            "riskLevel", "LOW",
+            "enhancedDueDiligenceRequired", false,
+            "estimatedProcessingDays", 3);
 
-    public KycFunctions(KieContainer kieContainer) {
-        this.kieContainer = kieContainer;
+    private static final Map<String, Object> CORPORATE_DEFAULTS = Map.of(
+            "riskLevel", "LOW",
+            "enhancedDueDiligenceRequired", false,
+            "estimatedProcessingDays", 7);
+
+    private static final List<String> RISK_LEVELS = List.of("LOW", "MEDIUM", "HIGH");
+
+    private final KycRuleEngine ruleEngine;
+    private final SchemaFragmentCache schemaFragmentCache;
+    private final ObservationRegistry observationRegistry;
+    private final ConditionalSchemaCompiler conditionalSchemaCompiler;
+    private final BaseSchemaRegistry baseSchemaRegistry;
+    private final RequirementsIndex requirementsIndex;
+    private volatile Set<Object> supportedCountryNames;
+
+    public KycFunctions(KycRuleEngine ruleEngine, SchemaFragmentCache schemaFragmentCache,
+                        ObservationRegistry observationRegistry, ConditionalSchemaCompiler conditionalSchemaCompiler,
+                        BaseSchemaRegistry baseSchemaRegistry, RequirementsIndex requirementsIndex) {
+        this.ruleEngine = ruleEngine;
+        this.schemaFragmentCache = schemaFragmentCache;
+        this.observationRegistry = observationRegistry;
+        this.conditionalSchemaCompiler = conditionalSchemaCompiler;
+        this.baseSchemaRegistry = baseSchemaRegistry;
+        this.requirementsIndex = requirementsIndex;
     }
 
     /**
@@ -38,6 +84,12 @@ public class KycFunctions {
         return request -> {
             logger.info("Processing KYC requirements for: customerType={}, accountType={}",
                     request.get("customerType"), request.get("accountType"));
+            Projection projection;
+            try {
+                projection = Projection.parse(request.remove("projection"));
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(e.getMessage());
+            }
 
             // Validate required fields
             if (request.get("customerType") == null || request.get("accountType") == null) {
@@ -49,40 +101,100 @@ public class KycFunctions {
                 request.put("country", "SINGAPORE");
             }
 
-            // Initialize collections for rule outputs
-            List<Map<String, Object>> fieldsList = new ArrayList<>();
-            List<String> rulesList = new ArrayList<>();
-            List<String> documentsList = new ArrayList<>();
-            List<String> instructionsList = new ArrayList<>();
-            Map<String, Object> responseData = new HashMap<>();
-
-            // Set defaults
-            responseData.put("riskLevel", "LOW");
-            responseData.put("enhancedDueDiligenceRequired", false);
-            responseData.put("estimatedProcessingDays", 3);
-
             // Execute rules
-            KieSession kieSession = kieContainer.newKieSession();
             try {
-                kieSession.setGlobal("fieldsList", fieldsList);
-                kieSession.setGlobal("rulesList", rulesList);
-                kieSession.setGlobal("documentsList", documentsList);
-                kieSession.setGlobal("instructionsList", instructionsList);
-                kieSession.setGlobal("responseData", responseData);
+                RuleOutcome outcome = ruleEngine.evaluate(request, INDIVIDUAL_DEFAULTS, projection);
+                logRulesFired(outcome, "");
 
-                kieSession.insert(request);
-                int rulesFired = kieSession.fireAllRules();
-                logger.info("Fired {} rules", rulesFired);
+                // Build response
+                return withProjection(projection, observeResponseBuild(outcome, () -> buildResponse(request,
+                        outcome.getFields(), outcome.getAppliedRules(), outcome.getDocuments(), outcome.getInstructions(),
+                        outcome.getResponseData())));
+            } catch (RuleEvaluationException e) {
+                return createErrorResponse(e);
+            }
+        };
+    }
 
-            } finally {
-                kieSession.dispose();
+    /**
+     * Function to get KYC requirements as one conditional schema covering every answer to
+     * PEP status, nationality and initial deposit, so form clients do not call again when
+     * those answers change. Falls back to the full schema for the given answers when the
+     * compiled schema does not match the rules.
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public Function<Map<String, Object>, Map<String, Object>> getConditionalKycRequirements() {
+        Function<Map<String, Object>, Map<String, Object>> requirements = getKycRequirements();
+        Set<Object> customerTypes = Set.copyOf((List<Object>) getCustomerTypes().apply(null).get("customerTypes"));
+        Set<Object> accountTypes = Set.copyOf((List<Object>) getAccountTypes().apply(null).get("accountTypes"));
+        return request -> {
+            logger.info("Processing conditional KYC requirements for: customerType={}, accountType={}",
+                    request.get("customerType"), request.get("accountType"));
+            // A conditional schema always covers every category
+            request.remove("projection");
+
+            // Validate required fields
+            if (request.get("customerType") == null || request.get("accountType") == null) {
+                return createErrorResponse("customerType and accountType are required");
             }
 
-            // Build response
-            return buildResponse(request, fieldsList, rulesList, documentsList, instructionsList, responseData);
+            // Set defaults
+            if (request.get("country") == null) {
+                request.put("country", "SINGAPORE");
+            }
+
+            // Each new profile compiles a schema from the rules, so only catalog values get one
+            if (!customerTypes.contains(request.get("customerType"))) {
+                return createErrorResponse("Unsupported customerType: " + request.get("customerType"));
+            }
+            if (!accountTypes.contains(request.get("accountType"))) {
+                return createErrorResponse("Unsupported accountType: " + request.get("accountType"));
+            }
+            if (!supportedCountryNames().contains(request.get("country"))) {
+                return createErrorResponse("Unsupported country: " + request.get("country"));
+            }
+
+            return conditionalSchemaCompiler.compile(request, requirements)
+                    .orElseGet(() -> requirements.apply(request));
+        };
+    }
+
+    /**
+     * Function to get the versioned base schema of a segment ("individual" or "corporate").
+     * Clients cache it by its x-base-id and request profile deltas against it.
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> getBaseSchema() {
+        return request -> {
+            Object segment = request != null ? request.get("segment") : null;
+            if (!"individual".equals(segment) && !"corporate".equals(segment)) {
+                return createErrorResponse("segment must be individual or corporate");
+            }
+            return baseSchema((String) segment).getSchema();
         };
     }
 
+    /**
+     * Function to get individual KYC requirements as a JSON Patch against the base schema
+     * named by "baseId". A missing or stale baseId returns the full schema.
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> getKycRequirementsDelta() {
+        Function<Map<String, Object>, Map<String, Object>> requirements = getKycRequirements();
+        return request -> deltaOrFull("individual", request.remove("baseId"), requirements.apply(request));
+    }
+
+    /**
+     * Function to get corporate KYC requirements as a JSON Patch against the base schema
+     * named by "baseId". A missing or stale baseId returns the full schema.
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirementsDelta() {
+        Function<Map<String, Object>, Map<String, Object>> requirements = getCorporateKycRequirements();
+        return request -> deltaOrFull("corporate", request.remove("baseId"), requirements.apply(request));
+    }
+
     /**
      * Simple health check function.
      */
@@ -135,26 +247,11 @@ public class KycFunctions {
         return request -> {
             logger.info("Fetching individual products for country: {}", request.get("country"));
             
-            Map<String, Object> responseData = new HashMap<>();
-            List<String> rulesList = new ArrayList<>();
-            
             Map<String, Object> ruleRequest = new HashMap<>();
             ruleRequest.put("action", "getIndividualProducts");
             ruleRequest.put("country", request.get("country"));
 
-            KieSession kieSession = kieContainer.newKieSession();
-            try {
-                kieSession.setGlobal("responseData", responseData);
-                kieSession.setGlobal("rulesList", rulesList);
-                kieSession.setGlobal("fieldsList", new ArrayList<>());
-                kieSession.setGlobal("documentsList", new ArrayList<>());
-                kieSession.setGlobal("instructionsList", new ArrayList<>());
-
-                kieSession.insert(ruleRequest);
-                kieSession.fireAllRules();
-            } finally {
-                kieSession.dispose();
-            }
+            Map<String, Object> responseData = ruleEngine.evaluate(ruleRequest, Map.of()).getResponseData();
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("products", responseData.get("products"));
@@ -170,6 +267,12 @@ public class KycFunctions {
     public Function<Map<String, Object>, Map<String, Object>> getIndividualProductKycRequirements() {
         return request -> {
             logger.info("Processing Individual Product KYC requirements for: product={}", request.get("product"));
+            Projection projection;
+            try {
+                projection = Projection.parse(request.remove("projection"));
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(e.getMessage());
+            }
 
             // Validate required fields
             if (request.get("product") == null) {
@@ -191,37 +294,18 @@ public class KycFunctions {
                 request.put("country", "SINGAPORE");
             }
 
-            // Initialize collections for rule outputs
-            List<Map<String, Object>> fieldsList = new ArrayList<>();
-            List<String> rulesList = new ArrayList<>();
-            List<String> documentsList = new ArrayList<>();
-            List<String> instructionsList = new ArrayList<>();
-            Map<String, Object> responseData = new HashMap<>();
-
-            // Set defaults
-            responseData.put("riskLevel", "LOW");
-            responseData.put("enhancedDueDiligenceRequired", false);
-            responseData.put("estimatedProcessingDays", 3);
-
             // Execute rules
-            KieSession kieSession = kieContainer.newKieSession();
             try {
-                kieSession.setGlobal("fieldsList", fieldsList);
-                kieSession.setGlobal("rulesList", rulesList);
-                kieSession.setGlobal("documentsList", documentsList);
-                kieSession.setGlobal("instructionsList", instructionsList);
-                kieSession.setGlobal("responseData", responseData);
+                RuleOutcome outcome = ruleEngine.evaluate(request, INDIVIDUAL_DEFAULTS, projection);
+                logRulesFired(outcome, "");
 
-                kieSession.insert(request);
-                int rulesFired = kieSession.fireAllRules();
-                logger.info("Fired {} rules", rulesFired);
-
-            } finally {
-                kieSession.dispose();
+                // Build response
+                return withProjection(projection, observeResponseBuild(outcome, () -> buildResponse(request,
+                        outcome.getFields(), outcome.getAppliedRules(), outcome.getDocuments(), outcome.getInstructions(),
+                        outcome.getResponseData())));
+            } catch (RuleEvaluationException e) {
+                return createErrorResponse(e);
             }
-
-            // Build response
-            return buildResponse(request, fieldsList, rulesList, documentsList, instructionsList, responseData);
         };
     }
 
@@ -233,6 +317,12 @@ public class KycFunctions {
     public Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirements() {
         return request -> {
             logger.info("Processing Corporate KYC requirements for product: {}", request.get("product"));
+            Projection projection;
+            try {
+                projection = Projection.parse(request.remove("projection"));
+            } catch (IllegalArgumentException e) {
+                return createErrorResponse(e.getMessage());
+            }
 
             // Validate required fields
             if (request.get("product") == null) {
@@ -246,37 +336,143 @@ public class KycFunctions {
                 request.put("country", "SINGAPORE");
             }
 
-            // Initialize collections for rule outputs
-            List<Map<String, Object>> fieldsList = new ArrayList<>();
-            List<String> rulesList = new ArrayList<>();
-            List<String> documentsList = new ArrayList<>();
-            List<String> instructionsList = new ArrayList<>();
-            Map<String, Object> responseData = new HashMap<>();
+            // Execute rules
+            try {
+                RuleOutcome outcome = ruleEngine.evaluate(request, CORPORATE_DEFAULTS, projection);
+                logRulesFired(outcome, " for corporate KYC");
+
+                // Build response
+                return withProjection(projection, observeResponseBuild(outcome, () -> buildCorporateResponse(request,
+                        outcome.getFields(), outcome.getAppliedRules(), outcome.getDocuments(), outcome.getInstructions(),
+                        outcome.getResponseData())));
+            } catch (RuleEvaluationException e) {
+                return createErrorResponse(e);
+            }
+        };
+    }
+
+    /**
+     * Function to get merged KYC requirements for several products opened together,
+     * e.g. SAVINGS + CREDIT_CARD + INVESTMENT, or CASA + FX for corporates.
+     * All products are evaluated in one rule session.
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> getBundleKycRequirements() {
+        return request -> {
+            logger.info("Processing bundle KYC requirements for: customerType={}, products={}",
+                    request.get("customerType"), request.get("products"));
+
+            // Validate required fields
+            if (request.get("customerType") == null || !(request.get("products") instanceof List<?> products)
+                    || products.isEmpty()) {
+                return createErrorResponse("customerType and products are required");
+            }
+
+            boolean corporate = "CORPORATE".equals(request.get("customerType"));
+            List<String> bundleProducts = products.stream().map(String::valueOf).distinct().collect(Collectors.toList());
 
-            // Set defaults
-            responseData.put("riskLevel", "LOW");
-            responseData.put("enhancedDueDiligenceRequired", false);
-            responseData.put("estimatedProcessingDays", 7);
+            // One request fact per product, with the same defaults as the single-product functions
+            List<Map<String, Object>> facts = new ArrayList<>();
+            for (String product : bundleProducts) {
+                Map<String, Object> fact = new HashMap<>();
+                fact.put("customerType", request.get("customerType"));
+                fact.put("country", request.get("country") != null ? request.get("country") : "SINGAPORE");
+                if (corporate) {
+                    fact.put("product", product);
+                } else {
+                    fact.put("accountType", product);
+                    fact.put("nationality", request.get("nationality") != null ? request.get("nationality") : "SINGAPORE");
+                    fact.put("pep", request.get("pep") != null ? request.get("pep") : false);
+                }
+                facts.add(fact);
+            }
 
             // Execute rules
-            KieSession kieSession = kieContainer.newKieSession();
             try {
-                kieSession.setGlobal("fieldsList", fieldsList);
-                kieSession.setGlobal("rulesList", rulesList);
-                kieSession.setGlobal("documentsList", documentsList);
-                kieSession.setGlobal("instructionsList", instructionsList);
-                kieSession.setGlobal("responseData", responseData);
-
-                kieSession.insert(request);
-                int rulesFired = kieSession.fireAllRules();
-                logger.info("Fired {} rules for corporate KYC", rulesFired);
+                BundleOutcome outcome = ruleEngine.evaluateBundle(facts, corporate ? CORPORATE_DEFAULTS : INDIVIDUAL_DEFAULTS);
+                logger.info("Fired {} rules for bundle of {} products", outcome.getRulesFired(), bundleProducts.size());
 
-            } finally {
-                kieSession.dispose();
+                // Build response
+                return buildBundleResponse(request, bundleProducts, outcome);
+            } catch (RuleEvaluationException e) {
+                return createErrorResponse(e);
             }
+        };
+    }
 
-            // Build response
-            return buildCorporateResponse(request, fieldsList, rulesList, documentsList, instructionsList, responseData);
+    /**
+     * Function for queue-driven evaluation, e.g. an SQS-triggered Lambda with ReportBatchItemFailures.
+     * Takes the SQS event ({"Records":[{"messageId":..,"body":..}]}) whose bodies are requirements
+     * requests, evaluates each distinct request once, writes one result per record to the result
+     * sink and returns {"batchItemFailures":[{"itemIdentifier":..}]} naming only the records to redeliver.
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> processKycQueueBatch(
+            ObjectMapper objectMapper, KycResultSink kycResultSink,
+            @Value("${kyc.queue.deduplicate:true}") boolean deduplicate) {
+        KycBatchProcessor processor = new KycBatchProcessor(getKycRequirements(),
+                getIndividualProductKycRequirements(), getCorporateKycRequirements(), objectMapper, deduplicate);
+        return event -> processor.handle(event, kycResultSink);
+    }
+
+    /**
+     * Function for message-driven evaluation through Spring Cloud Stream: each input message is
+     * a requirements request as in processKycQueueBatch, evaluated in micro-batches of up to
+     * kyc.stream.max-batch-size records or kyc.stream.linger, and answered with one
+     * KycQueueResult message on the output binding (see {@link KycStreamProcessor}).
+     */
+    @Bean
+    public Function<Flux<Message<String>>, Flux<Message<KycQueueResult>>> processKycStream(
+            ObjectMapper objectMapper,
+            @Value("${kyc.queue.deduplicate:true}") boolean deduplicate,
+            @Value("${kyc.stream.max-batch-size:100}") int maxBatchSize,
+            @Value("${kyc.stream.linger:20ms}") Duration linger,
+            @Value("${kyc.stream.concurrency:2}") int concurrency) {
+        KycBatchProcessor processor = new KycBatchProcessor(getKycRequirements(),
+                getIndividualProductKycRequirements(), getCorporateKycRequirements(), objectMapper, deduplicate);
+        return new KycStreamProcessor(processor, maxBatchSize, linger, concurrency);
+    }
+
+    /**
+     * Function to find the profiles whose requirements contain a document ("document"), a
+     * field id ("field") or a rule ("rule"), answered from the requirements index. Without
+     * any of them it lists what the index contains. "limit" caps the listed profiles
+     * (default 100).
+     */
+    @Bean
+    public Function<Map<String, Object>, Map<String, Object>> findKycProfiles() {
+        // Built in the background once the context has started (RequirementsIndex is a SmartLifecycle),
+        // i.e. once per rule base. The functions are resolved here, while the context is refreshing.
+        Function<Map<String, Object>, Map<String, Object>> customerTypes = getCustomerTypes();
+        Function<Map<String, Object>, Map<String, Object>> accountTypes = getAccountTypes();
+        Function<Map<String, Object>, Map<String, Object>> corporateProducts = getCorporateProducts();
+        Function<Map<String, Object>, Map<String, Object>> requirements = getKycRequirements();
+        Function<Map<String, Object>, Map<String, Object>> corporateRequirements = getCorporateKycRequirements();
+        requirementsIndex.setProfiles(() -> indexedProfiles(customerTypes, accountTypes, corporateProducts, requirements,
+                corporateRequirements));
+        return request -> {
+            String unavailable = requirementsIndex.unavailableReason();
+            if (unavailable != null) {
+                return createErrorResponse(unavailable);
+            }
+            Map<String, Object> query = request != null ? request : Map.of();
+            List<RequirementsIndex.Kind> kinds = Arrays.stream(RequirementsIndex.Kind.values())
+                    .filter(kind -> query.get(kind.parameter()) != null)
+                    .collect(Collectors.toList());
+            if (kinds.isEmpty()) {
+                return requirementsIndex.summary();
+            }
+            if (kinds.size() > 1) {
+                return createErrorResponse("Only one of document, field or rule can be given");
+            }
+            int limit;
+            try {
+                limit = query.get("limit") != null ? Integer.parseInt(query.get("limit").toString()) : 100;
+            } catch (NumberFormatException e) {
+                return createErrorResponse("limit must be a number");
+            }
+            RequirementsIndex.Kind kind = kinds.get(0);
+            return requirementsIndex.find(kind, query.get(kind.parameter()).toString(), Math.max(0, limit));
         };
     }
 
@@ -288,26 +484,11 @@ public class KycFunctions {
         return request -> {
             logger.info("Fetching corporate products for country: {}", request.get("country"));
             
-            Map<String, Object> responseData = new HashMap<>();
-            List<String> rulesList = new ArrayList<>();
-            
             Map<String, Object> ruleRequest = new HashMap<>();
             ruleRequest.put("action", "getCorporateProducts");
             ruleRequest.put("country", request.get("country"));
 
-            KieSession kieSession = kieContainer.newKieSession();
-            try {
-                kieSession.setGlobal("responseData", responseData);
-                kieSession.setGlobal("rulesList", rulesList);
-                kieSession.setGlobal("fieldsList", new ArrayList<>());
-                kieSession.setGlobal("documentsList", new ArrayList<>());
-                kieSession.setGlobal("instructionsList", new ArrayList<>());
-
-                kieSession.insert(ruleRequest);
-                kieSession.fireAllRules();
-            } finally {
-                kieSession.dispose();
-            }
+            Map<String, Object> responseData = ruleEngine.evaluate(ruleRequest, Map.of()).getResponseData();
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("products", responseData.get("products"));
@@ -324,29 +505,12 @@ public class KycFunctions {
         return request -> {
             logger.info("Fetching supported countries from rules");
             
-            // Initialize collections
-            Map<String, Object> responseData = new HashMap<>();
-            List<String> rulesList = new ArrayList<>();
-            
             // Set action to trigger specific rule
             Map<String, Object> ruleRequest = new HashMap<>();
             ruleRequest.put("action", "getSupportedCountries");
 
-            KieSession kieSession = kieContainer.newKieSession();
-            try {
-                kieSession.setGlobal("responseData", responseData);
-                kieSession.setGlobal("rulesList", rulesList);
-                // Providing other globals if the DRL expects them
-                kieSession.setGlobal("fieldsList", new ArrayList<>());
-                kieSession.setGlobal("documentsList", new ArrayList<>());
-                kieSession.setGlobal("instructionsList", new ArrayList<>());
-
-                kieSession.insert(ruleRequest);
-                kieSession.fireAllRules();
-                logger.info("Fired rules for supported countries");
-            } finally {
-                kieSession.dispose();
-            }
+            Map<String, Object> responseData = ruleEngine.evaluate(ruleRequest, Map.of()).getResponseData();
+            logger.info("Fired rules for supported countries");
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("countries", responseData.get("supportedCountries"));
@@ -370,127 +534,9 @@ public class KycFunctions {
         response.put("description", "KYC requirements for " + request.get("customerType") + " opening " + request.get("accountType") + " account");
         response.put("type", "object");
         
-        // Group fields by category
-        Map<String, List<Map<String, Object>>> fieldsByCategory = fieldsList.stream()
-                .collect(Collectors.groupingBy(
-                        f -> (String) f.get("category"),
-                        LinkedHashMap::new,
-                        Collectors.toList()
-                ));
-        
-        // Sort fields within each category
-        fieldsByCategory.values().forEach(fields ->
-                fields.sort(Comparator.comparingInt(f -> (Integer) f.get("displayOrder"))));
-        
-        // Build nested properties by category
-        Map<String, Object> properties = new LinkedHashMap<>();
+        Map<String, List<Map<String, Object>>> fieldsByCategory = groupFieldsByCategory(fieldsList);
         List<String> requiredCategories = new ArrayList<>();
-        
-        for (Map.Entry<String, List<Map<String, Object>>> categoryEntry : fieldsByCategory.entrySet()) {
-            String category = categoryEntry.getKey();
-            List<Map<String, Object>> categoryFields = categoryEntry.getValue();
-            
-            // Create category object
-            Map<String, Object> categorySchema = new LinkedHashMap<>();
-            categorySchema.put("type", "object");
-            categorySchema.put("title", formatCategoryName(category));
-            categorySchema.put("description", "Fields related to " + formatCategoryName(category).toLowerCase());
-            
-            // Build properties for this category
-            Map<String, Object> categoryProperties = new LinkedHashMap<>();
-            List<String> categoryRequired = new ArrayList<>();
-            
-            for (Map<String, Object> field : categoryFields) {
-                String fieldId = (String) field.get("fieldId");
-                Map<String, Object> property = new LinkedHashMap<>();
-                
-                // Set type based on fieldType
-                String fieldType = (String) field.get("fieldType");
-                switch (fieldType) {
-                    case "NUMBER":
-                        property.put("type", "number");
-                        break;
-                    case "CHECKBOX":
-                        property.put("type", "boolean");
-                        break;
-                    case "DATE":
-                        property.put("type", "string");
-                        property.put("format", "date");
-                        break;
-                    case "EMAIL":
-                        property.put("type", "string");
-                        property.put("format", "email");
-                        break;
-                    case "PHONE":
-                        property.put("type", "string");
-                        property.put("pattern", "^[0-9]{8,15}$");
-                        break;
-                    case "DOCUMENT":
-                        property.put("type", "string");
-                        property.put("format", "uri");
-                        property.put("contentMediaType", "application/pdf");
-                        break;
-                    case "ADDRESS":
-                        property.put("type", "object");
-                        property.put("properties", Map.of(
-                            "street", Map.of("type", "string"),
-                            "city", Map.of("type", "string"),
-                            "postalCode", Map.of("type", "string"),
-                            "country", Map.of("type", "string")
-                        ));
-                        break;
-                    default:
-                        property.put("type", "string");
-                }
-                
-                // Add title and description
-                property.put("title", field.get("fieldName"));
-                property.put("description", field.get("description"));
-                
-                // Add validation pattern if present
-                if (field.get("validationPattern") != null) {
-                    property.put("pattern", field.get("validationPattern"));
-                }
-                
-                // Add custom properties for UI hints
-                Map<String, Object> uiHints = new LinkedHashMap<>();
-                uiHints.put("displayOrder", field.get("displayOrder"));
-                uiHints.put("fieldType", fieldType);
-                if (field.get("documentRequired") != null && (Boolean) field.get("documentRequired")) {
-                    uiHints.put("documentRequired", true);
-                    uiHints.put("acceptedDocuments", field.get("acceptedDocuments"));
-                }
-                if (field.get("additionalNotes") != null) {
-                    uiHints.put("additionalNotes", field.get("additionalNotes"));
-                }
-                property.put("x-ui-hints", uiHints);
-                
-                categoryProperties.put(fieldId, property);
-                
-                // Add to required array if mandatory
-                if ((Boolean) field.get("mandatory")) {
-                    categoryRequired.add(fieldId);
-                }
-            }
-            
-            categorySchema.put("properties", categoryProperties);
-            if (!categoryRequired.isEmpty()) {
-                categorySchema.put("required", categoryRequired);
-            }
-            
-            // Add category order hint
-            categorySchema.put("x-category-order", fieldsByCategory.keySet().stream()
-                    .collect(Collectors.toList()).indexOf(category));
-            
-            properties.put(category.toLowerCase(), categorySchema);
-            
-            // If category has required fields, mark category as required
-            if (!categoryRequired.isEmpty()) {
-                requiredCategories.add(category.toLowerCase());
-            }
-        }
-        
-        response.put("properties", properties);
+        response.put("properties", buildCategoryProperties(fieldsByCategory, requiredCategories));
         response.put("required", requiredCategories);
         
         // Count total fields
@@ -519,29 +565,8 @@ public class KycFunctions {
         
         return response;
     }
-    
-    private String formatCategoryName(String category) {
-        return Arrays.stream(category.split("_"))
-                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase())
-                .collect(Collectors.joining(" "));
-    }
 
-    private Map<String, Object> buildCorporateResponse(Map<String, Object> request, 
-                                                        List<Map<String, Object>> fieldsList,
-                                                        List<String> rulesList,
-                                                        List<String> documentsList,
-                                                        List<String> instructionsList,
-                                                        Map<String, Object> responseData) {
-        
-        Map<String, Object> response = new LinkedHashMap<>();
-        
-        // Metadata
-        String product = (String) request.get("product");
-        response.put("$schema", "http://json-schema.org/draft-07/schema#");
-        response.put("title", "Singapore Corporate KYC Form - " + product);
-        response.put("description", "Corporate KYC requirements for " + product + " product");
-        response.put("type", "object");
-        
+    private Map<String, List<Map<String, Object>>> groupFieldsByCategory(List<Map<String, Object>> fieldsList) {
         // Group fields by category
         Map<String, List<Map<String, Object>>> fieldsByCategory = fieldsList.stream()
                 .collect(Collectors.groupingBy(
@@ -553,116 +578,160 @@ public class KycFunctions {
         // Sort fields within each category
         fieldsByCategory.values().forEach(fields ->
                 fields.sort(Comparator.comparingInt(f -> (Integer) f.get("displayOrder"))));
-        
-        // Build nested properties by category
+        return fieldsByCategory;
+    }
+
+    /**
+     * Builds the nested "properties" object with one block per category. Category blocks
+     * come from the fragment cache, so identical blocks are serialized only once.
+     */
+    private Map<String, Object> buildCategoryProperties(Map<String, List<Map<String, Object>>> fieldsByCategory,
+                                                        List<String> requiredCategories) {
         Map<String, Object> properties = new LinkedHashMap<>();
-        List<String> requiredCategories = new ArrayList<>();
+        int categoryOrder = 0;
         
         for (Map.Entry<String, List<Map<String, Object>>> categoryEntry : fieldsByCategory.entrySet()) {
             String category = categoryEntry.getKey();
             List<Map<String, Object>> categoryFields = categoryEntry.getValue();
+            int order = categoryOrder++;
             
-            // Create category object
-            Map<String, Object> categorySchema = new LinkedHashMap<>();
-            categorySchema.put("type", "object");
-            categorySchema.put("title", formatCategoryName(category));
-            categorySchema.put("description", "Fields related to " + formatCategoryName(category).toLowerCase());
-            
-            // Build properties for this category
-            Map<String, Object> categoryProperties = new LinkedHashMap<>();
-            List<String> categoryRequired = new ArrayList<>();
-            
-            for (Map<String, Object> field : categoryFields) {
-                String fieldId = (String) field.get("fieldId");
-                Map<String, Object> property = new LinkedHashMap<>();
-                
-                // Set type based on fieldType
-                String fieldType = (String) field.get("fieldType");
-                switch (fieldType) {
-                    case "NUMBER":
-                        property.put("type", "number");
-                        break;
-                    case "CHECKBOX":
-                        property.put("type", "boolean");
-                        break;
-                    case "DATE":
-                        property.put("type", "string");
-                        property.put("format", "date");
-                        break;
-                    case "EMAIL":
-                        property.put("type", "string");
-                        property.put("format", "email");
-                        break;
-                    case "PHONE":
-                        property.put("type", "string");
-                        property.put("pattern", "^[0-9]{8,15}$");
-                        break;
-                    case "DOCUMENT":
-                        property.put("type", "string");
-                        property.put("format", "uri");
-                        property.put("contentMediaType", "application/pdf");
-                        break;
-                    case "ADDRESS":
-                        property.put("type", "object");
-                        property.put("properties", Map.of(
-                            "street", Map.of("type", "string"),
-                            "city", Map.of("type", "string"),
-                            "postalCode", Map.of("type", "string"),
-                            "country", Map.of("type", "string")
-                        ));
-                        break;
-                    default:
-                        property.put("type", "string");
-                }
-                
-                // Add title and description
-                property.put("title", field.get("fieldName"));
-                property.put("description", field.get("description"));
-                
-                // Add validation pattern if present
-                if (field.get("validationPattern") != null) {
-                    property.put("pattern", field.get("validationPattern"));
-                }
-                
-                // Add custom properties for UI hints
-                Map<String, Object> uiHints = new LinkedHashMap<>();
-                uiHints.put("displayOrder", field.get("displayOrder"));
-                uiHints.put("fieldType", fieldType);
-                if (field.get("documentRequired") != null && (Boolean) field.get("documentRequired")) {
-                    uiHints.put("documentRequired", true);
-                    uiHints.put("acceptedDocuments", field.get("acceptedDocuments"));
-                }
-                if (field.get("additionalNotes") != null) {
-                    uiHints.put("additionalNotes", field.get("additionalNotes"));
-                }
-                property.put("x-ui-hints", uiHints);
-                
-                categoryProperties.put(fieldId, property);
-                
-                // Add to required array if mandatory
-                if ((Boolean) field.get("mandatory")) {
-                    categoryRequired.add(fieldId);
-                }
-            }
-            
-            categorySchema.put("properties", categoryProperties);
-            if (!categoryRequired.isEmpty()) {
-                categorySchema.put("required", categoryRequired);
-            }
-            
-            // Add category order hint
-            categorySchema.put("x-category-order", fieldsByCategory.keySet().stream()
-                    .collect(Collectors.toList()).indexOf(category));
-            
-            properties.put(category.toLowerCase(), categorySchema);
+            properties.put(category.toLowerCase(), schemaFragmentCache.categoryBlock(category, order, categoryFields,
+                    () -> buildCategorySchema(category, order, categoryFields)));
             
             // If category has required fields, mark category as required
-            if (!categoryRequired.isEmpty()) {
+            if (categoryFields.stream().anyMatch(f -> (Boolean) f.get("mandatory"))) {
                 requiredCategories.add(category.toLowerCase());
             }
         }
+        return properties;
+    }
+
+    private Map<String, Object> buildCategorySchema(String category, int order, List<Map<String, Object>> categoryFields) {
+        // Create category object
+        Map<String, Object> categorySchema = new LinkedHashMap<>();
+        categorySchema.put("type", "object");
+        categorySchema.put("title", formatCategoryName(category));
+        categorySchema.put("description", "Fields related to " + formatCategoryName(category).toLowerCase());
+        
+        // Build properties for this category
+        Map<String, Object> categoryProperties = new LinkedHashMap<>();
+        List<String> categoryRequired = new ArrayList<>();
+        
+        for (Map<String, Object> field : categoryFields) {
+            String fieldId = (String) field.get("fieldId");
+            categoryProperties.put(fieldId, buildFieldProperty(field));
+            
+            // Add to required array if mandatory
+            if ((Boolean) field.get("mandatory")) {
+                categoryRequired.add(fieldId);
+            }
+        }
         
-        response.put("properties", properties);
+        categorySchema.put("properties", categoryProperties);
+        if (!categoryRequired.isEmpty()) {
+            categorySchema.put("required", categoryRequired);
+        }
+        
+        // Add category order hint
+        categorySchema.put("x-category-order", order);
+        return categorySchema;
+    }
+
+    private Map<String, Object> buildFieldProperty(Map<String, Object> field) {
+        Map<String, Object> property = new LinkedHashMap<>();
+        
+        // Set type based on fieldType
+        String fieldType = (String) field.get("fieldType");
+        switch (fieldType) {
+            case "NUMBER":
+                property.put("type", "number");
+                break;
+            case "CHECKBOX":
+                property.put("type", "boolean");
+                break;
+            case "DATE":
+                property.put("type", "string");
+                property.put("format", "date");
+                break;
+            case "EMAIL":
+                property.put("type", "string");
+                property.put("format", "email");
+                break;
+            case "PHONE":
+                property.put("type", "string");
+                property.put("pattern", "^[0-9]{8,15}$");
+                break;
+            case "DOCUMENT":
+                property.put("type", "string");
+                property.put("format", "uri");
+                property.put("contentMediaType", "application/pdf");
+                break;
+            case "ADDRESS":
+                property.put("type", "object");
+                property.put("properties", Map.of(
+                    "street", Map.of("type", "string"),
+                    "city", Map.of("type", "string"),
+                    "postalCode", Map.of("type", "string"),
+                    "country", Map.of("type", "string")
+                ));
+                break;
+            default:
+                property.put("type", "string");
+        }
+        
+        // Add title and description
+        property.put("title", field.get("fieldName"));
+        property.put("description", field.get("description"));
+        
+        // Add validation pattern if present
+        if (field.get("validationPattern") != null) {
+            property.put("pattern", field.get("validationPattern"));
+        }
+        
+        // Add custom properties for UI hints
+        Map<String, Object> uiHints = new LinkedHashMap<>();
+        uiHints.put("displayOrder", field.get("displayOrder"));
+        uiHints.put("fieldType", fieldType);
+        if (field.get("documentRequired") != null && (Boolean) field.get("documentRequired")) {
+            uiHints.put("documentRequired", true);
+            uiHints.put("acceptedDocuments", field.get("acceptedDocuments"));
+        }
+        if (field.get("additionalNotes") != null) {
+            uiHints.put("additionalNotes", field.get("additionalNotes"));
+        }
+        property.put("x-ui-hints", uiHints);
+        // Bundle responses list the products that need each field
+        if (field.get("requiredBy") != null) {
+            property.put("x-required-by", field.get("requiredBy"));
+        }
+        return property;
+    }
+    
+    private String formatCategoryName(String category) {
+        return Arrays.stream(category.split("_"))
+                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase())
+                .collect(Collectors.joining(" "));
+    }
+
+    private Map<String, Object> buildCorporateResponse(Map<String, Object> request, 
+                                                        List<Map<String, Object>> fieldsList,
+                                                        List<String> rulesList,
+                                                        List<String> documentsList,
+                                                        List<String> instructionsList,
+                                                        Map<String, Object> responseData) {
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        
+        // Metadata
+        String product = (String) request.get("product");
+        response.put("$schema", "http://json-schema.org/draft-07/schema#");
+        response.put("title", "Singapore Corporate KYC Form - " + product);
+        response.put("description", "Corporate KYC requirements for " + product + " product");
+        response.put("type", "object");
+        
+        Map<String, List<Map<String, Object>>> fieldsByCategory = groupFieldsByCategory(fieldsList);
+        List<String> requiredCategories = new ArrayList<>();
+        response.put("properties", buildCategoryProperties(fieldsByCategory, requiredCategories));
         response.put("required", requiredCategories);
         
         // Count total fields
@@ -693,6 +762,250 @@ public class KycFunctions {
         return response;
     }
 
+    private Map<String, Object> buildBundleResponse(Map<String, Object> request, List<String> products,
+                                                    BundleOutcome outcome) {
+        // Merge fields: shared fields appear once and list every product that needs them
+        Map<String, Map<String, Object>> mergedFields = new LinkedHashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            String product = products.get(i);
+            for (Map<String, Object> field : outcome.getProducts().get(i).getFields()) {
+                Map<String, Object> merged = mergedFields.computeIfAbsent((String) field.get("fieldId"), id -> {
+                    Map<String, Object> copy = new HashMap<>(field);
+                    copy.put("requiredBy", new ArrayList<String>());
+                    return copy;
+                });
+                @SuppressWarnings("unchecked")
+                List<String> requiredBy = (List<String>) merged.get("requiredBy");
+                if (!requiredBy.contains(product)) {
+                    requiredBy.add(product);
+                }
+                if ((Boolean) field.get("mandatory")) {
+                    merged.put("mandatory", true);
+                }
+            }
+        }
+        List<Map<String, Object>> fieldsList = new ArrayList<>(mergedFields.values());
+
+        // Combine per-product risk: highest risk level and processing time, EDD if any product needs it
+        String riskLevel = "LOW";
+        int processingDays = 0;
+        boolean enhancedDueDiligence = false;
+        List<Map<String, Object>> productRequirements = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Map<String, Object> responseData = outcome.getProducts().get(i).getResponseData();
+            String productRisk = String.valueOf(responseData.get("riskLevel"));
+            if (RISK_LEVELS.indexOf(productRisk) > RISK_LEVELS.indexOf(riskLevel)) {
+                riskLevel = productRisk;
+            }
+            processingDays = Math.max(processingDays, ((Number) responseData.get("estimatedProcessingDays")).intValue());
+            enhancedDueDiligence |= Boolean.TRUE.equals(responseData.get("enhancedDueDiligenceRequired"));
+
+            Map<String, Object> productSummary = new LinkedHashMap<>();
+            productSummary.put("product", products.get(i));
+            productSummary.put("riskLevel", productRisk);
+            productSummary.put("enhancedDueDiligenceRequired", responseData.get("enhancedDueDiligenceRequired"));
+            productSummary.put("estimatedProcessingDays", responseData.get("estimatedProcessingDays"));
+            productSummary.put("totalFields", outcome.getProducts().get(i).getFields().stream()
+                    .map(f -> f.get("fieldId")).distinct().count());
+            productRequirements.add(productSummary);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        
+        // Metadata
+        response.put("$schema", "http://json-schema.org/draft-07/schema#");
+        response.put("title", "Singapore KYC Form - Bundle");
+        response.put("description", "KYC requirements for " + request.get("customerType") + " opening " + String.join(", ", products));
+        response.put("type", "object");
+        
+        Map<String, List<Map<String, Object>>> fieldsByCategory = groupFieldsByCategory(fieldsList);
+        List<String> requiredCategories = new ArrayList<>();
+        response.put("properties", buildCategoryProperties(fieldsByCategory, requiredCategories));
+        response.put("required", requiredCategories);
+        
+        // Count total fields
+        long totalRequiredFields = fieldsList.stream().filter(f -> (Boolean) f.get("mandatory")).count();
+        long totalOptionalFields = fieldsList.size() - totalRequiredFields;
+        
+        // Additional metadata
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("referenceId", UUID.randomUUID().toString());
+        metadata.put("customerType", request.get("customerType"));
+        metadata.put("products", products);
+        metadata.put("riskLevel", riskLevel);
+        metadata.put("enhancedDueDiligenceRequired", enhancedDueDiligence);
+        metadata.put("totalRequiredFields", totalRequiredFields);
+        metadata.put("totalOptionalFields", totalOptionalFields);
+        metadata.put("requiredDocuments", outcome.getDocuments().stream().distinct().collect(Collectors.toList()));
+        metadata.put("specialInstructions", outcome.getInstructions().stream().distinct().collect(Collectors.toList()));
+        metadata.put("estimatedProcessingDays", processingDays);
+        metadata.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        metadata.put("appliedRules", outcome.getAppliedRules());
+        metadata.put("categories", fieldsByCategory.keySet().stream()
+                .map(this::formatCategoryName)
+                .collect(Collectors.toList()));
+        metadata.put("productRequirements", productRequirements);
+        
+        response.put("x-metadata", metadata);
+        
+        return response;
+    }
+
+    private BaseSchemaRegistry.BaseSchema baseSchema(String segment) {
+        return baseSchemaRegistry.get(segment, () -> segmentProfiles(segment));
+    }
+
+    /**
+     * Full schemas of every profile of a segment with default answers: each customer and
+     * account type for individuals, each product for corporates.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> segmentProfiles(String segment) {
+        List<Map<String, Object>> profiles = new ArrayList<>();
+        if ("corporate".equals(segment)) {
+            Map<String, Object> catalog = getCorporateProducts().apply(new HashMap<>());
+            for (Map<String, Object> product : (List<Map<String, Object>>) catalog.get("products")) {
+                Map<String, Object> request = new HashMap<>();
+                request.put("product", product.get("code"));
+                profiles.add(getCorporateKycRequirements().apply(request));
+            }
+        } else {
+            for (Object customerType : (List<Object>) getCustomerTypes().apply(null).get("customerTypes")) {
+                for (Object accountType : (List<Object>) getAccountTypes().apply(null).get("accountTypes")) {
+                    Map<String, Object> request = new HashMap<>();
+                    request.put("customerType", customerType);
+                    request.put("accountType", accountType);
+                    profiles.add(getKycRequirements().apply(request));
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Every profile the rules distinguish, with the function giving its requirements: each customer type
+     * and account type combined with one answer per {@link InputDimension} range, and each
+     * corporate product.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<RequirementsIndex.IndexedProfile> indexedProfiles(
+            Function<Map<String, Object>, Map<String, Object>> customerTypes,
+            Function<Map<String, Object>, Map<String, Object>> accountTypes,
+            Function<Map<String, Object>, Map<String, Object>> corporateProducts,
+            Function<Map<String, Object>, Map<String, Object>> requirements,
+            Function<Map<String, Object>, Map<String, Object>> corporateRequirements) {
+        List<InputDimension> dimensions = InputDimension.individualDimensions();
+        List<Map<String, Object>> answers = new ArrayList<>();
+        answers.add(new LinkedHashMap<>());
+        for (InputDimension dimension : dimensions) {
+            List<Map<String, Object>> extended = new ArrayList<>();
+            for (Map<String, Object> answer : answers) {
+                for (int range = 0; range < dimension.size(); range++) {
+                    Map<String, Object> combination = new LinkedHashMap<>(answer);
+                    combination.put(dimension.getName(), dimension.representative(range));
+                    extended.add(combination);
+                }
+            }
+            answers = extended;
+        }
+
+        List<RequirementsIndex.IndexedProfile> profiles = new ArrayList<>();
+        for (Object customerType : (List<Object>) customerTypes.apply(null).get("customerTypes")) {
+            for (Object accountType : (List<Object>) accountTypes.apply(null).get("accountTypes")) {
+                for (Map<String, Object> answer : answers) {
+                    Map<String, Object> profile = new LinkedHashMap<>();
+                    profile.put("customerType", customerType);
+                    profile.put("accountType", accountType);
+                    profile.putAll(answer);
+                    profiles.add(new RequirementsIndex.IndexedProfile(profile, requirements));
+                }
+            }
+        }
+        Map<String, Object> catalog = corporateProducts.apply(new HashMap<>());
+        for (Map<String, Object> product : (List<Map<String, Object>>) catalog.get("products")) {
+            Map<String, Object> profile = new LinkedHashMap<>();
+            profile.put("customerType", "CORPORATE");
+            profile.put("product", product.get("code"));
+            profiles.add(new RequirementsIndex.IndexedProfile(profile, corporateRequirements));
+        }
+        return profiles;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> deltaOrFull(String segment, Object clientBaseId, Map<String, Object> full) {
+        if (Boolean.TRUE.equals(full.get("error"))) {
+            return full;
+        }
+        BaseSchemaRegistry.BaseSchema base = baseSchema(segment);
+        if (base.getId().equals(clientBaseId)) {
+            return baseSchemaRegistry.delta(base, full);
+        }
+        // Stale or missing base: full schema, naming the current base for the next request
+        Map<String, Object> metadata = new LinkedHashMap<>((Map<String, Object>) full.get("x-metadata"));
+        metadata.put("baseId", base.getId());
+        Map<String, Object> response = new LinkedHashMap<>(full);
+        response.put("x-metadata", metadata);
+        return response;
+    }
+
+    /**
+     * Records a non-full projection in x-metadata so clients can tell a partial schema from
+     * a profile without those categories.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> withProjection(Projection projection, Map<String, Object> response) {
+        if (!projection.isFull() && response.get("x-metadata") instanceof Map<?, ?> metadata) {
+            ((Map<String, Object>) metadata).put("projection", projection.describe());
+        }
+        return response;
+    }
+
+    private Map<String, Object> observeResponseBuild(RuleOutcome outcome, Supplier<Map<String, Object>> builder) {
+        Object riskLevel = outcome.getResponseData().get("riskLevel");
+        SchemaRenderedEvent rendered = new SchemaRenderedEvent();
+        rendered.begin();
+        Map<String, Object> response = Observation.createNotStarted("kyc.response.build", observationRegistry)
+                .contextualName("kyc build response")
+                .lowCardinalityKeyValue("kyc.risk.level", riskLevel != null ? riskLevel.toString() : "NONE")
+                .highCardinalityKeyValue("kyc.field.count", String.valueOf(outcome.getFields().size()))
+                .observe(builder);
+        rendered.end();
+        if (rendered.shouldCommit() && response.get("properties") instanceof Map<?, ?> properties) {
+            rendered.fieldCount = outcome.getFields().size();
+            rendered.categoryCount = properties.size();
+            rendered.bytes = properties.values().stream().mapToLong(schemaFragmentCache::sizeInBytes).sum();
+            rendered.fromStore = outcome.isFromStore();
+            rendered.commit();
+        }
+        return response;
+    }
+
+    private void logRulesFired(RuleOutcome outcome, String context) {
+        if (outcome.isFromStore()) {
+            logger.info("Served rule outcome{} from schema store", context);
+        } else {
+            logger.info("Fired {} rules{}", outcome.getRulesFired(), context);
+        }
+    }
+
+    /**
+     * Codes and upper case names of the countries the rules support, read on first use.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Object> supportedCountryNames() {
+        Set<Object> names = supportedCountryNames;
+        if (names == null) {
+            names = new HashSet<>();
+            for (Map<String, Object> country : (List<Map<String, Object>>) getSupportedCountries()
+                    .apply(new HashMap<>()).get("countries")) {
+                names.add(country.get("code"));
+                names.add(country.get("name").toString().toUpperCase(Locale.ROOT));
+            }
+            supportedCountryNames = names;
+        }
+        return names;
+    }
+
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> error = new LinkedHashMap<>();
         error.put("error", true);
@@ -700,4 +1013,16 @@ public class KycFunctions {
         error.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         return error;
     }
+
+    /**
+     * Error response for an evaluation stopped by its deadline, firing cap or circuit breaker,
+     * naming the rules that were firing.
+     */
+    private Map<String, Object> createErrorResponse(RuleEvaluationException e) {
+        logger.warn("{}: {} (active rules: {})", e.getReason(), e.getMessage(), e.getActiveRules());
+        Map<String, Object> error = createErrorResponse(e.getMessage());
+        error.put("reason", e.getReason().name());
+        error.put("activeRules", e.getActiveRules());
+        return error;
+    }
 }
@@ -0,0 +1,95 @@
+package com.example.kyc.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.micrometer.core.instrument.binder.grpc.ObservationGrpcServerInterceptor;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the gRPC server next to the embedded web server when {@code kyc.grpc.enabled} is set.
+ * Calls are dispatched on virtual threads, like the rule evaluations behind the REST API,
+ * and traced through the same ObservationRegistry.
+ */
+@Component
+public class KycGrpcServer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycGrpcServer.class);
+
+    private final List<BindableService> services;
+    private final ObservationRegistry observationRegistry;
+    private final boolean enabled;
+    private final int port;
+    private Server server;
+    private ExecutorService executor;
+
+    public KycGrpcServer(List<BindableService> services,
+                         ObservationRegistry observationRegistry,
+                         @Value("${kyc.grpc.enabled:false}") boolean enabled,
+                         @Value("${kyc.grpc.port:9090}") int port) {
+        this.services = services;
+        this.observationRegistry = observationRegistry;
+        this.enabled = enabled;
+        this.port = port;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port).executor(executor);
+        ObservationGrpcServerInterceptor tracing = new ObservationGrpcServerInterceptor(observationRegistry);
+        services.forEach(service -> builder.addService(ServerInterceptors.intercept(service, tracing)));
+        try {
+            server = builder.build().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start gRPC server on port " + port, e);
+        }
+        logger.info("gRPC server started on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(10, TimeUnit.SECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor.close();
+        server = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Port the server is bound to, or -1 when it is not running.
+     */
+    public int getPort() {
+        return server != null ? server.getPort() : -1;
+    }
+}
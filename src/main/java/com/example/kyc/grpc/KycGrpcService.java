@@ -0,0 +1,240 @@
+package com.example.kyc.grpc;
+
+import com.example.kyc.grpc.proto.BulkRequest;
+import com.example.kyc.grpc.proto.BulkResponse;
+import com.example.kyc.grpc.proto.CatalogRequest;
+import com.example.kyc.grpc.proto.CodeList;
+import com.example.kyc.grpc.proto.CorporateKycRequest;
+import com.example.kyc.grpc.proto.CountryList;
+import com.example.kyc.grpc.proto.EvaluationError;
+import com.example.kyc.grpc.proto.IndividualKycRequest;
+import com.example.kyc.grpc.proto.IndividualProductKycRequest;
+import com.example.kyc.grpc.proto.KycSchema;
+import com.example.kyc.grpc.proto.KycServiceGrpc;
+import com.example.kyc.grpc.proto.ProductList;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * gRPC counterpart of KycController. Every RPC delegates to the same KycFunctions beans as
+ * the REST endpoints and converts the result with {@link KycProtoMapper}.
+ */
+@Component
+public class KycGrpcService extends KycServiceGrpc.KycServiceImplBase implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycGrpcService.class);
+
+    private final Function<Map<String, Object>, Map<String, Object>> getKycRequirements;
+    private final Function<Map<String, Object>, Map<String, Object>> getIndividualProductKycRequirements;
+    private final Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirements;
+    private final Function<Map<String, Object>, Map<String, Object>> getCustomerTypes;
+    private final Function<Map<String, Object>, Map<String, Object>> getAccountTypes;
+    private final Function<Map<String, Object>, Map<String, Object>> getIndividualProducts;
+    private final Function<Map<String, Object>, Map<String, Object>> getCorporateProducts;
+    private final Function<Map<String, Object>, Map<String, Object>> getSupportedCountries;
+    private final int bulkMaxInFlight;
+    private final ExecutorService bulkExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public KycGrpcService(
+            Function<Map<String, Object>, Map<String, Object>> getKycRequirements,
+            Function<Map<String, Object>, Map<String, Object>> getIndividualProductKycRequirements,
+            Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirements,
+            Function<Map<String, Object>, Map<String, Object>> getCustomerTypes,
+            Function<Map<String, Object>, Map<String, Object>> getAccountTypes,
+            Function<Map<String, Object>, Map<String, Object>> getIndividualProducts,
+            Function<Map<String, Object>, Map<String, Object>> getCorporateProducts,
+            Function<Map<String, Object>, Map<String, Object>> getSupportedCountries,
+            @Value("${kyc.grpc.bulk.max-in-flight:64}") int bulkMaxInFlight) {
+        this.getKycRequirements = getKycRequirements;
+        this.getIndividualProductKycRequirements = getIndividualProductKycRequirements;
+        this.getCorporateKycRequirements = getCorporateKycRequirements;
+        this.getCustomerTypes = getCustomerTypes;
+        this.getAccountTypes = getAccountTypes;
+        this.getIndividualProducts = getIndividualProducts;
+        this.getCorporateProducts = getCorporateProducts;
+        this.getSupportedCountries = getSupportedCountries;
+        this.bulkMaxInFlight = bulkMaxInFlight;
+    }
+
+    @Override
+    public void getKycRequirements(IndividualKycRequest request, StreamObserver<KycSchema> responseObserver) {
+        respondWithSchema(getKycRequirements.apply(KycProtoMapper.toRequestMap(request)), responseObserver);
+    }
+
+    @Override
+    public void getIndividualProductKycRequirements(IndividualProductKycRequest request,
+                                                    StreamObserver<KycSchema> responseObserver) {
+        respondWithSchema(getIndividualProductKycRequirements.apply(KycProtoMapper.toRequestMap(request)), responseObserver);
+    }
+
+    @Override
+    public void getCorporateKycRequirements(CorporateKycRequest request, StreamObserver<KycSchema> responseObserver) {
+        respondWithSchema(getCorporateKycRequirements.apply(KycProtoMapper.toRequestMap(request)), responseObserver);
+    }
+
+    @Override
+    public void getCustomerTypes(CatalogRequest request, StreamObserver<CodeList> responseObserver) {
+        respond(KycProtoMapper.toCodeList(getCustomerTypes.apply(null), "customerTypes"), responseObserver);
+    }
+
+    @Override
+    public void getAccountTypes(CatalogRequest request, StreamObserver<CodeList> responseObserver) {
+        respond(KycProtoMapper.toCodeList(getAccountTypes.apply(null), "accountTypes"), responseObserver);
+    }
+
+    @Override
+    public void getIndividualProducts(CatalogRequest request, StreamObserver<ProductList> responseObserver) {
+        respond(KycProtoMapper.toProductList(
+                getIndividualProducts.apply(KycProtoMapper.toRequestMap(request.getCountry()))), responseObserver);
+    }
+
+    @Override
+    public void getCorporateProducts(CatalogRequest request, StreamObserver<ProductList> responseObserver) {
+        respond(KycProtoMapper.toProductList(
+                getCorporateProducts.apply(KycProtoMapper.toRequestMap(request.getCountry()))), responseObserver);
+    }
+
+    @Override
+    public void getSupportedCountries(CatalogRequest request, StreamObserver<CountryList> responseObserver) {
+        respond(KycProtoMapper.toCountryList(getSupportedCountries.apply(null)), responseObserver);
+    }
+
+    /**
+     * Evaluates bulk requests concurrently on virtual threads. At most
+     * {@code kyc.grpc.bulk.max-in-flight} requests per stream are pulled from the client
+     * at a time. Each completed evaluation requests the next one only while the response
+     * stream is ready to send; when a client stops reading, the request is held back until
+     * the stream's on-ready handler fires, so a client that sends fast but reads slowly is
+     * throttled by flow control instead of growing the server's outbound buffer.
+     */
+    @Override
+    public StreamObserver<BulkRequest> evaluateBulk(StreamObserver<BulkResponse> responseObserver) {
+        ServerCallStreamObserver<BulkResponse> serverObserver = (ServerCallStreamObserver<BulkResponse>) responseObserver;
+        serverObserver.disableAutoRequest();
+        // Requests owed to the client for completed evaluations, issued once the stream is ready
+        AtomicInteger owed = new AtomicInteger();
+        Runnable requestOwed = () -> {
+            int count = owed.getAndSet(0);
+            if (count > 0) {
+                serverObserver.request(count);
+            }
+        };
+        serverObserver.setOnReadyHandler(requestOwed);
+        serverObserver.request(bulkMaxInFlight);
+
+        return new StreamObserver<>() {
+            private final AtomicInteger inFlight = new AtomicInteger();
+            private final AtomicBoolean completed = new AtomicBoolean();
+            private volatile boolean halfClosed;
+
+            @Override
+            public void onNext(BulkRequest request) {
+                inFlight.incrementAndGet();
+                bulkExecutor.execute(() -> {
+                    BulkResponse response = evaluate(request);
+                    synchronized (serverObserver) {
+                        if (!serverObserver.isCancelled()) {
+                            serverObserver.onNext(response);
+                        }
+                    }
+                    if (inFlight.decrementAndGet() == 0 && halfClosed) {
+                        complete();
+                        return;
+                    }
+                    owed.incrementAndGet();
+                    // Checked after counting, so an on-ready signal in between is not missed
+                    if (serverObserver.isReady()) {
+                        requestOwed.run();
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                logger.debug("Bulk evaluation stream cancelled by client: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                halfClosed = true;
+                if (inFlight.get() == 0) {
+                    complete();
+                }
+            }
+
+            private void complete() {
+                if (!completed.compareAndSet(false, true)) {
+                    return;
+                }
+                synchronized (serverObserver) {
+                    if (!serverObserver.isCancelled()) {
+                        serverObserver.onCompleted();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Waits for running bulk evaluations when the context closes; the gRPC server has
+     * stopped accepting calls by then.
+     */
+    @Override
+    public void close() {
+        bulkExecutor.close();
+    }
+
+    private BulkResponse evaluate(BulkRequest request) {
+        BulkResponse.Builder response = BulkResponse.newBuilder().setCorrelationId(request.getCorrelationId());
+        try {
+            Map<String, Object> result = switch (request.getRequestCase()) {
+                case INDIVIDUAL -> getKycRequirements.apply(KycProtoMapper.toRequestMap(request.getIndividual()));
+                case INDIVIDUAL_PRODUCT -> getIndividualProductKycRequirements.apply(
+                        KycProtoMapper.toRequestMap(request.getIndividualProduct()));
+                case CORPORATE -> getCorporateKycRequirements.apply(KycProtoMapper.toRequestMap(request.getCorporate()));
+                case REQUEST_NOT_SET -> null;
+            };
+            String errorMessage = result == null ? "request is required" : KycProtoMapper.errorMessage(result);
+            if (errorMessage != null) {
+                return response.setError(EvaluationError.newBuilder().setMessage(errorMessage)).build();
+            }
+            return response.setSchema(KycProtoMapper.toSchema(result)).build();
+        } catch (RuntimeException e) {
+            logger.warn("Bulk evaluation {} failed", request.getCorrelationId(), e);
+            return response.setError(EvaluationError.newBuilder().setMessage("evaluation failed: " + e.getMessage())).build();
+        }
+    }
+
+    private static void respondWithSchema(Map<String, Object> result, StreamObserver<KycSchema> responseObserver) {
+        String errorMessage = KycProtoMapper.errorMessage(result);
+        if (errorMessage != null) {
+            // Stopped evaluations carry a reason; anything else is a bad request
+            Status status = switch (String.valueOf(result.get("reason"))) {
+                case "DEADLINE_EXCEEDED" -> Status.DEADLINE_EXCEEDED;
+                case "MAX_FIRINGS_EXCEEDED" -> Status.RESOURCE_EXHAUSTED;
+                case "CIRCUIT_OPEN" -> Status.UNAVAILABLE;
+                default -> Status.INVALID_ARGUMENT;
+            };
+            responseObserver.onError(status.withDescription(errorMessage).asRuntimeException());
+            return;
+        }
+        respond(KycProtoMapper.toSchema(result), responseObserver);
+    }
+
+    private static <T> void respond(T message, StreamObserver<T> responseObserver) {
+        responseObserver.onNext(message);
+        responseObserver.onCompleted();
+    }
+}
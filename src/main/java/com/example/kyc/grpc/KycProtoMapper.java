@@ -0,0 +1,196 @@
+package com.example.kyc.grpc;
+
+import com.example.kyc.grpc.proto.Category;
+import com.example.kyc.grpc.proto.CodeList;
+import com.example.kyc.grpc.proto.Country;
+import com.example.kyc.grpc.proto.CountryList;
+import com.example.kyc.grpc.proto.CorporateKycRequest;
+import com.example.kyc.grpc.proto.Field;
+import com.example.kyc.grpc.proto.IndividualKycRequest;
+import com.example.kyc.grpc.proto.IndividualProductKycRequest;
+import com.example.kyc.grpc.proto.KycSchema;
+import com.example.kyc.grpc.proto.Metadata;
+import com.example.kyc.grpc.proto.Product;
+import com.example.kyc.grpc.proto.ProductList;
+import com.example.kyc.grpc.proto.UiHints;
+import com.example.kyc.schema.SchemaFragment;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts between the protobuf messages and the Map based requests and responses of
+ * KycFunctions. Requests become the same maps KycController builds; responses are read
+ * from the JSON Schema maps, so the REST and gRPC APIs always carry the same content.
+ */
+final class KycProtoMapper {
+
+    private KycProtoMapper() {
+    }
+
+    static Map<String, Object> toRequestMap(IndividualKycRequest request) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("customerType", emptyToNull(request.getCustomerType()));
+        requestMap.put("accountType", emptyToNull(request.getAccountType()));
+        requestMap.put("nationality", emptyToNull(request.getNationality()));
+        requestMap.put("pep", request.hasPep() ? request.getPep() : null);
+        requestMap.put("country", emptyToNull(request.getCountry()));
+        return requestMap;
+    }
+
+    static Map<String, Object> toRequestMap(IndividualProductKycRequest request) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("product", emptyToNull(request.getProduct()));
+        requestMap.put("country", emptyToNull(request.getCountry()));
+        return requestMap;
+    }
+
+    static Map<String, Object> toRequestMap(CorporateKycRequest request) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("product", emptyToNull(request.getProduct()));
+        requestMap.put("country", emptyToNull(request.getCountry()));
+        return requestMap;
+    }
+
+    static Map<String, Object> toRequestMap(String country) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("country", emptyToNull(country));
+        return requestMap;
+    }
+
+    /**
+     * Returns the error message of an error response ({@code "error": true}), or null.
+     */
+    static String errorMessage(Map<String, Object> response) {
+        return Boolean.TRUE.equals(response.get("error")) ? text(response.get("message")) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static KycSchema toSchema(Map<String, Object> response) {
+        KycSchema.Builder schema = KycSchema.newBuilder()
+                .setSchema(text(response.get("$schema")))
+                .setTitle(text(response.get("title")))
+                .setDescription(text(response.get("description")))
+                .addAllRequired((List<String>) response.get("required"));
+
+        Map<String, Object> properties = (Map<String, Object>) response.get("properties");
+        properties.forEach((key, block) -> schema.addCategories(toCategory(key, SchemaFragment.unwrap(block))));
+
+        schema.setMetadata(toMetadata((Map<String, Object>) response.get("x-metadata")));
+        return schema.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Category toCategory(String key, Map<String, Object> block) {
+        Category.Builder category = Category.newBuilder()
+                .setKey(key)
+                .setTitle(text(block.get("title")))
+                .setDescription(text(block.get("description")))
+                .setOrder(number(block.get("x-category-order")).intValue());
+        Map<String, Object> fields = (Map<String, Object>) block.get("properties");
+        fields.forEach((id, property) -> category.addFields(toField(id, (Map<String, Object>) property)));
+        if (block.get("required") != null) {
+            category.addAllRequired((List<String>) block.get("required"));
+        }
+        return category.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Field toField(String id, Map<String, Object> property) {
+        Field.Builder field = Field.newBuilder()
+                .setId(id)
+                .setType(text(property.get("type")))
+                .setFormat(text(property.get("format")))
+                .setPattern(text(property.get("pattern")))
+                .setContentMediaType(text(property.get("contentMediaType")))
+                .setTitle(text(property.get("title")))
+                .setDescription(text(property.get("description")));
+
+        // ADDRESS fields carry a nested object schema
+        Object nested = property.get("properties");
+        if (nested instanceof Map<?, ?> nestedProperties) {
+            nestedProperties.forEach((name, schema) ->
+                    field.putProperties(name.toString(), text(((Map<String, Object>) schema).get("type"))));
+        }
+
+        Map<String, Object> hints = (Map<String, Object>) property.get("x-ui-hints");
+        if (hints != null) {
+            field.setUiHints(UiHints.newBuilder()
+                    .setDisplayOrder(number(hints.get("displayOrder")).intValue())
+                    .setFieldType(text(hints.get("fieldType")))
+                    .setDocumentRequired(Boolean.TRUE.equals(hints.get("documentRequired")))
+                    .setAcceptedDocuments(text(hints.get("acceptedDocuments")))
+                    .setAdditionalNotes(text(hints.get("additionalNotes"))));
+        }
+        return field.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Metadata toMetadata(Map<String, Object> metadata) {
+        return Metadata.newBuilder()
+                .setReferenceId(text(metadata.get("referenceId")))
+                .setCustomerType(text(metadata.get("customerType")))
+                .setAccountType(text(metadata.get("accountType")))
+                .setProduct(text(metadata.get("product")))
+                .setProductType(text(metadata.get("productType")))
+                .setRiskLevel(text(metadata.get("riskLevel")))
+                .setEnhancedDueDiligenceRequired(Boolean.TRUE.equals(metadata.get("enhancedDueDiligenceRequired")))
+                .setTotalRequiredFields(number(metadata.get("totalRequiredFields")).longValue())
+                .setTotalOptionalFields(number(metadata.get("totalOptionalFields")).longValue())
+                .addAllRequiredDocuments((List<String>) metadata.get("requiredDocuments"))
+                .addAllSpecialInstructions((List<String>) metadata.get("specialInstructions"))
+                .setEstimatedProcessingDays(number(metadata.get("estimatedProcessingDays")).intValue())
+                .setTimestamp(text(metadata.get("timestamp")))
+                .addAllAppliedRules((List<String>) metadata.get("appliedRules"))
+                .addAllCategories((List<String>) metadata.get("categories"))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    static CodeList toCodeList(Map<String, Object> response, String key) {
+        return CodeList.newBuilder().addAllCodes((List<String>) response.get(key)).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ProductList toProductList(Map<String, Object> response) {
+        ProductList.Builder products = ProductList.newBuilder().setTimestamp(text(response.get("timestamp")));
+        List<Map<String, Object>> entries = (List<Map<String, Object>>) response.get("products");
+        if (entries != null) {
+            for (Map<String, Object> entry : entries) {
+                products.addProducts(Product.newBuilder()
+                        .setCode(text(entry.get("code")))
+                        .setName(text(entry.get("name")))
+                        .setDescription(text(entry.get("description"))));
+            }
+        }
+        return products.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    static CountryList toCountryList(Map<String, Object> response) {
+        CountryList.Builder countries = CountryList.newBuilder().setTimestamp(text(response.get("timestamp")));
+        List<Map<String, Object>> entries = (List<Map<String, Object>>) response.get("countries");
+        if (entries != null) {
+            for (Map<String, Object> entry : entries) {
+                countries.addCountries(Country.newBuilder()
+                        .setCode(text(entry.get("code")))
+                        .setName(text(entry.get("name"))));
+            }
+        }
+        return countries.build();
+    }
+
+    // Protobuf strings cannot be null; absent values are sent as ""
+    private static String text(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static Number number(Object value) {
+        return value instanceof Number n ? n : 0;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
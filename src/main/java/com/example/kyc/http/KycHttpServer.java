@@ -0,0 +1,347 @@
+package com.example.kyc.http;
+
+import com.example.kyc.model.BundleKycRequest;
+import com.example.kyc.model.CorporateKycRequest;
+import com.example.kyc.model.IndividualKycRequest;
+import com.example.kyc.model.IndividualProductKycRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Serves the KycController routes under {@code /api/v1/kyc} from the JDK's built-in HTTP
+ * server, for sidecar deployments of KycFunctionalApplication without Spring MVC or Tomcat.
+ * Each exchange runs on its own virtual thread.
+ *
+ * <p>The JSON contract is the controller's: request bodies bind to the same model classes,
+ * query parameters and defaults are the same, and the same functions build the responses.
+ * Unreadable bodies, unknown paths and wrong methods get the status and error body Spring
+ * Boot would return (400, 404, 405 or 415 with timestamp, status, error and path). With a
+ * {@link RuleSetETag}, cacheable responses carry its validators and revalidations get 304 (GET)
+ * or 412 (POST), as in the REST application.
+ */
+public class KycHttpServer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycHttpServer.class);
+
+    static final String BASE_PATH = "/api/v1/kyc";
+
+    private static final DateTimeFormatter ERROR_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx");
+
+    private final Map<String, Function<Map<String, Object>, Map<String, Object>>> functions;
+    private final ObjectMapper objectMapper;
+    private final int port;
+    private final RuleSetETag etag;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Thrown while handling an exchange to answer with an error status instead of a response.
+     */
+    private static final class HttpStatusException extends RuntimeException {
+
+        private final int status;
+
+        HttpStatusException(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param functions the KycFunctions functions by bean name
+     * @param port      listening port; 0 picks a free one
+     * @param etag      response validators, or null to send none
+     */
+    public KycHttpServer(Map<String, Function<Map<String, Object>, Map<String, Object>>> functions,
+                         ObjectMapper objectMapper, int port, RuleSetETag etag) {
+        this.functions = functions;
+        this.objectMapper = objectMapper;
+        this.port = port;
+        this.etag = etag;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start HTTP server on port " + port, e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("HTTP server started on port {}", getPort());
+    }
+
+    @Override
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        // Give in-flight exchanges a second to finish
+        server.stop(1);
+        executor.close();
+        server = null;
+        logger.info("HTTP server stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try (exchange) {
+            boolean validated = etag != null && RuleSetETag.appliesTo(exchange.getRequestMethod(), path);
+            if (validated && etag.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().set("ETag", etag.getValue());
+                exchange.getResponseHeaders().set("Cache-Control", etag.getCacheControl());
+                exchange.sendResponseHeaders(RuleSetETag.matchedStatus(exchange.getRequestMethod()), -1);
+                return;
+            }
+            Map<String, Object> response;
+            try {
+                response = route(exchange, path);
+            } catch (HttpStatusException e) {
+                send(exchange, e.status, errorBody(e.status, path));
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Request {} {} failed", exchange.getRequestMethod(), path, e);
+                send(exchange, 500, errorBody(500, path));
+                return;
+            }
+            if (validated && RuleSetETag.isCacheable(response)) {
+                exchange.getResponseHeaders().set("ETag", etag.getValue());
+                exchange.getResponseHeaders().set("Cache-Control", etag.getCacheControl());
+            }
+            send(exchange, 200, response);
+        }
+    }
+
+    private Map<String, Object> route(HttpExchange exchange, String path) throws IOException {
+        if (!path.startsWith(BASE_PATH + "/")) {
+            throw new HttpStatusException(404);
+        }
+        String route = path.substring(BASE_PATH.length());
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (route.startsWith("/base-schemas/") && route.indexOf('/', "/base-schemas/".length()) < 0
+                && route.length() > "/base-schemas/".length()) {
+            requireMethod(method, "GET");
+            Map<String, Object> request = new HashMap<>();
+            request.put("segment", route.substring("/base-schemas/".length()));
+            return function("getBaseSchema").apply(request);
+        }
+        switch (route) {
+            case "/requirements" -> {
+                requireMethod(method, "POST");
+                IndividualKycRequest body = readBody(exchange, IndividualKycRequest.class);
+                Map<String, Object> request = new HashMap<>();
+                request.put("projection", query.get("projection"));
+                request.put("customerType", body.getCustomerType());
+                request.put("accountType", body.getAccountType());
+                request.put("nationality", body.getNationality());
+                request.put("pep", body.getPep());
+                request.put("initialDeposit", body.getInitialDeposit());
+                request.put("country", body.getCountry());
+                String mode = query.getOrDefault("mode", "full");
+                if ("conditional".equalsIgnoreCase(mode)) {
+                    return function("getConditionalKycRequirements").apply(request);
+                }
+                if ("delta".equalsIgnoreCase(mode)) {
+                    request.put("baseId", query.get("base"));
+                    return function("getKycRequirementsDelta").apply(request);
+                }
+                return function("getKycRequirements").apply(request);
+            }
+            case "/product/requirements" -> {
+                requireMethod(method, "POST");
+                IndividualProductKycRequest body = readBody(exchange, IndividualProductKycRequest.class);
+                Map<String, Object> request = new HashMap<>();
+                request.put("projection", query.get("projection"));
+                request.put("product", body.getProduct());
+                request.put("country", body.getCountry());
+                return function("getIndividualProductKycRequirements").apply(request);
+            }
+            case "/corporate/requirements" -> {
+                requireMethod(method, "POST");
+                CorporateKycRequest body = readBody(exchange, CorporateKycRequest.class);
+                Map<String, Object> request = new HashMap<>();
+                request.put("projection", query.get("projection"));
+                request.put("product", body.getProduct());
+                request.put("country", body.getCountry());
+                if ("delta".equalsIgnoreCase(query.getOrDefault("mode", "full"))) {
+                    request.put("baseId", query.get("base"));
+                    return function("getCorporateKycRequirementsDelta").apply(request);
+                }
+                return function("getCorporateKycRequirements").apply(request);
+            }
+            case "/bundle/requirements" -> {
+                requireMethod(method, "POST");
+                BundleKycRequest body = readBody(exchange, BundleKycRequest.class);
+                Map<String, Object> request = new HashMap<>();
+                request.put("customerType", body.getCustomerType());
+                request.put("products", body.getProducts());
+                request.put("nationality", body.getNationality());
+                request.put("pep", body.getPep());
+                request.put("country", body.getCountry());
+                return function("getBundleKycRequirements").apply(request);
+            }
+            case "/health" -> {
+                requireMethod(method, "GET");
+                return function("health").apply(null);
+            }
+            case "/customer-types" -> {
+                requireMethod(method, "GET");
+                return function("getCustomerTypes").apply(null);
+            }
+            case "/account-types" -> {
+                requireMethod(method, "GET");
+                return function("getAccountTypes").apply(null);
+            }
+            case "/supported-countries" -> {
+                requireMethod(method, "GET");
+                return function("getSupportedCountries").apply(null);
+            }
+            case "/products", "/corporate/products" -> {
+                requireMethod(method, "GET");
+                Map<String, Object> request = new HashMap<>();
+                request.put("country", query.get("country"));
+                return function(route.equals("/products") ? "getIndividualProducts" : "getCorporateProducts")
+                        .apply(request);
+            }
+            case "/profiles" -> {
+                requireMethod(method, "GET");
+                Map<String, Object> request = new HashMap<>();
+                request.put("document", query.get("document"));
+                request.put("field", query.get("field"));
+                request.put("rule", query.get("rule"));
+                request.put("limit", intParameter(query.get("limit")));
+                return function("findKycProfiles").apply(request);
+            }
+            default -> throw new HttpStatusException(404);
+        }
+    }
+
+    private Function<Map<String, Object>, Map<String, Object>> function(String name) {
+        Function<Map<String, Object>, Map<String, Object>> function = functions.get(name);
+        if (function == null) {
+            throw new IllegalStateException("Function " + name + " is not registered");
+        }
+        return function;
+    }
+
+    // A malformed number is 400, as for an Integer @RequestParam
+    private static Integer intParameter(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new HttpStatusException(400);
+        }
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!expected.equals(method)) {
+            throw new HttpStatusException(405);
+        }
+    }
+
+    // Same outcomes as @RequestBody: a missing or unreadable body is 400, a non-JSON one 415
+    private <T> T readBody(HttpExchange exchange, Class<T> type) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        if (body.length == 0) {
+            throw new HttpStatusException(400);
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !isJson(contentType)) {
+            throw new HttpStatusException(415);
+        }
+        try {
+            T value = objectMapper.readValue(body, type);
+            if (value == null) {
+                throw new HttpStatusException(400);
+            }
+            return value;
+        } catch (JsonProcessingException e) {
+            throw new HttpStatusException(400);
+        }
+    }
+
+    private static boolean isJson(String contentType) {
+        String mediaType = contentType.split(";", 2)[0].trim().toLowerCase();
+        return mediaType.equals("application/json") || (mediaType.startsWith("application/") && mediaType.endsWith("+json"));
+    }
+
+    // First value of each parameter, decoded like a form
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = URLDecoder.decode(separator < 0 ? pair : pair.substring(0, separator), StandardCharsets.UTF_8);
+            String value = separator < 0 ? "" : URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            query.putIfAbsent(name, value);
+        }
+        return query;
+    }
+
+    private void send(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static Map<String, Object> errorBody(int status, String path) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("timestamp", OffsetDateTime.now().format(ERROR_TIMESTAMP));
+        error.put("status", status);
+        error.put("error", switch (status) {
+            case 400 -> "Bad Request";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 415 -> "Unsupported Media Type";
+            default -> "Internal Server Error";
+        });
+        error.put("path", path);
+        return error;
+    }
+}
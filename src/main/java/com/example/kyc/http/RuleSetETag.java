@@ -0,0 +1,120 @@
+package com.example.kyc.http;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Validators for the KYC API responses, which are a function of the request and the rule set
+ * only: the same request answers with the same requirements until the rules or the service
+ * build change. Their ETag is therefore the rule set's fingerprint plus the build's identity,
+ * and a request revalidating it with {@code If-None-Match} is answered without evaluating any
+ * rules.
+ *
+ * <p>The ETag is weak because the {@code timestamp} and {@code referenceId} fields differ
+ * between otherwise equal responses. Cached responses are fresh for {@code kyc.api.max-age}.
+ * {@code /health} reports live status and error bodies may be transient (an evaluation
+ * deadline or open circuit breaker), so neither is validated.
+ *
+ * <p>The build is identified by the build time that Spring Boot's {@code build-info} goal
+ * records in {@code META-INF/build-info.properties}, so every deploy of a new build changes the
+ * ETag. Classes run without that file (from an IDE) fall back to the JVM's start time.
+ *
+ * <p>The requirement routes are POSTs. As RFC 9110 (13.1.2) requires, a matching
+ * {@code If-None-Match} is answered 304 only for GET and HEAD, and 412 for any other method;
+ * clients revalidating a POST treat the 412 as "the cached response is current".
+ */
+@Component
+public class RuleSetETag {
+
+    private static final String API_PREFIX = KycHttpServer.BASE_PATH + "/";
+    private static final String BUILD_INFO = "META-INF/build-info.properties";
+
+    private final String value;
+    private final String cacheControl;
+
+    public RuleSetETag(RuleSetFingerprint fingerprint, @Value("${kyc.api.max-age:60s}") Duration maxAge) {
+        this.value = "W/\"" + fingerprint.getShortHash() + "-" + buildId() + "\"";
+        this.cacheControl = "max-age=" + maxAge.toSeconds();
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * The build time in base 36 milliseconds, or the JVM's start time without build info.
+     */
+    static String buildId() {
+        long millis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        try (InputStream in = RuleSetETag.class.getClassLoader().getResourceAsStream(BUILD_INFO)) {
+            if (in != null) {
+                Properties buildInfo = new Properties();
+                buildInfo.load(in);
+                String time = buildInfo.getProperty("build.time");
+                if (time != null) {
+                    millis = Instant.parse(time).toEpochMilli();
+                }
+            }
+        } catch (IOException | DateTimeParseException e) {
+            throw new IllegalStateException("Cannot read " + BUILD_INFO, e);
+        }
+        return Long.toString(millis, 36);
+    }
+
+    /**
+     * Status answering a request whose {@code If-None-Match} names this ETag: 304 for GET and
+     * HEAD, 412 for other methods.
+     */
+    public static int matchedStatus(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) ? 304 : 412;
+    }
+
+    /**
+     * Whether responses to this request carry the validators.
+     */
+    public static boolean appliesTo(String method, String path) {
+        return ("GET".equals(method) || "POST".equals(method)) && path.startsWith(API_PREFIX)
+                && !path.equals(API_PREFIX + "health");
+    }
+
+    /**
+     * Whether a response body may be cached: the functions answer errors with 200 and an
+     * {@code error} flag.
+     */
+    public static boolean isCacheable(Map<String, Object> body) {
+        return body != null && !Boolean.TRUE.equals(body.get("error"));
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header names this ETag; weak comparison, as for GET.
+     * {@code *} is not accepted: it means "any current representation", which says nothing
+     * about the copy the client holds.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = value.substring(2);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals(value) || candidate.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
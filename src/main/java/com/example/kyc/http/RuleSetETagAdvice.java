@@ -0,0 +1,49 @@
+package com.example.kyc.http;
+
+import com.example.kyc.controller.KycController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Map;
+
+/**
+ * Sets the {@link RuleSetETag} validators on successful, cacheable KycController responses.
+ */
+@ControllerAdvice(assignableTypes = KycController.class)
+public class RuleSetETagAdvice implements ResponseBodyAdvice<Object> {
+
+    private final RuleSetETag etag;
+
+    public RuleSetETagAdvice(RuleSetETag etag) {
+        this.etag = etag;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return Map.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().getStatus() == 200
+                && RuleSetETag.appliesTo(servletRequest.getMethod().name(), servletRequest.getServletRequest().getRequestURI())
+                && RuleSetETag.isCacheable((Map<String, Object>) body)) {
+            response.getHeaders().set(HttpHeaders.ETAG, etag.getValue());
+            response.getHeaders().set(HttpHeaders.CACHE_CONTROL, etag.getCacheControl());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.kyc.http;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Answers KycController requests that revalidate the {@link RuleSetETag} before they reach the
+ * controller, with 304 for GET and HEAD and 412 for POST; RuleSetETagAdvice sets the validators on the full responses. Runs after
+ * TrafficCaptureFilter, so captured traffic includes the revalidations.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class RuleSetETagFilter extends OncePerRequestFilter {
+
+    private final RuleSetETag etag;
+
+    public RuleSetETagFilter(RuleSetETag etag) {
+        this.etag = etag;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !RuleSetETag.appliesTo(request.getMethod(), request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (etag.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(RuleSetETag.matchedStatus(request.getMethod()));
+            response.setHeader(HttpHeaders.ETAG, etag.getValue());
+            response.setHeader(HttpHeaders.CACHE_CONTROL, etag.getCacheControl());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
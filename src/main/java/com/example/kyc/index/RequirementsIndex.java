@@ -0,0 +1,281 @@
+package com.example.kyc.index;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.schema.SchemaFragment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reverse index from the documents, fields and rules in the requirements responses to the
+ * profiles that produce them, e.g. every profile that needs "NRIC Back" or the fx_experience
+ * field.
+ *
+ * <p>The index is built once per rule base, on a background thread started with the
+ * application context, by evaluating every profile the rules distinguish (see
+ * {@code KycFunctions#indexedProfiles}). Each document, field id and rule name maps to a bit
+ * set over the profiles, so a lookup only walks the matching bits and never evaluates rules.
+ * Names are matched case-insensitively. A profile whose evaluation fails is retried a few
+ * times; if it keeps failing the build fails rather than leave the profile out, since an
+ * index with gaps would answer "no profile needs this" wrongly. Until the build has
+ * finished, lookups return an error response.
+ */
+@Component
+public class RequirementsIndex implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequirementsIndex.class);
+
+    private static final int ATTEMPTS = 3;
+
+    /**
+     * What a lookup can ask for, with the request parameter that names it.
+     */
+    public enum Kind {
+        DOCUMENT("document"), FIELD("field"), RULE("rule");
+
+        private final String parameter;
+
+        Kind(String parameter) {
+            this.parameter = parameter;
+        }
+
+        public String parameter() {
+            return parameter;
+        }
+    }
+
+    /**
+     * A profile to index: the request that describes it and the function that evaluates it.
+     */
+    public record IndexedProfile(Map<String, Object> profile,
+                                 Function<Map<String, Object>, Map<String, Object>> requirements) {
+
+        Map<String, Object> evaluate() {
+            return requirements.apply(new HashMap<>(profile));
+        }
+    }
+
+    private record Snapshot(List<Map<String, Object>> profiles, Map<Kind, TreeMap<String, BitSet>> entries,
+                            String builtAt, long buildMillis) {
+    }
+
+    private final RuleSetFingerprint fingerprint;
+    private final boolean enabled;
+    private final Duration retryDelay;
+    private volatile Supplier<List<IndexedProfile>> profiles;
+    private volatile Snapshot snapshot;
+    private volatile String failure;
+    private Thread builder;
+    private boolean running;
+
+    public RequirementsIndex(RuleSetFingerprint fingerprint,
+                             @Value("${kyc.index.enabled:true}") boolean enabled,
+                             @Value("${kyc.index.retry-delay:1s}") Duration retryDelay) {
+        this.fingerprint = fingerprint;
+        this.enabled = enabled;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Sets the profiles to index. The build starts with the application context, not here,
+     * so that creating the functions does no rule evaluation.
+     *
+     * @param profiles lists every profile to index
+     */
+    public void setProfiles(Supplier<List<IndexedProfile>> profiles) {
+        this.profiles = profiles;
+    }
+
+    /**
+     * Starts building the index on a background thread, unless it is disabled, already
+     * being built, or has nothing to index.
+     */
+    @Override
+    public synchronized void start() {
+        running = true;
+        Supplier<List<IndexedProfile>> source = profiles;
+        if (!enabled || builder != null || source == null) {
+            return;
+        }
+        builder = new Thread(() -> build(source), "kyc-requirements-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (builder != null) {
+            builder.interrupt();
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    private void build(Supplier<List<IndexedProfile>> profiles) {
+        long start = System.nanoTime();
+        try {
+            List<Map<String, Object>> indexed = new ArrayList<>();
+            Map<Kind, TreeMap<String, BitSet>> entries = new LinkedHashMap<>();
+            for (Kind kind : Kind.values()) {
+                entries.put(kind, new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+            }
+            for (IndexedProfile profile : profiles.get()) {
+                Map<String, Object> response = evaluate(profile);
+                int bit = indexed.size();
+                indexed.add(Collections.unmodifiableMap(profile.profile()));
+                Map<String, Object> metadata = asMap(response.get("x-metadata"));
+                mark(entries.get(Kind.DOCUMENT), asList(metadata.get("requiredDocuments")), bit);
+                mark(entries.get(Kind.RULE), asList(metadata.get("appliedRules")), bit);
+                for (Object block : asMap(response.get("properties")).values()) {
+                    mark(entries.get(Kind.FIELD), asMap(SchemaFragment.unwrap(block).get("properties")).keySet(), bit);
+                }
+            }
+            long buildMillis = (System.nanoTime() - start) / 1_000_000;
+            snapshot = new Snapshot(List.copyOf(indexed), entries, now(), buildMillis);
+            logger.info("Indexed {} profiles ({} documents, {} fields, {} rules) in {} ms", indexed.size(),
+                    entries.get(Kind.DOCUMENT).size(), entries.get(Kind.FIELD).size(), entries.get(Kind.RULE).size(),
+                    buildMillis);
+        } catch (InterruptedException e) {
+            // Stopped with the application context
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure = e.getMessage();
+            logger.error("Building the requirements index failed", e);
+        }
+    }
+
+    // Errors such as a deadline hit under startup load are usually transient; anything else fails the build
+    private Map<String, Object> evaluate(IndexedProfile profile) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Map<String, Object> response = profile.evaluate();
+            if (!Boolean.TRUE.equals(response.get("error"))) {
+                return response;
+            }
+            if (attempt == ATTEMPTS) {
+                throw new IllegalStateException(profile.profile() + " failed " + ATTEMPTS + " times: "
+                        + response.get("message"));
+            }
+            logger.warn("Indexing {} failed, retrying: {}", profile.profile(), response.get("message"));
+            Thread.sleep(retryDelay.toMillis() * attempt);
+        }
+    }
+
+    /**
+     * The profiles whose requirements contain the named document, field or rule, with the
+     * customer types, account types and products among them. At most {@code limit} profiles
+     * are listed; the counts and the facets always cover all of them.
+     */
+    public Map<String, Object> find(Kind kind, String name, int limit) {
+        Snapshot current = snapshot;
+        TreeMap<String, BitSet> entries = current.entries().get(kind);
+        // Report the name as the rules spell it
+        String indexedName = entries.containsKey(name) ? entries.ceilingKey(name) : name;
+        BitSet matches = entries.getOrDefault(name, new BitSet());
+        Set<Object> customerTypes = new TreeSet<>();
+        Set<Object> accountTypes = new TreeSet<>();
+        Set<Object> products = new TreeSet<>();
+        List<Map<String, Object>> profiles = new ArrayList<>();
+        for (int bit = matches.nextSetBit(0); bit >= 0; bit = matches.nextSetBit(bit + 1)) {
+            Map<String, Object> profile = current.profiles().get(bit);
+            addIfPresent(customerTypes, profile.get("customerType"));
+            addIfPresent(accountTypes, profile.get("accountType"));
+            addIfPresent(products, profile.get("product"));
+            if (profiles.size() < limit) {
+                profiles.add(profile);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put(kind.parameter(), indexedName);
+        response.put("matchingProfiles", matches.cardinality());
+        response.put("totalProfiles", current.profiles().size());
+        response.put("customerTypes", customerTypes);
+        response.put("accountTypes", accountTypes);
+        response.put("products", products);
+        response.put("profiles", profiles);
+        response.put("truncated", matches.cardinality() > profiles.size());
+        response.put("ruleSet", fingerprint.getShortHash());
+        response.put("timestamp", now());
+        return response;
+    }
+
+    /**
+     * Everything that can be looked up, and when the index was built.
+     */
+    public Map<String, Object> summary() {
+        Snapshot current = snapshot;
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ruleSet", fingerprint.getShortHash());
+        response.put("builtAt", current.builtAt());
+        response.put("buildMillis", current.buildMillis());
+        response.put("totalProfiles", current.profiles().size());
+        response.put("documents", current.entries().get(Kind.DOCUMENT).keySet());
+        response.put("fields", current.entries().get(Kind.FIELD).keySet());
+        response.put("rules", current.entries().get(Kind.RULE).keySet());
+        return response;
+    }
+
+    /**
+     * Why lookups cannot be answered yet, or null once the index is ready.
+     */
+    public String unavailableReason() {
+        if (snapshot != null) {
+            return null;
+        }
+        if (!enabled) {
+            return "The requirements index is disabled (kyc.index.enabled)";
+        }
+        return failure != null ? "Building the requirements index failed: " + failure
+                : "The requirements index is still being built";
+    }
+
+    private static void mark(Map<String, BitSet> entries, Iterable<?> names, int bit) {
+        for (Object name : names) {
+            entries.computeIfAbsent(String.valueOf(name), n -> new BitSet()).set(bit);
+        }
+    }
+
+    private static void addIfPresent(Set<Object> values, Object value) {
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+    }
+
+    private static List<?> asList(Object value) {
+        return value instanceof List<?> list ? list : List.of();
+    }
+
+    private static String now() {
+        return LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.kyc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One fireAllRules call of an evaluation, with how many rules fired and how it ended.
+ */
+@Name("com.example.kyc.FireAllRules")
+@Label("KYC Fire All Rules")
+@Category({"KYC", "Rules"})
+@Description("Rule firing of one evaluation")
+@StackTrace(false)
+public class FireAllRulesEvent extends jdk.jfr.Event {
+
+    @Label("Rules Fired")
+    public int rulesFired;
+
+    @Label("Projection")
+    @Description("full or projected")
+    public String projection;
+
+    @Label("Outcome")
+    @Description("COMPLETED, DEADLINE_EXCEEDED, MAX_FIRINGS_EXCEEDED or FAILED")
+    public String outcome;
+}
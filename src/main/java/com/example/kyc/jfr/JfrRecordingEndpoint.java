@@ -0,0 +1,196 @@
+package com.example.kyc.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts, stops and downloads a JDK Flight Recorder recording on a live instance, e.g. to
+ * line up GC pauses and allocation with the KYC rule events of this package.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/jfr}: state of the current or last recording</li>
+ *   <li>{@code POST /actuator/jfr}: start one, with optional {@code settings} ({@code default}
+ *       or {@code profile}), {@code duration}, {@code maxSize} and {@code ruleEvents}
+ *       ({@code false} leaves out the per-firing {@link RuleFiredEvent})</li>
+ *   <li>{@code DELETE /actuator/jfr}: stop it early</li>
+ *   <li>{@code GET /actuator/jfr/recording}: download it, also while it is running</li>
+ * </ul>
+ *
+ * <p>Recordings are bounded: one at a time, stopped after {@code kyc.jfr.max-duration} at
+ * the latest, and never more than {@code kyc.jfr.max-size} on disk (older chunks are dropped).
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecordingEndpoint.class);
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private Recording recording;
+    private String settings;
+    private boolean ruleEvents;
+
+    public JfrRecordingEndpoint(@Value("${kyc.jfr.default-duration:5m}") Duration defaultDuration,
+                                @Value("${kyc.jfr.max-duration:30m}") Duration maxDuration,
+                                @Value("${kyc.jfr.max-size:100MB}") DataSize maxSize) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        return describe();
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable String settings,
+                                                                       @Nullable Duration duration,
+                                                                       @Nullable DataSize maxSize,
+                                                                       @Nullable Boolean ruleEvents) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(errorResponse("A recording is already running, stop it first"), 409);
+        }
+        Duration recordingDuration = duration != null ? duration : defaultDuration;
+        if (recordingDuration.isNegative() || recordingDuration.isZero() || recordingDuration.compareTo(maxDuration) > 0) {
+            return new WebEndpointResponse<>(errorResponse("duration must be positive and at most " + maxDuration), 400);
+        }
+        DataSize recordingSize = maxSize != null ? maxSize : this.maxSize;
+        if (recordingSize.toBytes() <= 0 || recordingSize.toBytes() > this.maxSize.toBytes()) {
+            return new WebEndpointResponse<>(errorResponse("maxSize must be positive and at most " + this.maxSize), 400);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : "default");
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(errorResponse("settings must be default or profile"), 400);
+        }
+
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(configuration);
+        recording.setName("kyc");
+        recording.setToDisk(true);
+        recording.setDuration(recordingDuration);
+        recording.setMaxSize(recordingSize.toBytes());
+        if (Boolean.FALSE.equals(ruleEvents)) {
+            recording.disable(RuleFiredEvent.class);
+        }
+        this.ruleEvents = !Boolean.FALSE.equals(ruleEvents);
+        recording.start();
+        this.settings = configuration.getName();
+        logger.info("Started JFR recording with {} settings for {} (max {})", configuration.getName(),
+                recordingDuration, recordingSize);
+        return new WebEndpointResponse<>(describe(), 200);
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            logger.info("Stopped JFR recording");
+        }
+        return describe();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector String name) throws IOException {
+        if (!"recording".equals(name) || recording == null || recording.getState() == RecordingState.NEW
+                || recording.getState() == RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(404);
+        }
+        Path file = Files.createTempFile("kyc-", ".jfr");
+        recording.dump(file);
+        return new WebEndpointResponse<>(new TemporaryFileResource(file), 200);
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState().name());
+        status.put("settings", settings);
+        status.put("ruleEvents", ruleEvents);
+        status.put("duration", String.valueOf(recording.getDuration()));
+        status.put("maxSize", megabytes(recording.getMaxSize()));
+        status.put("size", megabytes(recording.getSize()));
+        if (recording.getStartTime() != null) {
+            status.put("startTime", recording.getStartTime().toString());
+        }
+        return status;
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1048576.0);
+    }
+
+    private static Map<String, Object> errorResponse(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", true);
+        error.put("message", message);
+        error.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return error;
+    }
+
+    /**
+     * A dumped recording that is deleted once it has been sent.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            // Make the message converter stream it through getInputStream
+            return false;
+        }
+    }
+}
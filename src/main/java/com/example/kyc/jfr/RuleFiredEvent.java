@@ -0,0 +1,29 @@
+package com.example.kyc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One rule match fired. The event spans the consequence, from the match being taken off
+ * the agenda until the consequence returned.
+ */
+@Name("com.example.kyc.RuleFired")
+@Label("KYC Rule Fired")
+@Category({"KYC", "Rules"})
+@Description("Consequence of one rule match, from SingaporeKycRules.drl or CorporateKycRules.drl")
+@StackTrace(false)
+public class RuleFiredEvent extends jdk.jfr.Event {
+
+    @Label("Rule")
+    public String rule;
+
+    @Label("Rule Group")
+    @Description("Rule name before \" - \", e.g. Corporate, FX, PEP")
+    public String ruleGroup;
+
+    @Label("Package")
+    public String rulePackage;
+}
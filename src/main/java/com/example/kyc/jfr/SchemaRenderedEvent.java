@@ -0,0 +1,34 @@
+package com.example.kyc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A requirements schema built from a rule outcome. The event duration is the build time.
+ */
+@Name("com.example.kyc.SchemaRendered")
+@Label("KYC Schema Rendered")
+@Category({"KYC", "Schema"})
+@Description("Requirements schema built from a rule outcome")
+@StackTrace(false)
+public class SchemaRenderedEvent extends jdk.jfr.Event {
+
+    @Label("Fields")
+    public int fieldCount;
+
+    @Label("Categories")
+    public int categoryCount;
+
+    @Label("Schema Bytes")
+    @Description("UTF-8 size of the category blocks, which make up most of the response")
+    @DataAmount
+    public long bytes;
+
+    @Label("From Store")
+    @Description("Rule outcome read from the persistent schema store instead of firing rules")
+    public boolean fromStore;
+}
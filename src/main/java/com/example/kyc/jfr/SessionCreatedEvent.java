@@ -0,0 +1,23 @@
+package com.example.kyc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A KIE session created for one evaluation, including setting its globals. The event
+ * duration is the creation time.
+ */
+@Name("com.example.kyc.SessionCreated")
+@Label("KYC Session Created")
+@Category({"KYC", "Rules"})
+@Description("KIE session created for one evaluation")
+@StackTrace(false)
+public class SessionCreatedEvent extends jdk.jfr.Event {
+
+    @Label("Facts")
+    @Description("Request facts the session will evaluate")
+    public int facts;
+}
@@ -0,0 +1,79 @@
+package com.example.kyc.model;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Multi-product bundle KYC Request")
+public class BundleKycRequest {
+
+    @Schema(description = "Customer type; CORPORATE bundles use corporate products", example = "INDIVIDUAL", required = true,
+            allowableValues = {"INDIVIDUAL", "CORPORATE", "SOLE_PROPRIETOR", "PARTNERSHIP", "TRUST", "FOREIGNER"})
+    private String customerType;
+
+    @ArraySchema(arraySchema = @Schema(description = "Products opened together (account types, or CASA/FX/TRADING for corporates)",
+            example = "[\"SAVINGS\", \"CREDIT_CARD\", \"INVESTMENT\"]", required = true))
+    private List<String> products;
+
+    @Schema(description = "Customer nationality (individual bundles)", example = "SINGAPORE")
+    private String nationality;
+
+    @Schema(description = "Is the customer a Politically Exposed Person? (individual bundles)", example = "false")
+    private Boolean pep;
+
+    @Schema(description = "Country of residence/operation", example = "SINGAPORE")
+    private String country;
+
+    // Constructors
+    public BundleKycRequest() {}
+
+    public BundleKycRequest(String customerType, List<String> products, String nationality, Boolean pep, String country) {
+        this.customerType = customerType;
+        this.products = products;
+        this.nationality = nationality;
+        this.pep = pep;
+        this.country = country;
+    }
+
+    // Getters and Setters
+    public String getCustomerType() {
+        return customerType;
+    }
+
+    public void setCustomerType(String customerType) {
+        this.customerType = customerType;
+    }
+
+    public List<String> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<String> products) {
+        this.products = products;
+    }
+
+    public String getNationality() {
+        return nationality;
+    }
+
+    public void setNationality(String nationality) {
+        this.nationality = nationality;
+    }
+
+    public Boolean getPep() {
+        return pep;
+    }
+
+    public void setPep(Boolean pep) {
+        this.pep = pep;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+}
@@ -19,6 +19,9 @@ public class IndividualKycRequest {
     @Schema(description = "Is the customer a Politically Exposed Person?", example = "false", required = true)
     private Boolean pep;
 
+    @Schema(description = "Planned initial deposit in SGD; 20000 and above requires income details, 50000 and above source of funds", example = "10000")
+    private Double initialDeposit;
+
     @Schema(description = "Country of residence/operation", example = "SINGAPORE")
     private String country;
 
@@ -66,6 +69,14 @@ public class IndividualKycRequest {
         this.pep = pep;
     }
 
+    public Double getInitialDeposit() {
+        return initialDeposit;
+    }
+
+    public void setInitialDeposit(Double initialDeposit) {
+        this.initialDeposit = initialDeposit;
+    }
+
     public String getCountry() {
         return country;
     }
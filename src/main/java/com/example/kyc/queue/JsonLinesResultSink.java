@@ -0,0 +1,52 @@
+package com.example.kyc.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each result as one JSON line to {@code kyc-results.jsonl} in a directory. Every
+ * line is written with a single append, so processes sharing the directory do not
+ * interleave partial lines.
+ */
+public class JsonLinesResultSink implements KycResultSink, Closeable {
+
+    static final String FILE_NAME = "kyc-results.jsonl";
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final FileChannel channel;
+
+    public JsonLinesResultSink(ObjectMapper objectMapper, Path directory) throws IOException {
+        this.objectMapper = objectMapper;
+        this.file = Files.createDirectories(directory).resolve(FILE_NAME);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void write(KycQueueResult result) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(result);
+        ByteBuffer line = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        synchronized (channel) {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
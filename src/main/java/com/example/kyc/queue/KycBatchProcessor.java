@@ -0,0 +1,193 @@
+package com.example.kyc.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Evaluates a batch of queued KYC profiles, as delivered by an SQS-triggered function.
+ *
+ * <p>Each record body is a requirements request: {@code customerType} and {@code accountType}
+ * for individuals, {@code product} for individual products, or {@code product} with
+ * {@code customerType: CORPORATE}. Records with the same request are evaluated once and
+ * each record gets its own copy of the result with a fresh referenceId.
+ *
+ * <p>Every record ends in one of three ways:
+ * <ul>
+ *   <li>EVALUATED: the schema is written to the sink.</li>
+ *   <li>REJECTED: the body is malformed or invalid. The error response is written to the sink
+ *       and the record is not retried, because it would fail the same way again.</li>
+ *   <li>Failed: the evaluation was stopped (deadline, firing cap, open circuit), threw, or the
+ *       sink write failed. Only these records are returned for redelivery.</li>
+ * </ul>
+ */
+public class KycBatchProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycBatchProcessor.class);
+
+    private static final TypeReference<Map<String, Object>> REQUEST_TYPE = new TypeReference<>() {
+    };
+
+    private final Function<Map<String, Object>, Map<String, Object>> individual;
+    private final Function<Map<String, Object>, Map<String, Object>> individualProduct;
+    private final Function<Map<String, Object>, Map<String, Object>> corporate;
+    private final ObjectMapper objectMapper;
+    private final boolean deduplicate;
+
+    /**
+     * Counts for one batch and the message ids to redeliver.
+     */
+    public record BatchReport(int messages, int evaluations, int rejected, List<String> failedMessageIds) {
+    }
+
+    // Records sharing one request
+    private record Group(Map<String, Object> request, List<KycQueueMessage> messages) {
+    }
+
+    public KycBatchProcessor(Function<Map<String, Object>, Map<String, Object>> individual,
+                             Function<Map<String, Object>, Map<String, Object>> individualProduct,
+                             Function<Map<String, Object>, Map<String, Object>> corporate,
+                             ObjectMapper objectMapper, boolean deduplicate) {
+        this.individual = individual;
+        this.individualProduct = individualProduct;
+        this.corporate = corporate;
+        this.objectMapper = objectMapper;
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * Processes an SQS event ({@code {"Records":[{"messageId":..,"body":..}, ...]}}) and returns
+     * the partial batch response ({@code {"batchItemFailures":[{"itemIdentifier":..}]}}) that
+     * Lambda expects when ReportBatchItemFailures is enabled.
+     */
+    public Map<String, Object> handle(Map<String, Object> event, KycResultSink sink) {
+        BatchReport report = process(messages(event), sink);
+        List<Map<String, Object>> failures = new ArrayList<>();
+        for (String messageId : report.failedMessageIds()) {
+            failures.add(Map.of("itemIdentifier", messageId));
+        }
+        return Map.of("batchItemFailures", failures);
+    }
+
+    public BatchReport process(List<KycQueueMessage> messages, KycResultSink sink) {
+        long start = System.nanoTime();
+        List<KycQueueResult> results = new ArrayList<>(messages.size());
+        Map<Object, Group> groups = new LinkedHashMap<>();
+        for (KycQueueMessage message : messages) {
+            Map<String, Object> request = parse(message.body());
+            if (request == null) {
+                results.add(new KycQueueResult(message.messageId(), KycQueueResult.Status.REJECTED,
+                        errorResponse("body must be a JSON object with a KYC profile")));
+                continue;
+            }
+            Object key = deduplicate ? new TreeMap<>(request) : message.messageId();
+            groups.computeIfAbsent(key, k -> new Group(request, new ArrayList<>())).messages().add(message);
+        }
+
+        Set<String> failed = new LinkedHashSet<>();
+        for (Group group : groups.values()) {
+            Map<String, Object> response;
+            try {
+                response = functionFor(group.request()).apply(new HashMap<>(group.request()));
+            } catch (RuntimeException e) {
+                logger.warn("Queue evaluation failed for {} records: {}", group.messages().size(), e.getMessage(), e);
+                group.messages().forEach(message -> failed.add(message.messageId()));
+                continue;
+            }
+            boolean error = Boolean.TRUE.equals(response.get("error"));
+            if (error && response.containsKey("reason")) {
+                // Stopped by the deadline, firing cap or circuit breaker: worth redelivering
+                group.messages().forEach(message -> failed.add(message.messageId()));
+                continue;
+            }
+            KycQueueResult.Status status = error ? KycQueueResult.Status.REJECTED : KycQueueResult.Status.EVALUATED;
+            for (int i = 0; i < group.messages().size(); i++) {
+                results.add(new KycQueueResult(group.messages().get(i).messageId(), status,
+                        i == 0 || error ? response : withReference(response)));
+            }
+        }
+
+        int rejected = 0;
+        for (KycQueueResult result : results) {
+            try {
+                sink.write(result);
+                if (result.status() == KycQueueResult.Status.REJECTED) {
+                    rejected++;
+                }
+            } catch (Exception e) {
+                logger.warn("Cannot write result of queue record {}: {}", result.messageId(), e.getMessage());
+                failed.add(result.messageId());
+            }
+        }
+
+        logger.info("Processed {} queue records with {} evaluations in {} ms: {} rejected, {} to retry",
+                messages.size(), groups.size(), (System.nanoTime() - start) / 1_000_000, rejected, failed.size());
+        return new BatchReport(messages.size(), groups.size(), rejected, List.copyOf(failed));
+    }
+
+    /**
+     * The records of an SQS event; other event fields are ignored.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<KycQueueMessage> messages(Map<String, Object> event) {
+        List<KycQueueMessage> messages = new ArrayList<>();
+        if (event != null && event.get("Records") instanceof List<?> records) {
+            for (Object record : records) {
+                Map<String, Object> fields = (Map<String, Object>) record;
+                messages.add(new KycQueueMessage(String.valueOf(fields.get("messageId")), (String) fields.get("body")));
+            }
+        }
+        return messages;
+    }
+
+    private Map<String, Object> parse(String body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(body, REQUEST_TYPE);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private Function<Map<String, Object>, Map<String, Object>> functionFor(Map<String, Object> request) {
+        if (request.get("product") == null) {
+            return individual;
+        }
+        return "CORPORATE".equals(request.get("customerType")) ? corporate : individualProduct;
+    }
+
+    // Duplicates share the evaluation but not the reference
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> withReference(Map<String, Object> response) {
+        Map<String, Object> copy = new LinkedHashMap<>(response);
+        Map<String, Object> metadata = new LinkedHashMap<>((Map<String, Object>) response.get("x-metadata"));
+        metadata.put("referenceId", UUID.randomUUID().toString());
+        copy.put("x-metadata", metadata);
+        return copy;
+    }
+
+    private static Map<String, Object> errorResponse(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", true);
+        error.put("message", message);
+        error.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return error;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.kyc.queue;
+
+/**
+ * One queue record: the broker's message id, used to report the record as failed, and the
+ * JSON body holding the KYC profile.
+ */
+public record KycQueueMessage(String messageId, String body) {
+}
@@ -0,0 +1,22 @@
+package com.example.kyc.queue;
+
+import java.util.Map;
+
+/**
+ * The outcome of one queue record as written to the {@link KycResultSink}.
+ *
+ * @param messageId the record's message id
+ * @param status    EVALUATED with the requirements schema, REJECTED with the error
+ *                  response when the body can never be evaluated (malformed or invalid),
+ *                  or FAILED without a response when the record is worth redelivering
+ *                  (published by processKycStream only; the queue batch reports these ids)
+ * @param response  the response the matching requirements function returned
+ */
+public record KycQueueResult(String messageId, Status status, Map<String, Object> response) {
+
+    public enum Status {
+        EVALUATED,
+        REJECTED,
+        FAILED
+    }
+}
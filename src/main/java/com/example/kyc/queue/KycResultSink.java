@@ -0,0 +1,19 @@
+package com.example.kyc.queue;
+
+import java.io.IOException;
+
+/**
+ * Destination of queue-driven evaluation results. A write that throws marks only that
+ * record as failed, so the queue redelivers it. Implementations are called from concurrent
+ * invocations and must be thread-safe.
+ */
+@FunctionalInterface
+public interface KycResultSink {
+
+    /**
+     * Discards all results.
+     */
+    KycResultSink NONE = result -> { };
+
+    void write(KycQueueResult result) throws IOException;
+}
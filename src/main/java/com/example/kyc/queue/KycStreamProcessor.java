@@ -0,0 +1,111 @@
+package com.example.kyc.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Message-driven evaluation for Spring Cloud Stream (processKycStream): collects the incoming
+ * profiles into micro-batches of up to {@code maxBatchSize} records, or whatever arrived within
+ * {@code linger} of a batch's first record, and evaluates each batch with a
+ * {@link KycBatchProcessor}, so duplicates within a batch are evaluated once. Up to
+ * {@code concurrency} batches are evaluated at the same time. While all of them are busy, records
+ * wait in the next batch, and that batch closes as soon as one finishes, even before
+ * {@code linger} has passed.
+ *
+ * <p>Every input message produces one output message whose payload is its {@link KycQueueResult}
+ * and whose {@value #MESSAGE_ID_HEADER} and {@value #STATUS_HEADER} headers carry the record's id
+ * and status, for routing without parsing the payload. The id is the input's
+ * {@value #MESSAGE_ID_HEADER} header if set, else the id of the message as delivered, which
+ * binders assign anew, so producers that correlate results should set the header. Records whose
+ * evaluation was stopped are published as FAILED for the producer to resend; the stream itself
+ * never errors, since an error would end the binding's subscription.
+ */
+public class KycStreamProcessor implements Function<Flux<Message<String>>, Flux<Message<KycQueueResult>>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycStreamProcessor.class);
+
+    public static final String MESSAGE_ID_HEADER = "kyc_message_id";
+    public static final String STATUS_HEADER = "kyc_status";
+
+    private final KycBatchProcessor processor;
+    private final int maxBatchSize;
+    private final Duration linger;
+    private final int concurrency;
+
+    public KycStreamProcessor(KycBatchProcessor processor, int maxBatchSize, Duration linger, int concurrency) {
+        if (maxBatchSize < 1 || !linger.isPositive() || concurrency < 1) {
+            throw new IllegalArgumentException("kyc.stream needs max-batch-size >= 1, a positive linger and "
+                    + "concurrency >= 1, got " + maxBatchSize + ", " + linger + ", " + concurrency);
+        }
+        this.processor = processor;
+        this.maxBatchSize = maxBatchSize;
+        this.linger = linger;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public Flux<Message<KycQueueResult>> apply(Flux<Message<String>> messages) {
+        // Evaluations block, so batches leave the binder's thread for the bounded elastic pool. Fair
+        // backpressure holds batches back while concurrency batches are in flight instead of overflowing.
+        return messages.bufferTimeout(maxBatchSize, linger, true)
+                .flatMap(batch -> Mono.fromCallable(() -> process(batch)).subscribeOn(Schedulers.boundedElastic()),
+                        concurrency)
+                .flatMapIterable(results -> results);
+    }
+
+    /**
+     * Evaluates one micro-batch; one result message per input message.
+     */
+    public List<Message<KycQueueResult>> process(List<Message<String>> batch) {
+        List<KycQueueMessage> records = new ArrayList<>(batch.size());
+        for (Message<String> message : batch) {
+            records.add(new KycQueueMessage(messageId(message.getHeaders()), message.getPayload()));
+        }
+        List<KycQueueResult> results = Collections.synchronizedList(new ArrayList<>(batch.size()));
+        KycBatchProcessor.BatchReport report;
+        try {
+            report = processor.process(records, results::add);
+        } catch (RuntimeException e) {
+            logger.warn("Stream batch of {} records failed: {}", records.size(), e.getMessage(), e);
+            results.clear();
+            report = new KycBatchProcessor.BatchReport(records.size(), 0, 0,
+                    records.stream().map(KycQueueMessage::messageId).toList());
+        }
+        Set<String> failed = Set.copyOf(report.failedMessageIds());
+        List<Message<KycQueueResult>> output = new ArrayList<>(records.size());
+        for (KycQueueResult result : results) {
+            if (!failed.contains(result.messageId())) {
+                output.add(message(result));
+            }
+        }
+        for (String messageId : report.failedMessageIds()) {
+            output.add(message(new KycQueueResult(messageId, KycQueueResult.Status.FAILED, null)));
+        }
+        return output;
+    }
+
+    private static String messageId(MessageHeaders headers) {
+        Object messageId = headers.get(MESSAGE_ID_HEADER);
+        return messageId != null ? messageId.toString() : String.valueOf(headers.getId());
+    }
+
+    private static Message<KycQueueResult> message(KycQueueResult result) {
+        return MessageBuilder.withPayload(result)
+                .setHeader(MESSAGE_ID_HEADER, result.messageId())
+                .setHeader(STATUS_HEADER, result.status().name())
+                .build();
+    }
+}
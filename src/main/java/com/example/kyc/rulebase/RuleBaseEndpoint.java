@@ -0,0 +1,206 @@
+package com.example.kyc.rulebase;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.engine.KycRuleEngine;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the rule base costs: its Rete network (see {@link RuleNetwork}) and how much heap a
+ * KieBase and an evaluation's session retain, against a share of the maximum heap.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/rulebase}: network counts, unindexed constraints, duplicate
+ *       conditions, the last footprint measurement and warnings</li>
+ *   <li>{@code POST /actuator/rulebase}: measure the footprint, then the same report</li>
+ * </ul>
+ *
+ * <p>Retained sizes are heap deltas across full GCs while extra KieBases and fired sessions of
+ * the heaviest profile are held, after a discarded warm-up round. The measurement forces a few
+ * GCs, so it only runs on request; concurrent traffic makes it less exact.
+ */
+@Component
+@WebEndpoint(id = "rulebase")
+public class RuleBaseEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleBaseEndpoint.class);
+
+    private static final int MEASURED_KIE_BASES = 3;
+    private static final int MEASURED_SESSIONS = 200;
+    private static final Map<String, Object> SAMPLE_PROFILE = Map.of("customerType", "INDIVIDUAL",
+            "accountType", "INVESTMENT", "pep", true, "nationality", "MALAYSIA", "initialDeposit", 250000,
+            "country", "SINGAPORE");
+
+    private final KieServices kieServices;
+    private final KieContainer kieContainer;
+    private final KycRuleEngine ruleEngine;
+    private final RuleSetFingerprint fingerprint;
+    private final int heapBudgetPercent;
+    private final int concurrentSessions;
+    private Map<String, Object> network;
+    private List<String> networkWarnings;
+    private Map<String, Object> footprint;
+
+    public RuleBaseEndpoint(KieServices kieServices, KieContainer kieContainer, KycRuleEngine ruleEngine,
+                            RuleSetFingerprint fingerprint,
+                            @Value("${kyc.rulebase.heap-budget-percent:25}") int heapBudgetPercent,
+                            @Value("${kyc.rulebase.concurrent-sessions:${server.tomcat.threads.max:200}}") int concurrentSessions) {
+        this.kieServices = kieServices;
+        this.kieContainer = kieContainer;
+        this.ruleEngine = ruleEngine;
+        this.fingerprint = fingerprint;
+        this.heapBudgetPercent = heapBudgetPercent;
+        this.concurrentSessions = concurrentSessions;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> report() {
+        if (network == null) {
+            // The rule base is built once, so its network only needs describing once
+            RuleNetwork ruleNetwork = RuleNetwork.of(kieContainer.getKieBase());
+            network = ruleNetwork.describe();
+            networkWarnings = ruleNetwork.warnings();
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("ruleSet", fingerprint.getShortHash());
+        report.put("kieBases", ruleEngine.getKieBaseCount());
+        report.putAll(network);
+        report.put("footprint", footprint);
+        List<String> warnings = new ArrayList<>(networkWarnings);
+        if (footprint != null && Boolean.TRUE.equals(footprint.get("overBudget"))) {
+            warnings.add(budgetWarning(footprint));
+        }
+        report.put("warnings", warnings);
+        return report;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> measure() {
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:+DisableExplicitGC")) {
+            return new WebEndpointResponse<>(errorResponse(
+                    "Retained sizes cannot be measured with -XX:+DisableExplicitGC"), 409);
+        }
+        long start = System.nanoTime();
+        long kieBaseBytes = 0;
+        long sessionBytes = 0;
+        // The first round loads classes and fills lazily built caches; only the second is kept
+        for (int round = 0; round < 2; round++) {
+            kieBaseBytes = kieBaseBytes();
+            sessionBytes = sessionBytes();
+        }
+        long maxHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        int kieBases = ruleEngine.getKieBaseCount();
+        long estimated = kieBases * kieBaseBytes + concurrentSessions * sessionBytes;
+        long budget = maxHeap > 0 ? maxHeap / 100 * heapBudgetPercent : -1;
+
+        Map<String, Object> measured = new LinkedHashMap<>();
+        measured.put("measuredAt", now());
+        measured.put("measureMillis", (System.nanoTime() - start) / 1_000_000);
+        measured.put("kieBaseBytes", kieBaseBytes);
+        measured.put("sessionBytes", sessionBytes);
+        measured.put("kieBases", kieBases);
+        measured.put("concurrentSessions", concurrentSessions);
+        measured.put("estimatedBytes", estimated);
+        measured.put("maxHeapBytes", maxHeap);
+        measured.put("heapBudgetPercent", heapBudgetPercent);
+        measured.put("heapBudgetBytes", budget);
+        measured.put("overBudget", budget >= 0 && estimated > budget);
+        footprint = measured;
+        if (budget >= 0 && estimated > budget) {
+            logger.warn(budgetWarning(measured));
+        } else {
+            logger.info("Rule base retains {} per KieBase and {} per session ({} with {} sessions, budget {})",
+                    megabytes(kieBaseBytes), kilobytes(sessionBytes), megabytes(estimated), concurrentSessions,
+                    budget >= 0 ? megabytes(budget) : "unbounded");
+        }
+        return new WebEndpointResponse<>(report(), 200);
+    }
+
+    private long kieBaseBytes() {
+        long before = usedHeapAfterGc();
+        List<KieBase> held = new ArrayList<>();
+        for (int i = 0; i < MEASURED_KIE_BASES; i++) {
+            held.add(kieContainer.newKieBase(kieServices.newKieBaseConfiguration()));
+        }
+        long retained = (usedHeapAfterGc() - before) / held.size();
+        return Math.max(0, retained);
+    }
+
+    private long sessionBytes() {
+        KieBase kieBase = kieContainer.getKieBase();
+        long before = usedHeapAfterGc();
+        List<KieSession> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < MEASURED_SESSIONS; i++) {
+                KieSession session = kieBase.newKieSession();
+                held.add(session);
+                session.setGlobal("fieldsList", new ArrayList<>());
+                session.setGlobal("rulesList", new ArrayList<>());
+                session.setGlobal("documentsList", new ArrayList<>());
+                session.setGlobal("instructionsList", new ArrayList<>());
+                session.setGlobal("responseData", new HashMap<>(Map.of("riskLevel", "LOW",
+                        "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 3)));
+                session.insert(new HashMap<>(SAMPLE_PROFILE));
+                session.fireAllRules();
+            }
+            return Math.max(0, (usedHeapAfterGc() - before) / held.size());
+        } finally {
+            held.forEach(KieSession::dispose);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String budgetWarning(Map<String, Object> footprint) {
+        return String.format("The KieBases (%d) and %d concurrent sessions retain about %s, above the %d%% heap budget (%s of %s)",
+                (Integer) footprint.get("kieBases"), (Integer) footprint.get("concurrentSessions"),
+                megabytes((Long) footprint.get("estimatedBytes")), (Integer) footprint.get("heapBudgetPercent"),
+                megabytes((Long) footprint.get("heapBudgetBytes")), megabytes((Long) footprint.get("maxHeapBytes")));
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1048576.0);
+    }
+
+    private static String kilobytes(long bytes) {
+        return String.format("%.1f KB", bytes / 1024.0);
+    }
+
+    private static Map<String, Object> errorResponse(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", true);
+        error.put("message", message);
+        error.put("timestamp", now());
+        return error;
+    }
+
+    private static String now() {
+        return LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.kyc.rulebase;
+
+import org.drools.base.common.NetworkNode;
+import org.drools.base.definitions.rule.impl.RuleImpl;
+import org.drools.base.reteoo.NodeTypeEnums;
+import org.drools.base.rule.IndexableConstraint;
+import org.drools.base.rule.constraint.AlphaNodeFieldConstraint;
+import org.drools.core.common.BaseNode;
+import org.drools.core.impl.InternalRuleBase;
+import org.drools.core.reteoo.AlphaNode;
+import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter;
+import org.drools.core.reteoo.EntryPointNode;
+import org.drools.core.reteoo.LeftTupleSource;
+import org.drools.core.reteoo.ObjectSource;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.TerminalNode;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.definition.KiePackage;
+import org.kie.api.definition.rule.Rule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The Rete network of a KieBase: rule, node and type counts per package and per rule file,
+ * the nodes rules share, the constraints Drools can neither hash nor index, and rules whose
+ * conditions are identical.
+ *
+ * <p>A constraint on a {@code Map} fact such as {@code this["customerType"] == "CORPORATE"}
+ * is an MVEL expression, not a property read, so Drools cannot hash the alpha nodes below an
+ * object type by its value: every inserted map is tested against each of them in turn.
+ */
+final class RuleNetwork {
+
+    private static final int MAX_EXPRESSION_LENGTH = 200;
+
+    private final Map<Integer, NetworkNode> nodes = new TreeMap<>();
+    private final KieBaseConfiguration configuration;
+    private final Collection<KiePackage> packages;
+
+    private RuleNetwork(InternalRuleBase ruleBase) {
+        this.configuration = ruleBase.getConfiguration();
+        this.packages = ruleBase.getKiePackages();
+        Deque<NetworkNode> pending = new ArrayDeque<>(ruleBase.getRete().getEntryPointNodes().values());
+        while (!pending.isEmpty()) {
+            NetworkNode node = pending.poll();
+            if (nodes.putIfAbsent(node.getId(), node) == null) {
+                pending.addAll(Arrays.asList(sinks(node)));
+            }
+        }
+    }
+
+    static RuleNetwork of(KieBase kieBase) {
+        return new RuleNetwork((InternalRuleBase) kieBase);
+    }
+
+    /**
+     * Counts per package, rule file, node type and object type, as returned by the endpoint.
+     */
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("packages", packages());
+        description.put("files", files());
+        description.put("nodes", nodeCounts());
+        description.put("objectTypes", objectTypes());
+        description.put("unindexedConstraints", unindexedConstraints());
+        description.put("duplicateConditions", duplicateConditions());
+        return description;
+    }
+
+    /**
+     * What the network description points at: constraints that are tested one by one, and
+     * rules in different files that repeat each other's conditions.
+     */
+    List<String> warnings() {
+        List<String> warnings = new ArrayList<>();
+        long alphaNodes = nodes.values().stream().filter(AlphaNode.class::isInstance).count();
+        List<Map<String, Object>> unindexed = unindexedConstraints();
+        long unindexedAlpha = unindexed.stream().filter(c -> "alpha".equals(c.get("node"))).count();
+        if (unindexedAlpha > 0) {
+            warnings.add(unindexedAlpha + " of " + alphaNodes + " alpha constraints cannot be hashed or indexed, "
+                    + "so every inserted fact is tested against each of them");
+        }
+        long unindexedBeta = unindexed.size() - unindexedAlpha;
+        if (unindexedBeta > 0) {
+            warnings.add(unindexedBeta + (unindexedBeta == 1 ? " join has no indexable constraint and compares"
+                    : " joins have no indexable constraint and compare") + " every pair of facts");
+        }
+        long acrossFiles = duplicateConditions().stream().filter(d -> ((Set<?>) d.get("files")).size() > 1).count();
+        if (acrossFiles > 0) {
+            warnings.add(acrossFiles + (acrossFiles == 1 ? " group" : " groups")
+                    + " of rules in different files have identical conditions");
+        }
+        return warnings;
+    }
+
+    private List<Map<String, Object>> packages() {
+        List<Map<String, Object>> described = new ArrayList<>();
+        for (KiePackage kiePackage : packages) {
+            if (kiePackage.getRules().isEmpty() && kiePackage.getQueries().isEmpty()) {
+                // Drools registers a package for every imported type; only rule packages are of interest
+                continue;
+            }
+            Set<String> objectTypes = new TreeSet<>();
+            int nodeCount = 0;
+            for (NetworkNode node : nodes.values()) {
+                if (Arrays.stream(node.getAssociatedRules()).anyMatch(rule -> rule.getPackageName().equals(kiePackage.getName()))) {
+                    nodeCount++;
+                    String objectType = objectType(node);
+                    if (objectType != null) {
+                        objectTypes.add(objectType);
+                    }
+                }
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", kiePackage.getName());
+            entry.put("rules", kiePackage.getRules().size());
+            entry.put("queries", kiePackage.getQueries().size());
+            entry.put("declaredTypes", kiePackage.getFactTypes().size());
+            entry.put("objectTypes", objectTypes);
+            entry.put("nodes", nodeCount);
+            described.add(entry);
+        }
+        return described;
+    }
+
+    private List<Map<String, Object>> files() {
+        Map<String, Integer> rules = new TreeMap<>();
+        for (KiePackage kiePackage : packages) {
+            for (Rule rule : kiePackage.getRules()) {
+                rules.merge(file(rule), 1, Integer::sum);
+            }
+        }
+        List<Map<String, Object>> described = new ArrayList<>();
+        for (Map.Entry<String, Integer> file : rules.entrySet()) {
+            int nodeCount = 0;
+            int shared = 0;
+            for (NetworkNode node : nodes.values()) {
+                Set<String> files = files(node.getAssociatedRules());
+                if (files.contains(file.getKey())) {
+                    nodeCount++;
+                    if (files.size() > 1) {
+                        shared++;
+                    }
+                }
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("file", file.getKey());
+            entry.put("rules", file.getValue());
+            entry.put("nodes", nodeCount);
+            entry.put("sharedWithOtherFiles", shared);
+            described.add(entry);
+        }
+        return described;
+    }
+
+    private Map<String, Object> nodeCounts() {
+        Map<String, Integer> byType = new TreeMap<>();
+        int alpha = 0;
+        int beta = 0;
+        int terminal = 0;
+        int shared = 0;
+        int sharedAcrossFiles = 0;
+        for (NetworkNode node : nodes.values()) {
+            byType.merge(node.getClass().getSimpleName(), 1, Integer::sum);
+            if (node instanceof AlphaNode) {
+                alpha++;
+            } else if (NodeTypeEnums.isBetaNode(node)) {
+                beta++;
+            } else if (NodeTypeEnums.isTerminalNode(node)) {
+                terminal++;
+            }
+            Rule[] rules = node.getAssociatedRules();
+            if (rules.length > 1 && !(node instanceof ObjectTypeNode) && !(node instanceof EntryPointNode)) {
+                shared++;
+                if (files(rules).size() > 1) {
+                    sharedAcrossFiles++;
+                }
+            }
+        }
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("total", nodes.size());
+        counts.put("alpha", alpha);
+        counts.put("beta", beta);
+        counts.put("terminal", terminal);
+        counts.put("shared", shared);
+        counts.put("sharedAcrossFiles", sharedAcrossFiles);
+        counts.put("byType", byType);
+        return counts;
+    }
+
+    private List<Map<String, Object>> objectTypes() {
+        List<Map<String, Object>> described = new ArrayList<>();
+        for (NetworkNode node : nodes.values()) {
+            if (!(node instanceof ObjectTypeNode objectTypeNode)) {
+                continue;
+            }
+            int alphaNodes = 0;
+            for (NetworkNode sink : sinks(node)) {
+                if (sink instanceof AlphaNode) {
+                    alphaNodes++;
+                }
+            }
+            int hashed = objectTypeNode.getObjectSinkPropagator() instanceof CompositeObjectSinkAdapter adapter
+                    && adapter.getHashedSinkMap() != null ? adapter.getHashedSinkMap().size() : 0;
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("type", objectType(node));
+            entry.put("alphaNodes", alphaNodes);
+            entry.put("hashedAlphaNodes", hashed);
+            described.add(entry);
+        }
+        return described;
+    }
+
+    private List<Map<String, Object>> unindexedConstraints() {
+        List<Map<String, Object>> described = new ArrayList<>();
+        for (NetworkNode node : nodes.values()) {
+            if (node instanceof AlphaNode alphaNode) {
+                AlphaNodeFieldConstraint constraint = alphaNode.getConstraint();
+                if (!(constraint instanceof IndexableConstraint indexable)
+                        || !indexable.isIndexable(NodeTypeEnums.AlphaNode, configuration)) {
+                    described.add(constraint(node, "alpha", constraint.toString()));
+                }
+            } else if (node instanceof BetaNode betaNode && betaNode.getConstraints().length > 0
+                    && !betaNode.getRawConstraints().isIndexed()) {
+                described.add(constraint(node, "beta", Arrays.toString(betaNode.getConstraints())));
+            }
+        }
+        return described;
+    }
+
+    // Terminal nodes below the same left tuple source belong to rules with the same conditions
+    private List<Map<String, Object>> duplicateConditions() {
+        Map<Integer, List<Rule>> bySource = new TreeMap<>();
+        for (NetworkNode node : nodes.values()) {
+            if (node instanceof TerminalNode terminalNode) {
+                bySource.computeIfAbsent(terminalNode.getLeftTupleSource().getId(), id -> new ArrayList<>())
+                        .addAll(Arrays.asList(node.getAssociatedRules()));
+            }
+        }
+        List<Map<String, Object>> described = new ArrayList<>();
+        for (List<Rule> rules : bySource.values()) {
+            if (rules.size() < 2) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("rules", rules.stream().map(Rule::getName).sorted().toList());
+            entry.put("files", files(rules.toArray(new Rule[0])));
+            described.add(entry);
+        }
+        return described;
+    }
+
+    private static Map<String, Object> constraint(NetworkNode node, String kind, String expression) {
+        Rule[] rules = node.getAssociatedRules();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("nodeId", node.getId());
+        entry.put("node", kind);
+        entry.put("expression", expression.length() <= MAX_EXPRESSION_LENGTH ? expression
+                : expression.substring(0, MAX_EXPRESSION_LENGTH - 3) + "...");
+        entry.put("rules", rules.length);
+        entry.put("files", files(rules));
+        return entry;
+    }
+
+    private static NetworkNode[] sinks(NetworkNode node) {
+        if (node instanceof EntryPointNode entryPoint) {
+            return entryPoint.getObjectTypeNodes().values().toArray(new NetworkNode[0]);
+        }
+        if (node instanceof ObjectSource source && source.getObjectSinkPropagator() != null) {
+            return source.getObjectSinkPropagator().getSinks();
+        }
+        if (node instanceof LeftTupleSource source && source.getSinkPropagator() != null) {
+            return source.getSinkPropagator().getSinks();
+        }
+        return new NetworkNode[0];
+    }
+
+    private static String objectType(NetworkNode node) {
+        ObjectTypeNode objectTypeNode = node instanceof ObjectTypeNode own ? own
+                : node instanceof BaseNode base ? base.getObjectTypeNode() : null;
+        return objectTypeNode != null ? objectTypeNode.getObjectType().getClassName() : null;
+    }
+
+    private static Set<String> files(Rule[] rules) {
+        Set<String> files = new TreeSet<>();
+        for (Rule rule : rules) {
+            files.add(file(rule));
+        }
+        return files;
+    }
+
+    private static String file(Rule rule) {
+        return rule instanceof RuleImpl impl && impl.getResource() != null && impl.getResource().getSourcePath() != null
+                ? impl.getResource().getSourcePath() : "unknown";
+    }
+}
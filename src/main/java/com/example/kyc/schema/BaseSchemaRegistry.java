@@ -0,0 +1,347 @@
+package com.example.kyc.schema;
+
+import com.example.kyc.cache.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Versioned base schemas per customer segment (individual, corporate) and the JSON Patch
+ * (RFC 6902) deltas that turn a base into a profile's full requirements schema.
+ *
+ * <p>A base holds what most profiles of the segment share: every category, field definition,
+ * required flag and metadata value that more than half of the segment's profiles produce. Its id is a hash
+ * of its content, so it changes whenever the rules change the common core. Clients cache the
+ * base by id and receive only the patch per profile.
+ *
+ * <p>Patches are computed category by category. Category blocks served from the
+ * {@link SchemaFragmentCache} are shared across responses, so the operations of a block are
+ * computed once per base and reused. They are memoized by category and block content, not by
+ * fragment instance, since the fragment cache replaces instances it evicts.
+ */
+@Component
+public class BaseSchemaRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaseSchemaRegistry.class);
+
+    private static final List<String> ENVELOPE_KEYS = List.of("$schema", "title", "description", "type");
+    private static final List<String> HEADER_KEYS = List.of("type", "title", "description", "x-category-order");
+    private static final Set<String> PER_RESPONSE_METADATA = Set.of("referenceId", "timestamp");
+
+    private final ObjectMapper objectMapper;
+    private final int maxBlockEntries;
+    private final Map<String, BaseSchema> bases = new ConcurrentHashMap<>();
+
+    /**
+     * A base schema and the memoized patch operations of the category blocks diffed against it.
+     */
+    public static final class BaseSchema {
+
+        private final String id;
+        private final String segment;
+        private final Map<String, Object> schema;
+        private final LruCache<BlockKey, List<Map<String, Object>>> blockOperations;
+
+        BaseSchema(String id, String segment, Map<String, Object> schema, int maxBlockEntries) {
+            this.id = id;
+            this.segment = segment;
+            this.schema = schema;
+            this.blockOperations = new LruCache<>(maxBlockEntries);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getSegment() {
+            return segment;
+        }
+
+        public Map<String, Object> getSchema() {
+            return schema;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> block(String category) {
+            return (Map<String, Object>) ((Map<String, Object>) schema.get("properties")).get(category);
+        }
+    }
+
+    /**
+     * A category block by content and position; the operations' paths name the category.
+     */
+    private record BlockKey(String category, String json, int order) {
+    }
+
+    public BaseSchemaRegistry(ObjectMapper objectMapper,
+                              @Value("${kyc.schema.delta.max-entries:10000}") int maxBlockEntries) {
+        this.objectMapper = objectMapper;
+        this.maxBlockEntries = maxBlockEntries;
+    }
+
+    /**
+     * Returns the base schema of a segment, deriving it from the segment's profile responses
+     * the first time.
+     */
+    public BaseSchema get(String segment, Supplier<List<Map<String, Object>>> profiles) {
+        return bases.computeIfAbsent(segment, key -> build(key, profiles.get()));
+    }
+
+    /**
+     * Returns the patch that turns the base into the given full schema:
+     * {@code {"baseId": ..., "patch": [{"op": "add", "path": ..., "value": ...}, ...]}}.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> delta(BaseSchema base, Map<String, Object> full) {
+        List<Map<String, Object>> patch = new ArrayList<>();
+        for (String key : ENVELOPE_KEYS) {
+            if (!Objects.equals(base.schema.get(key), full.get(key))) {
+                patch.add(operation("add", "/" + escape(key), full.get(key)));
+            }
+        }
+
+        Map<String, Object> properties = (Map<String, Object>) full.get("properties");
+        properties.forEach((category, block) -> {
+            if (block instanceof SchemaFragment fragment) {
+                BlockKey key = new BlockKey(category, fragment.contentJson(), fragment.getOrder());
+                List<Map<String, Object>> operations = base.blockOperations.get(key);
+                if (operations == null) {
+                    operations = base.blockOperations.putIfAbsent(key, diffBlock(base, category, fragment.getSchema()));
+                }
+                patch.addAll(operations);
+            } else {
+                patch.addAll(diffBlock(base, category, (Map<String, Object>) block));
+            }
+        });
+        ((Map<String, Object>) base.schema.get("properties")).keySet().stream()
+                .filter(category -> !properties.containsKey(category))
+                .forEach(category -> patch.add(operation("remove", "/properties/" + escape(category), null)));
+
+        if (!sameMembers(base.schema.get("required"), full.get("required"))) {
+            patch.add(operation("add", "/required", full.get("required")));
+        }
+        patch.addAll(diffMetadata((Map<String, Object>) base.schema.get("x-metadata"),
+                (Map<String, Object>) full.get("x-metadata")));
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("baseId", base.id);
+        delta.put("patch", patch);
+        return delta;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> diffBlock(BaseSchema base, String category, Map<String, Object> block) {
+        String path = "/properties/" + escape(category);
+        Map<String, Object> baseBlock = base.block(category);
+        if (baseBlock == null) {
+            return List.of(operation("add", path, block));
+        }
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (String key : HEADER_KEYS) {
+            if (!Objects.equals(baseBlock.get(key), block.get(key))) {
+                operations.add(operation("add", path + "/" + escape(key), block.get(key)));
+            }
+        }
+
+        Map<String, Object> baseFields = (Map<String, Object>) baseBlock.get("properties");
+        Map<String, Object> fields = (Map<String, Object>) block.get("properties");
+        fields.forEach((fieldId, property) -> {
+            if (!property.equals(baseFields.get(fieldId))) {
+                operations.add(operation("add", path + "/properties/" + escape(fieldId), property));
+            }
+        });
+        baseFields.keySet().stream()
+                .filter(fieldId -> !fields.containsKey(fieldId))
+                .forEach(fieldId -> operations.add(operation("remove", path + "/properties/" + escape(fieldId), null)));
+
+        Object required = block.get("required");
+        if (!sameMembers(baseBlock.get("required"), required)) {
+            operations.add(required != null
+                    ? operation("add", path + "/required", required)
+                    : operation("remove", path + "/required", null));
+        }
+        return List.copyOf(operations);
+    }
+
+    /**
+     * Patches metadata key by key, or replaces it as a whole when most keys changed and
+     * the per-key operations would be larger than the metadata itself.
+     */
+    private static List<Map<String, Object>> diffMetadata(Map<String, Object> baseMetadata, Map<String, Object> metadata) {
+        if (metadata == null) {
+            return List.of(operation("remove", "/x-metadata", null));
+        }
+        List<Map<String, Object>> operations = new ArrayList<>();
+        metadata.forEach((key, value) -> {
+            if (!Objects.equals(baseMetadata.get(key), value)) {
+                operations.add(operation("add", "/x-metadata/" + escape(key), value));
+            }
+        });
+        baseMetadata.keySet().stream()
+                .filter(key -> !metadata.containsKey(key))
+                .forEach(key -> operations.add(operation("remove", "/x-metadata/" + escape(key), null)));
+        if (operations.size() * 2 > metadata.size()) {
+            return List.of(operation("add", "/x-metadata", metadata));
+        }
+        return operations;
+    }
+
+    /**
+     * Builds the majority base of a segment from the full schemas of its profiles.
+     */
+    @SuppressWarnings("unchecked")
+    private BaseSchema build(String segment, List<Map<String, Object>> profiles) {
+        long start = System.nanoTime();
+        int majority = profiles.size() / 2 + 1;
+        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> headers = new HashMap<>();
+        Map<String, Map<Integer, Integer>> orderCounts = new HashMap<>();
+        Map<String, Map<Map<String, Object>, Integer>> fieldCounts = new LinkedHashMap<>();
+        Map<String, Integer> requiredCounts = new HashMap<>();
+        Map<String, Integer> requiredCategoryCounts = new HashMap<>();
+        Map<String, Map<Object, Integer>> metadataCounts = new LinkedHashMap<>();
+
+        for (Map<String, Object> profile : profiles) {
+            Map<String, Object> properties = (Map<String, Object>) profile.get("properties");
+            properties.forEach((category, categoryBlock) -> {
+                Map<String, Object> block = SchemaFragment.unwrap(categoryBlock);
+                categoryCounts.merge(category, 1, Integer::sum);
+                headers.putIfAbsent(category, block);
+                orderCounts.computeIfAbsent(category, k -> new HashMap<>())
+                        .merge((Integer) block.get("x-category-order"), 1, Integer::sum);
+                ((Map<String, Object>) block.get("properties")).forEach((fieldId, property) ->
+                        fieldCounts.computeIfAbsent(category + "/" + fieldId, k -> new LinkedHashMap<>())
+                                .merge((Map<String, Object>) property, 1, Integer::sum));
+                List<String> required = (List<String>) block.getOrDefault("required", List.of());
+                required.forEach(fieldId -> requiredCounts.merge(category + "/" + fieldId, 1, Integer::sum));
+            });
+            ((List<String>) profile.get("required")).forEach(category ->
+                    requiredCategoryCounts.merge(category, 1, Integer::sum));
+            ((Map<String, Object>) profile.get("x-metadata")).forEach((key, value) -> {
+                if (!PER_RESPONSE_METADATA.contains(key)) {
+                    metadataCounts.computeIfAbsent(key, k -> new LinkedHashMap<>()).merge(value, 1, Integer::sum);
+                }
+            });
+        }
+
+        Map<String, Object> baseProperties = new LinkedHashMap<>();
+        List<String> baseRequired = new ArrayList<>();
+        categoryCounts.forEach((category, count) -> {
+            if (count < majority) {
+                return;
+            }
+            Map<String, Object> header = headers.get(category);
+            Map<String, Object> block = new LinkedHashMap<>();
+            block.put("type", header.get("type"));
+            block.put("title", header.get("title"));
+            block.put("description", header.get("description"));
+            Map<String, Object> fields = new LinkedHashMap<>();
+            List<String> required = new ArrayList<>();
+            fieldCounts.forEach((key, variants) -> {
+                if (!key.startsWith(category + "/")) {
+                    return;
+                }
+                Map.Entry<Map<String, Object>, Integer> common = variants.entrySet().stream()
+                        .max(Map.Entry.comparingByValue())
+                        .orElseThrow();
+                if (common.getValue() >= majority) {
+                    String fieldId = key.substring(category.length() + 1);
+                    fields.put(fieldId, common.getKey());
+                    if (requiredCounts.getOrDefault(key, 0) >= majority) {
+                        required.add(fieldId);
+                    }
+                }
+            });
+            block.put("properties", fields);
+            if (!required.isEmpty()) {
+                block.put("required", required);
+            }
+            block.put("x-category-order", orderCounts.get(category).entrySet().stream()
+                    .max(Map.Entry.<Integer, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .orElseThrow()
+                    .getKey());
+            baseProperties.put(category, block);
+            if (requiredCategoryCounts.getOrDefault(category, 0) >= majority) {
+                baseRequired.add(category);
+            }
+        });
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        Map<String, Object> first = profiles.get(0);
+        schema.put("$schema", first.get("$schema"));
+        schema.put("title", first.get("title"));
+        schema.put("description", "Requirements shared by most " + segment + " profiles");
+        schema.put("type", "object");
+        schema.put("properties", baseProperties);
+        schema.put("required", baseRequired);
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadataCounts.forEach((key, values) -> values.entrySet().stream()
+                .filter(value -> value.getValue() >= majority)
+                .findFirst()
+                .ifPresent(value -> metadata.put(key, value.getKey())));
+        schema.put("x-metadata", metadata);
+
+        String id = segment + "-" + hash(schema);
+        schema.put("x-base-id", id);
+        logger.info("Built {} base schema {} from {} profiles ({} categories) in {} ms", segment, id,
+                profiles.size(), baseProperties.size(), (System.nanoTime() - start) / 1_000_000);
+        return new BaseSchema(id, segment, Collections.unmodifiableMap(schema), maxBlockEntries);
+    }
+
+    private String hash(Map<String, Object> schema) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // Sorted keys: Map.of fields iterate in a per-JVM order, and every instance must agree on the id
+            byte[] json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsString(schema).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(digest.digest(json), 0, 6);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash base schema", e);
+        }
+    }
+
+    private static Map<String, Object> operation(String op, String path, Object value) {
+        Map<String, Object> operation = new LinkedHashMap<>();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (!"remove".equals(op)) {
+            operation.put("value", value);
+        }
+        return operation;
+    }
+
+    // "required" lists are sets in JSON Schema; order differences need no patch
+    private static boolean sameMembers(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        return new HashSet<>((List<?>) left).equals(new HashSet<>((List<?>) right));
+    }
+
+    // RFC 6901 escaping for JSON Pointer segments
+    private static String escape(String segment) {
+        return segment.replace("~", "~0").replace("/", "~1");
+    }
+}
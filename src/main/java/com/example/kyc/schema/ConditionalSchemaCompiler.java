@@ -0,0 +1,453 @@
+package com.example.kyc.schema;
+
+import com.example.kyc.cache.LruCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Compiles the answer-dependent individual KYC rules into one draft-07 schema with
+ * {@code if}/{@code then} branches, so a form client can show the right fields as the
+ * applicant answers PEP status, nationality and initial deposit without asking the service
+ * again.
+ *
+ * <p>The schema is derived from the rules themselves: the requirements function is evaluated
+ * once per combination of {@link InputDimension} ranges, every field, required flag and
+ * category is attributed to the combinations that produce it, and each set of combinations
+ * is turned back into a condition over the answers. Before a compiled schema is served it is
+ * resolved against every probe answer combination and compared with the Drools output for
+ * the same answers; a schema that disagrees is never returned.
+ *
+ * <p>Compiled schemas are cached per customer type, account type and country, least recently
+ * used first out. Callers only pass values from the catalog, since every new key costs one
+ * rule evaluation per answer combination. A schema that disagrees with the rules is cached
+ * as such; a compilation cut short by an evaluation error (a deadline, the firing cap or an
+ * open circuit) is not, and is attempted again on the next request.
+ */
+@Component
+public class ConditionalSchemaCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConditionalSchemaCompiler.class);
+
+    private final ObjectMapper objectMapper;
+    private final boolean verify;
+    private final List<InputDimension> dimensions = InputDimension.individualDimensions();
+    private final LruCache<String, Optional<Map<String, Object>>> compiled;
+
+    /**
+     * What a requirement depends on: a category, a field definition, a field's required flag
+     * or a category's required flag.
+     */
+    private record Atom(Kind kind, String category, String fieldId, JsonNode value) {
+    }
+
+    private enum Kind { CATEGORY, FIELD, REQUIRED, CATEGORY_REQUIRED }
+
+    /**
+     * An evaluation returned an error, so the rules' requirements for that combination are
+     * unknown and nothing about the compiled schema can be concluded.
+     */
+    private static final class EvaluationFailedException extends RuntimeException {
+
+        EvaluationFailedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    public ConditionalSchemaCompiler(ObjectMapper objectMapper,
+                                     @Value("${kyc.schema.conditional.verify:true}") boolean verify,
+                                     @Value("${kyc.schema.conditional.max-entries:256}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.verify = verify;
+        this.compiled = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * Returns the conditional schema for the customer type, account type and country of the
+     * request, or empty when the compiled schema did not match the rules during verification
+     * or an evaluation failed while compiling; callers then serve the full schema. Answers in
+     * the request (pep, nationality, initialDeposit) are ignored.
+     *
+     * @param evaluator the full requirements function
+     */
+    public Optional<Map<String, Object>> compile(Map<String, Object> request,
+                                                 Function<Map<String, Object>, Map<String, Object>> evaluator) {
+        String key = request.get("customerType") + "|" + request.get("accountType") + "|" + request.get("country");
+        Optional<Map<String, Object>> schema = compiled.get(key);
+        if (schema == null) {
+            // Compiled outside the cache lock; concurrent first requests for a key may both compile
+            try {
+                schema = compiled.putIfAbsent(key, compileAndVerify(request, evaluator));
+            } catch (EvaluationFailedException e) {
+                logger.warn("Could not compile conditional schema for {}/{}, serving the full schema: {}",
+                        request.get("customerType"), request.get("accountType"), e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return schema.map(this::withReference);
+    }
+
+    public List<InputDimension> getDimensions() {
+        return dimensions;
+    }
+
+    private Optional<Map<String, Object>> compileAndVerify(Map<String, Object> request,
+                                                           Function<Map<String, Object>, Map<String, Object>> evaluator) {
+        long start = System.nanoTime();
+        List<int[]> variants = variants();
+        List<EffectiveSchema> outcomes = new ArrayList<>();
+        for (int[] ranges : variants) {
+            List<Object> answers = new ArrayList<>();
+            for (int dim = 0; dim < dimensions.size(); dim++) {
+                answers.add(dimensions.get(dim).representative(ranges[dim]));
+            }
+            outcomes.add(EffectiveSchema.of(toTree(evaluate(evaluator, request, answers))));
+        }
+        Map<String, Object> schema = assemble(request, variants, outcomes);
+
+        if (verify) {
+            Optional<String> mismatch = verify(request, schema, evaluator);
+            if (mismatch.isPresent()) {
+                logger.error("Conditional schema for {}/{} does not match the rules, serving full schemas instead: {}",
+                        request.get("customerType"), request.get("accountType"), mismatch.get());
+                return Optional.empty();
+            }
+        }
+        logger.info("Compiled conditional schema for {}/{} from {} rule evaluations in {} ms",
+                request.get("customerType"), request.get("accountType"), variants.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(schema);
+    }
+
+    /**
+     * Resolves the schema against every combination of probe answers and compares it with
+     * the requirements the rules produce for those answers.
+     */
+    private Optional<String> verify(Map<String, Object> request, Map<String, Object> schema,
+                                    Function<Map<String, Object>, Map<String, Object>> evaluator) {
+        JsonNode schemaTree = toTree(schema);
+        for (List<Object> answers : probeCombinations()) {
+            EffectiveSchema expected = EffectiveSchema.of(toTree(evaluate(evaluator, request, answers)));
+            EffectiveSchema resolved = ConditionalSchemaResolver.resolve(schemaTree, toTree(answerDocument(answers)));
+            Optional<String> difference = resolved.difference(expected);
+            if (difference.isPresent()) {
+                return Optional.of(answerDocument(answers) + ": " + difference.get());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Map<String, Object> evaluate(Function<Map<String, Object>, Map<String, Object>> evaluator,
+                                         Map<String, Object> request, List<Object> answers) {
+        Map<String, Object> result = evaluator.apply(withAnswers(request, answers));
+        if (Boolean.TRUE.equals(result.get("error"))) {
+            throw new EvaluationFailedException(answerDocument(answers) + ": " + result.get("message"));
+        }
+        return result;
+    }
+
+    private Map<String, Object> assemble(Map<String, Object> request, List<int[]> variants,
+                                         List<EffectiveSchema> outcomes) {
+        // Attribute every requirement to the combinations that produce it
+        Map<Atom, BitSet> atoms = new LinkedHashMap<>();
+        Set<String> categoryOrder = new LinkedHashSet<>();
+        for (int variant = 0; variant < outcomes.size(); variant++) {
+            EffectiveSchema outcome = outcomes.get(variant);
+            categoryOrder.addAll(outcome.getCategories().keySet());
+            for (Map.Entry<String, JsonNode> category : outcome.getCategories().entrySet()) {
+                String key = category.getKey();
+                mark(atoms, new Atom(Kind.CATEGORY, key, null, category.getValue()), variant);
+                for (Map.Entry<String, JsonNode> field : outcome.getFields().get(key).entrySet()) {
+                    mark(atoms, new Atom(Kind.FIELD, key, field.getKey(), field.getValue()), variant);
+                }
+                for (String fieldId : outcome.getRequired().get(key)) {
+                    mark(atoms, new Atom(Kind.REQUIRED, key, fieldId, null), variant);
+                }
+            }
+            for (String category : outcome.getRequiredCategories()) {
+                mark(atoms, new Atom(Kind.CATEGORY_REQUIRED, category, null, null), variant);
+            }
+        }
+
+        List<String> order = new ArrayList<>(categoryOrder);
+        Map<BitSet, List<Atom>> byCondition = new LinkedHashMap<>();
+        atoms.forEach((atom, members) -> byCondition.computeIfAbsent(members, k -> new ArrayList<>()).add(atom));
+        BitSet always = new BitSet();
+        always.set(0, variants.size());
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("$schema", "http://json-schema.org/draft-07/schema#");
+        schema.put("title", "Singapore KYC Form");
+        schema.put("description", "KYC requirements for " + request.get("customerType") + " opening "
+                + request.get("accountType") + " account, depending on the answers in " + InputDimension.ANSWERS);
+        schema.put("type", "object");
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put(InputDimension.ANSWERS, answersSchema());
+        List<String> required = new ArrayList<>();
+        addAtoms(properties, required, byCondition.getOrDefault(always, List.of()), order);
+        schema.put("properties", properties);
+        schema.put("required", required);
+
+        List<Map<String, Object>> branches = new ArrayList<>();
+        byCondition.forEach((members, conditionAtoms) -> {
+            if (members.equals(always)) {
+                return;
+            }
+            Map<String, Object> thenProperties = new LinkedHashMap<>();
+            List<String> thenRequired = new ArrayList<>();
+            addAtoms(thenProperties, thenRequired, conditionAtoms, order);
+            Map<String, Object> then = new LinkedHashMap<>();
+            then.put("properties", thenProperties);
+            if (!thenRequired.isEmpty()) {
+                then.put("required", thenRequired);
+            }
+            Map<String, Object> branch = new LinkedHashMap<>();
+            branch.put("if", cover(members, variants, allIndexes(variants.size()), 0));
+            branch.put("then", then);
+            branches.add(branch);
+        });
+        schema.put("allOf", branches);
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("schemaMode", "conditional");
+        metadata.put("customerType", request.get("customerType"));
+        metadata.put("accountType", request.get("accountType"));
+        metadata.put("country", request.get("country"));
+        metadata.put("answers", dimensions.stream().map(InputDimension::getName).toList());
+        metadata.put("outcomes", outcomeEntries(variants, outcomes));
+        metadata.put("categories", order.stream()
+                .map(category -> categoryTitle(outcomes, category))
+                .toList());
+        metadata.put("ruleEvaluations", variants.size());
+        schema.put("x-metadata", metadata);
+        return schema;
+    }
+
+    private static void mark(Map<Atom, BitSet> atoms, Atom atom, int variant) {
+        atoms.computeIfAbsent(atom, k -> new BitSet()).set(variant);
+    }
+
+    /**
+     * Adds category blocks for the given atoms. Categories only get their header (type,
+     * title, description, order) where the category itself is introduced.
+     */
+    @SuppressWarnings("unchecked")
+    private void addAtoms(Map<String, Object> properties, List<String> required, List<Atom> atoms, List<String> order) {
+        Map<String, Map<String, Object>> blocks = new HashMap<>();
+        for (Atom atom : atoms) {
+            if (atom.kind() == Kind.CATEGORY_REQUIRED) {
+                required.add(atom.category());
+                continue;
+            }
+            Map<String, Object> block = blocks.computeIfAbsent(atom.category(), k -> new LinkedHashMap<>());
+            switch (atom.kind()) {
+                case CATEGORY -> {
+                    Map<String, Object> header = objectMapper.convertValue(atom.value(), Map.class);
+                    header.put("x-category-order", order.indexOf(atom.category()));
+                    header.putAll(block);
+                    block.clear();
+                    block.putAll(header);
+                }
+                case FIELD -> ((Map<String, Object>) block.computeIfAbsent("properties", k -> new LinkedHashMap<>()))
+                        .put(atom.fieldId(), objectMapper.convertValue(atom.value(), Map.class));
+                case REQUIRED -> ((List<String>) block.computeIfAbsent("required", k -> new ArrayList<>()))
+                        .add(atom.fieldId());
+                default -> throw new IllegalStateException("Unexpected atom " + atom.kind());
+            }
+        }
+        order.stream()
+                .filter(blocks::containsKey)
+                .forEach(category -> properties.put(category, blocks.get(category)));
+    }
+
+    /**
+     * Groups the review outcomes (risk level, documents, processing days) by the answer
+     * combinations that lead to them.
+     */
+    private List<Map<String, Object>> outcomeEntries(List<int[]> variants, List<EffectiveSchema> outcomes) {
+        Map<JsonNode, BitSet> byOutcome = new LinkedHashMap<>();
+        for (int variant = 0; variant < outcomes.size(); variant++) {
+            byOutcome.computeIfAbsent(outcomes.get(variant).getOutcome(), k -> new BitSet()).set(variant);
+        }
+        List<Map<String, Object>> entries = new ArrayList<>();
+        byOutcome.forEach((outcome, members) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("when", cover(members, variants, allIndexes(variants.size()), 0));
+            entry.putAll(objectMapper.convertValue(outcome, Map.class));
+            entries.add(entry);
+        });
+        return entries;
+    }
+
+    /**
+     * Builds the condition that holds exactly for the member combinations within the given
+     * subspace (all combinations that share the ranges of the dimensions before {@code dim}).
+     * Ranges of the current dimension that lead to the same members in the remaining
+     * dimensions are merged, so a requirement that only depends on PEP status becomes a
+     * single PEP condition. An empty map is the condition that always holds.
+     */
+    private Map<String, Object> cover(BitSet members, List<int[]> variants, List<Integer> subspace, int dim) {
+        if (dim == dimensions.size()) {
+            return Map.of();
+        }
+        InputDimension dimension = dimensions.get(dim);
+        // Members of each range's slice, by position within the slice
+        Map<BitSet, List<Integer>> rangesByPattern = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> slices = new HashMap<>();
+        for (int range = 0; range < dimension.size(); range++) {
+            List<Integer> slice = new ArrayList<>();
+            for (int variant : subspace) {
+                if (variants.get(variant)[dim] == range) {
+                    slice.add(variant);
+                }
+            }
+            BitSet pattern = new BitSet();
+            for (int position = 0; position < slice.size(); position++) {
+                if (members.get(slice.get(position))) {
+                    pattern.set(position);
+                }
+            }
+            slices.put(range, slice);
+            rangesByPattern.computeIfAbsent(pattern, k -> new ArrayList<>()).add(range);
+        }
+        if (rangesByPattern.size() == 1) {
+            return cover(members, variants, slices.get(0), dim + 1);
+        }
+
+        List<Map<String, Object>> branches = new ArrayList<>();
+        rangesByPattern.forEach((pattern, ranges) -> {
+            if (pattern.isEmpty()) {
+                return;
+            }
+            Map<String, Object> rangeCondition = ranges.size() == 1
+                    ? dimension.predicate(ranges.get(0))
+                    : Map.of("anyOf", ranges.stream().map(dimension::predicate).toList());
+            Map<String, Object> rest = cover(members, variants, slices.get(ranges.get(0)), dim + 1);
+            branches.add(rest.isEmpty() ? rangeCondition : Map.of("allOf", List.of(rangeCondition, rest)));
+        });
+        return branches.size() == 1 ? branches.get(0) : Map.of("anyOf", branches);
+    }
+
+    private Map<String, Object> answersSchema() {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        for (InputDimension dimension : dimensions) {
+            answers.put(dimension.getName(), dimension.getAnswerSchema());
+        }
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("title", "Profile Answers");
+        schema.put("description", "Answers that decide which of the conditional requirements apply");
+        schema.put("properties", answers);
+        return schema;
+    }
+
+    private static String categoryTitle(List<EffectiveSchema> outcomes, String category) {
+        return outcomes.stream()
+                .map(outcome -> outcome.getCategories().get(category))
+                .filter(header -> header != null)
+                .findFirst()
+                .map(header -> header.path("title").asText())
+                .orElse(category);
+    }
+
+    private Map<String, Object> withReference(Map<String, Object> schema) {
+        Map<String, Object> response = new LinkedHashMap<>(schema);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> metadata = new LinkedHashMap<>((Map<String, Object>) schema.get("x-metadata"));
+        metadata.put("referenceId", UUID.randomUUID().toString());
+        metadata.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        response.put("x-metadata", metadata);
+        return response;
+    }
+
+    private List<int[]> variants() {
+        List<int[]> variants = new ArrayList<>();
+        variants.add(new int[dimensions.size()]);
+        for (int dim = dimensions.size() - 1; dim >= 0; dim--) {
+            List<int[]> expanded = new ArrayList<>();
+            for (int range = 0; range < dimensions.get(dim).size(); range++) {
+                for (int[] variant : variants) {
+                    int[] copy = variant.clone();
+                    copy[dim] = range;
+                    expanded.add(copy);
+                }
+            }
+            variants = expanded;
+        }
+        return variants;
+    }
+
+    private List<List<Object>> probeCombinations() {
+        List<List<Object>> combinations = new ArrayList<>();
+        combinations.add(List.of());
+        for (InputDimension dimension : dimensions) {
+            List<List<Object>> expanded = new ArrayList<>();
+            for (List<Object> combination : combinations) {
+                for (Object probe : dimension.getProbes()) {
+                    List<Object> extended = new ArrayList<>(combination);
+                    extended.add(probe);
+                    expanded.add(extended);
+                }
+            }
+            combinations = expanded;
+        }
+        return combinations;
+    }
+
+    private static List<Integer> allIndexes(int size) {
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    private Map<String, Object> withAnswers(Map<String, Object> request, List<Object> answers) {
+        Map<String, Object> variantRequest = new HashMap<>(request);
+        for (int dim = 0; dim < dimensions.size(); dim++) {
+            variantRequest.put(dimensions.get(dim).getName(), answers.get(dim));
+        }
+        return variantRequest;
+    }
+
+    private Map<String, Object> answerDocument(List<Object> answers) {
+        Map<String, Object> profile = new LinkedHashMap<>();
+        for (int dim = 0; dim < dimensions.size(); dim++) {
+            if (answers.get(dim) != null) {
+                profile.put(dimensions.get(dim).getName(), answers.get(dim));
+            }
+        }
+        return Map.of(InputDimension.ANSWERS, profile);
+    }
+
+    // Category blocks may be pre-serialized fragments; read them as plain maps
+    @SuppressWarnings("unchecked")
+    private JsonNode toTree(Map<String, Object> schema) {
+        Map<String, Object> plain = new LinkedHashMap<>(schema);
+        Object properties = schema.get("properties");
+        if (properties instanceof Map<?, ?> blocks) {
+            Map<String, Object> unwrapped = new LinkedHashMap<>();
+            ((Map<String, Object>) blocks).forEach((key, block) -> unwrapped.put(key, SchemaFragment.unwrap(block)));
+            plain.put("properties", unwrapped);
+        }
+        return objectMapper.valueToTree(plain);
+    }
+}
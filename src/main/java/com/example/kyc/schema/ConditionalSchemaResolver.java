@@ -0,0 +1,135 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Resolves a conditional requirements schema against an applicant's answers, the way a form
+ * client does locally: the unconditional categories plus every {@code allOf} branch whose
+ * {@code if} matches the answers, and the first {@code x-metadata.outcomes} entry whose
+ * {@code when} matches.
+ *
+ * <p>Only the draft-07 keywords the compiler emits in conditions are evaluated
+ * (properties, required, const, enum, minimum, exclusiveMaximum, not, allOf, anyOf).
+ */
+public final class ConditionalSchemaResolver {
+
+    private ConditionalSchemaResolver() {
+    }
+
+    /**
+     * @param schema  a schema produced by {@link ConditionalSchemaCompiler}
+     * @param answers the form data, at least the {@code kyc_profile} object
+     */
+    public static EffectiveSchema resolve(JsonNode schema, JsonNode answers) {
+        EffectiveSchema effective = new EffectiveSchema();
+        effective.addBlock(schema);
+        for (JsonNode branch : schema.path("allOf")) {
+            if (matches(branch.path("if"), answers)) {
+                effective.addBlock(branch.path("then"));
+            }
+        }
+        for (JsonNode outcome : schema.path("x-metadata").path("outcomes")) {
+            if (matches(outcome.path("when"), answers)) {
+                effective.setOutcome(outcome);
+                break;
+            }
+        }
+        return effective;
+    }
+
+    /**
+     * Validates an instance against a condition schema. A missing instance ({@code null})
+     * only fails keywords that require a value.
+     */
+    public static boolean matches(JsonNode condition, JsonNode instance) {
+        Iterator<Map.Entry<String, JsonNode>> keywords = condition.fields();
+        while (keywords.hasNext()) {
+            Map.Entry<String, JsonNode> keyword = keywords.next();
+            JsonNode value = keyword.getValue();
+            boolean valid = switch (keyword.getKey()) {
+                case "not" -> !matches(value, instance);
+                case "allOf" -> allMatch(value, instance);
+                case "anyOf" -> anyMatch(value, instance);
+                case "const" -> instance != null && sameValue(value, instance);
+                case "enum" -> instance != null && contains(value, instance);
+                case "minimum" -> instance == null || !instance.isNumber()
+                        || instance.decimalValue().compareTo(value.decimalValue()) >= 0;
+                case "exclusiveMaximum" -> instance == null || !instance.isNumber()
+                        || instance.decimalValue().compareTo(value.decimalValue()) < 0;
+                case "required" -> hasAll(value, instance);
+                case "properties" -> propertiesMatch(value, instance);
+                // Annotations and keywords without assertions
+                default -> true;
+            };
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allMatch(JsonNode conditions, JsonNode instance) {
+        for (JsonNode condition : conditions) {
+            if (!matches(condition, instance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean anyMatch(JsonNode conditions, JsonNode instance) {
+        for (JsonNode condition : conditions) {
+            if (matches(condition, instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(JsonNode values, JsonNode instance) {
+        for (JsonNode value : values) {
+            if (sameValue(value, instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAll(JsonNode names, JsonNode instance) {
+        if (instance == null || !instance.isObject()) {
+            return instance != null;
+        }
+        for (JsonNode name : names) {
+            if (!instance.has(name.asText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean propertiesMatch(JsonNode properties, JsonNode instance) {
+        if (instance == null || !instance.isObject()) {
+            return true;
+        }
+        Iterator<Map.Entry<String, JsonNode>> entries = properties.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode property = instance.get(entry.getKey());
+            if (property != null && !matches(entry.getValue(), property)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // JSON Schema compares numbers by value: 20000 equals 20000.0
+    private static boolean sameValue(JsonNode expected, JsonNode actual) {
+        if (expected.isNumber() && actual.isNumber()) {
+            return expected.decimalValue().compareTo(actual.decimalValue()) == 0;
+        }
+        return expected.equals(actual);
+    }
+}
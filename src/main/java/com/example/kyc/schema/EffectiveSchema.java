@@ -0,0 +1,154 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The requirements one applicant actually faces: categories, fields, required flags and the
+ * review outcome (risk level, documents, processing time). It is read either from a full
+ * requirements schema or from a conditional schema resolved against the applicant's answers,
+ * so both forms can be compared for equality. Presentation-only details (category order,
+ * reference id, timestamp, applied rule names) are not part of it.
+ */
+public final class EffectiveSchema {
+
+    /**
+     * x-metadata entries that depend on the applicant's answers.
+     */
+    public static final List<String> OUTCOME_KEYS = List.of("riskLevel", "enhancedDueDiligenceRequired",
+            "estimatedProcessingDays", "totalRequiredFields", "totalOptionalFields",
+            "requiredDocuments", "specialInstructions");
+
+    private static final List<String> HEADER_KEYS = List.of("type", "title", "description");
+
+    private final Map<String, JsonNode> categories = new LinkedHashMap<>();
+    private final Map<String, Map<String, JsonNode>> fields = new LinkedHashMap<>();
+    private final Map<String, Set<String>> required = new LinkedHashMap<>();
+    private final Set<String> requiredCategories = new LinkedHashSet<>();
+    private ObjectNode outcome = JsonNodeFactory.instance.objectNode();
+
+    /**
+     * Reads a full (non-conditional) requirements schema.
+     */
+    public static EffectiveSchema of(JsonNode schema) {
+        EffectiveSchema effective = new EffectiveSchema();
+        effective.addBlock(schema);
+        effective.setOutcome(schema.path("x-metadata"));
+        return effective;
+    }
+
+    /**
+     * Adds the category blocks and required categories of a schema or of a conditional
+     * "then" branch. A block that carries a title introduces the category; blocks without
+     * one only add fields to a category introduced elsewhere.
+     */
+    void addBlock(JsonNode schema) {
+        Iterator<Map.Entry<String, JsonNode>> blocks = schema.path("properties").fields();
+        while (blocks.hasNext()) {
+            Map.Entry<String, JsonNode> entry = blocks.next();
+            String category = entry.getKey();
+            JsonNode block = entry.getValue();
+            if (InputDimension.ANSWERS.equals(category)) {
+                continue;
+            }
+            if (block.has("title")) {
+                ObjectNode header = JsonNodeFactory.instance.objectNode();
+                HEADER_KEYS.forEach(key -> header.set(key, block.get(key)));
+                categories.put(category, header);
+            }
+            Map<String, JsonNode> categoryFields = fields.computeIfAbsent(category, key -> new LinkedHashMap<>());
+            block.path("properties").fields().forEachRemaining(field -> categoryFields.put(field.getKey(), field.getValue()));
+            Set<String> categoryRequired = required.computeIfAbsent(category, key -> new LinkedHashSet<>());
+            block.path("required").forEach(fieldId -> categoryRequired.add(fieldId.asText()));
+        }
+        schema.path("required").forEach(category -> requiredCategories.add(category.asText()));
+    }
+
+    void setOutcome(JsonNode source) {
+        ObjectNode values = JsonNodeFactory.instance.objectNode();
+        for (String key : OUTCOME_KEYS) {
+            JsonNode value = source.get(key);
+            if (value != null) {
+                values.set(key, value);
+            }
+        }
+        this.outcome = values;
+    }
+
+    public Map<String, JsonNode> getCategories() {
+        return categories;
+    }
+
+    public Map<String, Map<String, JsonNode>> getFields() {
+        return fields;
+    }
+
+    public Map<String, Set<String>> getRequired() {
+        return required;
+    }
+
+    public Set<String> getRequiredCategories() {
+        return requiredCategories;
+    }
+
+    public ObjectNode getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Describes the first difference to another effective schema, or returns empty when both
+     * impose the same requirements. Field order and document/instruction order are ignored.
+     */
+    public Optional<String> difference(EffectiveSchema other) {
+        if (!categories.equals(other.categories)) {
+            return Optional.of("categories " + categories.keySet() + " vs " + other.categories.keySet());
+        }
+        for (String category : categories.keySet()) {
+            Map<String, JsonNode> mine = fields.getOrDefault(category, Map.of());
+            Map<String, JsonNode> theirs = other.fields.getOrDefault(category, Map.of());
+            if (!mine.equals(theirs)) {
+                return Optional.of(category + " fields " + mine.keySet() + " vs " + theirs.keySet());
+            }
+            Set<String> mineRequired = required.getOrDefault(category, Set.of());
+            Set<String> theirRequired = other.required.getOrDefault(category, Set.of());
+            if (!mineRequired.equals(theirRequired)) {
+                return Optional.of(category + " required " + mineRequired + " vs " + theirRequired);
+            }
+        }
+        if (!requiredCategories.equals(other.requiredCategories)) {
+            return Optional.of("required categories " + requiredCategories + " vs " + other.requiredCategories);
+        }
+        for (String key : OUTCOME_KEYS) {
+            if (!Objects.equals(comparable(outcome.get(key)), comparable(other.outcome.get(key)))) {
+                return Optional.of(key + " " + outcome.get(key) + " vs " + other.outcome.get(key));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Rules of equal salience may add documents and instructions in any order;
+    // counts compare by value whether they were parsed as int or long
+    private static Object comparable(JsonNode value) {
+        if (value != null && value.isNumber()) {
+            return value.decimalValue().stripTrailingZeros();
+        }
+        if (value == null || !value.isArray()) {
+            return value;
+        }
+        List<String> items = new ArrayList<>();
+        value.forEach(item -> items.add(item.asText()));
+        items.sort(null);
+        return items;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.kyc.schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An applicant answer that individual KYC rules branch on, split into the value ranges the
+ * rules distinguish. Each range has a representative value that is sent to the rule engine
+ * and a draft-07 schema that matches exactly the answers in that range, so that a client
+ * can decide locally which range an answer falls into.
+ *
+ * <p>Predicates are written against the answers object {@code kyc_profile} of the
+ * conditional schema. A missing answer falls into the same range as the rules' default
+ * (pep false, nationality SINGAPORE, no initial deposit).
+ */
+public final class InputDimension {
+
+    /**
+     * Name of the top-level property holding the answers in a conditional schema.
+     */
+    public static final String ANSWERS = "kyc_profile";
+
+    private final String name;
+    private final List<Object> representatives;
+    private final List<Map<String, Object>> predicates;
+    private final List<Object> probes;
+    private final Map<String, Object> answerSchema;
+
+    private InputDimension(String name, Map<String, Object> answerSchema) {
+        this.name = name;
+        this.answerSchema = answerSchema;
+        this.representatives = new ArrayList<>();
+        this.predicates = new ArrayList<>();
+        this.probes = new ArrayList<>();
+    }
+
+    private InputDimension range(Object representative, Map<String, Object> answerPredicate) {
+        representatives.add(representative);
+        predicates.add(answerPredicate);
+        return this;
+    }
+
+    private InputDimension probes(Object... values) {
+        probes.addAll(Arrays.asList(values));
+        return this;
+    }
+
+    /**
+     * The answers the individual KYC rules (SingaporeKycRules.drl) depend on.
+     * Thresholds mirror the "Income Details" (20000) and "High Value Transaction" (50000)
+     * rules; ConditionalSchemaCompiler verifies the compiled schema against Drools, so a
+     * rule change that is not reflected here is detected rather than served.
+     */
+    public static List<InputDimension> individualDimensions() {
+        Map<String, Object> pepTrue = answer("pep", Map.of("const", true), true);
+        Map<String, Object> foreign = answer("nationality", Map.of("not", Map.of("enum", List.of("SINGAPORE", ""))), true);
+        Map<String, Object> atLeast20k = answer("initialDeposit", Map.of("minimum", 20000), true);
+        Map<String, Object> atLeast50k = answer("initialDeposit", Map.of("minimum", 50000), true);
+
+        return List.of(
+                new InputDimension("pep", Map.of("type", "boolean", "title", "Politically Exposed Person"))
+                        .range(false, not(pepTrue))
+                        .range(true, pepTrue)
+                        .probes(null, false, true),
+                new InputDimension("nationality", Map.of("type", "string", "title", "Nationality"))
+                        .range("SINGAPORE", not(foreign))
+                        .range("MALAYSIA", foreign)
+                        .probes(null, "", "SINGAPORE", "MALAYSIA", "INDIA"),
+                new InputDimension("initialDeposit", Map.of("type", "number", "title", "Initial Deposit", "minimum", 0))
+                        .range(null, not(atLeast20k))
+                        .range(20000, Map.of("allOf", List.of(atLeast20k, not(atLeast50k))))
+                        .range(50000, atLeast50k)
+                        .probes(null, 0, 19999.99, 20000, 49999.99, 50000, 250000));
+    }
+
+    private static Map<String, Object> answer(String field, Map<String, Object> valueSchema, boolean required) {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put("properties", Map.of(field, valueSchema));
+        if (required) {
+            answers.put("required", List.of(field));
+        }
+        Map<String, Object> predicate = new LinkedHashMap<>();
+        predicate.put("properties", Map.of(ANSWERS, answers));
+        predicate.put("required", List.of(ANSWERS));
+        return predicate;
+    }
+
+    private static Map<String, Object> not(Map<String, Object> predicate) {
+        return Map.of("not", predicate);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return representatives.size();
+    }
+
+    public Object representative(int range) {
+        return representatives.get(range);
+    }
+
+    public Map<String, Object> predicate(int range) {
+        return predicates.get(range);
+    }
+
+    /**
+     * Answers used to verify a compiled schema: every range, its boundaries and the missing
+     * answer.
+     */
+    public List<Object> getProbes() {
+        return probes;
+    }
+
+    /**
+     * Schema of the answer itself, for the {@code kyc_profile} property.
+     */
+    public Map<String, Object> getAnswerSchema() {
+        return answerSchema;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A category block of a requirements schema that has already been serialized.
+ * Jackson writes the cached UTF-8 bytes straight into the response instead of
+ * walking the map again.
+ *
+ * <p>The serialized {@link Content} is shared by every response with the same block content,
+ * wherever the block sits in the form; the fragment adds the block's position, written as
+ * the trailing {@code x-category-order}.
+ *
+ * <p>The fragment is itself the block's unmodifiable map, so in-process callers of the
+ * functions still see a {@code Map} under each {@code properties} key and can read it as
+ * before; only mutating it fails.
+ */
+@JsonSerialize(using = SchemaFragment.Serializer.class)
+public final class SchemaFragment extends AbstractMap<String, Object> implements JsonSerializable {
+
+    static final String ORDER_KEY = "x-category-order";
+
+    // Trailers for the positions a form realistically has; others are built on demand
+    private static final SerializedString[] ORDER_TRAILERS = new SerializedString[32];
+
+    static {
+        for (int order = 0; order < ORDER_TRAILERS.length; order++) {
+            ORDER_TRAILERS[order] = trailer(order);
+        }
+    }
+
+    private final Content content;
+    private final int order;
+
+    SchemaFragment(Content content, int order) {
+        this.content = content;
+        this.order = order;
+    }
+
+    /**
+     * The block as a map: the fragment itself, read-only.
+     */
+    public Map<String, Object> getSchema() {
+        return this;
+    }
+
+    public int getSizeInBytes() {
+        return content.json.asUnquotedUTF8().length + orderTrailer().asUnquotedUTF8().length;
+    }
+
+    /**
+     * The serialized block without its position; equal for equal content.
+     */
+    String contentJson() {
+        return content.json.getValue();
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the category map for either a fragment or a plain map category block.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> unwrap(Object categoryBlock) {
+        if (categoryBlock instanceof SchemaFragment fragment) {
+            return fragment.getSchema();
+        }
+        return (Map<String, Object>) categoryBlock;
+    }
+
+    // A view over the shared content followed by the position, nothing is copied
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, Object>> blockEntries = content.block.entrySet().iterator();
+                return new Iterator<>() {
+                    private boolean orderReturned;
+
+                    @Override
+                    public boolean hasNext() {
+                        return blockEntries.hasNext() || !orderReturned;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (blockEntries.hasNext()) {
+                            return blockEntries.next();
+                        }
+                        if (orderReturned) {
+                            throw new NoSuchElementException();
+                        }
+                        orderReturned = true;
+                        return new SimpleImmutableEntry<>(ORDER_KEY, order);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return SchemaFragment.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Object get(Object key) {
+        return ORDER_KEY.equals(key) ? order : content.block.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return ORDER_KEY.equals(key) || content.block.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return content.block.size() + 1;
+    }
+
+    // The content hash is computed once; the entry for the position is added to it
+    @Override
+    public int hashCode() {
+        return content.blockHash() + (ORDER_KEY.hashCode() ^ Integer.hashCode(order));
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (gen instanceof TokenBuffer) {
+            // valueToTree and convertValue buffer tokens and cannot take raw JSON
+            gen.writeStartObject(this);
+            for (Entry<String, Object> entry : entrySet()) {
+                gen.writeFieldName(entry.getKey());
+                serializers.defaultSerializeValue(entry.getValue(), gen);
+            }
+            gen.writeEndObject();
+            return;
+        }
+        gen.writeRawValue(content.json);
+        gen.writeRaw(orderTrailer());
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        // Schema maps are never polymorphically typed, write the block as-is
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return content.json.getValue() + orderTrailer().getValue();
+    }
+
+    private SerializedString orderTrailer() {
+        return order >= 0 && order < ORDER_TRAILERS.length ? ORDER_TRAILERS[order] : trailer(order);
+    }
+
+    private static SerializedString trailer(int order) {
+        SerializedString trailer = new SerializedString(",\"" + ORDER_KEY + "\":" + order + "}");
+        trailer.asUnquotedUTF8();
+        return trailer;
+    }
+
+    /**
+     * A block's content without its position, serialized once: the JSON object up to, not
+     * including, its closing brace.
+     */
+    static final class Content {
+
+        private final Map<String, Object> block;
+        private final SerializedString json;
+        private int hash;
+
+        /**
+         * @param block a non-empty block without {@code x-category-order}
+         * @param json the block serialized as a JSON object
+         */
+        Content(Map<String, Object> block, String json) {
+            this.block = block;
+            this.json = new SerializedString(json.substring(0, json.lastIndexOf('}')));
+            // Encode once up front so every response reuses the same byte array
+            this.json.asUnquotedUTF8();
+        }
+
+        int blockHash() {
+            int h = hash;
+            if (h == 0) {
+                h = block.hashCode();
+                hash = h;
+            }
+            return h;
+        }
+    }
+
+    /**
+     * Jackson would otherwise pick its Map serializer and walk the block again.
+     */
+    static final class Serializer extends StdSerializer<SchemaFragment> {
+
+        Serializer() {
+            super(SchemaFragment.class);
+        }
+
+        @Override
+        public void serialize(SchemaFragment fragment, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            fragment.serialize(gen, provider);
+        }
+    }
+}
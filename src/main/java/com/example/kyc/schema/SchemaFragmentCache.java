@@ -0,0 +1,148 @@
+package com.example.kyc.schema;
+
+import com.example.kyc.cache.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of pre-serialized category blocks (PERSONAL_DETAILS, COMPANY_INFORMATION, ...).
+ *
+ * <p>A category block's content is fully determined by the category and the fields the
+ * rules contributed to it, so that pair is the cache key. Different profiles that share a
+ * block (which is most of them) reuse the same bytes even when the overall combination of
+ * categories has never been seen before, and wherever the block sits in their form: the
+ * position ({@code x-category-order}) is written after the cached bytes. Only the small
+ * per-request envelope (referenceId, timestamp, counts) is serialized per response.
+ *
+ * <p>The cache holds up to {@code kyc.schema.fragments.max-entries} blocks and evicts the least
+ * recently used one beyond that, so a rule set with more distinct blocks keeps its hot blocks
+ * cached. Evictions are counted in the {@code kyc.schema.fragments.evictions} metric.
+ */
+@Component
+public class SchemaFragmentCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaFragmentCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final LruCache<FragmentKey, SchemaFragment.Content> fragments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicBoolean saturated = new AtomicBoolean();
+
+    public SchemaFragmentCache(ObjectMapper objectMapper,
+                               @Value("${kyc.schema.fragments.enabled:true}") boolean enabled,
+                               @Value("${kyc.schema.fragments.max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.fragments = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * Returns the category block for the given fields, serializing it only the first
+     * time this exact block is seen. When the cache is disabled the freshly built map
+     * is returned unchanged. Either way the block is a map ({@link SchemaFragment} is one).
+     */
+    public Map<String, Object> categoryBlock(String category, int order, List<Map<String, Object>> fields,
+                                Supplier<Map<String, Object>> builder) {
+        if (!enabled) {
+            return builder.get();
+        }
+        FragmentKey key = new FragmentKey(category, fields);
+        SchemaFragment.Content content = fragments.get(key);
+        if (content != null) {
+            hits.increment();
+            return new SchemaFragment(content, order);
+        }
+        misses.increment();
+        Map<String, Object> block = builder.get();
+        content = serialize(block);
+        if (content == null) {
+            return block;
+        }
+        content = fragments.putIfAbsent(new FragmentKey(category, List.copyOf(fields)), content);
+        if (fragments.evictions() > 0 && saturated.compareAndSet(false, true)) {
+            logger.warn("Schema fragment cache reached {} blocks, evicting the least recently used; "
+                    + "raise kyc.schema.fragments.max-entries if evictions keep growing", fragments.getMaxEntries());
+        }
+        return new SchemaFragment(content, order);
+    }
+
+    /**
+     * UTF-8 size of a category block as returned by {@link #categoryBlock}. Plain map blocks
+     * (cache disabled) are serialized to measure them.
+     */
+    public long sizeInBytes(Object categoryBlock) {
+        if (categoryBlock instanceof SchemaFragment fragment) {
+            return fragment.getSizeInBytes();
+        }
+        try {
+            return objectMapper.writeValueAsBytes(categoryBlock).length;
+        } catch (JsonProcessingException e) {
+            return 0;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return fragments.size();
+    }
+
+    public void clear() {
+        fragments.clear();
+    }
+
+    private SchemaFragment.Content serialize(Map<String, Object> categorySchema) {
+        Map<String, Object> content = new LinkedHashMap<>(categorySchema);
+        content.remove(SchemaFragment.ORDER_KEY);
+        try {
+            return new SchemaFragment.Content(Collections.unmodifiableMap(content),
+                    objectMapper.writeValueAsString(content));
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not pre-serialize schema fragment, falling back to map: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("kyc.schema.fragments.hits", hits, LongAdder::sum)
+                .description("Category blocks served from pre-serialized fragments")
+                .register(registry);
+        FunctionCounter.builder("kyc.schema.fragments.misses", misses, LongAdder::sum)
+                .description("Category blocks serialized for the first time")
+                .register(registry);
+        FunctionCounter.builder("kyc.schema.fragments.evictions", fragments, LruCache::evictions)
+                .description("Category blocks evicted to stay within max-entries")
+                .register(registry);
+        Gauge.builder("kyc.schema.fragments.size", fragments, LruCache::size)
+                .description("Distinct category blocks held in the fragment cache")
+                .register(registry);
+    }
+
+    /**
+     * The rule-generated field maps are compared by value, so two evaluations that add
+     * the same fields to a category share a key even though the map instances differ.
+     */
+    private record FragmentKey(String category, List<Map<String, Object>> fields) {
+    }
+}
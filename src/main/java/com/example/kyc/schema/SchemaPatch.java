@@ -0,0 +1,58 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Client side of delta responses: applies the JSON Patch operations produced by
+ * {@link BaseSchemaRegistry#delta} to a cached base schema. Only the operations the registry
+ * emits are supported, add (which replaces an existing member) and remove on object members.
+ */
+public final class SchemaPatch {
+
+    private SchemaPatch() {
+    }
+
+    /**
+     * Applies a delta response to a copy of the base and returns the full schema.
+     *
+     * @throws IllegalArgumentException when the delta was computed against another base
+     */
+    public static ObjectNode apply(JsonNode base, JsonNode delta) {
+        String baseId = delta.path("baseId").asText();
+        if (!baseId.equals(base.path("x-base-id").asText())) {
+            throw new IllegalArgumentException("Delta is based on " + baseId + ", not " + base.path("x-base-id").asText());
+        }
+        ObjectNode schema = base.deepCopy();
+        for (JsonNode operation : delta.path("patch")) {
+            String path = operation.path("path").asText();
+            int split = path.lastIndexOf('/');
+            ObjectNode parent = resolve(schema, path.substring(0, split));
+            String member = unescape(path.substring(split + 1));
+            switch (operation.path("op").asText()) {
+                case "add", "replace" -> parent.set(member, operation.get("value"));
+                case "remove" -> parent.remove(member);
+                default -> throw new IllegalArgumentException("Unsupported patch operation " + operation);
+            }
+        }
+        return schema;
+    }
+
+    private static ObjectNode resolve(ObjectNode root, String pointer) {
+        JsonNode node = root;
+        if (!pointer.isEmpty()) {
+            for (String segment : pointer.substring(1).split("/")) {
+                node = node.path(unescape(segment));
+            }
+        }
+        if (!(node instanceof ObjectNode object)) {
+            throw new IllegalArgumentException("Patch target " + pointer + " is not an object");
+        }
+        return object;
+    }
+
+    // RFC 6901: "~1" before "~0"
+    private static String unescape(String segment) {
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.kyc.store;
+
+import com.example.kyc.cache.LruCache;
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.engine.RuleOutcome;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional on-disk store of rule outcomes that survives restarts.
+ *
+ * <p>Entries live under {@code <dir>/<rule-set hash>/<profile hash>.json}, so a change to any
+ * DRL file (or the Drools version) moves the store to a fresh directory and old entries are
+ * never served. Files are written to a temp file and atomically renamed into place, which
+ * makes the store safe to share between worker processes on the same host. Reads map the
+ * file read-only and parse straight out of the mapping without copying it onto the heap;
+ * the OS page cache is shared by every process mapping the same file.
+ *
+ * <p>Because outcomes are stored rather than rendered responses, every response still gets
+ * a fresh referenceId and timestamp.
+ *
+ * <p>Entries are keyed by the request fields the rules read ({@link #RULE_INPUTS}), so extra
+ * request fields do not create entries. Profiles with an {@code initialDeposit} are not
+ * stored, because the amount is continuous and every distinct amount would need its own
+ * entry. Writes stop once the rule set's directory holds {@code max-entries} entries or
+ * {@code max-size} bytes; the counts are taken from the directory at startup and then
+ * tracked per process, so workers sharing a directory may overshoot by what each writes.
+ * At most {@code mapped-entries} files stay mapped, least recently used first out; the rest
+ * are mapped again when read.
+ */
+@Component
+public class PersistentSchemaStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentSchemaStore.class);
+
+    /**
+     * Request fields read by the DRL files; the rest of a request does not change the outcome.
+     */
+    static final List<String> RULE_INPUTS = List.of("action", "accountType", "country", "customerType",
+            "nationality", "pep", "product");
+
+    private static final String UNSTORED_INPUT = "initialDeposit";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxEntries;
+    private final long maxBytes;
+    private final LruCache<String, MappedByteBuffer> mapped;
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean full = new AtomicBoolean();
+
+    public PersistentSchemaStore(ObjectMapper objectMapper,
+                                 RuleSetFingerprint fingerprint,
+                                 @Value("${kyc.schema-store.enabled:false}") boolean enabled,
+                                 @Value("${kyc.schema-store.dir:${java.io.tmpdir}/kyc-schema-store}") String baseDir,
+                                 @Value("${kyc.schema-store.purge-stale:false}") boolean purgeStale,
+                                 @Value("${kyc.schema-store.max-entries:100000}") long maxEntries,
+                                 @Value("${kyc.schema-store.max-size:256MB}") DataSize maxSize,
+                                 @Value("${kyc.schema-store.mapped-entries:1024}") int mappedEntries) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Path.of(baseDir).resolve(fingerprint.getShortHash());
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxSize.toBytes();
+        this.mapped = new LruCache<>(mappedEntries);
+        if (enabled) {
+            try {
+                Files.createDirectories(directory);
+                if (purgeStale) {
+                    purgeOtherRuleSets(directory);
+                }
+                countEntries();
+                logger.info("Persistent schema store enabled at {} with {} entries ({} bytes)", directory,
+                        entries.get(), bytes.get());
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create schema store directory " + directory, e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Optional<RuleOutcome> read(Map<String, Object> fact, Map<String, Object> responseDefaults) {
+        if (!enabled || !isStorable(fact)) {
+            return Optional.empty();
+        }
+        String key = normalize(fact, responseDefaults);
+        String fileName = hash(key) + ".json";
+        try {
+            MappedByteBuffer buffer = mapped.get(fileName);
+            if (buffer == null) {
+                buffer = map(directory.resolve(fileName));
+                if (buffer == null) {
+                    return Optional.empty();
+                }
+                buffer = mapped.putIfAbsent(fileName, buffer);
+            }
+            try (InputStream in = new ByteBufferBackedInputStream(buffer.duplicate())) {
+                JsonNode entry = objectMapper.readTree(in);
+                if (!key.equals(entry.path("key").asText())) {
+                    logger.warn("Schema store entry {} does not match its key, ignoring", fileName);
+                    return Optional.empty();
+                }
+                return Optional.of(objectMapper.treeToValue(entry.get("outcome"), RuleOutcome.class));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Discarding unreadable schema store entry {}: {}", fileName, e.getMessage());
+            mapped.remove(fileName);
+            discard(directory.resolve(fileName));
+            return Optional.empty();
+        }
+    }
+
+    public void write(Map<String, Object> fact, Map<String, Object> responseDefaults, RuleOutcome outcome) {
+        if (!enabled || !isStorable(fact)) {
+            return;
+        }
+        String key = normalize(fact, responseDefaults);
+        Path target = directory.resolve(hash(key) + ".json");
+        if (Files.exists(target)) {
+            return;
+        }
+        Path temp = null;
+        try {
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.put("key", key);
+            entry.set("outcome", objectMapper.valueToTree(outcome));
+            byte[] content = objectMapper.writeValueAsBytes(entry);
+            if (entries.get() >= maxEntries || bytes.get() + content.length > maxBytes) {
+                if (full.compareAndSet(false, true)) {
+                    logger.warn("Schema store {} is full ({} entries, {} bytes), no longer writing; raise "
+                            + "kyc.schema-store.max-entries or max-size", directory, entries.get(), bytes.get());
+                }
+                return;
+            }
+            temp = Files.createTempFile(directory, ".entry-", ".tmp");
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            entries.incrementAndGet();
+            bytes.addAndGet(content.length);
+        } catch (IOException e) {
+            logger.warn("Could not write schema store entry {}: {}", target.getFileName(), e.getMessage());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    public long getEntries() {
+        return entries.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Entry files currently held mapped.
+     */
+    int getMappedEntries() {
+        return mapped.size();
+    }
+
+    static boolean isStorable(Map<String, Object> fact) {
+        return fact.get(UNSTORED_INPUT) == null;
+    }
+
+    /**
+     * Canonical form of the rule inputs, in {@link #RULE_INPUTS} order. Strings are quoted so
+     * that {@code "true"} and {@code true}, which the rules tell apart, get different entries.
+     */
+    static String normalize(Map<String, Object> fact, Map<String, Object> responseDefaults) {
+        StringBuilder key = new StringBuilder();
+        for (String name : RULE_INPUTS) {
+            Object value = fact.get(name);
+            if (value != null) {
+                key.append(name).append('=');
+                if (value instanceof String text) {
+                    key.append('"').append(text).append('"');
+                } else {
+                    key.append(value);
+                }
+                key.append(';');
+            }
+        }
+        key.append('|');
+        new TreeMap<>(responseDefaults).forEach((name, value) -> key.append(name).append('=').append(value).append(';'));
+        return key.toString();
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void countEntries() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                entries.incrementAndGet();
+                bytes.addAndGet(Files.size(file));
+            }
+        }
+    }
+
+    /**
+     * Deletes an entry and takes it off the counts, so the limits do not keep counting it.
+     */
+    private void discard(Path entry) {
+        try {
+            long size = Files.size(entry);
+            if (Files.deleteIfExists(entry)) {
+                entries.decrementAndGet();
+                bytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not delete {}: {}", entry, e.getMessage());
+        }
+    }
+
+    private static void purgeOtherRuleSets(Path current) throws IOException {
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(current.getParent(), Files::isDirectory)) {
+            for (Path sibling : siblings) {
+                if (!sibling.equals(current)) {
+                    logger.info("Purging schema store for previous rule set {}", sibling.getFileName());
+                    try (DirectoryStream<Path> entries = Files.newDirectoryStream(sibling)) {
+                        for (Path entry : entries) {
+                            deleteQuietly(entry);
+                        }
+                    }
+                    deleteQuietly(sibling);
+                }
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+}
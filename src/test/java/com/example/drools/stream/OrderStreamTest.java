@@ -0,0 +1,120 @@
+package com.example.drools.stream;
+
+import com.example.drools.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The orderStream session on its pseudo clock: the one-hour Electronics spend window, order
+ * expiry, and retractions and updates inside the window. Every timestamp is explicit, so the
+ * outcome does not depend on wall time.
+ */
+class OrderStreamTest {
+
+    private static final long START = Duration.ofDays(1).toMillis();
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final String TIER = "Electronics spend over $1000 in the last hour";
+
+    private static KieContainer kieContainer;
+
+    private final List<String> emitted = new ArrayList<>();
+    private OrderStream stream;
+
+    @BeforeAll
+    static void loadRules() {
+        kieContainer = KieServices.Factory.get().getKieClasspathContainer();
+    }
+
+    @BeforeEach
+    void open() {
+        stream = OrderStream.withPseudoClock(kieContainer, emitted::add, START);
+    }
+
+    @AfterEach
+    void close() {
+        stream.close();
+    }
+
+    @Test
+    void hourlySpendOverTheThresholdDiscountsTheNewestOrder() {
+        Order first = electronics("o1", 600, START);
+        stream.accept(OrderEvent.insert(first));
+        assertThat(first.getDiscountReason()).isNotEqualTo(TIER);
+
+        Order second = electronics("o2", 500, START + 30 * MINUTE);
+        stream.accept(OrderEvent.insert(second));
+        assertThat(second.getDiscount()).isEqualTo(20.0);
+        assertThat(second.getDiscountReason()).isEqualTo(TIER);
+        assertThat(first.getDiscountReason()).isNotEqualTo(TIER);
+        assertThat(emitted).anyMatch(message -> message.startsWith("Rule fired: Electronics Tier Discount for o2"))
+                .noneMatch(message -> message.startsWith("Rule fired: Electronics Tier Discount for o1"));
+    }
+
+    @Test
+    void ordersOutsideTheWindowDoNotCount() {
+        stream.accept(OrderEvent.insert(electronics("o1", 600, START)));
+
+        Order late = electronics("o2", 500, START + HOUR + MINUTE);
+        stream.accept(OrderEvent.insert(late));
+        assertThat(late.getDiscountReason()).isNotEqualTo(TIER);
+        assertThat(emitted).noneMatch(message -> message.contains("Tier"));
+    }
+
+    @Test
+    void ordersExpireAnHourAfterTheyWerePlaced() {
+        stream.accept(List.of(OrderEvent.insert(electronics("o1", 200, START)),
+                OrderEvent.insert(electronics("o2", 200, START + 20 * MINUTE))));
+        assertThat(stream.getOrderCount()).isEqualTo(2);
+
+        stream.advanceTo(START + HOUR);
+        assertThat(stream.getOrderCount()).isEqualTo(2);
+        stream.advanceTo(START + HOUR + 1);
+        assertThat(stream.getOrderCount()).isEqualTo(1);
+        stream.advanceTo(START + HOUR + 20 * MINUTE + 1);
+        assertThat(stream.getOrderCount()).isZero();
+        assertThat(stream.getCurrentTime()).isEqualTo(START + HOUR + 20 * MINUTE + 1);
+
+        // An expired order can be inserted again
+        stream.accept(OrderEvent.insert(electronics("o1", 200, START + 2 * HOUR)));
+        assertThat(stream.getOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void aRetractedOrderLeavesTheWindow() {
+        Order first = electronics("o1", 600, START);
+        stream.accept(OrderEvent.insert(first));
+        stream.accept(OrderEvent.retract(electronics("o1", 600, START + 10 * MINUTE)));
+
+        Order second = electronics("o2", 500, START + 20 * MINUTE);
+        stream.accept(OrderEvent.insert(second));
+        assertThat(second.getDiscountReason()).isNotEqualTo(TIER);
+        assertThat(stream.getOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void anUpdateRepricesTheOrderWithinTheWindow() {
+        Order first = electronics("o1", 600, START);
+        stream.accept(List.of(OrderEvent.insert(first), OrderEvent.insert(electronics("o2", 300, START + MINUTE))));
+        assertThat(emitted).noneMatch(message -> message.contains("Tier"));
+
+        Order raised = electronics("o2", 500, START + 2 * MINUTE);
+        stream.accept(OrderEvent.update(raised));
+        assertThat(emitted).anyMatch(message -> message.startsWith("Rule fired: Electronics Tier Discount for o2"));
+        assertThat(stream.getOrderCount()).isEqualTo(2);
+    }
+
+    private static Order electronics(String orderId, double amount, long placedAt) {
+        return new Order(orderId, "c1", "Electronics", amount, placedAt);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.kyc.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The bound, recency and concurrent use of the lock-striped LruCache.
+ */
+class LruCacheTest {
+
+    @Test
+    void staysWithinMaxEntriesAndCountsEvictions() {
+        LruCache<Integer, String> cache = new LruCache<>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.evictions()).isEqualTo(1000 - cache.size());
+    }
+
+    @Test
+    void keepsRecentlyReadEntries() {
+        LruCache<Integer, String> cache = new LruCache<>(1);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(2)).isEqualTo("two");
+
+        LruCache<Integer, String> striped = new LruCache<>(64);
+        striped.put(0, "zero");
+        for (int i = 1; i < 1000; i++) {
+            striped.put(i, "v" + i);
+            // Read after every insert, key 0 is never the least recently used of its segment
+            assertThat(striped.get(0)).isEqualTo("zero");
+        }
+        assertThat(striped.get(1)).isNull();
+    }
+
+    @Test
+    void putIfAbsentReturnsTheCachedValue() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        assertThat(cache.putIfAbsent("k", "first")).isEqualTo("first");
+        assertThat(cache.putIfAbsent("k", "second")).isEqualTo("first");
+        assertThat(cache.remove("k")).isEqualTo("first");
+
+        LruCache<String, String> none = new LruCache<>(0);
+        assertThat(none.putIfAbsent("k", "value")).isEqualTo("value");
+        assertThat(none.size()).isZero();
+    }
+
+    @Test
+    void concurrentReadersAndWritersKeepTheBound() throws Exception {
+        LruCache<Integer, Integer> cache = new LruCache<>(256);
+        List<Future<?>> tasks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                int offset = t * 10_000;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        Integer key = offset + i % 500;
+                        Integer cached = cache.get(key);
+                        if (cached == null) {
+                            cached = cache.putIfAbsent(key, key);
+                        }
+                        assertThat(cached).isEqualTo(key);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(256);
+    }
+}
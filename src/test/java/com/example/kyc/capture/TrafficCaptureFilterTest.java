@@ -0,0 +1,135 @@
+package com.example.kyc.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Captured bodies keep only the allowed fields, bodies over the cap or not JSON reach the
+ * service untouched without being captured, and the file is private to the service's user.
+ */
+class TrafficCaptureFilterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PATH = "/api/v1/kyc/requirements";
+
+    @TempDir
+    Path dir;
+
+    private final List<String> served = new ArrayList<>();
+
+    private final FilterChain chain = (request, response) -> {
+        served.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        ((HttpServletResponse) response).setStatus(201);
+    };
+
+    @Test
+    void capturesTheAllowedFieldsOfJsonBodies() throws Exception {
+        String body = """
+                { "customerType": "INDIVIDUAL", "accountType": "SAVINGS",
+                  "fullName": "Tan Ah Kow", "nric": "S1234567D", "pep": true }""";
+        TrafficCaptureFilter filter = filter(DataSize.ofKilobytes(16));
+        filter.doFilter(post(body, true), new MockHttpServletResponse(), chain);
+        filter.doFilter(get(), new MockHttpServletResponse(), chain);
+
+        List<CapturedRequest> captured = close(filter);
+
+        assertThat(served.get(0)).isEqualTo(body);
+        assertThat(captured).hasSize(2);
+        CapturedRequest first = captured.get(0);
+        assertThat(first.route()).isEqualTo("POST " + PATH);
+        assertThat(first.body()).isEqualTo("{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\",\"pep\":true}");
+        assertThat(first.contentType()).isEqualTo("application/json");
+        assertThat(first.status()).isEqualTo(201);
+        assertThat(captured.get(1).body()).isNull();
+        assertThat(captured.get(1).query()).isEqualTo("country=SINGAPORE");
+    }
+
+    @Test
+    void servesButSkipsOversizedAndNonJsonBodies() throws Exception {
+        String large = "{\"customerType\":\"INDIVIDUAL\",\"padding\":\"" + "x".repeat(200) + "\"}";
+        TrafficCaptureFilter filter = filter(DataSize.ofBytes(64));
+        filter.doFilter(post(large, true), new MockHttpServletResponse(), chain);
+        // Without a length, the cap is found while reading and the rest is streamed through
+        filter.doFilter(post(large, false), new MockHttpServletResponse(), chain);
+        filter.doFilter(post("customerType=INDIVIDUAL", true), new MockHttpServletResponse(), chain);
+
+        assertThat(close(filter)).isEmpty();
+        assertThat(served).containsExactly(large, large, "customerType=INDIVIDUAL");
+    }
+
+    @Test
+    void captureFileIsOwnerOnly() throws Exception {
+        assumeTrue(dir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        TrafficCaptureFilter filter = filter(DataSize.ofKilobytes(16));
+        filter.destroy();
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(dir.resolve("capture"))))
+                .isEqualTo("rwx------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(captureFile())))
+                .isEqualTo("rw-------");
+    }
+
+    @Test
+    void requiresADirectoryWhenEnabled() {
+        assertThatThrownBy(() -> new TrafficCaptureFilter(MAPPER, null, true, 1.0, " ", 100,
+                DataSize.ofKilobytes(16), Set.of("customerType")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("kyc.capture.dir");
+    }
+
+    private TrafficCaptureFilter filter(DataSize maxBodySize) throws IOException {
+        // Only API paths are requested, so the function catalog is never consulted
+        return new TrafficCaptureFilter(MAPPER, null, true, 1.0, dir.resolve("capture").toString(), 100,
+                maxBodySize, Set.of("customerType", "accountType", "country", "pep"));
+    }
+
+    private List<CapturedRequest> close(TrafficCaptureFilter filter) throws IOException {
+        filter.destroy();
+        return CaptureFile.read(captureFile(), MAPPER).requests();
+    }
+
+    private Path captureFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("capture"))) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private static MockHttpServletRequest post(String body, boolean withLength) {
+        MockHttpServletRequest request = withLength ? new MockHttpServletRequest("POST", PATH)
+                : new MockHttpServletRequest("POST", PATH) {
+                    @Override
+                    public long getContentLengthLong() {
+                        return -1;
+                    }
+                };
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletRequest get() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/kyc/products");
+        request.setQueryString("country=SINGAPORE");
+        return request;
+    }
+}
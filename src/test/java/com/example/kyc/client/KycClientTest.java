@@ -0,0 +1,126 @@
+package com.example.kyc.client;
+
+import com.example.kyc.KycFunctionalApplication;
+import com.example.kyc.http.KycHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.function.context.FunctionalSpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * KycClient against a KycFunctionalApplication sidecar started in-process on a free port,
+ * with a short max-age so that the revalidation tests do not wait long.
+ */
+class KycClientTest {
+
+    private static final Duration MAX_AGE = Duration.ofSeconds(1);
+    private static final KycIndividualRequest SAVINGS =
+            new KycIndividualRequest("INDIVIDUAL", "SAVINGS", "SINGAPORE", false, "SINGAPORE");
+
+    private static ConfigurableApplicationContext context;
+    private static URI target;
+
+    @BeforeAll
+    static void startSidecar() {
+        context = FunctionalSpringApplication.run(KycFunctionalApplication.class, "--kyc.http.enabled=true",
+                "--kyc.http.port=0", "--kyc.api.max-age=" + MAX_AGE.toMillis() + "ms",
+                "--logging.level.com.example.kyc=WARN");
+        target = URI.create("http://localhost:" + context.getBean(KycHttpServer.class).getPort());
+    }
+
+    @AfterAll
+    static void stopSidecar() {
+        context.close();
+    }
+
+    @Test
+    void operationsReturnTypedValues() {
+        try (KycClient client = new KycClient(target)) {
+            KycRequirements requirements = client.getRequirements(SAVINGS);
+            assertThat(requirements.getRiskLevel()).isNotNull();
+            assertThat(requirements.getRequiredDocuments()).isNotEmpty();
+            assertThat(requirements.getTotalRequiredFields()).isPositive();
+            assertThat(client.getProductRequirements(new KycIndividualProductRequest("CREDIT_CARD", "SINGAPORE"))
+                    .getAppliedRules()).isNotEmpty();
+            assertThat(client.getCorporateRequirements(new KycCorporateRequest("CASA", "SINGAPORE"))
+                    .getCategories()).isNotEmpty();
+            assertThat(client.getBundleRequirements(new KycBundleRequest("INDIVIDUAL", List.of("SAVINGS", "CREDIT_CARD"),
+                    "SINGAPORE", false, "SINGAPORE")).getRequiredDocuments()).isNotEmpty();
+            assertThat(client.getIndividualProducts("SINGAPORE")).isNotEmpty()
+                    .allSatisfy(product -> assertThat(product.code()).isNotNull());
+            assertThat(client.getCorporateProducts(null)).isNotEmpty();
+            assertThat(client.getSupportedCountries()).extracting(KycCountry::code).contains("SG");
+            assertThat(client.getCustomerTypes()).contains("CORPORATE");
+            assertThat(client.getAccountTypes()).contains("SAVINGS");
+        }
+    }
+
+    @Test
+    void serviceErrorsThrow() {
+        try (KycClient client = new KycClient(target)) {
+            assertThatThrownBy(() -> client.getBundleRequirements(
+                    new KycBundleRequest("INDIVIDUAL", List.of(), null, false, null)))
+                    .isInstanceOf(KycClientException.class);
+        }
+    }
+
+    @Test
+    void answersFromTheCacheWithinMaxAgeAndRevalidatesAfterIt() throws InterruptedException {
+        try (KycClient client = new KycClient(target)) {
+            for (int i = 0; i < 10; i++) {
+                client.getRequirements(SAVINGS);
+                client.getSupportedCountries();
+            }
+            KycClient.Stats warm = client.getStats();
+            assertThat(warm.fetched()).isEqualTo(2);
+            assertThat(warm.fresh()).isEqualTo(18);
+
+            Thread.sleep(MAX_AGE.toMillis() + 200);
+            // The POST revalidates with a 412 and the GET with a 304; both keep the cached body
+            String referenceId = client.getRequirements(SAVINGS).getReferenceId();
+            client.getSupportedCountries();
+            KycClient.Stats stale = client.getStats();
+            assertThat(stale.revalidated()).isEqualTo(2);
+            assertThat(stale.fetched()).isEqualTo(2);
+            assertThat(client.getRequirements(SAVINGS).getReferenceId()).isEqualTo(referenceId);
+            assertThat(client.getStats().fresh()).isEqualTo(warm.fresh() + 1);
+        }
+    }
+
+    @Test
+    void concurrentIdenticalCallsShareOneRequest() throws Exception {
+        int threads = 16;
+        try (KycClient client = new KycClient(target);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            KycIndividualRequest request = new KycIndividualRequest("FOREIGNER", "INVESTMENT", "US", true, "MALAYSIA");
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return client.getRequirements(request).getReferenceId();
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                result.get();
+            }
+            KycClient.Stats stats = client.getStats();
+            assertThat(stats.fetched() + stats.revalidated()).isEqualTo(1);
+            assertThat(stats.coalesced() + stats.fresh()).isEqualTo(threads - 1);
+        }
+    }
+}
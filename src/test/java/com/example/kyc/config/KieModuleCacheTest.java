@@ -0,0 +1,120 @@
+package com.example.kyc.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A stored rule base loads back with the same rules, and an entry for another rule set or
+ * with a corrupt trailer is discarded so that the next boot compiles and rewrites it.
+ */
+class KieModuleCacheTest {
+
+    private static final KieServices KIE_SERVICES = KieServices.Factory.get();
+
+    private static RuleSetFingerprint fingerprint;
+    private static KieContainer compiled;
+    private static long compiledRules;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void compile() throws IOException {
+        fingerprint = new DroolsConfig().ruleSetFingerprint();
+        compiled = DroolsConfig.compile(KIE_SERVICES);
+        compiledRules = ruleCount(compiled);
+    }
+
+    @AfterAll
+    static void dispose() {
+        compiled.dispose();
+    }
+
+    @Test
+    void storedRuleBaseLoadsWithTheSameRules() {
+        KieModuleCache cache = new KieModuleCache(dir, fingerprint);
+        assertThat(cache.load(KIE_SERVICES)).isEmpty();
+
+        cache.store(compiled, 1234);
+
+        assertThat(cache.getEntry()).exists();
+        Optional<KieContainer> loaded = cache.load(KIE_SERVICES);
+        assertThat(loaded).isPresent();
+        assertThat(ruleCount(loaded.get())).isEqualTo(compiledRules).isPositive();
+        loaded.get().dispose();
+    }
+
+    @Test
+    void entryForAnotherRuleSetIsDiscarded() throws IOException {
+        Resource[] ruleFiles = DroolsConfig.ruleResources();
+        RuleSetFingerprint other = RuleSetFingerprint.of(Arrays.copyOf(ruleFiles, ruleFiles.length - 1));
+        KieModuleCache cache = new KieModuleCache(dir, fingerprint);
+        cache.store(compiled, 1234);
+        KieModuleCache otherCache = new KieModuleCache(dir, other);
+        // An entry whose name claims the other rule set but whose content is for this one
+        Files.copy(cache.getEntry(), otherCache.getEntry());
+
+        assertThat(otherCache.load(KIE_SERVICES)).isEmpty();
+        assertThat(otherCache.getEntry()).doesNotExist();
+        assertThat(cache.getEntry()).exists();
+    }
+
+    @Test
+    void corruptTrailerFallsBackToAFreshCompile() throws IOException {
+        KieModuleCache cache = new KieModuleCache(dir, fingerprint);
+        cache.store(compiled, 1234);
+        byte[] content = Files.readAllBytes(cache.getEntry());
+        content[content.length - 1] ^= 0x01;
+        Files.write(cache.getEntry(), content);
+
+        assertThat(cache.load(KIE_SERVICES)).isEmpty();
+        assertThat(cache.getEntry()).doesNotExist();
+
+        // What the next boot finds
+        Files.write(cache.getEntry(), content);
+        KieContainer rebuilt = new DroolsConfig().kieContainer(KIE_SERVICES, fingerprint, true, dir.toString());
+        assertThat(ruleCount(rebuilt)).isEqualTo(compiledRules);
+        // The corrupt entry was replaced by the freshly compiled one
+        assertThat(Files.readAllBytes(cache.getEntry())).isNotEqualTo(content);
+        assertThat(cache.load(KIE_SERVICES)).isPresent();
+        rebuilt.dispose();
+    }
+
+    @Test
+    void filterRejectsClassesOutsideCompiledPackages() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(List.of(new PriorityQueue<>(List.of(1, 2)))));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            in.setObjectInputFilter(KieModuleCache.PACKAGE_FILTER);
+            assertThatThrownBy(in::readObject).isInstanceOf(InvalidClassException.class);
+        }
+    }
+
+    private static long ruleCount(KieContainer kieContainer) {
+        return kieContainer.getKieBase().getKiePackages().stream().mapToLong(p -> p.getRules().size()).sum();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.kyc.config;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cloud.function.context.FunctionCatalog;
+import org.springframework.cloud.function.context.catalog.SimpleFunctionRegistry.FunctionInvocationWrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Span tree and attributes of a request, exported to an in-memory exporter instead of OTLP.
+ */
+@AutoConfigureObservability(metrics = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.tracing.enabled=true",
+        "management.tracing.sampling.probability=1.0",
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "spring.autoconfigure.exclude=org.springframework.cloud.stream.function.FunctionConfiguration,"
+                + "org.springframework.boot.actuate.autoconfigure.tracing.otlp.OtlpAutoConfiguration"
+})
+class TracingConfigTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @TestConfiguration
+    static class InMemoryExporterConfig {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Autowired
+    private FunctionCatalog functionCatalog;
+
+    @BeforeEach
+    void reset() {
+        flush();
+        exporter.reset();
+    }
+
+    @Test
+    void requestSpansNestUnderEvaluation() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        // A string body, so the only Jackson serialization traced is the server's
+        ResponseEntity<String> response = rest.postForEntity("/api/v1/kyc/requirements",
+                new HttpEntity<>("{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\",\"nationality\":\"SINGAPOREAN\"}",
+                        headers),
+                String.class);
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+
+        List<SpanData> spans = finishedSpans();
+        SpanData http = span(spans, "http post /api/v1/kyc/requirements");
+        SpanData evaluate = span(spans, "kyc evaluate");
+        SpanData acquire = span(spans, "kyc session acquire");
+        SpanData fire = span(spans, "kyc fire-all-rules");
+        SpanData build = span(spans, "kyc build response");
+        SpanData serialize = span(spans, "kyc serialize response");
+
+        assertThat(evaluate.getParentSpanId()).isEqualTo(http.getSpanId());
+        assertThat(acquire.getParentSpanId()).isEqualTo(evaluate.getSpanId());
+        assertThat(fire.getParentSpanId()).isEqualTo(evaluate.getSpanId());
+        // The response is built and written after the evaluation, under the request span
+        assertThat(build.getParentSpanId()).isEqualTo(http.getSpanId());
+        assertThat(serialize.getParentSpanId()).isEqualTo(http.getSpanId());
+        assertThat(List.of(evaluate, acquire, fire, build, serialize))
+                .allSatisfy(span -> assertThat(span.getTraceId()).isEqualTo(http.getTraceId()));
+
+        assertThat(attribute(evaluate, "kyc.source")).isEqualTo("rules");
+        assertThat(attribute(evaluate, "kyc.projection")).isNotBlank();
+        assertThat(attribute(evaluate, "kyc.risk.level")).isNotBlank();
+        assertThat(Integer.parseInt(attribute(evaluate, "kyc.rules.fired"))).isPositive();
+        assertThat(Integer.parseInt(attribute(evaluate, "kyc.field.count"))).isPositive();
+        assertThat(attribute(fire, "kyc.rules.fired")).isEqualTo(attribute(evaluate, "kyc.rules.fired"));
+        assertThat(attribute(build, "kyc.risk.level")).isEqualTo(attribute(evaluate, "kyc.risk.level"));
+        assertThat(attribute(build, "kyc.field.count")).isEqualTo(attribute(evaluate, "kyc.field.count"));
+    }
+
+    @Test
+    void functionInvocationContinuesTraceparent() {
+        FunctionInvocationWrapper function = functionCatalog.lookup("getKycRequirements");
+        function.apply(MessageBuilder.withPayload("{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}")
+                .setHeader("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                .build());
+
+        List<SpanData> spans = finishedSpans();
+        SpanData invocation = span(spans, "getKycRequirements");
+        SpanData evaluate = span(spans, "kyc evaluate");
+
+        assertThat(invocation.getTraceId()).isEqualTo(TRACE_ID);
+        assertThat(invocation.getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+        assertThat(evaluate.getTraceId()).isEqualTo(TRACE_ID);
+        assertThat(evaluate.getParentSpanId()).isEqualTo(invocation.getSpanId());
+    }
+
+    private List<SpanData> finishedSpans() {
+        flush();
+        return exporter.getFinishedSpanItems();
+    }
+
+    private void flush() {
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+    }
+
+    private static SpanData span(List<SpanData> spans, String name) {
+        return spans.stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No span " + name + " in "
+                        + spans.stream().map(SpanData::getName).toList()));
+    }
+
+    private static String attribute(SpanData span, String key) {
+        return span.getAttributes().get(AttributeKey.stringKey(key));
+    }
+}
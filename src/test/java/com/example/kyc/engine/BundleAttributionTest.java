@@ -0,0 +1,110 @@
+package com.example.kyc.engine;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Evaluating products together in one session attributes to each product exactly what
+ * evaluating it on its own produces: fields, rules, documents, instructions and responseData.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "kyc.evaluation.deadline-ms=0"
+})
+class BundleAttributionTest {
+
+    private static final Map<String, Object> INDIVIDUAL_DEFAULTS = Map.of(
+            "riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 3);
+    private static final Map<String, Object> CORPORATE_DEFAULTS = Map.of(
+            "riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 7);
+
+    @Autowired
+    private KycRuleEngine ruleEngine;
+
+    @Autowired
+    @Qualifier("getAccountTypes")
+    private Function<Map<String, Object>, Map<String, Object>> getAccountTypes;
+
+    @Autowired
+    @Qualifier("getCorporateProducts")
+    private Function<Map<String, Object>, Map<String, Object>> getCorporateProducts;
+
+    @Test
+    void individualBundlesMatchSingleProductEvaluations() {
+        List<String> accountTypes = codes(getAccountTypes.apply(null).get("accountTypes"));
+        for (String customerType : List.of("INDIVIDUAL", "FOREIGNER")) {
+            for (boolean pep : List.of(false, true)) {
+                List<Map<String, Object>> facts = new ArrayList<>();
+                for (String accountType : accountTypes) {
+                    Map<String, Object> fact = new HashMap<>();
+                    fact.put("customerType", customerType);
+                    fact.put("accountType", accountType);
+                    fact.put("country", "SINGAPORE");
+                    fact.put("nationality", "FOREIGNER".equals(customerType) ? "MALAYSIA" : "SINGAPORE");
+                    fact.put("pep", pep);
+                    facts.add(fact);
+                }
+                assertAttributedLikeSingleEvaluations(facts, INDIVIDUAL_DEFAULTS);
+            }
+        }
+    }
+
+    @Test
+    void corporateBundlesMatchSingleProductEvaluations() {
+        List<Map<String, Object>> facts = new ArrayList<>();
+        for (String product : codes(getCorporateProducts.apply(Map.of()).get("products"))) {
+            Map<String, Object> fact = new HashMap<>();
+            fact.put("customerType", "CORPORATE");
+            fact.put("product", product);
+            fact.put("country", "SINGAPORE");
+            facts.add(fact);
+        }
+        assertAttributedLikeSingleEvaluations(facts, CORPORATE_DEFAULTS);
+    }
+
+    private void assertAttributedLikeSingleEvaluations(List<Map<String, Object>> facts, Map<String, Object> defaults) {
+        assertThat(facts).hasSizeGreaterThan(1);
+        BundleOutcome bundle = ruleEngine.evaluateBundle(facts, defaults);
+        assertThat(bundle.getProducts()).hasSameSizeAs(facts);
+
+        int rulesFired = 0;
+        for (int i = 0; i < facts.size(); i++) {
+            RuleOutcome single = ruleEngine.evaluate(new HashMap<>(facts.get(i)), defaults);
+            RuleOutcome attributed = bundle.getProducts().get(i);
+            String product = facts.get(i).toString();
+            assertThat(attributed.getFields()).as("fields of %s", product)
+                    .containsExactlyInAnyOrderElementsOf(single.getFields());
+            assertThat(attributed.getAppliedRules()).as("rules of %s", product)
+                    .containsExactlyInAnyOrderElementsOf(single.getAppliedRules());
+            assertThat(attributed.getDocuments()).as("documents of %s", product)
+                    .containsExactlyInAnyOrderElementsOf(single.getDocuments());
+            assertThat(attributed.getInstructions()).as("instructions of %s", product)
+                    .containsExactlyInAnyOrderElementsOf(single.getInstructions());
+            assertThat(attributed.getResponseData()).as("responseData of %s", product)
+                    .isEqualTo(single.getResponseData());
+            assertThat(attributed.getRulesFired()).as("firings of %s", product).isEqualTo(single.getRulesFired());
+            rulesFired += single.getRulesFired();
+        }
+        assertThat(bundle.getRulesFired()).isEqualTo(rulesFired);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> codes(Object catalog) {
+        List<String> codes = new ArrayList<>();
+        for (Object entry : (List<Object>) catalog) {
+            codes.add(entry instanceof Map<?, ?> map ? String.valueOf(map.get("code")) : String.valueOf(entry));
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.kyc.engine;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.store.PersistentSchemaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.runtime.KieContainer;
+import org.kie.internal.io.ResourceFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * The deadline, the firing cap and the per-profile circuit breaker, on the service's rules
+ * plus a modify loop, a slow consequence and a loop that can be switched off.
+ */
+class EvaluationLimitsTest {
+
+    private static final String RUNAWAY_PROPERTY = "kyc.test.runaway";
+
+    private static final String BROKEN_RULES = """
+            package com.example.kyc.rules;
+
+            import java.util.Map;
+
+            rule "Test - Modify Loop"
+                when
+                    $request : Map(this["customerType"] == "TRUST")
+                then
+                    update($request);
+            end
+
+            // Loops on a counter of its own, so the service rules do not fire in between
+            rule "Test - Slow Start"
+                when
+                    Map(this["customerType"] == "PARTNERSHIP", this["accountType"] == "LOAN")
+                    not Long()
+                then
+                    insert(Long.valueOf(0));
+            end
+
+            rule "Test - Slow Consequence"
+                when
+                    $tick : Long()
+                then
+                    java.util.concurrent.locks.LockSupport.parkNanos(20_000_000L);
+                    delete($tick);
+                    insert(Long.valueOf($tick + 1));
+            end
+
+            rule "Test - Switchable Loop"
+                when
+                    $request : Map(this["customerType"] == "SOLE_PROPRIETOR")
+                    eval(Boolean.getBoolean("kyc.test.runaway"))
+                then
+                    update($request);
+            end
+            """;
+
+    private static final int MAX_FIRINGS = 50;
+    private static final long OPEN_MILLIS = 300;
+
+    private static KieContainer container;
+
+    @BeforeAll
+    static void buildRules() throws IOException {
+        KieServices kieServices = KieServices.Factory.get();
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        kieFileSystem.generateAndWritePomXML(kieServices.newReleaseId("com.example.kyc", "evaluation-limits-test", "1.0"));
+        for (Resource ruleFile : ruleResources()) {
+            kieFileSystem.write(ResourceFactory.newClassPathResource("rules/" + ruleFile.getFilename(), "UTF-8"));
+        }
+        kieFileSystem.write("src/main/resources/rules/TestRules.drl", BROKEN_RULES);
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem).buildAll();
+        assertThat(kieBuilder.getResults().getMessages(Message.Level.ERROR)).isEmpty();
+        container = kieServices.newKieContainer(kieBuilder.getKieModule().getReleaseId());
+
+        // The first evaluations build the network lazily and would trip a short deadline themselves
+        KycRuleEngine warmUp = engine(0, 0);
+        warmUp.evaluate(profile("INDIVIDUAL", "SAVINGS"), Map.of());
+        evaluateFailing(warmUp, profile("PARTNERSHIP", "LOAN"));
+    }
+
+    @AfterAll
+    static void disposeRules() {
+        container.dispose();
+    }
+
+    @AfterEach
+    void resetRunaway() {
+        System.clearProperty(RUNAWAY_PROPERTY);
+    }
+
+    @Test
+    void healthyProfilesComplete() throws IOException {
+        KycRuleEngine engine = engine(100, 3);
+        assertThat(engine.evaluate(profile("INDIVIDUAL", "SAVINGS"), Map.of()).getRulesFired())
+                .isPositive()
+                .isLessThanOrEqualTo(MAX_FIRINGS);
+    }
+
+    @Test
+    void firingCapStopsAModifyLoopAndNamesIt() throws IOException {
+        RuleEvaluationException stopped = evaluateFailing(engine(0, 0), profile("TRUST", "SAVINGS"));
+
+        assertThat(stopped.getReason()).isEqualTo(RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED);
+        assertThat(stopped.getRulesFired()).isEqualTo(MAX_FIRINGS + 1);
+        assertThat(stopped.getActiveRules().get(0)).startsWith("Test - Modify Loop (changed facts x");
+    }
+
+    @Test
+    void deadlineHaltsASlowLoop() throws IOException {
+        long start = System.nanoTime();
+        RuleEvaluationException stopped = evaluateFailing(engine(100, 0), profile("PARTNERSHIP", "LOAN"));
+
+        assertThat(stopped.getReason()).isEqualTo(RuleEvaluationException.Reason.DEADLINE_EXCEEDED);
+        assertThat(stopped.getRulesFired()).isLessThan(MAX_FIRINGS);
+        assertThat(stopped.getActiveRules()).anyMatch(rule -> rule.startsWith("Test - Slow Consequence"));
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(MAX_FIRINGS * 20L);
+    }
+
+    @Test
+    void withoutDeadlineOnlyTheCapStopsASlowLoop() throws IOException {
+        RuleEvaluationException stopped = evaluateFailing(engine(0, 0), profile("PARTNERSHIP", "LOAN"));
+
+        assertThat(stopped.getReason()).isEqualTo(RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED);
+    }
+
+    @Test
+    void deadlineTripsDoNotOpenTheCircuit() throws IOException {
+        KycRuleEngine engine = engine(100, 2);
+        for (int attempt = 0; attempt < 4; attempt++) {
+            assertThat(evaluateFailing(engine, profile("PARTNERSHIP", "LOAN")).getReason())
+                    .as("attempt %d", attempt)
+                    .isEqualTo(RuleEvaluationException.Reason.DEADLINE_EXCEEDED);
+        }
+    }
+
+    @Test
+    void circuitOpensThenLetsOneTrialThroughAndClosesOnSuccess() throws Exception {
+        KycRuleEngine engine = engine(0, 2);
+        System.setProperty(RUNAWAY_PROPERTY, "true");
+
+        // Closed: failures are counted up to the threshold
+        assertThat(evaluateFailing(engine, profile("SOLE_PROPRIETOR", "SAVINGS")).getReason())
+                .isEqualTo(RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED);
+        assertThat(evaluateFailing(engine, profile("SOLE_PROPRIETOR", "SAVINGS")).getReason())
+                .isEqualTo(RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED);
+
+        // Open: rejected without firing, other profiles unaffected
+        RuleEvaluationException rejected = evaluateFailing(engine, profile("SOLE_PROPRIETOR", "SAVINGS"));
+        assertThat(rejected.getReason()).isEqualTo(RuleEvaluationException.Reason.CIRCUIT_OPEN);
+        assertThat(rejected.getRulesFired()).isZero();
+        assertThat(rejected.getActiveRules().get(0)).startsWith("Test - Switchable Loop");
+        assertThat(engine.evaluate(profile("INDIVIDUAL", "SAVINGS"), Map.of()).getRulesFired()).isPositive();
+
+        // Half-open: the trial fails, so the circuit opens again right away
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertThat(evaluateFailing(engine, profile("SOLE_PROPRIETOR", "SAVINGS")).getReason())
+                .isEqualTo(RuleEvaluationException.Reason.MAX_FIRINGS_EXCEEDED);
+        assertThat(evaluateFailing(engine, profile("SOLE_PROPRIETOR", "SAVINGS")).getReason())
+                .isEqualTo(RuleEvaluationException.Reason.CIRCUIT_OPEN);
+
+        // Half-open: the trial succeeds and closes the circuit
+        System.clearProperty(RUNAWAY_PROPERTY);
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertThat(engine.evaluate(profile("SOLE_PROPRIETOR", "SAVINGS"), Map.of()).getRulesFired()).isPositive();
+        assertThat(engine.evaluate(profile("SOLE_PROPRIETOR", "SAVINGS"), Map.of()).getRulesFired()).isPositive();
+    }
+
+    private static RuleEvaluationException evaluateFailing(KycRuleEngine engine, Map<String, Object> profile) {
+        RuleEvaluationException stopped = catchThrowableOfType(() -> engine.evaluate(profile, Map.of()),
+                RuleEvaluationException.class);
+        assertThat(stopped).as("%s", profile).isNotNull();
+        return stopped;
+    }
+
+    private static KycRuleEngine engine(long deadlineMillis, int failureThreshold) throws IOException {
+        // Disabled, so its directory is never created
+        PersistentSchemaStore store = new PersistentSchemaStore(new ObjectMapper(), RuleSetFingerprint.of(ruleResources()),
+                false, System.getProperty("java.io.tmpdir"), false, 0, DataSize.ofBytes(0), 0);
+        return new KycRuleEngine(container, store, ObservationRegistry.NOOP, false, deadlineMillis, MAX_FIRINGS,
+                failureThreshold, OPEN_MILLIS, "sequential", "sequential");
+    }
+
+    private static Resource[] ruleResources() throws IOException {
+        return new PathMatchingResourcePatternResolver().getResources("classpath*:rules/*.drl");
+    }
+
+    private static Map<String, Object> profile(String customerType, String accountType) {
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("customerType", customerType);
+        profile.put("accountType", accountType);
+        profile.put("country", "SINGAPORE");
+        return profile;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.kyc.engine;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Projection parameters are parsed into known categories only, and the agenda filter skips
+ * exactly the field rules of the other categories without changing the outcome.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "kyc.evaluation.deadline-ms=0"
+})
+class ProjectionTest {
+
+    // The category argument of addField(...): mandatory flag, category, display order
+    private static final Pattern FIELD_CATEGORY = Pattern.compile("(?:true|false),\\s*\"([A-Z][A-Z_]+)\",\\s*\\d+");
+
+    private static final Map<String, Object> INDIVIDUAL_DEFAULTS = Map.of(
+            "riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 3);
+
+    @Autowired
+    private KycRuleEngine ruleEngine;
+
+    @Autowired
+    @Qualifier("getKycRequirements")
+    private Function<Map<String, Object>, Map<String, Object>> getKycRequirements;
+
+    @Test
+    void parsesFullMetadataAndCategoryLists() {
+        assertThat(Projection.parse(null)).isSameAs(Projection.FULL);
+        assertThat(Projection.parse(" ")).isSameAs(Projection.FULL);
+        assertThat(Projection.parse("FULL")).isSameAs(Projection.FULL);
+        assertThat(Projection.parse(",")).isSameAs(Projection.FULL);
+        assertThat(Projection.parse("metadata")).isSameAs(Projection.METADATA);
+
+        Projection projection = Projection.parse(" employment, identification ");
+        assertThat(projection.describe()).isEqualTo("EMPLOYMENT,IDENTIFICATION");
+        assertThat(projection.kind()).isEqualTo("categories");
+        assertThat(projection.includes("IDENTIFICATION")).isTrue();
+        assertThat(projection.includes("PERSONAL_DETAILS")).isFalse();
+        assertThat(Projection.parse(List.of("IDENTIFICATION", "EMPLOYMENT")).describe())
+                .isEqualTo("EMPLOYMENT,IDENTIFICATION");
+    }
+
+    @Test
+    void rejectsUnknownCategoriesListingTheValidOnes() {
+        assertThatThrownBy(() -> Projection.parse("IDENTIFICATION,IDENTITY,passport"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown projection IDENTITY,PASSPORT")
+                .hasMessageContaining("full, metadata")
+                .hasMessageContaining("DIRECTORS_SHAREHOLDERS, EMPLOYMENT");
+
+        Map<String, Object> request = individual();
+        request.put("projection", "IDENTITY");
+        Map<String, Object> response = getKycRequirements.apply(request);
+        assertThat(response).containsEntry("error", true);
+        assertThat((String) response.get("message")).contains("IDENTIFICATION");
+    }
+
+    @Test
+    void knownCategoriesAreTheCategoriesOfTheRules() throws IOException {
+        Set<String> categories = new TreeSet<>();
+        try (var files = Files.list(Path.of("src/main/resources/rules"))) {
+            for (Path drl : files.filter(file -> file.toString().endsWith(".drl")).toList()) {
+                Matcher matcher = FIELD_CATEGORY.matcher(Files.readString(drl));
+                while (matcher.find()) {
+                    categories.add(matcher.group(1));
+                }
+            }
+        }
+        assertThat(categories).isEqualTo(new TreeSet<>(Projection.CATEGORIES));
+    }
+
+    @Test
+    void agendaFilterSkipsOtherCategoriesOnly() {
+        RuleOutcome full = ruleEngine.evaluate(individual(), INDIVIDUAL_DEFAULTS);
+        for (String categories : List.of("IDENTIFICATION", "PERSONAL_DETAILS,EMPLOYMENT", "metadata")) {
+            Projection projection = Projection.parse(categories);
+            RuleOutcome projected = ruleEngine.evaluate(individual(), INDIVIDUAL_DEFAULTS, projection);
+
+            assertThat(projected.getFields()).as(categories).isEqualTo(projection.filter(full.getFields()));
+            assertThat(projected.getResponseData()).as(categories).isEqualTo(full.getResponseData());
+            assertThat(projected.getDocuments()).as(categories).isEqualTo(full.getDocuments());
+            assertThat(projected.getInstructions()).as(categories).isEqualTo(full.getInstructions());
+            assertThat(projected.getRulesFired()).as(categories).isLessThan(full.getRulesFired());
+        }
+        assertThat(ruleEngine.evaluate(individual(), INDIVIDUAL_DEFAULTS, Projection.METADATA).getFields())
+                .isEmpty();
+    }
+
+    private static Map<String, Object> individual() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("customerType", "FOREIGNER");
+        request.put("accountType", "INVESTMENT");
+        request.put("country", "SINGAPORE");
+        request.put("nationality", "MALAYSIA");
+        request.put("pep", true);
+        request.put("initialDeposit", 60000);
+        return request;
+    }
+}
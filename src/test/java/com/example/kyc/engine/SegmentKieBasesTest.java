@@ -0,0 +1,137 @@
+package com.example.kyc.engine;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.store.PersistentSchemaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.runtime.KieContainer;
+import org.kie.internal.io.ResourceFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sequential, parallel and calibrated auto evaluation give the same outcomes, and auto stays
+ * sequential until it is calibrated.
+ */
+class SegmentKieBasesTest {
+
+    private static final List<String> CUSTOMER_TYPES = List.of(
+            "INDIVIDUAL", "SOLE_PROPRIETOR", "PARTNERSHIP", "TRUST", "FOREIGNER");
+    private static final List<String> ACCOUNT_TYPES = List.of(
+            "SAVINGS", "CURRENT", "FIXED_DEPOSIT", "INVESTMENT", "LOAN", "CREDIT_CARD");
+    private static final List<String> CORPORATE_PRODUCTS = List.of("CASA", "FX", "TRADING");
+
+    private static final Map<String, Object> INDIVIDUAL_DEFAULTS = Map.of(
+            "riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 3);
+    private static final Map<String, Object> CORPORATE_DEFAULTS = Map.of(
+            "riskLevel", "LOW", "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 7);
+
+    private static KieContainer container;
+
+    @BeforeAll
+    static void buildRules() throws IOException {
+        KieServices kieServices = KieServices.Factory.get();
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        kieFileSystem.generateAndWritePomXML(kieServices.newReleaseId("com.example.kyc", "segment-kiebases-test", "1.0"));
+        for (Resource ruleFile : ruleResources()) {
+            kieFileSystem.write(ResourceFactory.newClassPathResource("rules/" + ruleFile.getFilename(), "UTF-8"));
+        }
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem).buildAll();
+        assertThat(kieBuilder.getResults().getMessages(Message.Level.ERROR)).isEmpty();
+        container = kieServices.newKieContainer(kieBuilder.getKieModule().getReleaseId());
+    }
+
+    @AfterAll
+    static void disposeRules() {
+        container.dispose();
+    }
+
+    @Test
+    void everyModeGivesTheSameOutcomes() throws IOException {
+        KycRuleEngine sequential = engine("sequential");
+        KycRuleEngine parallel = engine("parallel");
+        KycRuleEngine auto = engine("auto");
+        assertThat(sequential.getKieBaseCount()).isEqualTo(1);
+        assertThat(parallel.getKieBaseCount()).isEqualTo(2);
+        assertThat(auto.getKieBaseCount()).isEqualTo(1);
+        auto.calibrateParallelEvaluation();
+        assertThat(auto.needsParallelCalibration()).isFalse();
+
+        for (Map<String, Object> profile : profiles()) {
+            Map<String, Object> defaults = profile.containsKey("product") ? CORPORATE_DEFAULTS : INDIVIDUAL_DEFAULTS;
+            RuleOutcome expected = sequential.evaluate(new HashMap<>(profile), defaults);
+            for (KycRuleEngine engine : List.of(parallel, auto)) {
+                RuleOutcome actual = engine.evaluate(new HashMap<>(profile), defaults);
+                assertThat(actual.getFields()).as("%s", profile).isEqualTo(expected.getFields());
+                assertThat(actual.getResponseData()).as("%s", profile).isEqualTo(expected.getResponseData());
+                assertThat(actual.getDocuments()).as("%s", profile).isEqualTo(expected.getDocuments());
+                assertThat(actual.getInstructions()).as("%s", profile).isEqualTo(expected.getInstructions());
+                assertThat(actual.getAppliedRules()).as("%s", profile).isEqualTo(expected.getAppliedRules());
+                assertThat(actual.getRulesFired()).as("%s", profile).isEqualTo(expected.getRulesFired());
+            }
+        }
+    }
+
+    @Test
+    void autoIsSequentialUntilCalibrated() throws IOException {
+        KycRuleEngine auto = engine("auto");
+        assertThat(auto.getKieBaseCount()).isEqualTo(1);
+        // On a single processor auto means sequential and there is nothing to calibrate
+        assertThat(auto.needsParallelCalibration()).isEqualTo(Runtime.getRuntime().availableProcessors() > 1);
+
+        auto.calibrateParallelEvaluation();
+        assertThat(auto.needsParallelCalibration()).isFalse();
+        int calibrated = auto.getKieBaseCount();
+        auto.calibrateParallelEvaluation();
+        assertThat(auto.getKieBaseCount()).isEqualTo(calibrated);
+    }
+
+    private static List<Map<String, Object>> profiles() {
+        List<Map<String, Object>> profiles = new ArrayList<>();
+        for (String customerType : CUSTOMER_TYPES) {
+            for (String accountType : ACCOUNT_TYPES) {
+                for (boolean pep : List.of(false, true)) {
+                    Map<String, Object> profile = new HashMap<>();
+                    profile.put("customerType", customerType);
+                    profile.put("accountType", accountType);
+                    profile.put("country", "SINGAPORE");
+                    profile.put("nationality", pep ? "MALAYSIA" : "SINGAPORE");
+                    profile.put("pep", pep);
+                    profile.put("initialDeposit", pep ? 250000 : 1000);
+                    profiles.add(profile);
+                }
+            }
+        }
+        for (String product : CORPORATE_PRODUCTS) {
+            profiles.add(Map.of("customerType", "CORPORATE", "product", product, "country", "SINGAPORE"));
+        }
+        return profiles;
+    }
+
+    private static KycRuleEngine engine(String mode) throws IOException {
+        // Disabled, so its directory is never created
+        PersistentSchemaStore store = new PersistentSchemaStore(new ObjectMapper(), RuleSetFingerprint.of(ruleResources()),
+                false, System.getProperty("java.io.tmpdir"), false, 0, DataSize.ofBytes(0), 0);
+        return new KycRuleEngine(container, store, ObservationRegistry.NOOP, false, 0, 1000, 0, 30000, mode, mode);
+    }
+
+    private static Resource[] ruleResources() throws IOException {
+        return new PathMatchingResourcePatternResolver().getResources("classpath*:rules/*.drl");
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.kyc.function;
+
+import org.junit.jupiter.api.Test;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation regression gate for the hot path. Measures the bytes allocated per evaluation
+ * of each requirements function over a fixed set of profiles, plus creating and disposing a
+ * bare KIE session, and compares them with the budgets checked in at
+ * {@code perf/allocation-budgets.properties}.
+ *
+ * <p>The function beans are called directly after a warm-up, counting with the current
+ * thread's allocation counter. Logging below WARN is off, because what it allocates depends
+ * on the appender configuration rather than on the code under test.
+ *
+ * <p>After an intended change, {@code -Dkyc.allocation-budgets.update=true} rewrites the
+ * budgets as the measured values plus 10% headroom instead of checking them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "logging.level.root=WARN",
+        "logging.level.com.example.kyc=WARN"
+})
+class AllocationBudgetTest {
+
+    private static final Path BUDGETS = Path.of("perf/allocation-budgets.properties");
+    private static final int WARMUP = 3000;
+    private static final int ITERATIONS = 2000;
+    private static final double HEADROOM = 0.10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * One budgeted operation, called with each of its requests in turn.
+     */
+    private record Probe(String name, Function<Map<String, Object>, ?> operation, List<Map<String, Object>> requests) {
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void operationsStayWithinTheirAllocationBudgets() throws IOException {
+        Map<String, Long> measured = new LinkedHashMap<>();
+        for (Probe probe : probes()) {
+            measured.put(probe.name(), bytesPerCall(probe));
+        }
+        if (Boolean.getBoolean("kyc.allocation-budgets.update")) {
+            writeBudgets(measured);
+            return;
+        }
+
+        Properties budgets = new Properties();
+        try (Reader reader = Files.newBufferedReader(BUDGETS)) {
+            budgets.load(reader);
+        }
+        List<String> over = new ArrayList<>();
+        System.out.printf("%-40s %12s %12s %8s%n", "operation", "bytes/call", "budget", "used");
+        measured.forEach((name, bytes) -> {
+            String budgetValue = budgets.getProperty(name);
+            if (budgetValue == null) {
+                over.add(name + " has no budget");
+                return;
+            }
+            long budget = Long.parseLong(budgetValue.trim());
+            System.out.printf("%-40s %12d %12d %7.0f%%%n", name, bytes, budget, 100.0 * bytes / budget);
+            if (bytes > budget) {
+                over.add(name + " allocates " + bytes + " bytes per call, budget " + budget);
+            }
+        });
+        assertThat(over)
+                .as("Reduce allocation, or run with -Dkyc.allocation-budgets.update=true if the increase is intended")
+                .isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Probe> probes() {
+        List<Probe> probes = new ArrayList<>();
+        probes.add(new Probe("getKycRequirements", context.getBean("getKycRequirements", Function.class), List.of(
+                Map.of("customerType", "INDIVIDUAL", "accountType", "SAVINGS"),
+                Map.of("customerType", "INDIVIDUAL", "accountType", "CURRENT", "pep", true),
+                Map.of("customerType", "FOREIGNER", "accountType", "SAVINGS", "nationality", "MALAYSIA"),
+                Map.of("customerType", "INDIVIDUAL", "accountType", "INVESTMENT", "initialDeposit", 250000))));
+        probes.add(new Probe("getKycRequirements projected", context.getBean("getKycRequirements", Function.class),
+                List.of(Map.of("customerType", "INDIVIDUAL", "accountType", "SAVINGS", "projection", "IDENTIFICATION"),
+                        Map.of("customerType", "FOREIGNER", "accountType", "CURRENT", "projection", "metadata"))));
+        probes.add(new Probe("getKycRequirementsDelta", context.getBean("getKycRequirementsDelta", Function.class),
+                List.of(Map.of("customerType", "INDIVIDUAL", "accountType", "SAVINGS", "pep", true))));
+        probes.add(new Probe("getIndividualProductKycRequirements",
+                context.getBean("getIndividualProductKycRequirements", Function.class), List.of(
+                        Map.of("product", "PERSONAL_LOAN"),
+                        Map.of("product", "CREDIT_CARD", "country", "MALAYSIA"))));
+        probes.add(new Probe("getCorporateKycRequirements", context.getBean("getCorporateKycRequirements", Function.class),
+                List.of(Map.of("product", "CASA"), Map.of("product", "FX"), Map.of("product", "TRADING"))));
+        probes.add(new Probe("getBundleKycRequirements", context.getBean("getBundleKycRequirements", Function.class),
+                List.of(Map.of("customerType", "INDIVIDUAL", "products", List.of("SAVINGS", "CREDIT_CARD")))));
+
+        KieContainer kieContainer = context.getBean(KieContainer.class);
+        probes.add(new Probe("kieSession create+dispose", request -> {
+            KieSession session = kieContainer.newKieSession();
+            session.dispose();
+            return session;
+        }, List.of(Map.of())));
+        return probes;
+    }
+
+    private static long bytesPerCall(Probe probe) {
+        List<Map<String, Object>> requests = probe.requests();
+        for (int i = 0; i < WARMUP; i++) {
+            call(probe, requests.get(i % requests.size()));
+        }
+        long threadId = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call(probe, requests.get(i % requests.size()));
+        }
+        return (THREADS.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    private static void call(Probe probe, Map<String, Object> request) {
+        // The functions consume their request map
+        Object response = probe.operation().apply(new HashMap<>(request));
+        if (response instanceof Map<?, ?> map && Boolean.TRUE.equals(map.get("error"))) {
+            throw new IllegalStateException(probe.name() + " failed for " + request + ": " + map);
+        }
+    }
+
+    private static void writeBudgets(Map<String, Long> measured) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(BUDGETS)) {
+            writer.write("# Bytes allocated per call on the calling thread, checked by AllocationBudgetTest\n");
+            writer.write(String.format("# (mvn test). Measured value plus %.0f%% headroom.%n", HEADROOM * 100));
+            for (Map.Entry<String, Long> entry : measured.entrySet()) {
+                // Properties keys cannot contain unescaped spaces
+                writer.write(entry.getKey().replace(" ", "\\ ") + "=" + Math.round(entry.getValue() * (1 + HEADROOM)) + "\n");
+            }
+        }
+    }
+}
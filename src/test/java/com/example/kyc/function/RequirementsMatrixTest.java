@@ -0,0 +1,434 @@
+package com.example.kyc.function;
+
+import com.example.kyc.schema.InputDimension;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Evaluates every combination of the KYC inputs the rules distinguish and compares the
+ * results with the golden file checked in at {@code golden/requirements-matrix.json}, so
+ * {@code mvn test} fails after an unintended rule change.
+ *
+ * <p>The matrix covers getKycRequirements over customer type, account type and country,
+ * getIndividualProductKycRequirements over the products offered in each country, each of them
+ * with every combination of the {@link InputDimension} probe answers (PEP, nationality and
+ * initial deposit, including the threshold boundaries and missing answers), and
+ * getCorporateKycRequirements over the corporate products and countries. Customer types,
+ * account types, countries and products come from the catalog functions, so the matrix grows
+ * with the catalog. The combinations are evaluated in parallel on a fork-join pool.
+ *
+ * <p>Each result is reduced to a canonical outcome: risk level, processing days, documents,
+ * instructions, applied rules and the field schemas per category, without referenceId and
+ * timestamp. Lists whose order follows the rule firing order are sorted, and fields written by
+ * more than one rule are compared by presence only. The golden file maps every combination to
+ * the id (content hash) of its outcome and stores each distinct outcome once, so it doubles as
+ * a table of precomputed responses.
+ *
+ * <p>After an intended rule change, {@code -Dkyc.golden.update=true} rewrites the golden file
+ * instead of checking it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        // A GC pause must not turn a combination into a deadline error
+        "kyc.evaluation.deadline-ms=0",
+        "logging.level.root=WARN",
+        "logging.level.com.example.kyc=WARN"
+})
+class RequirementsMatrixTest {
+
+    private static final String FORMAT = "kyc-golden/1";
+    private static final Path GOLDEN = Path.of("golden/requirements-matrix.json");
+    private static final int MAX_REPORTED = 20;
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    private static final ObjectMapper COMPACT = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private static final Set<String> VOLATILE_FIELDS = Set.of("referenceId", "timestamp");
+    private static final String CONTESTED = "written by more than one rule";
+    private static final Set<String> FIRING_ORDER_LISTS =
+            Set.of("appliedRules", "categories", "requiredDocuments", "specialInstructions", "required");
+
+    /**
+     * One combination of inputs for one function.
+     */
+    private record Case(String function, Map<String, Object> request) {
+
+        String key() {
+            StringBuilder key = new StringBuilder(function);
+            request.forEach((name, value) -> key.append(' ').append(name).append('=').append(value == null ? "-" : value));
+            return key.toString();
+        }
+    }
+
+    /**
+     * Contents of a golden file.
+     */
+    private record Golden(Map<String, String> cases, Map<String, Map<String, Object>> outcomes) {
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void everyCombinationMatchesTheGoldenFile() throws Exception {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Map<String, Map<String, Object>> outcomes = new TreeMap<>();
+        List<Case> matrix = matrix(context);
+        long start = System.nanoTime();
+        Map<String, String> cases = evaluate(context, matrix, parallelism, outcomes);
+        System.out.printf("Evaluated %d combinations in %d ms on %d threads: %d distinct outcomes%n",
+                cases.size(), (System.nanoTime() - start) / 1_000_000, parallelism, outcomes.size());
+
+        if (Boolean.getBoolean("kyc.golden.update")) {
+            write(GOLDEN, cases, outcomes);
+            System.out.println("Golden file written to " + GOLDEN);
+            return;
+        }
+        assertThat(GOLDEN).as("Run with -Dkyc.golden.update=true to create the golden file").exists();
+        List<String> report = compare(read(GOLDEN), cases, outcomes);
+        assertThat(report)
+                .as("Fix the rules, or run with -Dkyc.golden.update=true if the change is intended:%n%s",
+                        String.join("\n", report))
+                .isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Case> matrix(ApplicationContext context) {
+        List<Object> customerTypes = (List<Object>) call(context, "getCustomerTypes", Map.of()).get("customerTypes");
+        List<Object> accountTypes = (List<Object>) call(context, "getAccountTypes", Map.of()).get("accountTypes");
+        List<Object> countries = new ArrayList<>();
+        countries.add(null);
+        for (Map<String, Object> country : (List<Map<String, Object>>) call(context, "getSupportedCountries", Map.of())
+                .get("countries")) {
+            countries.add(country.get("code"));
+        }
+        List<Map<String, Object>> answers = answers();
+
+        List<Case> matrix = new ArrayList<>();
+        for (Object customerType : customerTypes) {
+            for (Object accountType : accountTypes) {
+                for (Object country : countries) {
+                    for (Map<String, Object> answer : answers) {
+                        Map<String, Object> request = new LinkedHashMap<>();
+                        request.put("customerType", customerType);
+                        request.put("accountType", accountType);
+                        request.put("country", country);
+                        request.putAll(answer);
+                        matrix.add(new Case("getKycRequirements", request));
+                    }
+                }
+            }
+        }
+        for (Object country : countries) {
+            for (Object product : products(context, "getIndividualProducts", country)) {
+                for (Map<String, Object> answer : answers) {
+                    Map<String, Object> request = new LinkedHashMap<>();
+                    request.put("product", product);
+                    request.put("country", country);
+                    request.putAll(answer);
+                    matrix.add(new Case("getIndividualProductKycRequirements", request));
+                }
+            }
+            for (Object product : products(context, "getCorporateProducts", country)) {
+                Map<String, Object> request = new LinkedHashMap<>();
+                request.put("product", product);
+                request.put("country", country);
+                matrix.add(new Case("getCorporateKycRequirements", request));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Every combination of the probe answers of the individual input dimensions: each range
+     * the rules distinguish, its boundaries and the missing answer.
+     */
+    private static List<Map<String, Object>> answers() {
+        List<Map<String, Object>> answers = new ArrayList<>();
+        answers.add(new LinkedHashMap<>());
+        for (InputDimension dimension : InputDimension.individualDimensions()) {
+            List<Map<String, Object>> extended = new ArrayList<>();
+            for (Map<String, Object> answer : answers) {
+                for (Object probe : dimension.getProbes()) {
+                    Map<String, Object> combination = new LinkedHashMap<>(answer);
+                    combination.put(dimension.getName(), probe);
+                    extended.add(combination);
+                }
+            }
+            answers = extended;
+        }
+        return answers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> products(ApplicationContext context, String function, Object country) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("country", country);
+        List<Object> codes = new ArrayList<>();
+        for (Map<String, Object> product : (List<Map<String, Object>>) call(context, function, request).get("products")) {
+            codes.add(product.get("code"));
+        }
+        return codes;
+    }
+
+    private static Map<String, String> evaluate(ApplicationContext context, List<Case> matrix,
+                                                int parallelism, Map<String, Map<String, Object>> outcomes)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Map<String, Object>> results = pool.submit(() -> matrix.parallelStream()
+                    .map(testCase -> canonical(call(context, testCase.function(), testCase.request())))
+                    .toList()).get();
+            Map<String, String> cases = new TreeMap<>();
+            for (int i = 0; i < matrix.size(); i++) {
+                String id = outcomeId(results.get(i));
+                outcomes.putIfAbsent(id, results.get(i));
+                cases.put(matrix.get(i).key(), id);
+            }
+            return cases;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> call(ApplicationContext context, String function,
+                                            Map<String, Object> request) {
+        Map<String, Object> input = new HashMap<>();
+        // Absent inputs are left out rather than sent as null
+        request.forEach((name, value) -> {
+            if (value != null) {
+                input.put(name, value);
+            }
+        });
+        return (Map<String, Object>) context.getBean(function, Function.class).apply(input);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> canonical(Map<String, Object> response) {
+        Map<String, Object> tree;
+        try {
+            // Category blocks are pre-serialized fragments; parse them like a client would
+            tree = COMPACT.readValue(COMPACT.writeValueAsBytes(response), Map.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize response", e);
+        }
+        Map<String, Object> outcome = new TreeMap<>();
+        tree.forEach((name, value) -> {
+            if (!VOLATILE_FIELDS.contains(name)) {
+                outcome.put(name, canonicalValue(name, value));
+            }
+        });
+        return outcome;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object canonicalValue(String name, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> canonical = new TreeMap<>();
+            ((Map<String, Object>) map).forEach((key, child) -> {
+                // The category order follows the rule firing order, like the lists sorted below
+                if (!VOLATILE_FIELDS.contains(key) && !"x-category-order".equals(key)) {
+                    canonical.put(key, canonicalValue(key, child));
+                }
+            });
+            replaceContestedFields(canonical);
+            return canonical;
+        }
+        if (value instanceof Collection<?> list) {
+            List<Object> canonical = new ArrayList<>();
+            list.forEach(child -> canonical.add(canonicalValue(name, child)));
+            if (FIRING_ORDER_LISTS.contains(name)) {
+                canonical.sort((a, b) -> String.valueOf(a).compareTo(String.valueOf(b)));
+            }
+            return canonical;
+        }
+        return value;
+    }
+
+    /**
+     * A field listed more than once in its block's {@code required} list was written by more
+     * than one rule, and the last one to fire wins. Drools does not fix the firing order of
+     * rules with equal salience, so which definition wins can change between rule base builds.
+     * Such a field is compared by its presence only; the duplicated {@code required} entries
+     * still pin down how many rules wrote it.
+     */
+    @SuppressWarnings("unchecked")
+    private static void replaceContestedFields(Map<String, Object> block) {
+        if (!(block.get("properties") instanceof Map<?, ?> fields) || !(block.get("required") instanceof List<?> required)) {
+            return;
+        }
+        Set<Object> listed = new HashSet<>();
+        for (Object field : required) {
+            if (!listed.add(field) && fields.containsKey(field)) {
+                ((Map<Object, Object>) fields).put(field, CONTESTED);
+            }
+        }
+    }
+
+    private static String outcomeId(Map<String, Object> outcome) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(COMPACT.writeValueAsBytes(outcome));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash outcome", e);
+        }
+    }
+
+    /**
+     * Returns the differences from the golden file, empty when every combination matches.
+     */
+    private static List<String> compare(Golden golden, Map<String, String> cases,
+                                        Map<String, Map<String, Object>> outcomes) {
+        Set<String> keys = new TreeSet<>(golden.cases().keySet());
+        keys.addAll(cases.keySet());
+        List<String> report = new ArrayList<>();
+        int added = 0;
+        int removed = 0;
+        int changed = 0;
+        Map<String, Integer> differencesByPointer = new TreeMap<>();
+        for (String key : keys) {
+            String expected = golden.cases().get(key);
+            String actual = cases.get(key);
+            if (expected == null) {
+                added++;
+                report(report, added + removed + changed, "ADDED   " + key);
+            } else if (actual == null) {
+                removed++;
+                report(report, added + removed + changed, "REMOVED " + key);
+            } else if (!expected.equals(actual)) {
+                changed++;
+                List<String> differences = new ArrayList<>();
+                differences(MAPPER.valueToTree(golden.outcomes().get(expected)),
+                        MAPPER.valueToTree(outcomes.get(actual)), "", differences);
+                differences.forEach(pointer -> differencesByPointer.merge(pointer.split(": ")[0], 1, Integer::sum));
+                report(report, added + removed + changed, "CHANGED " + key
+                        + differences.stream().limit(5).map(d -> "\n        " + d).reduce("", String::concat));
+            }
+        }
+        if (report.isEmpty()) {
+            System.out.printf("All %d combinations match the golden file%n", cases.size());
+            return report;
+        }
+        report.add(String.format("%d changed, %d added, %d removed of %d combinations",
+                changed, added, removed, keys.size()));
+        if (!differencesByPointer.isEmpty()) {
+            report.add("Changed combinations per difference:");
+            differencesByPointer.forEach((pointer, count) -> report.add(String.format("  %6d  %s", count, pointer)));
+        }
+        return report;
+    }
+
+    private static void report(List<String> report, int index, String line) {
+        if (index <= MAX_REPORTED) {
+            report.add(line);
+        }
+    }
+
+    private static void differences(JsonNode expected, JsonNode actual, String pointer, List<String> out) {
+        if (expected.equals(actual)) {
+            return;
+        }
+        if (expected.isObject() && actual.isObject()) {
+            Set<String> names = new TreeSet<>();
+            expected.fieldNames().forEachRemaining(names::add);
+            actual.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                String child = pointer + "/" + name.replace("~", "~0").replace("/", "~1");
+                if (!expected.has(name)) {
+                    out.add(child + ": added");
+                } else if (!actual.has(name)) {
+                    out.add(child + ": removed");
+                } else {
+                    differences(expected.get(name), actual.get(name), child, out);
+                }
+            }
+            return;
+        }
+        out.add(pointer + ": " + abbreviate(expected) + " -> " + abbreviate(actual));
+    }
+
+    private static String abbreviate(JsonNode node) {
+        String text = node.toString();
+        return text.length() <= 120 ? text : text.substring(0, 117) + "...";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void write(Path file, Map<String, String> cases, Map<String, Map<String, Object>> outcomes)
+            throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        // Most outcomes are combinations of a few dozen category blocks, so each block is stored once
+        Map<String, Object> categories = new TreeMap<>();
+        Map<String, Object> stored = new TreeMap<>();
+        outcomes.forEach((id, outcome) -> {
+            Map<String, Object> references = new TreeMap<>(outcome);
+            if (outcome.get("properties") instanceof Map<?, ?> properties) {
+                Map<String, Object> blocks = new TreeMap<>();
+                ((Map<String, Object>) properties).forEach((category, block) -> {
+                    String blockId = outcomeId((Map<String, Object>) block);
+                    categories.putIfAbsent(blockId, block);
+                    blocks.put(category, blockId);
+                });
+                references.put("properties", blocks);
+            }
+            stored.put(id, references);
+        });
+        Map<String, Object> golden = new LinkedHashMap<>();
+        golden.put("format", FORMAT);
+        golden.put("cases", cases);
+        golden.put("outcomes", stored);
+        golden.put("categories", categories);
+        Files.writeString(file, MAPPER.writeValueAsString(golden) + "\n", StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Golden read(Path file) throws IOException {
+        Map<String, Object> golden = MAPPER.readValue(file.toFile(), Map.class);
+        if (!FORMAT.equals(golden.get("format"))) {
+            throw new IOException(file + " is not a " + FORMAT + " golden file");
+        }
+        Map<String, Object> categories = (Map<String, Object>) golden.get("categories");
+        Map<String, Map<String, Object>> outcomes = (Map<String, Map<String, Object>>) golden.get("outcomes");
+        for (Map<String, Object> outcome : outcomes.values()) {
+            if (outcome.get("properties") instanceof Map<?, ?> references) {
+                Map<String, Object> properties = new TreeMap<>();
+                references.forEach((category, blockId) -> properties.put((String) category, categories.get(blockId)));
+                outcome.put("properties", properties);
+            }
+        }
+        return new Golden((Map<String, String>) golden.get("cases"), outcomes);
+    }
+}
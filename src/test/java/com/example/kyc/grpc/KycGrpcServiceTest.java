@@ -0,0 +1,122 @@
+package com.example.kyc.grpc;
+
+import com.example.kyc.grpc.proto.BulkRequest;
+import com.example.kyc.grpc.proto.BulkResponse;
+import com.example.kyc.grpc.proto.CorporateKycRequest;
+import com.example.kyc.grpc.proto.KycServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EvaluateBulk flow control against a service whose evaluations return large error responses:
+ * a client that sends everything but reads nothing stops the server evaluating once the
+ * response stream backs up, and gets every response once it reads.
+ */
+class KycGrpcServiceTest {
+
+    private static final int REQUESTS = 2000;
+    private static final int MAX_IN_FLIGHT = 8;
+    private static final int CLIENT_WINDOW = 1024 * 1024;
+    private static final String LARGE_MESSAGE = "x".repeat(16 * 1024);
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private KycGrpcService service;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void start() throws IOException {
+        Function<Map<String, Object>, Map<String, Object>> evaluate = request -> {
+            evaluations.incrementAndGet();
+            return Map.of("error", true, "message", LARGE_MESSAGE);
+        };
+        Function<Map<String, Object>, Map<String, Object>> unused = request -> {
+            throw new UnsupportedOperationException();
+        };
+        service = new KycGrpcService(unused, unused, evaluate, unused, unused, unused, unused, unused, MAX_IN_FLIGHT);
+        server = NettyServerBuilder.forPort(0).addService(service).build().start();
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext()
+                .flowControlWindow(CLIENT_WINDOW).build();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        service.close();
+    }
+
+    @Test
+    void stopsEvaluatingWhileTheClientDoesNotRead() throws InterruptedException {
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(1);
+        ClientCallStreamObserver<BulkRequest>[] call = new ClientCallStreamObserver[1];
+        KycServiceGrpc.newStub(channel).evaluateBulk(new ClientResponseObserver<BulkRequest, BulkResponse>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<BulkRequest> requestStream) {
+                call[0] = requestStream;
+                requestStream.disableAutoRequestWithInitial(0);
+            }
+
+            @Override
+            public void onNext(BulkResponse response) {
+                assertThat(response.getError().getMessage()).isEqualTo(LARGE_MESSAGE);
+                received.add(response.getCorrelationId());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                done.countDown();
+            }
+        });
+        for (int i = 0; i < REQUESTS; i++) {
+            call[0].onNext(BulkRequest.newBuilder().setCorrelationId("r" + i)
+                    .setCorporate(CorporateKycRequest.newBuilder().setProduct("CASA")).build());
+        }
+        call[0].onCompleted();
+
+        // Unread responses fill the client's window and then the server's send buffer
+        awaitStable(evaluations);
+        int bufferedResponses = 2 * CLIENT_WINDOW / LARGE_MESSAGE.length();
+        assertThat(evaluations.get()).isLessThan(bufferedResponses + MAX_IN_FLIGHT).isLessThan(REQUESTS / 4);
+
+        call[0].request(Integer.MAX_VALUE);
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).hasSize(REQUESTS);
+        assertThat(evaluations.get()).isEqualTo(REQUESTS);
+    }
+
+    private static void awaitStable(AtomicInteger counter) throws InterruptedException {
+        while (counter.get() == 0) {
+            Thread.sleep(10);
+        }
+        int last = -1;
+        while (counter.get() != last) {
+            last = counter.get();
+            Thread.sleep(500);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.kyc.http;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Revalidation of KycController responses: 304 for GET, 412 for POST, and never for
+ * {@code If-None-Match: *}.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false"
+})
+class RuleSetETagFilterTest {
+
+    private static final String REQUIREMENTS = "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private RuleSetETag etag;
+
+    @Autowired
+    private RuleSetFingerprint fingerprint;
+
+    @Test
+    void etagNamesTheRuleSetAndTheBuild() throws IOException {
+        Properties buildInfo = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("META-INF/build-info.properties")) {
+            assertThat(in).as("build-info.properties from the build-info goal").isNotNull();
+            buildInfo.load(in);
+        }
+        long buildMillis = Instant.parse(buildInfo.getProperty("build.time")).toEpochMilli();
+
+        assertThat(etag.getValue())
+                .isEqualTo("W/\"" + fingerprint.getShortHash() + "-" + Long.toString(buildMillis, 36) + "\"");
+    }
+
+    @Test
+    void fullResponsesCarryTheValidators() throws Exception {
+        mvc.perform(post("/api/v1/kyc/requirements").contentType(MediaType.APPLICATION_JSON).content(REQUIREMENTS))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag.getValue()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, etag.getCacheControl()));
+        mvc.perform(get("/api/v1/kyc/health"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void matchingGetIsNotModified() throws Exception {
+        mvc.perform(get("/api/v1/kyc/supported-countries").header(HttpHeaders.IF_NONE_MATCH, etag.getValue()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag.getValue()));
+        // Weak comparison: the opaque tag without W/ matches too
+        mvc.perform(get("/api/v1/kyc/customer-types")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag.getValue().substring(2)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void matchingPostFailsThePrecondition() throws Exception {
+        mvc.perform(post("/api/v1/kyc/requirements").contentType(MediaType.APPLICATION_JSON).content(REQUIREMENTS)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag.getValue()))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, etag.getValue()));
+    }
+
+    @Test
+    void wildcardAndOtherTagsAreAnsweredInFull() throws Exception {
+        for (String ifNoneMatch : new String[]{"*", "W/\"other\""}) {
+            MvcResult result = mvc.perform(post("/api/v1/kyc/requirements").contentType(MediaType.APPLICATION_JSON)
+                            .content(REQUIREMENTS).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertThat(result.getResponse().getContentAsString()).contains("\"properties\"");
+            mvc.perform(get("/api/v1/kyc/supported-countries").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andExpect(status().isOk());
+        }
+    }
+}
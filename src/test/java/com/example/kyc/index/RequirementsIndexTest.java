@@ -0,0 +1,190 @@
+package com.example.kyc.index;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups and the summary answer from what the profiles' requirements contain, lookups say
+ * why while the index is not ready, and a failing profile is retried rather than left out.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=true",
+        "kyc.evaluation.deadline-ms=0",
+        "logging.level.root=WARN",
+        "logging.level.com.example.kyc=WARN"
+})
+class RequirementsIndexTest {
+
+    private static final Duration RETRY_DELAY = Duration.ofMillis(10);
+
+    @Autowired
+    private RuleSetFingerprint fingerprint;
+
+    @Autowired
+    private RequirementsIndex requirementsIndex;
+
+    @Autowired
+    @Qualifier("findKycProfiles")
+    private Function<Map<String, Object>, Map<String, Object>> findKycProfiles;
+
+    @Autowired
+    @Qualifier("getKycRequirements")
+    private Function<Map<String, Object>, Map<String, Object>> getKycRequirements;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findsTheProfilesOfADocumentFieldAndRule() throws InterruptedException {
+        RequirementsIndex index = started(List.of(
+                profile("INDIVIDUAL", "SAVINGS", request -> response(List.of("NRIC Front"), List.of("Base"), "full_name")),
+                profile("INDIVIDUAL", "LOAN", request -> response(List.of("NRIC Front", "Payslip"), List.of("Base", "Loan"),
+                        "full_name", "employer")),
+                profile("FOREIGNER", "LOAN", request -> response(List.of("Passport", "Payslip"), List.of("Base", "Loan"),
+                        "employer"))));
+        awaitReady(index);
+
+        Map<String, Object> payslip = index.find(RequirementsIndex.Kind.DOCUMENT, "payslip", 1);
+        assertThat(payslip).containsEntry("document", "Payslip")
+                .containsEntry("matchingProfiles", 2)
+                .containsEntry("totalProfiles", 3)
+                .containsEntry("truncated", true)
+                .containsEntry("ruleSet", fingerprint.getShortHash());
+        assertThat((Iterable<Object>) payslip.get("customerTypes")).containsExactly("FOREIGNER", "INDIVIDUAL");
+        assertThat((Iterable<Object>) payslip.get("accountTypes")).containsExactly("LOAN");
+        assertThat((List<Object>) payslip.get("profiles")).hasSize(1);
+
+        assertThat(index.find(RequirementsIndex.Kind.FIELD, "full_name", 10)).containsEntry("matchingProfiles", 2);
+        assertThat(index.find(RequirementsIndex.Kind.RULE, "Base", 10)).containsEntry("matchingProfiles", 3)
+                .containsEntry("truncated", false);
+        assertThat(index.find(RequirementsIndex.Kind.DOCUMENT, "Utility Bill", 10))
+                .containsEntry("document", "Utility Bill")
+                .containsEntry("matchingProfiles", 0);
+
+        Map<String, Object> summary = index.summary();
+        assertThat(summary).containsEntry("totalProfiles", 3);
+        assertThat((Iterable<Object>) summary.get("documents")).containsExactly("NRIC Front", "Passport", "Payslip");
+        assertThat((Iterable<Object>) summary.get("fields")).containsExactly("employer", "full_name");
+        assertThat((Iterable<Object>) summary.get("rules")).containsExactly("Base", "Loan");
+    }
+
+    @Test
+    void explainsWhyItIsNotReady() throws InterruptedException {
+        assertThat(new RequirementsIndex(fingerprint, false, RETRY_DELAY).unavailableReason())
+                .contains("disabled");
+
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RequirementsIndex index = new RequirementsIndex(fingerprint, true, RETRY_DELAY);
+        index.setProfiles(() -> List.of(profile("INDIVIDUAL", "SAVINGS", request -> {
+            evaluating.countDown();
+            awaitQuietly(release);
+            return response(List.of("NRIC Front"), List.of("Base"), "full_name");
+        })));
+        assertThat(index.unavailableReason()).contains("still being built");
+        index.start();
+        assertThat(evaluating.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(index.unavailableReason()).contains("still being built");
+
+        release.countDown();
+        awaitReady(index);
+        index.stop();
+    }
+
+    @Test
+    void retriesFailingProfilesAndFailsTheBuildIfTheyKeepFailing() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(2);
+        RequirementsIndex recovering = started(List.of(profile("INDIVIDUAL", "SAVINGS", request ->
+                failures.getAndDecrement() > 0 ? Map.of("error", true, "message", "Evaluation stopped")
+                        : response(List.of("NRIC Front"), List.of("Base"), "full_name"))));
+        awaitReady(recovering);
+        assertThat(recovering.summary()).containsEntry("totalProfiles", 1);
+
+        RequirementsIndex failing = started(List.of(
+                profile("INDIVIDUAL", "SAVINGS", request -> response(List.of("NRIC Front"), List.of("Base"), "full_name")),
+                profile("TRUST", "SAVINGS", request -> Map.of("error", true, "message", "Evaluation stopped"))));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (failing.unavailableReason().contains("still being built") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(failing.unavailableReason())
+                .startsWith("Building the requirements index failed")
+                .contains("TRUST", "3 times", "Evaluation stopped");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void applicationIndexMatchesTheRules() throws InterruptedException {
+        awaitReady(requirementsIndex);
+
+        Map<String, Object> summary = findKycProfiles.apply(Map.of());
+        assertThat((Integer) summary.get("totalProfiles")).isPositive();
+        String document = ((Iterable<String>) summary.get("documents")).iterator().next();
+
+        Map<String, Object> found = findKycProfiles.apply(Map.of("document", document, "limit", 1000));
+        assertThat(found).containsEntry("truncated", false);
+        List<Map<String, Object>> profiles = (List<Map<String, Object>>) found.get("profiles");
+        assertThat(profiles).hasSize((Integer) found.get("matchingProfiles")).isNotEmpty();
+        for (Map<String, Object> profile : profiles) {
+            if (profile.containsKey("accountType")) {
+                Map<String, Object> metadata = (Map<String, Object>) getKycRequirements.apply(new HashMap<>(profile))
+                        .get("x-metadata");
+                assertThat((List<Object>) metadata.get("requiredDocuments")).as("%s", profile).contains(document);
+            }
+        }
+        assertThat(findKycProfiles.apply(Map.of("document", document, "rule", "Base")))
+                .containsEntry("error", true);
+    }
+
+    private RequirementsIndex started(List<RequirementsIndex.IndexedProfile> profiles) {
+        RequirementsIndex index = new RequirementsIndex(fingerprint, true, RETRY_DELAY);
+        index.setProfiles(() -> profiles);
+        index.start();
+        return index;
+    }
+
+    private static void awaitReady(RequirementsIndex index) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (index.unavailableReason() != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(index.unavailableReason()).isNull();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RequirementsIndex.IndexedProfile profile(String customerType, String accountType,
+                                                            Function<Map<String, Object>, Map<String, Object>> rules) {
+        return new RequirementsIndex.IndexedProfile(Map.of("customerType", customerType, "accountType", accountType),
+                rules);
+    }
+
+    private static Map<String, Object> response(List<String> documents, List<String> rules, String... fields) {
+        Map<String, Object> properties = new HashMap<>();
+        for (String field : fields) {
+            properties.put(field, Map.of("type", "string"));
+        }
+        return Map.of(
+                "x-metadata", Map.of("requiredDocuments", documents, "appliedRules", rules),
+                "properties", Map.of("PERSONAL_DETAILS", Map.of("properties", properties)));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.kyc.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One evaluation emits one session, one fireAllRules and one rendered schema event, plus a
+ * rule fired event per firing only while a recording enables them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "kyc.evaluation.deadline-ms=0"
+})
+class JfrEventsTest {
+
+    private static final String SESSION_CREATED = "com.example.kyc.SessionCreated";
+    private static final String FIRE_ALL_RULES = "com.example.kyc.FireAllRules";
+    private static final String RULE_FIRED = "com.example.kyc.RuleFired";
+    private static final String SCHEMA_RENDERED = "com.example.kyc.SchemaRendered";
+
+    @Autowired
+    @Qualifier("getKycRequirements")
+    private Function<Map<String, Object>, Map<String, Object>> getKycRequirements;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evaluationEmitsItsEvents() throws IOException {
+        Map<String, Object> response;
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String name : List.of(SESSION_CREATED, FIRE_ALL_RULES, RULE_FIRED, SCHEMA_RENDERED)) {
+                recording.enable(name).withoutThreshold();
+            }
+            recording.start();
+            response = getKycRequirements.apply(request());
+            recording.stop();
+            events = recorded(recording);
+        }
+
+        Map<String, Object> metadata = (Map<String, Object>) response.get("x-metadata");
+        Map<String, Object> properties = (Map<String, Object>) response.get("properties");
+
+        assertThat(named(events, SESSION_CREATED)).singleElement()
+                .satisfies(event -> assertThat(event.getInt("facts")).isEqualTo(1));
+        RecordedEvent fireAllRules = named(events, FIRE_ALL_RULES).get(0);
+        assertThat(named(events, FIRE_ALL_RULES)).hasSize(1);
+        assertThat(fireAllRules.getString("outcome")).isEqualTo("COMPLETED");
+        assertThat(fireAllRules.getString("projection")).isEqualTo("full");
+
+        List<RecordedEvent> firings = named(events, RULE_FIRED);
+        assertThat(firings).hasSize(fireAllRules.getInt("rulesFired"));
+        assertThat(firings).allSatisfy(event -> {
+            assertThat(event.getString("rulePackage")).isEqualTo("com.example.kyc.rules");
+            assertThat(event.getString("rule")).startsWith(event.getString("ruleGroup"));
+        });
+
+        assertThat(named(events, SCHEMA_RENDERED)).singleElement().satisfies(event -> {
+            assertThat(event.getInt("categoryCount")).isEqualTo(properties.size());
+            assertThat(event.getInt("fieldCount")).isEqualTo(((Number) metadata.get("totalRequiredFields")).intValue()
+                    + ((Number) metadata.get("totalOptionalFields")).intValue());
+            assertThat(event.getLong("bytes")).isPositive();
+            assertThat(event.getBoolean("fromStore")).isFalse();
+        });
+    }
+
+    @Test
+    void ruleFiredEventsOnlyWhileEnabled() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(FIRE_ALL_RULES).withoutThreshold();
+            recording.disable(RULE_FIRED);
+            recording.start();
+            getKycRequirements.apply(request());
+            recording.stop();
+            events = recorded(recording);
+        }
+
+        assertThat(named(events, FIRE_ALL_RULES)).hasSize(1);
+        assertThat(named(events, RULE_FIRED)).isEmpty();
+    }
+
+    private List<RecordedEvent> recorded(Recording recording) throws IOException {
+        Path file = dir.resolve("recording.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    // Only this thread's events: other tests' contexts may evaluate in the background
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        long thread = Thread.currentThread().threadId();
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .filter(event -> event.getThread() != null && event.getThread().getJavaThreadId() == thread)
+                .toList();
+    }
+
+    private static Map<String, Object> request() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("customerType", "INDIVIDUAL");
+        request.put("accountType", "INVESTMENT");
+        request.put("country", "SINGAPORE");
+        request.put("pep", true);
+        return request;
+    }
+}
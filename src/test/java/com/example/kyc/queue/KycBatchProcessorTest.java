@@ -0,0 +1,182 @@
+package com.example.kyc.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Synthetic SQS batches through KycBatchProcessor, with stand-ins for the requirements
+ * functions that behave like KycFunctions: an error without a reason for invalid requests,
+ * an error with a reason for stopped evaluations.
+ */
+class KycBatchProcessorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final AtomicInteger individualCalls = new AtomicInteger();
+    private final Map<String, KycQueueResult> written = new LinkedHashMap<>();
+    private final KycResultSink recording = sinkFailingFor(Set.of());
+
+    private final Function<Map<String, Object>, Map<String, Object>> individual = request -> {
+        individualCalls.incrementAndGet();
+        if (request.get("customerType") == null || request.get("accountType") == null) {
+            return Map.of("error", true, "message", "customerType and accountType are required");
+        }
+        if ("DRILL".equals(request.get("accountType"))) {
+            return Map.of("error", true, "reason", "DEADLINE_EXCEEDED", "message", "Rule evaluation exceeded the deadline");
+        }
+        if ("THROW".equals(request.get("accountType"))) {
+            throw new IllegalStateException("rule base unavailable");
+        }
+        return schema("individual", request);
+    };
+    private final Function<Map<String, Object>, Map<String, Object>> individualProduct =
+            request -> schema("individualProduct", request);
+    private final Function<Map<String, Object>, Map<String, Object>> corporate =
+            request -> schema("corporate", request);
+
+    @Test
+    void reportsOnlyStoppedThrownAndUnwrittenRecordsAsFailures() {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m2", "{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}");
+        bodies.put("m3", "{\"customerType\":\"CORPORATE\",\"product\":\"CASA\"}");
+        bodies.put("m4", "not json");
+        bodies.put("m5", "{\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m6", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}");
+        bodies.put("m7", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"THROW\"}");
+
+        Map<String, Object> response = processor(true).handle(event(bodies), sinkFailingFor(Set.of("m3")));
+
+        assertThat(failures(response)).containsExactly("m6", "m7", "m3");
+        assertThat(written).containsOnlyKeys("m1", "m2", "m4", "m5");
+        assertThat(written.get("m1").status()).isEqualTo(KycQueueResult.Status.EVALUATED);
+        assertThat(written.get("m2").status()).isEqualTo(KycQueueResult.Status.EVALUATED);
+        // Malformed and invalid bodies are written, not retried
+        assertThat(written.get("m4").status()).isEqualTo(KycQueueResult.Status.REJECTED);
+        assertThat(written.get("m5").status()).isEqualTo(KycQueueResult.Status.REJECTED);
+        assertThat(written.get("m5").response()).containsEntry("message", "customerType and accountType are required");
+    }
+
+    @Test
+    void routesEachRecordToItsFunction() {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("a", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("b", "{\"product\":\"CREDIT_CARD\",\"pep\":true}");
+        bodies.put("c", "{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}");
+
+        KycBatchProcessor.BatchReport report = processor(true).process(messages(bodies), recording);
+
+        assertThat(report).isEqualTo(new KycBatchProcessor.BatchReport(3, 3, 0, List.of()));
+        assertThat(written.get("a").response()).containsEntry("segment", "individual");
+        assertThat(written.get("b").response()).containsEntry("segment", "individualProduct");
+        assertThat(written.get("c").response()).containsEntry("segment", "corporate");
+    }
+
+    @Test
+    void evaluatesDuplicatesOnceWithTheirOwnReference() {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m2", "{\"accountType\":\"SAVINGS\",\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m3", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m4", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"CURRENT\"}");
+
+        KycBatchProcessor.BatchReport report = processor(true).process(messages(bodies), recording);
+
+        assertThat(report).isEqualTo(new KycBatchProcessor.BatchReport(4, 2, 0, List.of()));
+        assertThat(individualCalls).hasValue(2);
+        assertThat(written).containsOnlyKeys("m1", "m2", "m3", "m4");
+        assertThat(List.of("m1", "m2", "m3").stream().map(id -> written.get(id).response().get("properties")))
+                .containsOnly(written.get("m1").response().get("properties"));
+        assertThat(List.of("m1", "m2", "m3", "m4").stream().map(this::referenceId)).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void failsEveryDuplicateOfAStoppedEvaluation() {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}");
+        bodies.put("m2", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}");
+
+        KycBatchProcessor.BatchReport report = processor(true).process(messages(bodies), recording);
+
+        assertThat(report.failedMessageIds()).containsExactly("m1", "m2");
+        assertThat(report.evaluations()).isEqualTo(1);
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void evaluatesEveryRecordWithoutDeduplication() {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m2", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+
+        KycBatchProcessor.BatchReport report = processor(false).process(messages(bodies), recording);
+
+        assertThat(report.evaluations()).isEqualTo(2);
+        assertThat(individualCalls).hasValue(2);
+        assertThat(referenceId("m1")).isNotEqualTo(referenceId("m2"));
+    }
+
+    @Test
+    void emptyOrMissingRecordsReportNoFailures() {
+        assertThat(failures(processor(true).handle(Map.of("Records", List.of()), recording))).isEmpty();
+        assertThat(failures(processor(true).handle(Map.of(), recording))).isEmpty();
+        assertThat(KycBatchProcessor.messages(null)).isEmpty();
+    }
+
+    private KycBatchProcessor processor(boolean deduplicate) {
+        return new KycBatchProcessor(individual, individualProduct, corporate, MAPPER, deduplicate);
+    }
+
+    private KycResultSink sinkFailingFor(Set<String> unwritable) {
+        return result -> {
+            if (unwritable.contains(result.messageId())) {
+                throw new IOException("sink unavailable");
+            }
+            written.put(result.messageId(), result);
+        };
+    }
+
+    private Object referenceId(String messageId) {
+        return ((Map<?, ?>) written.get(messageId).response().get("x-metadata")).get("referenceId");
+    }
+
+    private static Map<String, Object> schema(String segment, Map<String, Object> request) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("referenceId", UUID.randomUUID().toString());
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("segment", segment);
+        response.put("properties", Map.of("request", Map.copyOf(request)));
+        response.put("x-metadata", metadata);
+        return response;
+    }
+
+    // The fields of an SQS event that the handler reads
+    private static Map<String, Object> event(Map<String, String> bodies) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        bodies.forEach((messageId, body) -> records.add(Map.of("messageId", messageId, "body", body,
+                "eventSource", "aws:sqs")));
+        return Map.of("Records", records);
+    }
+
+    private static List<KycQueueMessage> messages(Map<String, String> bodies) {
+        return KycBatchProcessor.messages(event(bodies));
+    }
+
+    private static List<String> failures(Map<String, Object> response) {
+        return ((List<?>) response.get("batchItemFailures")).stream()
+                .map(failure -> (String) ((Map<?, ?>) failure).get("itemIdentifier"))
+                .toList();
+    }
+}
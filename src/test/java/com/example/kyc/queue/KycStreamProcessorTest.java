@@ -0,0 +1,150 @@
+package com.example.kyc.queue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * processKycStream on Spring Cloud Stream's in-memory test binder: records sent to the input
+ * destination come out on the output destination in micro-batches of up to three, one batch at
+ * a time, with one result per record.
+ */
+@ActiveProfiles("stream")
+@Import(TestChannelBinderConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "kyc.stream.max-batch-size=3",
+        "kyc.stream.linger=2s",
+        "kyc.stream.concurrency=1"
+})
+class KycStreamProcessorTest {
+
+    private static final String INPUT = "kyc-profiles";
+    private static final String OUTPUT = "kyc-requirements";
+    private static final Duration LINGER = Duration.ofSeconds(2);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private InputDestination input;
+
+    @Autowired
+    private OutputDestination output;
+
+    @AfterEach
+    void drain() {
+        output.clear();
+    }
+
+    @Test
+    void publishesNothingUntilABatchFills() {
+        send("a1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        send("a2", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"CURRENT\"}");
+        assertThat(output.receive(300, OUTPUT)).isNull();
+
+        send("a3", "{\"customerType\":\"FOREIGNER\",\"accountType\":\"SAVINGS\"}");
+        assertThat(receive(3)).extracting(Message::getHeaders)
+                .extracting(headers -> headers.get(KycStreamProcessor.MESSAGE_ID_HEADER))
+                .containsExactlyInAnyOrder("a1", "a2", "a3");
+    }
+
+    @Test
+    void closesAPartialBatchAfterTheLingerWhenIdle() {
+        long start = System.nanoTime();
+        send("b1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"LOAN\"}");
+
+        assertThat(receive(1).get(0).getHeaders().get(KycStreamProcessor.MESSAGE_ID_HEADER)).isEqualTo("b1");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(LINGER.minusMillis(100));
+    }
+
+    @Test
+    void publishesOneResultPerRecordBatchByBatch() throws IOException {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m2", "{\"accountType\":\"SAVINGS\",\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m3", "not json");
+        bodies.put("m4", "{\"product\":\"CREDIT_CARD\",\"pep\":true}");
+        bodies.put("m5", "{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}");
+        bodies.put("m6", "{\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m7", "{\"customerType\":\"FOREIGNER\",\"accountType\":\"INVESTMENT\"}");
+        bodies.forEach(this::send);
+
+        List<String> order = new ArrayList<>();
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (Message<byte[]> message : receive(bodies.size())) {
+            Map<String, Object> result = MAPPER.readValue(message.getPayload(), new TypeReference<>() {
+            });
+            String messageId = (String) message.getHeaders().get(KycStreamProcessor.MESSAGE_ID_HEADER);
+            assertThat(result).containsEntry("messageId", messageId)
+                    .containsEntry("status", message.getHeaders().get(KycStreamProcessor.STATUS_HEADER));
+            order.add(messageId);
+            results.put(messageId, result);
+        }
+
+        // One batch at a time: every result of a batch before any of the next
+        assertThat(order.subList(0, 3)).containsExactlyInAnyOrder("m1", "m2", "m3");
+        assertThat(order.subList(3, 6)).containsExactlyInAnyOrder("m4", "m5", "m6");
+        // m7 is alone in the third batch, closed once the second batch's evaluation is done
+        assertThat(order.get(6)).isEqualTo("m7");
+        assertThat(order.indexOf("m1")).isLessThan(order.indexOf("m2"));
+
+        assertThat(status(results, "m1", "m2", "m4", "m5", "m7")).containsOnly("EVALUATED");
+        assertThat(status(results, "m3", "m6")).containsOnly("REJECTED");
+        // The duplicate m2 is answered from m1's evaluation under its own referenceId
+        assertThat(properties(results.get("m2"))).isEqualTo(properties(results.get("m1")));
+        assertThat(referenceId(results.get("m2"))).isNotEqualTo(referenceId(results.get("m1")));
+        assertThat(output.receive(200, OUTPUT)).isNull();
+    }
+
+    private void send(String messageId, String body) {
+        input.send(MessageBuilder.withPayload(body.getBytes(StandardCharsets.UTF_8))
+                .setHeader(KycStreamProcessor.MESSAGE_ID_HEADER, messageId)
+                .build(), INPUT);
+    }
+
+    private List<Message<byte[]>> receive(int count) {
+        List<Message<byte[]>> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Message<byte[]> message = output.receive(LINGER.multipliedBy(5).toMillis(), OUTPUT);
+            assertThat(message).as("result %d of %d", i + 1, count).isNotNull();
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static List<Object> status(Map<String, Map<String, Object>> results, String... messageIds) {
+        List<Object> statuses = new ArrayList<>();
+        for (String messageId : messageIds) {
+            statuses.add(results.get(messageId).get("status"));
+        }
+        return statuses;
+    }
+
+    private static Object properties(Map<String, Object> result) {
+        return ((Map<?, ?>) result.get("response")).get("properties");
+    }
+
+    private static Object referenceId(Map<String, Object> result) {
+        return ((Map<?, ?>) ((Map<?, ?>) result.get("response")).get("x-metadata")).get("referenceId");
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.kyc.rulebase;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.runtime.KieContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The network description of a small rule base whose sharing, hashing and indexing are known:
+ * three rules in two files with one Map condition, three String literals that Drools hashes,
+ * and a join on a Map entry it cannot index.
+ */
+class RuleNetworkTest {
+
+    private static final String PROFILES = "com/example/test/profiles/Profiles.drl";
+    private static final String PRODUCTS = "com/example/test/products/Products.drl";
+
+    private static KieContainer container;
+    private static RuleNetwork network;
+
+    @BeforeAll
+    static void buildRules() {
+        KieServices kieServices = KieServices.Factory.get();
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        kieFileSystem.generateAndWritePomXML(kieServices.newReleaseId("com.example.kyc", "rule-network-test", "1.0"));
+        kieFileSystem.write("src/main/resources/" + PROFILES, """
+                package com.example.test.profiles;
+
+                import java.util.Map;
+
+                rule "Corporate - Details" when Map(this["customerType"] == "CORPORATE") then end
+                rule "Corporate - Directors" when Map(this["customerType"] == "CORPORATE") then end
+                rule "Code A" when String(this == "A") then end
+                rule "Code B" when String(this == "B") then end
+                rule "Code C" when String(this == "C") then end
+                """);
+        kieFileSystem.write("src/main/resources/" + PRODUCTS, """
+                package com.example.test.products;
+
+                import java.util.Map;
+
+                rule "Product - Corporate" when Map(this["customerType"] == "CORPORATE") then end
+                rule "Product - Code Join" when $code : String(this == "A") Map(this["code"] == $code) then end
+                """);
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem).buildAll();
+        assertThat(kieBuilder.getResults().getMessages(Message.Level.ERROR)).isEmpty();
+        container = kieServices.newKieContainer(kieBuilder.getKieModule().getReleaseId());
+        network = RuleNetwork.of(container.getKieBase());
+    }
+
+    @AfterAll
+    static void disposeRules() {
+        container.dispose();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsRulesAndNodesPerPackageAndFile() {
+        Map<String, Object> description = network.describe();
+
+        assertThat((List<Map<String, Object>>) description.get("packages"))
+                .extracting(p -> p.get("name"), p -> p.get("rules"), p -> p.get("nodes"))
+                .containsExactly(
+                        tuple("com.example.test.products", 2, 9),
+                        tuple("com.example.test.profiles", 5, 15));
+        assertThat((List<Map<String, Object>>) description.get("files"))
+                .extracting(f -> f.get("file"), f -> f.get("rules"), f -> f.get("nodes"), f -> f.get("sharedWithOtherFiles"))
+                .containsExactly(
+                        tuple(PRODUCTS, 2, 9, 5),
+                        tuple(PROFILES, 5, 15, 5));
+
+        Map<String, Object> nodes = (Map<String, Object>) description.get("nodes");
+        assertThat(nodes).containsEntry("total", 21)
+                .containsEntry("alpha", 4)
+                .containsEntry("beta", 1)
+                .containsEntry("terminal", 7)
+                // The Map alpha node, its terminal node and the "A" alpha node
+                .containsEntry("shared", 3)
+                .containsEntry("sharedAcrossFiles", 3);
+        Map<String, Integer> byType = (Map<String, Integer>) nodes.get("byType");
+        assertThat(byType.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(21);
+        assertThat(byType).containsEntry("AlphaNode", 4).containsEntry("JoinNode", 1).containsEntry("RuleTerminalNode", 7);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mapConstraintsAreNeitherHashedNorIndexed() {
+        Map<String, Object> description = network.describe();
+
+        assertThat((List<Map<String, Object>>) description.get("objectTypes"))
+                .filteredOn(type -> !type.get("type").toString().startsWith("org.drools"))
+                .extracting(t -> t.get("type"), t -> t.get("alphaNodes"), t -> t.get("hashedAlphaNodes"))
+                .containsExactly(
+                        tuple("java.util.Map", 1, 0),
+                        tuple("java.lang.String", 3, 3));
+
+        List<Map<String, Object>> unindexed = (List<Map<String, Object>>) description.get("unindexedConstraints");
+        assertThat(unindexed).extracting(c -> c.get("node"), c -> c.get("expression"), c -> c.get("rules"))
+                .containsExactly(
+                        tuple("alpha", "this[\"customerType\"] == \"CORPORATE\"", 3),
+                        tuple("beta", "[this[\"code\"] == $code]", 1));
+        assertThat(unindexed.get(0).get("files")).isEqualTo(Set.of(PRODUCTS, PROFILES));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findsRulesWithIdenticalConditionsAcrossFiles() {
+        assertThat((List<Map<String, Object>>) network.describe().get("duplicateConditions")).singleElement()
+                .satisfies(group -> {
+                    assertThat(group.get("rules"))
+                            .isEqualTo(List.of("Corporate - Details", "Corporate - Directors", "Product - Corporate"));
+                    assertThat(group.get("files")).isEqualTo(Set.of(PRODUCTS, PROFILES));
+                });
+
+        assertThat(network.warnings()).containsExactly(
+                "1 of 4 alpha constraints cannot be hashed or indexed, so every inserted fact is tested against each of them",
+                "1 join has no indexable constraint and compares every pair of facts",
+                "1 group of rules in different files have identical conditions");
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A delta applied to its base gives back the full schema, for every profile the rules
+ * distinguish in both segments, including when the block operations come from the memo.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "kyc.evaluation.deadline-ms=0",
+        "logging.level.root=WARN",
+        "logging.level.com.example.kyc=WARN"
+})
+class BaseSchemaRegistryTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private BaseSchemaRegistry registry;
+
+    @Autowired
+    @Qualifier("getBaseSchema")
+    private Function<Map<String, Object>, Map<String, Object>> getBaseSchema;
+
+    @Autowired
+    @Qualifier("getKycRequirements")
+    private Function<Map<String, Object>, Map<String, Object>> getKycRequirements;
+
+    @Autowired
+    @Qualifier("getCorporateKycRequirements")
+    private Function<Map<String, Object>, Map<String, Object>> getCorporateKycRequirements;
+
+    @Autowired
+    @Qualifier("getKycRequirementsDelta")
+    private Function<Map<String, Object>, Map<String, Object>> getKycRequirementsDelta;
+
+    @Autowired
+    @Qualifier("getCustomerTypes")
+    private Function<Map<String, Object>, Map<String, Object>> getCustomerTypes;
+
+    @Autowired
+    @Qualifier("getAccountTypes")
+    private Function<Map<String, Object>, Map<String, Object>> getAccountTypes;
+
+    @Autowired
+    @Qualifier("getCorporateProducts")
+    private Function<Map<String, Object>, Map<String, Object>> getCorporateProducts;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void individualDeltasRoundTrip() {
+        BaseSchemaRegistry.BaseSchema base = base("individual");
+        List<Map<String, Object>> answers = answerCombinations();
+        int profiles = 0;
+        for (Object customerType : (List<Object>) getCustomerTypes.apply(null).get("customerTypes")) {
+            for (Object accountType : (List<Object>) getAccountTypes.apply(null).get("accountTypes")) {
+                for (Map<String, Object> answer : answers) {
+                    Map<String, Object> request = new HashMap<>(answer);
+                    request.put("customerType", customerType);
+                    request.put("accountType", accountType);
+                    assertRoundTrip(base, getKycRequirements.apply(request), request);
+                    profiles++;
+                }
+            }
+        }
+        assertThat(profiles).isGreaterThan(answers.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void corporateDeltasRoundTrip() {
+        BaseSchemaRegistry.BaseSchema base = base("corporate");
+        Map<String, Object> catalog = getCorporateProducts.apply(new HashMap<>());
+        List<Map<String, Object>> products = (List<Map<String, Object>>) catalog.get("products");
+        assertThat(products).isNotEmpty();
+        for (Map<String, Object> product : products) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("product", product.get("code"));
+            assertRoundTrip(base, getCorporateKycRequirements.apply(request), request);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void staleBaseGetsTheFullSchemaAndTheCurrentBaseId() {
+        BaseSchemaRegistry.BaseSchema base = base("individual");
+        Map<String, Object> request = new HashMap<>();
+        request.put("customerType", "INDIVIDUAL");
+        request.put("accountType", "SAVINGS");
+        request.put("baseId", "individual-000000000000");
+
+        Map<String, Object> response = getKycRequirementsDelta.apply(request);
+
+        assertThat(response).doesNotContainKey("patch").containsKey("properties");
+        assertThat((Map<String, Object>) response.get("x-metadata")).containsEntry("baseId", base.getId());
+        JsonNode otherBase = toTree(Map.of("x-base-id", "individual-000000000000"));
+        JsonNode delta = toTree(registry.delta(base, getKycRequirements.apply(new HashMap<>(Map.of(
+                "customerType", "INDIVIDUAL", "accountType", "SAVINGS")))));
+        assertThatThrownBy(() -> SchemaPatch.apply(otherBase, delta)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BaseSchemaRegistry.BaseSchema base(String segment) {
+        getBaseSchema.apply(Map.of("segment", segment));
+        return registry.get(segment, () -> {
+            throw new AssertionError("base should have been built");
+        });
+    }
+
+    private void assertRoundTrip(BaseSchemaRegistry.BaseSchema base, Map<String, Object> full, Map<String, Object> request) {
+        JsonNode baseTree = toTree(base.getSchema());
+        JsonNode expected = normalize(toTree(full));
+        // The second delta reuses the memoized block operations
+        for (int attempt = 0; attempt < 2; attempt++) {
+            ObjectNode applied = SchemaPatch.apply(baseTree, toTree(registry.delta(base, full)));
+            applied.remove("x-base-id");
+            assertThat(normalize(applied)).as("%s, attempt %d", request, attempt).isEqualTo(expected);
+        }
+    }
+
+    private static List<Map<String, Object>> answerCombinations() {
+        List<Map<String, Object>> answers = new ArrayList<>();
+        answers.add(new LinkedHashMap<>());
+        for (InputDimension dimension : InputDimension.individualDimensions()) {
+            List<Map<String, Object>> extended = new ArrayList<>();
+            for (Map<String, Object> answer : answers) {
+                for (int range = 0; range < dimension.size(); range++) {
+                    Map<String, Object> combination = new LinkedHashMap<>(answer);
+                    combination.put(dimension.getName(), dimension.representative(range));
+                    extended.add(combination);
+                }
+            }
+            answers = extended;
+        }
+        return answers;
+    }
+
+    // "required" lists are sets: deltas keep the base's order and do not carry repeated names
+    private static JsonNode normalize(JsonNode schema) {
+        ObjectNode copy = schema.deepCopy();
+        sortRequired(copy);
+        copy.path("properties").forEach(block -> {
+            if (block instanceof ObjectNode object) {
+                sortRequired(object);
+            }
+        });
+        return copy;
+    }
+
+    private static void sortRequired(ObjectNode node) {
+        if (node.get("required") instanceof ArrayNode required) {
+            Set<String> sorted = new TreeSet<>();
+            required.forEach(name -> sorted.add(name.asText()));
+            required.removeAll();
+            sorted.forEach(required::add);
+        }
+    }
+
+    // Responses hold pre-serialized category fragments, so go through JSON text
+    private static JsonNode toTree(Map<String, Object> value) {
+        try {
+            return MAPPER.readTree(MAPPER.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The compiled conditional schema, resolved against any answers, gives the requirements the
+ * rules produce for those answers; and only schemas that really disagree with the rules are
+ * remembered as such.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kyc.grpc.enabled=false",
+        "kyc.index.enabled=false",
+        "kyc.evaluation.deadline-ms=0",
+        "logging.level.root=WARN",
+        "logging.level.com.example.kyc=WARN"
+})
+class ConditionalSchemaCompilerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    @Qualifier("getKycRequirements")
+    private Function<Map<String, Object>, Map<String, Object>> getKycRequirements;
+
+    @Autowired
+    @Qualifier("getCustomerTypes")
+    private Function<Map<String, Object>, Map<String, Object>> getCustomerTypes;
+
+    @Autowired
+    @Qualifier("getAccountTypes")
+    private Function<Map<String, Object>, Map<String, Object>> getAccountTypes;
+
+    @Autowired
+    @Qualifier("getSupportedCountries")
+    private Function<Map<String, Object>, Map<String, Object>> getSupportedCountries;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolvedSchemasMatchTheRulesAcrossTheCatalog() {
+        // Verification off, so the test and not the compiler compares with the rules
+        ConditionalSchemaCompiler compiler = new ConditionalSchemaCompiler(MAPPER, false, 256);
+        List<Object> countries = new ArrayList<>();
+        for (Map<String, Object> country : (List<Map<String, Object>>) getSupportedCountries.apply(new HashMap<>())
+                .get("countries")) {
+            countries.add(country.get("code"));
+        }
+        List<String> mismatches = new ArrayList<>();
+        int profiles = 0;
+        for (Object customerType : (List<Object>) getCustomerTypes.apply(null).get("customerTypes")) {
+            for (Object accountType : (List<Object>) getAccountTypes.apply(null).get("accountTypes")) {
+                for (Object country : countries) {
+                    Map<String, Object> request = request(customerType, accountType, country);
+                    Optional<Map<String, Object>> schema = compiler.compile(request, getKycRequirements);
+                    assertThat(schema).as("%s", request).isPresent();
+                    JsonNode schemaTree = toTree(schema.get());
+                    for (List<Object> answers : probeCombinations(compiler.getDimensions())) {
+                        Map<String, Object> answered = new HashMap<>(request);
+                        Map<String, Object> profile = new LinkedHashMap<>();
+                        for (int dim = 0; dim < answers.size(); dim++) {
+                            String name = compiler.getDimensions().get(dim).getName();
+                            answered.put(name, answers.get(dim));
+                            if (answers.get(dim) != null) {
+                                profile.put(name, answers.get(dim));
+                            }
+                        }
+                        EffectiveSchema expected = EffectiveSchema.of(toTree(getKycRequirements.apply(answered)));
+                        EffectiveSchema resolved = ConditionalSchemaResolver.resolve(schemaTree,
+                                toTree(Map.of(InputDimension.ANSWERS, profile)));
+                        resolved.difference(expected)
+                                .ifPresent(difference -> mismatches.add(request + " " + profile + ": " + difference));
+                    }
+                    profiles++;
+                }
+            }
+        }
+        assertThat(profiles).isGreaterThanOrEqualTo(36);
+        assertThat(mismatches).isEmpty();
+    }
+
+    @Test
+    void evaluationErrorsAreNotCached() {
+        ConditionalSchemaCompiler compiler = new ConditionalSchemaCompiler(MAPPER, true, 256);
+        AtomicInteger failures = new AtomicInteger(3);
+        Function<Map<String, Object>, Map<String, Object>> flaky = request -> failures.getAndDecrement() > 0
+                ? Map.of("error", true, "message", "Evaluation stopped", "reason", "DEADLINE_EXCEEDED")
+                : getKycRequirements.apply(request);
+
+        assertThat(compiler.compile(request("INDIVIDUAL", "SAVINGS", "SINGAPORE"), flaky)).isEmpty();
+        assertThat(compiler.compile(request("INDIVIDUAL", "SAVINGS", "SINGAPORE"), flaky)).isEmpty();
+        assertThat(compiler.compile(request("INDIVIDUAL", "SAVINGS", "SINGAPORE"), flaky)).isEmpty();
+        assertThat(compiler.compile(request("INDIVIDUAL", "SAVINGS", "SINGAPORE"), flaky)).isPresent();
+    }
+
+    @Test
+    void mismatchesAreCached() {
+        ConditionalSchemaCompiler compiler = new ConditionalSchemaCompiler(MAPPER, true, 256);
+        AtomicInteger evaluations = new AtomicInteger();
+        int variants = compiler.getDimensions().stream().mapToInt(InputDimension::size).reduce(1, (a, b) -> a * b);
+        // Rules that change between compiling and verifying: PEP applicants lose a category
+        Function<Map<String, Object>, Map<String, Object>> drifting = request -> {
+            Map<String, Object> response = getKycRequirements.apply(request);
+            if (evaluations.incrementAndGet() > variants && Boolean.TRUE.equals(request.get("pep"))) {
+                Map<String, Object> changed = new LinkedHashMap<>(response);
+                Map<String, Object> properties = new LinkedHashMap<>(castMap(response.get("properties")));
+                properties.remove(properties.keySet().iterator().next());
+                changed.put("properties", properties);
+                return changed;
+            }
+            return response;
+        };
+
+        assertThat(compiler.compile(request("INDIVIDUAL", "SAVINGS", "SINGAPORE"), drifting)).isEmpty();
+        int afterFirst = evaluations.get();
+        assertThat(compiler.compile(request("INDIVIDUAL", "SAVINGS", "SINGAPORE"), drifting)).isEmpty();
+        assertThat(evaluations.get()).isEqualTo(afterFirst);
+    }
+
+    private static Map<String, Object> request(Object customerType, Object accountType, Object country) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("customerType", customerType);
+        request.put("accountType", accountType);
+        request.put("country", country);
+        return request;
+    }
+
+    private static List<List<Object>> probeCombinations(List<InputDimension> dimensions) {
+        List<List<Object>> combinations = new ArrayList<>();
+        combinations.add(List.of());
+        for (InputDimension dimension : dimensions) {
+            List<List<Object>> expanded = new ArrayList<>();
+            for (List<Object> combination : combinations) {
+                for (Object probe : dimension.getProbes()) {
+                    List<Object> extended = new ArrayList<>(combination);
+                    extended.add(probe);
+                    expanded.add(extended);
+                }
+            }
+            combinations = expanded;
+        }
+        return combinations;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    // Responses hold pre-serialized category fragments, so go through JSON text
+    private static JsonNode toTree(Map<String, Object> value) {
+        try {
+            return MAPPER.readTree(MAPPER.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
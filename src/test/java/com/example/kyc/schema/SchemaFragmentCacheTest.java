@@ -0,0 +1,60 @@
+package com.example.kyc.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Category blocks are cached by content: the same fields at another position in the form reuse
+ * the cached bytes and serialize exactly like the uncached block.
+ */
+class SchemaFragmentCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void sameContentAtAnotherPositionSharesOneEntry() throws Exception {
+        SchemaFragmentCache cache = new SchemaFragmentCache(objectMapper, true, 100);
+        List<Map<String, Object>> fields = List.of(Map.of("fieldId", "fullName"), Map.of("fieldId", "nric"));
+
+        Map<String, Object> first = cache.categoryBlock("PERSONAL_DETAILS", 0, fields, () -> block(0));
+        Map<String, Object> second = cache.categoryBlock("PERSONAL_DETAILS", 3, fields, () -> block(3));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(first).isInstanceOf(SchemaFragment.class).isEqualTo(block(0));
+        assertThat(second).isEqualTo(block(3)).containsEntry("x-category-order", 3);
+        assertThat(second.hashCode()).isEqualTo(block(3).hashCode());
+        assertThat(objectMapper.writeValueAsString(Map.of("b", second)))
+                .isEqualTo(objectMapper.writeValueAsString(Map.of("b", block(3))));
+        assertThat(cache.sizeInBytes(second)).isEqualTo(objectMapper.writeValueAsBytes(block(3)).length);
+        assertThat((JsonNode) objectMapper.valueToTree(Map.of("b", second)))
+                .isEqualTo((JsonNode) objectMapper.valueToTree(Map.of("b", block(3))));
+
+        cache.categoryBlock("PERSONAL_DETAILS", 0, List.of(Map.of("fieldId", "fullName")), () -> block(0));
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledCacheReturnsTheBuiltMap() {
+        SchemaFragmentCache cache = new SchemaFragmentCache(objectMapper, false, 100);
+        Map<String, Object> block = cache.categoryBlock("PERSONAL_DETAILS", 1, List.of(), () -> block(1));
+        assertThat(block).isNotInstanceOf(SchemaFragment.class).isEqualTo(block(1));
+        assertThat(cache.size()).isZero();
+    }
+
+    private static Map<String, Object> block(int order) {
+        Map<String, Object> block = new LinkedHashMap<>();
+        block.put("type", "object");
+        block.put("title", "Personal Details");
+        block.put("properties", Map.of("fullName", Map.of("type", "string")));
+        block.put("required", List.of("fullName"));
+        block.put("x-category-order", order);
+        return block;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.kyc.store;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.engine.RuleOutcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PersistentSchemaStore on a temporary directory: round-trips, the entry and size limits,
+ * unmapping beyond mapped-entries, corrupt entries and the rule-set directory.
+ */
+class PersistentSchemaStoreTest {
+
+    private static final Map<String, Object> DEFAULTS = Map.of("country", "SINGAPORE");
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void readsBackWhatItWroteKeyedByTheRuleInputs() {
+        PersistentSchemaStore store = store("rules-a", 100, DataSize.ofMegabytes(1), 10);
+        store.write(profile("INDIVIDUAL", "SAVINGS"), DEFAULTS, outcome("Savings"));
+
+        Map<String, Object> withExtras = profile("INDIVIDUAL", "SAVINGS");
+        withExtras.put("requestedBy", "branch-7");
+        RuleOutcome read = store.read(withExtras, DEFAULTS).orElseThrow();
+        assertThat(read.getAppliedRules()).containsExactly("Savings");
+        assertThat(read.getFields()).hasSize(1);
+        assertThat(store.read(profile("INDIVIDUAL", "CURRENT"), DEFAULTS)).isEmpty();
+        assertThat(store.read(profile("INDIVIDUAL", "SAVINGS"), Map.of("country", "MALAYSIA"))).isEmpty();
+    }
+
+    @Test
+    void stringAndBooleanAnswersGetDifferentEntries() {
+        Map<String, Object> text = profile("INDIVIDUAL", "SAVINGS");
+        text.put("pep", "true");
+        Map<String, Object> bool = profile("INDIVIDUAL", "SAVINGS");
+        bool.put("pep", true);
+        assertThat(PersistentSchemaStore.normalize(text, DEFAULTS)).isNotEqualTo(PersistentSchemaStore.normalize(bool, DEFAULTS));
+    }
+
+    @Test
+    void doesNotStoreProfilesWithAnInitialDeposit() {
+        PersistentSchemaStore store = store("rules-a", 100, DataSize.ofMegabytes(1), 10);
+        Map<String, Object> deposit = profile("INDIVIDUAL", "SAVINGS");
+        deposit.put("initialDeposit", 5000);
+        store.write(deposit, DEFAULTS, outcome("Savings"));
+        assertThat(store.getEntries()).isZero();
+        assertThat(store.read(deposit, DEFAULTS)).isEmpty();
+    }
+
+    @Test
+    void stopsWritingAtMaxEntries() {
+        PersistentSchemaStore store = store("rules-a", 2, DataSize.ofMegabytes(1), 10);
+        for (String accountType : List.of("SAVINGS", "CURRENT", "LOAN", "INVESTMENT")) {
+            store.write(profile("INDIVIDUAL", accountType), DEFAULTS, outcome(accountType));
+        }
+        assertThat(store.getEntries()).isEqualTo(2);
+        assertThat(jsonFiles(store.getDirectory())).hasSize(2);
+        assertThat(store.read(profile("INDIVIDUAL", "LOAN"), DEFAULTS)).isEmpty();
+
+        // A restart counts what is on disk and stays full
+        PersistentSchemaStore restarted = store("rules-a", 2, DataSize.ofMegabytes(1), 10);
+        assertThat(restarted.getEntries()).isEqualTo(2);
+        restarted.write(profile("INDIVIDUAL", "LOAN"), DEFAULTS, outcome("LOAN"));
+        assertThat(jsonFiles(store.getDirectory())).hasSize(2);
+    }
+
+    @Test
+    void stopsWritingAtMaxSize() {
+        PersistentSchemaStore store = store("rules-a", 100, DataSize.ofBytes(600), 10);
+        for (String accountType : List.of("SAVINGS", "CURRENT", "LOAN", "INVESTMENT")) {
+            store.write(profile("INDIVIDUAL", accountType), DEFAULTS, outcome(accountType));
+        }
+        assertThat(store.getEntries()).isBetween(1L, 3L);
+        assertThat(store.getBytes()).isLessThanOrEqualTo(600);
+    }
+
+    @Test
+    void unmapsTheLeastRecentlyUsedBeyondMappedEntries() {
+        PersistentSchemaStore store = store("rules-a", 100, DataSize.ofMegabytes(1), 2);
+        List<String> accountTypes = List.of("SAVINGS", "CURRENT", "LOAN", "INVESTMENT");
+        accountTypes.forEach(type -> store.write(profile("INDIVIDUAL", type), DEFAULTS, outcome(type)));
+        for (String type : accountTypes) {
+            assertThat(store.read(profile("INDIVIDUAL", type), DEFAULTS)).isPresent();
+        }
+        assertThat(store.getMappedEntries()).isEqualTo(2);
+        // Unmapped entries are mapped again when read
+        assertThat(store.read(profile("INDIVIDUAL", "SAVINGS"), DEFAULTS).orElseThrow().getAppliedRules())
+                .containsExactly("SAVINGS");
+    }
+
+    @Test
+    void discardsCorruptEntries() throws IOException {
+        PersistentSchemaStore store = store("rules-a", 100, DataSize.ofMegabytes(1), 10);
+        store.write(profile("INDIVIDUAL", "SAVINGS"), DEFAULTS, outcome("Savings"));
+        Path entry = jsonFiles(store.getDirectory()).get(0);
+        Files.writeString(entry, "{\"key\":");
+
+        assertThat(store.read(profile("INDIVIDUAL", "SAVINGS"), DEFAULTS)).isEmpty();
+        assertThat(entry).doesNotExist();
+        assertThat(store.getEntries()).isZero();
+    }
+
+    @Test
+    void anotherRuleSetUsesItsOwnDirectoryAndPurgesStaleOnes() {
+        PersistentSchemaStore first = store("rules-a", 100, DataSize.ofMegabytes(1), 10);
+        first.write(profile("INDIVIDUAL", "SAVINGS"), DEFAULTS, outcome("Savings"));
+
+        PersistentSchemaStore second = new PersistentSchemaStore(new ObjectMapper(), fingerprint("rules-b"), true,
+                baseDir.toString(), true, 100, DataSize.ofMegabytes(1), 10);
+        assertThat(second.getDirectory()).isNotEqualTo(first.getDirectory());
+        assertThat(second.read(profile("INDIVIDUAL", "SAVINGS"), DEFAULTS)).isEmpty();
+        assertThat(first.getDirectory()).doesNotExist();
+    }
+
+    private PersistentSchemaStore store(String rules, long maxEntries, DataSize maxSize, int mappedEntries) {
+        return new PersistentSchemaStore(new ObjectMapper(), fingerprint(rules), true, baseDir.toString(), false,
+                maxEntries, maxSize, mappedEntries);
+    }
+
+    private static RuleSetFingerprint fingerprint(String rules) {
+        try {
+            return RuleSetFingerprint.of(new Resource[]{new ByteArrayResource(rules.getBytes(StandardCharsets.UTF_8))});
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Object> profile(String customerType, String accountType) {
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("customerType", customerType);
+        profile.put("accountType", accountType);
+        return profile;
+    }
+
+    private static RuleOutcome outcome(String rule) {
+        return new RuleOutcome(List.of(Map.of("fieldId", "fullName", "category", "PERSONAL_DETAILS")),
+                List.of(rule), List.of("NRIC"), List.of(), Map.of("riskLevel", "LOW"), 1);
+    }
+
+    private static List<Path> jsonFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".json")).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.loadgen;
+
+import com.example.kyc.schema.EffectiveSchema;
+import com.example.kyc.schema.SchemaPatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares full requirement schemas with base-plus-delta responses ({@code mode=delta})
+ * against a running KycRulesApplication.
+ *
+ * <p>For every profile the tool fetches both forms, applies the patch to the cached base and
+ * checks that the result imposes the same requirements as the full schema. It then reports
+ * payload size (raw and gzip) and client-side parse time: parsing the full schema versus
+ * parsing the delta and applying it to a copy of the cached base. Finally it checks that a
+ * stale base id is answered with a full schema.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.DeltaSchemaBenchmark \
+ *       -Dexec.args="--iterations 2000"
+ * </pre>
+ */
+public class DeltaSchemaBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Keeps the timed parse results alive
+    private static volatile long blackhole;
+
+    private final URI target;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * One profile in both response forms.
+     */
+    private record Sample(String profile, JsonNode base, byte[] full, byte[] delta) {
+    }
+
+    public DeltaSchemaBenchmark(URI target) {
+        this.target = target;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        URI target = URI.create(options.getOrDefault("target", "http://localhost:8080"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "2000"));
+
+        DeltaSchemaBenchmark benchmark = new DeltaSchemaBenchmark(target);
+        List<Sample> samples = benchmark.collect();
+        if (!benchmark.verify(samples) || !benchmark.checkStaleBase()) {
+            System.exit(1);
+        }
+        report(samples, iterations);
+    }
+
+    private List<Sample> collect() throws IOException, InterruptedException {
+        byte[] individualBaseBytes = send(HttpRequest.newBuilder(target.resolve("/api/v1/kyc/base-schemas/individual")).GET().build());
+        byte[] corporateBaseBytes = send(HttpRequest.newBuilder(target.resolve("/api/v1/kyc/base-schemas/corporate")).GET().build());
+        JsonNode individualBase = MAPPER.readTree(individualBaseBytes);
+        JsonNode corporateBase = MAPPER.readTree(corporateBaseBytes);
+        System.out.printf("Base schemas: %s (%d bytes), %s (%d bytes)%n",
+                individualBase.path("x-base-id").asText(), individualBaseBytes.length,
+                corporateBase.path("x-base-id").asText(), corporateBaseBytes.length);
+
+        List<Sample> samples = new ArrayList<>();
+        String individualId = individualBase.path("x-base-id").asText();
+        for (JsonNode customerType : MAPPER.readTree(send(get("/api/v1/kyc/customer-types"))).path("customerTypes")) {
+            for (JsonNode accountType : MAPPER.readTree(send(get("/api/v1/kyc/account-types"))).path("accountTypes")) {
+                for (Map<String, Object> answers : List.<Map<String, Object>>of(
+                        Map.of(), Map.of("pep", true), Map.of("nationality", "MALAYSIA", "initialDeposit", 60000))) {
+                    Map<String, Object> body = new LinkedHashMap<>(answers);
+                    body.put("customerType", customerType.asText());
+                    body.put("accountType", accountType.asText());
+                    samples.add(sample(customerType.asText() + "/" + accountType.asText() + answers,
+                            "/api/v1/kyc/requirements", body, individualBase, individualId));
+                }
+            }
+        }
+        String corporateId = corporateBase.path("x-base-id").asText();
+        for (String product : List.of("CASA", "FX", "TRADING")) {
+            samples.add(sample("CORPORATE/" + product, "/api/v1/kyc/corporate/requirements",
+                    Map.of("product", product), corporateBase, corporateId));
+        }
+        return samples;
+    }
+
+    private Sample sample(String profile, String path, Map<String, Object> body, JsonNode base, String baseId)
+            throws IOException, InterruptedException {
+        byte[] full = send(post(path, body));
+        byte[] delta = send(post(path + "?mode=delta&base=" + baseId, body));
+        return new Sample(profile, base, full, delta);
+    }
+
+    private boolean verify(List<Sample> samples) throws IOException {
+        int mismatches = 0;
+        for (Sample sample : samples) {
+            JsonNode patched = SchemaPatch.apply(sample.base(), MAPPER.readTree(sample.delta()));
+            JsonNode full = MAPPER.readTree(sample.full());
+            Optional<String> difference = EffectiveSchema.of(patched).difference(EffectiveSchema.of(full));
+            if (difference.isEmpty() && !metadataKeys(patched).equals(metadataKeys(full))) {
+                difference = Optional.of("x-metadata " + metadataKeys(patched) + " vs " + metadataKeys(full));
+            }
+            if (difference.isPresent()) {
+                mismatches++;
+                System.out.printf("MISMATCH %s: %s%n", sample.profile(), difference.get());
+            }
+        }
+        System.out.printf("Verified %d profiles: %d mismatches%n", samples.size(), mismatches);
+        return mismatches == 0;
+    }
+
+    private static List<String> metadataKeys(JsonNode schema) {
+        List<String> keys = new ArrayList<>();
+        schema.path("x-metadata").fieldNames().forEachRemaining(keys::add);
+        keys.sort(null);
+        return keys;
+    }
+
+    private boolean checkStaleBase() throws IOException, InterruptedException {
+        Map<String, Object> body = Map.of("customerType", "INDIVIDUAL", "accountType", "SAVINGS");
+        JsonNode response = MAPPER.readTree(send(post("/api/v1/kyc/requirements?mode=delta&base=individual-000000000000", body)));
+        boolean full = response.has("properties") && !response.has("patch");
+        System.out.printf("Stale base: %s, current base %s%n", full ? "full schema returned" : "UNEXPECTED delta",
+                response.path("x-metadata").path("baseId").asText());
+        return full;
+    }
+
+    private static void report(List<Sample> samples, int iterations) throws IOException {
+        long fullBytes = 0, deltaBytes = 0, fullGzip = 0, deltaGzip = 0;
+        for (Sample sample : samples) {
+            fullBytes += sample.full().length;
+            deltaBytes += sample.delta().length;
+            fullGzip += gzipSize(sample.full());
+            deltaGzip += gzipSize(sample.delta());
+        }
+
+        // Warm up both paths before timing
+        parse(samples, iterations / 4, false);
+        parse(samples, iterations / 4, true);
+        double fullMicros = parse(samples, iterations, false);
+        double deltaMicros = parse(samples, iterations, true);
+
+        int n = samples.size();
+        System.out.printf("%n%-8s %14s %14s %16s%n", "mode", "bytes/resp", "gzip/resp", "parse us/resp");
+        System.out.printf("%-8s %14d %14d %16.1f%n", "full", fullBytes / n, fullGzip / n, fullMicros);
+        System.out.printf("%-8s %14d %14d %16.1f%n", "delta", deltaBytes / n, deltaGzip / n, deltaMicros);
+        System.out.printf("Delta is %.1f%% of the full payload (%.1f%% gzipped), parse + apply %.2fx faster%n",
+                100.0 * deltaBytes / fullBytes, 100.0 * deltaGzip / fullGzip, fullMicros / deltaMicros);
+    }
+
+    /**
+     * Mean client time per response: reading the full schema, or reading the delta and
+     * applying it to the cached base.
+     */
+    private static double parse(List<Sample> samples, int iterations, boolean delta) throws IOException {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (Sample sample : samples) {
+                JsonNode schema = delta
+                        ? SchemaPatch.apply(sample.base(), MAPPER.readTree(sample.delta()))
+                        : MAPPER.readTree(sample.full());
+                sink += schema.size();
+            }
+        }
+        blackhole = sink;
+        return (System.nanoTime() - start) / 1000.0 / Math.max(1, (long) iterations * samples.size());
+    }
+
+    private static int gzipSize(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.size();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(target.resolve(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Map<String, Object> body) throws IOException {
+        return HttpRequest.newBuilder(target.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                .build();
+    }
+
+    private byte[] send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400) {
+            throw new IOException("HTTP " + response.statusCode() + " for " + request.uri());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.loadgen;
+
+import com.example.kyc.grpc.proto.CorporateKycRequest;
+import com.example.kyc.grpc.proto.IndividualKycRequest;
+import com.example.kyc.grpc.proto.IndividualProductKycRequest;
+import com.example.kyc.grpc.proto.KycServiceGrpc;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the REST and gRPC APIs of a locally started KycRulesApplication on loopback.
+ *
+ * <p>Both protocols send the same requirement profiles with a closed workload (fixed number
+ * of virtual-thread users, zero think time). REST responses are parsed with Jackson so the
+ * client pays the same decoding cost a real caller would. Besides the latency histograms the
+ * benchmark reports CPU time per call for the client JVM and, with {@code --server-pid}, for
+ * the server process.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.GrpcRestBenchmark \
+ *       -Dexec.args="--concurrency 16 --duration 30s --server-pid $(pgrep -f kyc-rules-service)"
+ * </pre>
+ */
+public class GrpcRestBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final URI restTarget;
+    private final HttpClient httpClient;
+    private final KycServiceGrpc.KycServiceBlockingStub grpcStub;
+    private final List<Profile> profiles = defaultProfiles();
+
+    /**
+     * One request profile in both wire formats.
+     */
+    private record Profile(String scenario, String restPath, String json, Object proto) {
+    }
+
+    public GrpcRestBenchmark(URI restTarget, ManagedChannel channel) {
+        this.restTarget = restTarget;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.grpcStub = KycServiceGrpc.newBlockingStub(channel);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        URI restTarget = URI.create(options.getOrDefault("target", "http://localhost:8080"));
+        String grpcTarget = options.getOrDefault("grpc-target", "localhost:9090");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration duration = LoadGenerator.parseDuration(options.getOrDefault("duration", "30s"));
+        Duration warmup = LoadGenerator.parseDuration(options.getOrDefault("warmup", "10s"));
+        Optional<ProcessHandle> server = Optional.ofNullable(options.get("server-pid"))
+                .flatMap(pid -> ProcessHandle.of(Long.parseLong(pid)));
+
+        ManagedChannel channel = NettyChannelBuilder.forTarget(grpcTarget).usePlaintext().build();
+        try {
+            GrpcRestBenchmark benchmark = new GrpcRestBenchmark(restTarget, channel);
+            System.out.printf("REST %s vs gRPC %s, %d users, warmup %ds, measured %ds%n",
+                    restTarget, grpcTarget, concurrency, warmup.toSeconds(), duration.toSeconds());
+
+            LoadRunReport rest = benchmark.run("rest", concurrency, warmup, duration, server);
+            LoadRunReport grpc = benchmark.run("grpc", concurrency, warmup, duration, server);
+
+            rest.print(System.out);
+            grpc.print(System.out);
+            new RunComparison(rest, grpc).print(System.out);
+
+            if (options.containsKey("output")) {
+                Path dir = Path.of(options.get("output"));
+                rest.save(dir.resolve("rest.json"));
+                grpc.save(dir.resolve("grpc.json"));
+                System.out.println("Reports written to " + dir);
+            }
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private LoadRunReport run(String protocol, int concurrency, Duration warmup, Duration duration,
+                              Optional<ProcessHandle> server) {
+        runClosed(protocol, concurrency, warmup, new LoadRunReport("warmup", "closed"));
+
+        Duration clientCpuBefore = cpuTime(Optional.of(ProcessHandle.current()));
+        Duration serverCpuBefore = cpuTime(server);
+        LoadRunReport report = runClosed(protocol, concurrency, duration,
+                new LoadRunReport(protocol + "@" + concurrency, "closed"));
+        long calls = Math.max(1, report.getCompleted() + report.getErrorCount());
+        Duration clientCpu = cpuTime(Optional.of(ProcessHandle.current())).minus(clientCpuBefore);
+
+        System.out.printf("%n%s: client CPU %.1f us/call", protocol, clientCpu.toNanos() / 1000.0 / calls);
+        if (server.isPresent()) {
+            Duration serverCpu = cpuTime(server).minus(serverCpuBefore);
+            System.out.printf(", server CPU %.1f us/call", serverCpu.toNanos() / 1000.0 / calls);
+        }
+        System.out.println();
+        return report;
+    }
+
+    private LoadRunReport runClosed(String protocol, int concurrency, Duration duration, LoadRunReport report) {
+        if (duration.isZero()) {
+            return report;
+        }
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < concurrency; user++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        Profile profile = profiles.get(ThreadLocalRandom.current().nextInt(profiles.size()));
+                        if ("rest".equals(protocol)) {
+                            sendRest(profile, report);
+                        } else {
+                            sendGrpc(profile, report);
+                        }
+                    }
+                });
+            }
+        }
+        report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    private void sendRest(Profile profile, LoadRunReport report) {
+        long startNanos = System.nanoTime();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(restTarget.resolve(profile.restPath()))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(profile.json()))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() >= 400) {
+                report.recordError(profile.scenario(), "HTTP " + response.statusCode(), (System.nanoTime() - startNanos) / 1000);
+                return;
+            }
+            MAPPER.readTree(response.body());
+            report.record(profile.scenario(), (System.nanoTime() - startNanos) / 1000);
+        } catch (IOException e) {
+            report.recordError(profile.scenario(), e.getClass().getSimpleName(), (System.nanoTime() - startNanos) / 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendGrpc(Profile profile, LoadRunReport report) {
+        long startNanos = System.nanoTime();
+        try {
+            if (profile.proto() instanceof IndividualKycRequest request) {
+                grpcStub.getKycRequirements(request);
+            } else if (profile.proto() instanceof IndividualProductKycRequest request) {
+                grpcStub.getIndividualProductKycRequirements(request);
+            } else {
+                grpcStub.getCorporateKycRequirements((CorporateKycRequest) profile.proto());
+            }
+            report.record(profile.scenario(), (System.nanoTime() - startNanos) / 1000);
+        } catch (StatusRuntimeException e) {
+            report.recordError(profile.scenario(), e.getStatus().getCode().name(), (System.nanoTime() - startNanos) / 1000);
+        }
+    }
+
+    private static Duration cpuTime(Optional<ProcessHandle> process) {
+        return process.flatMap(p -> p.info().totalCpuDuration()).orElse(Duration.ZERO);
+    }
+
+    /**
+     * The requirement profiles of {@link ScenarioMix#defaultScenarios()}; catalog lookups are
+     * left out because they are too cheap to show a protocol difference.
+     */
+    private static List<Profile> defaultProfiles() {
+        return List.of(
+                individual("INDIVIDUAL", "SAVINGS", "SINGAPORE", false),
+                individual("INDIVIDUAL", "INVESTMENT", "SINGAPORE", false),
+                individual("FOREIGNER", "CURRENT", "MALAYSIA", false),
+                individual("INDIVIDUAL", "LOAN", "INDIA", true),
+                individual("CORPORATE", "CURRENT", "SINGAPORE", false),
+                product("SAVINGS"),
+                product("CREDIT_CARD"),
+                corporate("CASA"),
+                corporate("FX"),
+                corporate("TRADING"));
+    }
+
+    private static Profile individual(String customerType, String accountType, String nationality, boolean pep) {
+        return new Profile("requirements", "/api/v1/kyc/requirements",
+                json(Map.of("customerType", customerType, "accountType", accountType,
+                        "nationality", nationality, "pep", pep)),
+                IndividualKycRequest.newBuilder().setCustomerType(customerType).setAccountType(accountType)
+                        .setNationality(nationality).setPep(pep).build());
+    }
+
+    private static Profile product(String product) {
+        return new Profile("product-requirements", "/api/v1/kyc/product/requirements",
+                json(Map.of("product", product)),
+                IndividualProductKycRequest.newBuilder().setProduct(product).build());
+    }
+
+    private static Profile corporate(String product) {
+        return new Profile("corporate-requirements", "/api/v1/kyc/corporate/requirements",
+                json(Map.of("product", product)),
+                CorporateKycRequest.newBuilder().setProduct(product).build());
+    }
+
+    private static String json(Map<String, Object> body) {
+        try {
+            return MAPPER.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends the same requests to two running servers, normally the Spring Boot application and
+ * the sidecar HTTP server of KycFunctionalApplication, and reports every route whose status
+ * or JSON body differs. Values that change on every call (referenceId, timestamp) are
+ * ignored. Exits with status 1 if anything differs.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.HttpParityCheck \
+ *       -Dexec.args="--expected http://localhost:8080 --actual http://localhost:8081"
+ * </pre>
+ */
+public class HttpParityCheck {
+
+    private static final Set<String> VOLATILE_FIELDS = Set.of("referenceId", "timestamp");
+
+    private record Case(String method, String path, String contentType, String body) {
+
+        static Case get(String path) {
+            return new Case("GET", path, null, null);
+        }
+
+        static Case post(String path, String body) {
+            return new Case("POST", path, "application/json", body);
+        }
+    }
+
+    private static final List<Case> CASES = List.of(
+            Case.get("/api/v1/kyc/health"),
+            Case.get("/api/v1/kyc/customer-types"),
+            Case.get("/api/v1/kyc/account-types"),
+            Case.get("/api/v1/kyc/supported-countries"),
+            Case.get("/api/v1/kyc/products"),
+            Case.get("/api/v1/kyc/products?country=MALAYSIA"),
+            Case.get("/api/v1/kyc/corporate/products"),
+            Case.get("/api/v1/kyc/corporate/products?country=SINGAPORE"),
+            Case.get("/api/v1/kyc/base-schemas/individual"),
+            Case.get("/api/v1/kyc/base-schemas/corporate"),
+            Case.get("/api/v1/kyc/base-schemas/INDIVIDUAL"),
+            Case.post("/api/v1/kyc/requirements", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}"),
+            Case.post("/api/v1/kyc/requirements", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"CURRENT\","
+                    + "\"nationality\":\"US\",\"pep\":true,\"initialDeposit\":250000,\"country\":\"MALAYSIA\"}"),
+            Case.post("/api/v1/kyc/requirements", "{\"customerType\":\"FOREIGNER\",\"accountType\":\"SAVINGS\","
+                    + "\"unknownField\":1}"),
+            Case.post("/api/v1/kyc/requirements", "{\"accountType\":\"SAVINGS\"}"),
+            Case.post("/api/v1/kyc/requirements?projection=Identification,Contact%20Details",
+                    "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}"),
+            Case.post("/api/v1/kyc/requirements?mode=conditional",
+                    "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}"),
+            Case.post("/api/v1/kyc/requirements?mode=DELTA",
+                    "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\",\"pep\":true}"),
+            Case.post("/api/v1/kyc/requirements?mode=delta&base=unknown",
+                    "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}"),
+            Case.post("/api/v1/kyc/product/requirements", "{\"product\":\"PERSONAL_LOAN\"}"),
+            Case.post("/api/v1/kyc/product/requirements?projection=Identification",
+                    "{\"product\":\"CREDIT_CARD\",\"country\":\"MALAYSIA\"}"),
+            Case.post("/api/v1/kyc/corporate/requirements", "{\"product\":\"CORPORATE_ACCOUNT\"}"),
+            Case.post("/api/v1/kyc/corporate/requirements?mode=delta",
+                    "{\"product\":\"TRADE_FINANCE\",\"country\":\"SINGAPORE\"}"),
+            Case.post("/api/v1/kyc/bundle/requirements",
+                    "{\"customerType\":\"INDIVIDUAL\",\"products\":[\"SAVINGS\",\"CREDIT_CARD\"],\"pep\":false}"),
+            // Errors produced by the web layer rather than the functions
+            Case.post("/api/v1/kyc/requirements", ""),
+            Case.post("/api/v1/kyc/requirements", "{\"customerType\":"),
+            Case.post("/api/v1/kyc/requirements", "[1,2]"),
+            new Case("POST", "/api/v1/kyc/requirements", "text/plain", "{\"customerType\":\"INDIVIDUAL\"}"),
+            new Case("POST", "/api/v1/kyc/health", "application/json", "{}"),
+            Case.get("/api/v1/kyc/requirements"),
+            Case.get("/api/v1/kyc/unknown"),
+            Case.get("/api/v1/other"));
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        URI expected = URI.create(options.getOrDefault("expected", "http://localhost:8080"));
+        URI actual = URI.create(options.getOrDefault("actual", "http://localhost:8081"));
+
+        HttpParityCheck check = new HttpParityCheck();
+        int mismatches = 0;
+        for (Case testCase : CASES) {
+            List<String> differences = check.compare(testCase, expected, actual);
+            System.out.printf("%-4s %-6s %s%n", differences.isEmpty() ? "ok" : "DIFF", testCase.method(), testCase.path());
+            differences.forEach(difference -> System.out.println("       " + difference));
+            if (!differences.isEmpty()) {
+                mismatches++;
+            }
+        }
+        System.out.printf("%d of %d requests match%n", CASES.size() - mismatches, CASES.size());
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private List<String> compare(Case testCase, URI expectedBase, URI actualBase) throws Exception {
+        HttpResponse<String> expected = send(testCase, expectedBase);
+        HttpResponse<String> actual = send(testCase, actualBase);
+        List<String> differences = new ArrayList<>();
+        if (expected.statusCode() != actual.statusCode()) {
+            differences.add("status " + expected.statusCode() + " != " + actual.statusCode());
+        }
+        String expectedType = expected.headers().firstValue("Content-Type").orElse("");
+        String actualType = actual.headers().firstValue("Content-Type").orElse("");
+        if (!expectedType.equals(actualType)) {
+            differences.add("content type " + expectedType + " != " + actualType);
+        }
+        JsonNode expectedBody = normalize(objectMapper.readTree(expected.body()));
+        JsonNode actualBody = normalize(objectMapper.readTree(actual.body()));
+        if (!expectedBody.equals(actualBody)) {
+            differences.add("body " + expectedBody + " != " + actualBody);
+        }
+        return differences;
+    }
+
+    private HttpResponse<String> send(Case testCase, URI base) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(testCase.path()))
+                .timeout(Duration.ofSeconds(10))
+                .header("Accept", "application/json");
+        if (testCase.contentType() != null) {
+            builder.header("Content-Type", testCase.contentType());
+        }
+        builder.method(testCase.method(), testCase.body() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(testCase.body()));
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    static JsonNode normalize(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            object.remove(VOLATILE_FIELDS);
+            object.forEach(HttpParityCheck::normalize);
+        } else if (node != null && node.isArray()) {
+            node.forEach(HttpParityCheck::normalize);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.loadgen;
+
+import com.example.kyc.KycRulesApplication;
+import com.example.kyc.jfr.RuleFiredEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Measures what the KYC flight recorder events cost. The tool starts the application
+ * context in-process without the web and gRPC servers and calls getKycRequirements and
+ * getCorporateKycRequirements directly: without a recording, under the {@code default}
+ * settings, under the {@code default} settings without {@link RuleFiredEvent}, and under the
+ * {@code profile} settings. The modes take turns in short rounds so JIT warm-up does not
+ * favour the last one. It reports latency per mode and the KYC events recorded per evaluation.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.JfrOverheadBenchmark \
+ *       -Dexec.args="--rounds 10 --iterations 2000"
+ * </pre>
+ */
+public class JfrOverheadBenchmark {
+
+    private static final List<String> MODES = List.of("off", "default", "default-no-rules", "profile");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "10"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "2000"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KycRulesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--kyc.grpc.enabled=false", "--kyc.schema-store.enabled=false",
+                        "--logging.level.com.example.kyc=WARN");
+        try {
+            run(context, rounds, iterations);
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void run(ConfigurableApplicationContext context, int rounds, int iterations) throws Exception {
+        Function<Map<String, Object>, Map<String, Object>> individual = context.getBean("getKycRequirements", Function.class);
+        Function<Map<String, Object>, Map<String, Object>> corporate =
+                context.getBean("getCorporateKycRequirements", Function.class);
+        List<Function<Integer, Map<String, Object>>> calls = List.of(
+                i -> individual.apply(new HashMap<>(Map.of("customerType", i % 2 == 0 ? "INDIVIDUAL" : "FOREIGNER",
+                        "accountType", "SAVINGS", "pep", i % 3 == 0))),
+                i -> corporate.apply(new HashMap<>(Map.of("product", i % 2 == 0 ? "CASA" : "FX"))));
+
+        for (int i = 0; i < iterations * 2; i++) {
+            calls.get(i % calls.size()).apply(i);
+        }
+
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        Map<String, Long> events = new TreeMap<>();
+        long recordedEvaluations = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String mode : MODES) {
+                Recording recording = recording(mode);
+                if (recording != null) {
+                    recording.start();
+                }
+                // Starting a recording re-instruments the event classes; let the JIT settle again
+                for (int i = 0; i < iterations; i++) {
+                    calls.get(i % calls.size()).apply(i);
+                }
+                Histogram histogram = latencies.computeIfAbsent(mode, key -> new Histogram(3));
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    calls.get(i % calls.size()).apply(i);
+                    histogram.recordValue((System.nanoTime() - start) / 1000);
+                }
+                if (recording != null) {
+                    recording.stop();
+                    if (mode.equals("default")) {
+                        Path file = Files.createTempFile("kyc-overhead-", ".jfr");
+                        recording.dump(file);
+                        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                            if (event.getEventType().getName().startsWith("com.example.kyc.")) {
+                                events.merge(event.getEventType().getName(), 1L, Long::sum);
+                            }
+                        }
+                        recordedEvaluations += iterations * 2L;
+                        Files.delete(file);
+                    }
+                    recording.close();
+                }
+            }
+        }
+
+        System.out.printf("%-18s %10s %8s %8s %14s%n", "recording", "mean us", "p50 us", "p99 us", "p50 overhead");
+        // The mean carries the GC pauses of the run, so the overhead is taken at the median
+        double baseline = latencies.get("off").getValueAtPercentile(50);
+        latencies.forEach((mode, histogram) -> System.out.printf("%-18s %10.1f %8d %8d %13.1f%%%n", mode,
+                histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                (histogram.getValueAtPercentile(50) / baseline - 1) * 100));
+        System.out.printf("%nKYC events per evaluation with default settings:%n");
+        long evaluations = recordedEvaluations;
+        events.forEach((name, count) -> System.out.printf("  %-36s %6.1f%n", name, (double) count / evaluations));
+    }
+
+    private static Recording recording(String mode) throws Exception {
+        return switch (mode) {
+            case "off" -> null;
+            case "default", "profile" -> new Recording(Configuration.getConfiguration(mode));
+            case "default-no-rules" -> {
+                Recording recording = new Recording(Configuration.getConfiguration("default"));
+                recording.disable(RuleFiredEvent.class);
+                yield recording;
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.loadgen;
+
+import com.example.kyc.KycFunctionalApplication;
+import com.example.kyc.client.KycClient;
+import com.example.kyc.client.KycClientException;
+import com.example.kyc.client.KycCountry;
+import com.example.kyc.client.KycIndividualRequest;
+import com.example.kyc.http.KycHttpServer;
+import org.springframework.cloud.function.context.FunctionalSpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures what the {@link KycClient} cache saves: a workload skewed towards a few of the
+ * individual profiles, run with the cache off and on, reporting how many requests reached the
+ * service and the mean call latency. Runs against the KycFunctionalApplication sidecar started
+ * in-process on a free port, or the server at {@code --target}. The client's behaviour is
+ * tested by KycClientTest.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.KycClientBenchmark \
+ *       -Dexec.args="--calls 20000 --threads 16"
+ * </pre>
+ */
+public class KycClientBenchmark {
+
+    private final URI target;
+
+    KycClientBenchmark(URI target) {
+        this.target = target;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        int calls = Integer.parseInt(options.getOrDefault("calls", "20000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        Duration maxAge = LoadGenerator.parseDuration(options.getOrDefault("max-age", "2s"));
+
+        ConfigurableApplicationContext context = null;
+        URI target;
+        if (options.containsKey("target")) {
+            target = URI.create(options.get("target"));
+        } else {
+            context = FunctionalSpringApplication.run(KycFunctionalApplication.class, "--kyc.http.enabled=true",
+                    "--kyc.http.port=0", "--kyc.api.max-age=" + maxAge.toMillis() + "ms",
+                    "--logging.level.com.example.kyc=WARN");
+            target = URI.create("http://localhost:" + context.getBean(KycHttpServer.class).getPort());
+        }
+        try {
+            new KycClientBenchmark(target).compareWorkload(calls, threads);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void compareWorkload(int calls, int threads) throws Exception {
+        List<KycIndividualRequest> profiles = new ArrayList<>();
+        try (KycClient client = new KycClient(target)) {
+            for (String customerType : client.getCustomerTypes()) {
+                for (String accountType : client.getAccountTypes()) {
+                    for (KycCountry country : client.getSupportedCountries()) {
+                        for (boolean pep : new boolean[]{false, true}) {
+                            profiles.add(new KycIndividualRequest(customerType, accountType, "SINGAPORE", pep,
+                                    country.name().toUpperCase()));
+                        }
+                    }
+                }
+            }
+        }
+        System.out.printf("%nWorkload: %d calls on %d threads over %d profiles, skewed towards the first%n",
+                calls, threads, profiles.size());
+        System.out.printf("%-10s %10s %10s %12s %10s %10s %12s%n", "cache", "requests", "fetched", "revalidated",
+                "coalesced", "fresh", "mean call ms");
+        long uncachedRequests = 0;
+        for (int entries : new int[]{0, KycClient.DEFAULT_CACHE_ENTRIES}) {
+            try (KycClient client = new KycClient(target, entries, KycClient.DEFAULT_TIMEOUT);
+                 ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+                LongAdder nanos = new LongAdder();
+                Map<Integer, Boolean> errors = new ConcurrentHashMap<>();
+                List<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    workers.add(executor.submit(() -> {
+                        for (int i = 0; i < calls / threads; i++) {
+                            // Squaring a uniform draw makes the first profiles the most requested, as in traffic
+                            double draw = ThreadLocalRandom.current().nextDouble();
+                            KycIndividualRequest profile = profiles.get((int) (draw * draw * profiles.size()));
+                            long start = System.nanoTime();
+                            try {
+                                client.getRequirements(profile);
+                            } catch (KycClientException e) {
+                                errors.put(e.getStatus(), true);
+                            }
+                            nanos.add(System.nanoTime() - start);
+                        }
+                    }));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+                KycClient.Stats stats = client.getStats();
+                long requests = stats.fetched() + stats.revalidated();
+                if (entries == 0) {
+                    uncachedRequests = requests;
+                }
+                if (!errors.isEmpty()) {
+                    System.out.println("Calls failed with status " + errors.keySet());
+                }
+                System.out.printf("%-10s %10d %10d %12d %10d %10d %12.3f%n", entries == 0 ? "off" : entries + " entries",
+                        requests, stats.fetched(), stats.revalidated(), stats.coalesced(), stats.fresh(),
+                        nanos.sum() / 1e6 / stats.calls());
+                if (entries > 0) {
+                    System.out.printf("Requests reaching the service: %.1f%% of the uncached client's%n",
+                            100.0 * requests / uncachedRequests);
+                }
+            }
+        }
+    }
+}
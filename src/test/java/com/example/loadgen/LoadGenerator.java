@@ -0,0 +1,203 @@
+package com.example.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Standalone HTTP load generator for a locally started KycRulesApplication.
+ *
+ * <p>Two workload models are supported:
+ * <ul>
+ *   <li><b>open</b> - requests are issued at a fixed arrival rate regardless of how fast the
+ *   service answers. Latency is measured from the <i>intended</i> send time, so queueing
+ *   caused by a slow server shows up in the tail instead of being hidden (no coordinated
+ *   omission).</li>
+ *   <li><b>closed</b> - a fixed number of virtual-thread users each send a request, wait for
+ *   the response and immediately send the next one.</li>
+ * </ul>
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.LoadGenerator \
+ *       -Dexec.args="--model open --rate 500 --duration 60s --output runs/base.json"
+ *   mvn -q exec:java -Dexec.mainClass=com.example.loadgen.LoadGenerator \
+ *       -Dexec.args="--compare runs/base.json runs/candidate.json"
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private final URI target;
+    private final ScenarioMix mix;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+
+    public LoadGenerator(URI target, ScenarioMix mix, Duration requestTimeout) {
+        this.target = target;
+        this.mix = mix;
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+
+        if (options.containsKey("compare")) {
+            String[] files = options.get("compare").split(" ");
+            if (files.length != 2) {
+                throw new IllegalArgumentException("--compare expects two report files");
+            }
+            new RunComparison(LoadRunReport.load(Path.of(files[0])), LoadRunReport.load(Path.of(files[1])))
+                    .print(System.out);
+            return;
+        }
+
+        URI target = URI.create(options.getOrDefault("target", "http://localhost:8080"));
+        String model = options.getOrDefault("model", "open");
+        Duration duration = parseDuration(options.getOrDefault("duration", "60s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        Duration timeout = parseDuration(options.getOrDefault("timeout", "10s"));
+        ScenarioMix mix = new ScenarioMix(
+                ScenarioMix.withWeights(ScenarioMix.defaultScenarios(), options.get("weights")));
+
+        LoadGenerator generator = new LoadGenerator(target, mix, timeout);
+        System.out.printf("Target %s, %s model, warmup %ds, measured %ds%n",
+                target, model, warmup.toSeconds(), duration.toSeconds());
+
+        LoadRunReport report;
+        if ("open".equals(model)) {
+            double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+            generator.runOpen(rate, warmup, new LoadRunReport("warmup", model));
+            report = generator.runOpen(rate, duration, new LoadRunReport(options.getOrDefault("label", "open@" + rate), model));
+        } else if ("closed".equals(model)) {
+            int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+            generator.runClosed(concurrency, warmup, new LoadRunReport("warmup", model));
+            report = generator.runClosed(concurrency, duration, new LoadRunReport(options.getOrDefault("label", "closed@" + concurrency), model));
+        } else {
+            throw new IllegalArgumentException("Unknown model: " + model + " (expected open or closed)");
+        }
+
+        report.print(System.out);
+        if (options.containsKey("output")) {
+            report.save(Path.of(options.get("output")));
+            System.out.println("Report written to " + options.get("output"));
+        }
+    }
+
+    /**
+     * Fixed arrival rate. Each request runs on its own virtual thread so a slow response
+     * never delays the next arrival.
+     */
+    public LoadRunReport runOpen(double requestsPerSecond, Duration duration, LoadRunReport report) {
+        if (duration.isZero()) {
+            return report;
+        }
+        long intervalNanos = (long) (1_000_000_000L / requestsPerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Scenario scenario = mix.next();
+                executor.submit(() -> send(scenario, intendedStart, report));
+            }
+        }
+        report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Fixed number of users with zero think time.
+     */
+    public LoadRunReport runClosed(int concurrency, Duration duration, LoadRunReport report) {
+        if (duration.isZero()) {
+            return report;
+        }
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < concurrency; user++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        send(mix.next(), System.nanoTime(), report);
+                    }
+                });
+            }
+        }
+        report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    private void send(Scenario scenario, long startNanos, LoadRunReport report) {
+        try {
+            HttpResponse<Void> response = client.send(scenario.newRequest(target, requestTimeout),
+                    HttpResponse.BodyHandlers.discarding());
+            long latencyMicros = (System.nanoTime() - startNanos) / 1000;
+            if (response.statusCode() >= 400) {
+                report.recordError(scenario.getName(), "HTTP " + response.statusCode(), latencyMicros);
+            } else {
+                report.record(scenario.getName(), latencyMicros);
+            }
+        } catch (IOException e) {
+            report.recordError(scenario.getName(), e.getClass().getSimpleName(), (System.nanoTime() - startNanos) / 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if ("compare".equals(key)) {
+                if (i + 2 >= args.length) {
+                    throw new IllegalArgumentException("--compare expects two report files");
+                }
+                options.put(key, args[i + 1] + " " + args[i + 2]);
+                i += 2;
+            } else {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for --" + key);
+                }
+                options.put(key, args[++i]);
+            }
+        }
+        return options;
+    }
+
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+}
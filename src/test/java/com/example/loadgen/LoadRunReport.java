@@ -0,0 +1,200 @@
+package com.example.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, error and throughput results of one load run.
+ * Latencies are recorded in microseconds. Histograms are stored in the saved
+ * report in HdrHistogram's compressed form so that two runs can be compared
+ * without losing any percentile resolution.
+ */
+public class LoadRunReport {
+
+    static final long HIGHEST_TRACKABLE_MICROS = 60_000_000L;
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private final String label;
+    private final String mode;
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder completed = new LongAdder();
+    private long durationMillis;
+
+    public LoadRunReport(String label, String mode) {
+        this.label = label;
+        this.mode = mode;
+    }
+
+    public void record(String scenario, long latencyMicros) {
+        histogram(scenario).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+        completed.increment();
+    }
+
+    public void recordError(String scenario, String cause, long latencyMicros) {
+        errors.computeIfAbsent(scenario + " " + cause, k -> new LongAdder()).increment();
+        record(scenario, latencyMicros);
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public double getThroughput() {
+        return durationMillis == 0 ? 0 : getCompleted() * 1000.0 / durationMillis;
+    }
+
+    public Map<String, Histogram> getLatencies() {
+        return new TreeMap<>(latencies);
+    }
+
+    public Map<String, Long> getErrors() {
+        Map<String, Long> result = new TreeMap<>();
+        errors.forEach((key, count) -> result.put(key, count.sum()));
+        return result;
+    }
+
+    public Histogram getOverall() {
+        Histogram overall = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        latencies.values().forEach(overall::add);
+        return overall;
+    }
+
+    private Histogram histogram(String scenario) {
+        return latencies.computeIfAbsent(scenario,
+                k -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n=== %s (%s model) ===%n", label, mode);
+        out.printf("Duration: %.1fs  Completed: %d  Errors: %d  Throughput: %.1f req/s%n",
+                durationMillis / 1000.0, getCompleted(), getErrorCount(), getThroughput());
+        out.printf("%-24s %9s %10s %10s %10s %10s %10s %10s%n",
+                "scenario", "count", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "p99.99(ms)", "max(ms)");
+        getLatencies().forEach((name, histogram) -> printRow(out, name, histogram));
+        printRow(out, "ALL", getOverall());
+        if (!errors.isEmpty()) {
+            out.println("Errors:");
+            getErrors().forEach((key, count) -> out.printf("  %-40s %d%n", key, count));
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-24s %9d", name, histogram.getTotalCount());
+        for (double percentile : PERCENTILES) {
+            out.printf(" %10.2f", histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        out.printf(" %10.2f%n", histogram.getMaxValue() / 1000.0);
+    }
+
+    public void save(Path file) throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("label", label);
+        root.put("mode", mode);
+        root.put("durationMillis", durationMillis);
+        root.put("completed", getCompleted());
+        root.put("errorCount", getErrorCount());
+        root.put("throughput", getThroughput());
+        ObjectNode histograms = root.putObject("latencies");
+        getLatencies().forEach((name, histogram) -> histograms.put(name, encode(histogram)));
+        ObjectNode errorNode = root.putObject("errors");
+        getErrors().forEach(errorNode::put);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        MAPPER.writeValue(file.toFile(), root);
+    }
+
+    public static LoadRunReport load(Path file) throws IOException {
+        JsonNode root = MAPPER.readTree(file.toFile());
+        LoadRunReport report = new LoadRunReport(root.path("label").asText(file.getFileName().toString()),
+                root.path("mode").asText("unknown"));
+        report.durationMillis = root.path("durationMillis").asLong();
+        Iterator<Map.Entry<String, JsonNode>> histograms = root.path("latencies").fields();
+        while (histograms.hasNext()) {
+            Map.Entry<String, JsonNode> entry = histograms.next();
+            Histogram histogram = decode(entry.getValue().asText());
+            report.latencies.put(entry.getKey(), histogram);
+            report.completed.add(histogram.getTotalCount());
+        }
+        Iterator<Map.Entry<String, JsonNode>> errorNodes = root.path("errors").fields();
+        while (errorNodes.hasNext()) {
+            Map.Entry<String, JsonNode> entry = errorNodes.next();
+            report.errors.computeIfAbsent(entry.getKey(), k -> new LongAdder()).add(entry.getValue().asLong());
+        }
+        return report;
+    }
+
+    /**
+     * Summary figures used by {@link RunComparison}, keyed by a readable metric name.
+     */
+    public static Map<String, Double> summary(Histogram histogram) {
+        Map<String, Double> summary = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            summary.put("p" + formatPercentile(percentile), histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        summary.put("max", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        } catch (java.util.zip.DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt histogram in saved report", e);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.loadgen;
+
+import com.example.kyc.schema.ConditionalSchemaResolver;
+import com.example.kyc.schema.EffectiveSchema;
+import com.example.kyc.schema.InputDimension;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Measures what conditional requirement schemas save an onboarding form, against a running
+ * KycRulesApplication.
+ *
+ * <p>First every customer type and account type is checked: the conditional schema
+ * ({@code ?mode=conditional}) is resolved locally for every combination of probe answers
+ * and compared with the full schema the service returns for the same answers. Any
+ * difference fails the run.
+ *
+ * <p>Then simulated journeys are replayed. An applicant opens the form, answers nationality,
+ * PEP status and initial deposit, and sometimes revises an answer. A full-schema client
+ * fetches the requirements again after every answer, because it cannot know which answers
+ * matter; a conditional client fetches once and resolves each answer locally. The report
+ * shows requirement calls, bytes and time per journey for both.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.OnboardingJourneyBenchmark \
+ *       -Dexec.args="--journeys 500 --seed 42"
+ * </pre>
+ */
+public class OnboardingJourneyBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> NATIONALITIES = List.of("SINGAPORE", "SINGAPORE", "SINGAPORE", "MALAYSIA", "INDIA", "CHINA");
+
+    private final URI target;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private long calls;
+    private long bytes;
+    private long waitNanos;
+
+    public OnboardingJourneyBenchmark(URI target) {
+        this.target = target;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        URI target = URI.create(options.getOrDefault("target", "http://localhost:8080"));
+        int journeys = Integer.parseInt(options.getOrDefault("journeys", "500"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        boolean verify = Boolean.parseBoolean(options.getOrDefault("verify", "true"));
+
+        OnboardingJourneyBenchmark benchmark = new OnboardingJourneyBenchmark(target);
+        if (verify && !benchmark.verifyMatrix()) {
+            System.exit(1);
+        }
+        benchmark.replayJourneys(journeys, new Random(seed));
+    }
+
+    /**
+     * Compares conditional and full schemas for every profile and probe answer combination.
+     */
+    boolean verifyMatrix() throws IOException, InterruptedException {
+        List<String> customerTypes = codes(get("/api/v1/kyc/customer-types"), "customerTypes");
+        List<String> accountTypes = codes(get("/api/v1/kyc/account-types"), "accountTypes");
+        List<List<Object>> probes = probeCombinations();
+        int compared = 0;
+        int mismatches = 0;
+        for (String customerType : customerTypes) {
+            for (String accountType : accountTypes) {
+                JsonNode conditional = requirements(customerType, accountType, List.of(), true);
+                if (!"conditional".equals(conditional.path("x-metadata").path("schemaMode").asText())) {
+                    System.out.printf("%s/%s: service fell back to full schemas%n", customerType, accountType);
+                    mismatches++;
+                    continue;
+                }
+                for (List<Object> answers : probes) {
+                    JsonNode full = requirements(customerType, accountType, answers, false);
+                    Optional<String> difference = ConditionalSchemaResolver
+                            .resolve(conditional, answerDocument(answers))
+                            .difference(EffectiveSchema.of(full));
+                    compared++;
+                    if (difference.isPresent()) {
+                        mismatches++;
+                        System.out.printf("MISMATCH %s/%s %s: %s%n", customerType, accountType, answers, difference.get());
+                    }
+                }
+            }
+        }
+        System.out.printf("Verified %d profiles x %d answer combinations: %d compared, %d mismatches%n",
+                customerTypes.size() * accountTypes.size(), probes.size(), compared, mismatches);
+        return mismatches == 0;
+    }
+
+    void replayJourneys(int journeys, Random random) throws IOException, InterruptedException {
+        List<String> accountTypes = codes(get("/api/v1/kyc/account-types"), "accountTypes");
+        long fullCalls = 0, fullBytes = 0, fullWait = 0;
+        long conditionalCalls = 0, conditionalBytes = 0, conditionalWait = 0, resolveNanos = 0;
+        int steps = 0;
+
+        for (int journey = 0; journey < journeys; journey++) {
+            String customerType = random.nextInt(5) == 0 ? "FOREIGNER" : "INDIVIDUAL";
+            String accountType = accountTypes.get(random.nextInt(accountTypes.size()));
+            List<List<Object>> answerSteps = journeySteps(random);
+            steps += answerSteps.size();
+
+            // Full schemas: one call per answer change
+            resetCounters();
+            List<JsonNode> fullSchemas = new ArrayList<>();
+            for (List<Object> answers : answerSteps) {
+                fullSchemas.add(requirements(customerType, accountType, answers, false));
+            }
+            fullCalls += calls;
+            fullBytes += bytes;
+            fullWait += waitNanos;
+
+            // Conditional schema: one call, every answer resolved locally
+            resetCounters();
+            JsonNode conditional = requirements(customerType, accountType, List.of(), true);
+            conditionalCalls += calls;
+            conditionalBytes += bytes;
+            conditionalWait += waitNanos;
+            for (int step = 0; step < answerSteps.size(); step++) {
+                long start = System.nanoTime();
+                EffectiveSchema resolved = ConditionalSchemaResolver.resolve(conditional, answerDocument(answerSteps.get(step)));
+                resolveNanos += System.nanoTime() - start;
+                Optional<String> difference = resolved.difference(EffectiveSchema.of(fullSchemas.get(step)));
+                if (difference.isPresent()) {
+                    throw new IllegalStateException("Journey " + journey + " step " + step + ": " + difference.get());
+                }
+            }
+        }
+
+        System.out.printf("%nOnboarding journeys: %d (%.1f answer states per journey)%n", journeys, (double) steps / journeys);
+        System.out.printf("%-12s %14s %16s %18s%n", "mode", "calls/journey", "KB/journey", "wait ms/journey");
+        System.out.printf("%-12s %14.2f %16.1f %18.2f%n", "full",
+                (double) fullCalls / journeys, fullBytes / 1024.0 / journeys, fullWait / 1e6 / journeys);
+        System.out.printf("%-12s %14.2f %16.1f %18.2f%n", "conditional",
+                (double) conditionalCalls / journeys, conditionalBytes / 1024.0 / journeys, conditionalWait / 1e6 / journeys);
+        System.out.printf("Local resolution: %.1f us per answer state%n", resolveNanos / 1000.0 / steps);
+    }
+
+    /**
+     * Answer states of one journey: the empty form, then nationality, PEP status and initial
+     * deposit in turn, and occasionally a revised deposit or nationality.
+     */
+    private static List<List<Object>> journeySteps(Random random) {
+        String nationality = NATIONALITIES.get(random.nextInt(NATIONALITIES.size()));
+        boolean pep = random.nextInt(20) == 0;
+        List<List<Object>> steps = new ArrayList<>();
+        steps.add(answers(null, null, null));
+        steps.add(answers(null, nationality, null));
+        steps.add(answers(pep, nationality, null));
+        Object deposit = deposit(random);
+        steps.add(answers(pep, nationality, deposit));
+        if (random.nextInt(10) < 3) {
+            deposit = deposit(random);
+            steps.add(answers(pep, nationality, deposit));
+        }
+        if (random.nextInt(10) == 0) {
+            steps.add(answers(pep, NATIONALITIES.get(random.nextInt(NATIONALITIES.size())), deposit));
+        }
+        return steps;
+    }
+
+    private static Object deposit(Random random) {
+        int band = random.nextInt(20);
+        if (band < 12) {
+            return 1000 + random.nextInt(19000);
+        }
+        return band < 17 ? 20000 + random.nextInt(30000) : 50000 + random.nextInt(450000);
+    }
+
+    // Answers in InputDimension order: pep, nationality, initialDeposit
+    private static List<Object> answers(Object pep, Object nationality, Object initialDeposit) {
+        List<Object> answers = new ArrayList<>();
+        answers.add(pep);
+        answers.add(nationality);
+        answers.add(initialDeposit);
+        return answers;
+    }
+
+    private JsonNode requirements(String customerType, String accountType, List<Object> answers, boolean conditional)
+            throws IOException, InterruptedException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("customerType", customerType);
+        body.put("accountType", accountType);
+        List<InputDimension> dimensions = InputDimension.individualDimensions();
+        for (int dim = 0; dim < answers.size(); dim++) {
+            body.put(dimensions.get(dim).getName(), answers.get(dim));
+        }
+        String path = "/api/v1/kyc/requirements" + (conditional ? "?mode=conditional" : "");
+        HttpRequest request = HttpRequest.newBuilder(target.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                .build();
+        return send(request);
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(target.resolve(path)).GET().build());
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        waitNanos += System.nanoTime() - start;
+        calls++;
+        bytes += response.body().length;
+        if (response.statusCode() >= 400) {
+            throw new IOException("HTTP " + response.statusCode() + " for " + request.uri());
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    private void resetCounters() {
+        calls = 0;
+        bytes = 0;
+        waitNanos = 0;
+    }
+
+    private static List<String> codes(JsonNode response, String key) {
+        List<String> codes = new ArrayList<>();
+        response.path(key).forEach(code -> codes.add(code.asText()));
+        return codes;
+    }
+
+    private static List<List<Object>> probeCombinations() {
+        List<List<Object>> combinations = new ArrayList<>();
+        combinations.add(List.of());
+        for (InputDimension dimension : InputDimension.individualDimensions()) {
+            List<List<Object>> expanded = new ArrayList<>();
+            for (List<Object> combination : combinations) {
+                for (Object probe : dimension.getProbes()) {
+                    List<Object> extended = new ArrayList<>(combination);
+                    extended.add(probe);
+                    expanded.add(extended);
+                }
+            }
+            combinations = expanded;
+        }
+        return combinations;
+    }
+
+    private static JsonNode answerDocument(List<Object> answers) {
+        List<InputDimension> dimensions = InputDimension.individualDimensions();
+        Map<String, Object> profile = new LinkedHashMap<>();
+        for (int dim = 0; dim < answers.size(); dim++) {
+            if (answers.get(dim) != null) {
+                profile.put(dimensions.get(dim).getName(), answers.get(dim));
+            }
+        }
+        return MAPPER.valueToTree(Map.of(InputDimension.ANSWERS, profile));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.loadgen;
+
+import com.example.kyc.config.DroolsConfig;
+import org.HdrHistogram.Histogram;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares sequential evaluation with Drools' parallel network evaluation
+ * ({@code ParallelExecutionOption.PARALLEL_EVALUATION}, see {@link DroolsConfig#kieBase}) over
+ * profiles that fire from a dozen to a few dozen rules, with one or more concurrent callers.
+ * Each caller creates a session, inserts the profile, fires and disposes, as the service
+ * does. The modes take turns in short rounds so JIT warm-up does not favour the last one,
+ * and the outputs of both modes are checked to be identical.
+ *
+ * <p>Parallel evaluation needs free cores, so run the benchmark once per core count, e.g. with
+ * {@code -XX:ActiveProcessorCount=N} or {@code taskset}. The available processors are printed
+ * with the results.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.ParallelEvaluationBenchmark \
+ *       -Dexec.args="--callers 1,4 --rounds 10 --iterations 1000"
+ * </pre>
+ */
+public class ParallelEvaluationBenchmark {
+
+    private static final Map<String, Map<String, Object>> PROFILES = new LinkedHashMap<>();
+
+    static {
+        PROFILES.put("INDIVIDUAL SAVINGS", Map.of("customerType", "INDIVIDUAL", "accountType", "SAVINGS"));
+        PROFILES.put("FOREIGNER CURRENT", Map.of("customerType", "FOREIGNER", "accountType", "CURRENT",
+                "nationality", "MALAYSIA"));
+        PROFILES.put("INDIVIDUAL INVESTMENT PEP 250k", Map.of("customerType", "INDIVIDUAL", "accountType", "INVESTMENT",
+                "pep", true, "nationality", "MALAYSIA", "initialDeposit", 250000));
+        PROFILES.put("CORPORATE CASA", Map.of("customerType", "CORPORATE", "product", "CASA"));
+        PROFILES.put("CORPORATE FX", Map.of("customerType", "CORPORATE", "product", "FX"));
+        PROFILES.put("CORPORATE TRADING", Map.of("customerType", "CORPORATE", "product", "TRADING"));
+    }
+
+    private record Evaluation(int rulesFired, List<Object> output) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        int[] callers = Arrays.stream(options.getOrDefault("callers", "1,4").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "10"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "1000"));
+
+        KieServices kieServices = KieServices.Factory.get();
+        KieContainer kieContainer = DroolsConfig.compile(kieServices);
+        Map<String, KieBase> kieBases = new LinkedHashMap<>();
+        kieBases.put("sequential", DroolsConfig.kieBase(kieServices, kieContainer, false));
+        kieBases.put("parallel", DroolsConfig.kieBase(kieServices, kieContainer, true));
+
+        System.out.printf("%d available processors, %d rounds of %d evaluations per caller%n%n",
+                Runtime.getRuntime().availableProcessors(), rounds, iterations);
+        System.out.printf("%-32s %6s %8s %-11s %8s %8s %10s %9s%n", "profile", "fired", "callers", "mode",
+                "p50 us", "p99 us", "evals/s", "p50 gain");
+        try (ExecutorService executor = Executors.newCachedThreadPool()) {
+            for (Map.Entry<String, Map<String, Object>> profile : PROFILES.entrySet()) {
+                Evaluation sequential = evaluate(kieBases.get("sequential"), profile.getValue());
+                Evaluation parallel = evaluate(kieBases.get("parallel"), profile.getValue());
+                if (!sequential.equals(parallel)) {
+                    throw new IllegalStateException("Modes disagree for " + profile.getKey() + ": " + sequential
+                            + " != " + parallel);
+                }
+                for (int callerCount : callers) {
+                    run(executor, kieBases, profile.getKey(), profile.getValue(), sequential.rulesFired(), callerCount,
+                            rounds, iterations);
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(ExecutorService executor, Map<String, KieBase> kieBases, String name,
+                            Map<String, Object> profile, int rulesFired, int callers, int rounds, int iterations)
+            throws Exception {
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        Map<String, Long> elapsedNanos = new LinkedHashMap<>();
+        for (int round = -1; round < rounds; round++) {
+            for (Map.Entry<String, KieBase> kieBase : kieBases.entrySet()) {
+                // The first round warms up both modes and is not recorded
+                Histogram histogram = round < 0 ? new Histogram(3)
+                        : latencies.computeIfAbsent(kieBase.getKey(), key -> new Histogram(3));
+                long start = System.nanoTime();
+                List<Future<Histogram>> pending = new ArrayList<>();
+                for (int caller = 0; caller < callers; caller++) {
+                    pending.add(executor.submit(() -> {
+                        Histogram own = new Histogram(3);
+                        for (int i = 0; i < iterations; i++) {
+                            long begin = System.nanoTime();
+                            evaluate(kieBase.getValue(), profile);
+                            own.recordValue((System.nanoTime() - begin) / 1000);
+                        }
+                        return own;
+                    }));
+                }
+                for (Future<Histogram> future : pending) {
+                    histogram.add(future.get());
+                }
+                if (round >= 0) {
+                    elapsedNanos.merge(kieBase.getKey(), System.nanoTime() - start, Long::sum);
+                }
+            }
+        }
+
+        double baseline = latencies.get("sequential").getValueAtPercentile(50);
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            double perSecond = histogram.getTotalCount() * 1e9 / elapsedNanos.get(entry.getKey());
+            System.out.printf("%-32s %6d %8d %-11s %8d %8d %10.0f %8.1f%%%n", name, rulesFired, callers, entry.getKey(),
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99), perSecond,
+                    (1 - histogram.getValueAtPercentile(50) / baseline) * 100);
+        }
+    }
+
+    private static Evaluation evaluate(KieBase kieBase, Map<String, Object> profile) {
+        List<Object> fields = new ArrayList<>();
+        List<Object> rules = new ArrayList<>();
+        List<Object> documents = new ArrayList<>();
+        List<Object> instructions = new ArrayList<>();
+        Map<String, Object> responseData = new HashMap<>(Map.of("riskLevel", "LOW",
+                "enhancedDueDiligenceRequired", false, "estimatedProcessingDays", 3));
+        KieSession session = kieBase.newKieSession();
+        try {
+            session.setGlobal("fieldsList", fields);
+            session.setGlobal("rulesList", rules);
+            session.setGlobal("documentsList", documents);
+            session.setGlobal("instructionsList", instructions);
+            session.setGlobal("responseData", responseData);
+            session.insert(new HashMap<>(profile));
+            int fired = session.fireAllRules();
+            return new Evaluation(fired, List.of(fields, rules, documents, instructions, responseData));
+        } finally {
+            session.dispose();
+        }
+    }
+}
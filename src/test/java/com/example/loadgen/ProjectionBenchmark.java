@@ -0,0 +1,232 @@
+package com.example.loadgen;
+
+import com.example.kyc.KycRulesApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Measures projection-aware evaluation ({@code ?projection=}) of the requirement functions.
+ *
+ * <p>The tool starts the application context in-process without the web and gRPC servers and
+ * calls the function beans directly, so the timings cover rule evaluation and response
+ * building only. For every profile and projection it first checks that the projected
+ * response holds exactly the requested categories of the full response, unchanged apart
+ * from their x-category-order, and the same risk level, documents, instructions and
+ * processing days. Any difference fails the run. It then reports latency per projection,
+ * along with the rules applied and the response size.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.ProjectionBenchmark \
+ *       -Dexec.args="--iterations 2000"
+ * </pre>
+ */
+public class ProjectionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> OUTCOME_KEYS = List.of("riskLevel", "enhancedDueDiligenceRequired",
+            "estimatedProcessingDays", "requiredDocuments", "specialInstructions", "productType");
+    private static final List<String> INDIVIDUAL_PROJECTIONS = List.of("full", "metadata", "IDENTIFICATION",
+            "PERSONAL_DETAILS,CONTACT_DETAILS", "FINANCIAL,PEP_DECLARATION");
+    private static final List<String> CORPORATE_PROJECTIONS = List.of("full", "metadata", "DIRECTORS_SHAREHOLDERS",
+            "COMPANY_INFORMATION,AML_CFT");
+
+    private final Function<Map<String, Object>, Map<String, Object>> individual;
+    private final Function<Map<String, Object>, Map<String, Object>> corporate;
+
+    /**
+     * A request of one segment, evaluated with each of the segment's projections.
+     */
+    private record Profile(String name, boolean corporate, Map<String, Object> request) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public ProjectionBenchmark(ConfigurableApplicationContext context) {
+        this.individual = context.getBean("getKycRequirements", Function.class);
+        this.corporate = context.getBean("getCorporateKycRequirements", Function.class);
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "2000"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KycRulesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--kyc.grpc.enabled=false", "--kyc.schema-store.enabled=false",
+                        "--logging.level.com.example.kyc=WARN");
+        int status = 0;
+        try {
+            ProjectionBenchmark benchmark = new ProjectionBenchmark(context);
+            List<Profile> profiles = profiles();
+            if (benchmark.verify(profiles)) {
+                benchmark.report(profiles, iterations);
+            } else {
+                status = 1;
+            }
+        } finally {
+            context.close();
+        }
+        System.exit(status);
+    }
+
+    private static List<Profile> profiles() {
+        List<Profile> profiles = new ArrayList<>();
+        for (String customerType : List.of("INDIVIDUAL", "FOREIGNER", "CORPORATE")) {
+            for (String accountType : List.of("SAVINGS", "CURRENT", "FIXED_DEPOSIT", "INVESTMENT", "LOAN", "CREDIT_CARD")) {
+                for (Map<String, Object> answers : List.<Map<String, Object>>of(Map.of(), Map.of("pep", true),
+                        Map.of("nationality", "MALAYSIA", "initialDeposit", 60000))) {
+                    Map<String, Object> request = new HashMap<>(answers);
+                    request.put("customerType", customerType);
+                    request.put("accountType", accountType);
+                    profiles.add(new Profile(customerType + "/" + accountType + answers, false, request));
+                }
+            }
+        }
+        for (String product : List.of("CASA", "FX", "TRADING")) {
+            profiles.add(new Profile("CORPORATE/" + product, true, Map.of("product", product)));
+        }
+        return profiles;
+    }
+
+    private boolean verify(List<Profile> profiles) {
+        int compared = 0;
+        int mismatches = 0;
+        for (Profile profile : profiles) {
+            JsonNode full = toTree(evaluate(profile, "full"));
+            for (String projection : projections(profile)) {
+                JsonNode projected = toTree(evaluate(profile, projection));
+                String difference = difference(full, projected, projection);
+                compared++;
+                if (difference != null) {
+                    mismatches++;
+                    System.out.printf("MISMATCH %s projection=%s: %s%n", profile.name(), projection, difference);
+                }
+            }
+        }
+        System.out.printf("Verified %d profiles: %d projections compared, %d mismatches%n",
+                profiles.size(), compared, mismatches);
+        return mismatches == 0;
+    }
+
+    /**
+     * Null when the projected response is the full response narrowed to the projection.
+     */
+    private static String difference(JsonNode full, JsonNode projected, String projection) {
+        for (String key : OUTCOME_KEYS) {
+            JsonNode expected = full.path("x-metadata").path(key);
+            JsonNode actual = projected.path("x-metadata").path(key);
+            if (!expected.equals(actual)) {
+                return key + " " + actual + " instead of " + expected;
+            }
+        }
+        List<String> expectedCategories = new ArrayList<>();
+        full.path("properties").fieldNames().forEachRemaining(category -> {
+            if (projection.equals("full") || (!projection.equals("metadata")
+                    && List.of(projection.toLowerCase(Locale.ROOT).split(",")).contains(category))) {
+                expectedCategories.add(category);
+            }
+        });
+        List<String> actualCategories = new ArrayList<>();
+        projected.path("properties").fieldNames().forEachRemaining(actualCategories::add);
+        if (!expectedCategories.equals(actualCategories)) {
+            return "categories " + actualCategories + " instead of " + expectedCategories;
+        }
+        for (String category : expectedCategories) {
+            // x-category-order counts the categories present, so it is relative to the projection
+            ObjectNode expected = full.path("properties").get(category).deepCopy();
+            ObjectNode actual = projected.path("properties").get(category).deepCopy();
+            expected.remove("x-category-order");
+            actual.remove("x-category-order");
+            if (!expected.equals(actual)) {
+                return "category " + category + " differs";
+            }
+        }
+        return null;
+    }
+
+    private void report(List<Profile> profiles, int iterations) {
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        Map<String, long[]> totals = new LinkedHashMap<>();
+
+        // Warm up every projection before timing
+        for (int i = 0; i < Math.max(1, iterations / 4); i++) {
+            for (Profile profile : profiles) {
+                projections(profile).forEach(projection -> evaluate(profile, projection));
+            }
+        }
+
+        for (int i = 0; i < iterations; i++) {
+            for (Profile profile : profiles) {
+                for (String projection : projections(profile)) {
+                    String label = (profile.corporate() ? "corporate " : "individual ") + projection;
+                    long start = System.nanoTime();
+                    Map<String, Object> response = evaluate(profile, projection);
+                    long micros = (System.nanoTime() - start) / 1000;
+                    latencies.computeIfAbsent(label, key -> new Histogram(3)).recordValue(micros);
+                    if (i == 0) {
+                        long[] sums = totals.computeIfAbsent(label, key -> new long[3]);
+                        JsonNode metadata = toTree(response).path("x-metadata");
+                        sums[0] += metadata.path("appliedRules").size();
+                        sums[1] += metadata.path("totalRequiredFields").asLong() + metadata.path("totalOptionalFields").asLong();
+                        sums[2] += toBytes(response);
+                    }
+                }
+            }
+        }
+
+        System.out.printf("%n%-50s %8s %8s %8s %8s %8s %9s%n", "projection", "mean us", "p50 us", "p99 us",
+                "rules", "fields", "bytes");
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long[] sums = totals.get(entry.getKey());
+            long count = histogram.getTotalCount() / iterations;
+            System.out.printf("%-50s %8.1f %8d %8d %8.1f %8.1f %9d%n", entry.getKey(), histogram.getMean(),
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                    (double) sums[0] / count, (double) sums[1] / count, sums[2] / count);
+        }
+    }
+
+    private static List<String> projections(Profile profile) {
+        return profile.corporate() ? CORPORATE_PROJECTIONS : INDIVIDUAL_PROJECTIONS;
+    }
+
+    private Map<String, Object> evaluate(Profile profile, String projection) {
+        Map<String, Object> request = new HashMap<>(profile.request());
+        if (!projection.equals("full")) {
+            request.put("projection", projection);
+        }
+        return (profile.corporate() ? corporate : individual).apply(request);
+    }
+
+    private static int toBytes(Map<String, Object> response) {
+        try {
+            return MAPPER.writeValueAsBytes(response).length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serialize response", e);
+        }
+    }
+
+    // Round trip through JSON so pre-serialized schema fragments become plain nodes
+    private static JsonNode toTree(Map<String, Object> response) {
+        try {
+            return MAPPER.readTree(MAPPER.writeValueAsBytes(response));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serialize response", e);
+        }
+    }
+}
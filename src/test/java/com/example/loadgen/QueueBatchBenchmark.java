@@ -0,0 +1,266 @@
+package com.example.loadgen;
+
+import com.example.kyc.KycRulesApplication;
+import com.example.kyc.queue.KycBatchProcessor;
+import com.example.kyc.queue.KycQueueResult;
+import com.example.kyc.queue.KycResultSink;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Exercises the queue batch handler (processKycQueueBatch) with synthetic SQS events.
+ *
+ * <p>The tool starts the application context in-process without the web and gRPC servers.
+ * It first sends one event mixing valid records, duplicates, a malformed body, an invalid
+ * request, a request whose evaluation is stopped and records whose sink write fails, and
+ * checks that batchItemFailures names exactly the stopped and unwritten records, that
+ * rejected records are written rather than retried, and that duplicates get their own
+ * referenceId. Any difference fails the run.
+ *
+ * <p>It then measures throughput per batch size, with and without de-duplication. Records are
+ * drawn at random from the individual, individual product and corporate request profiles, and
+ * each invocation includes parsing the event JSON and serializing every result, as in Lambda.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.QueueBatchBenchmark \
+ *       -Dexec.args="--messages 20000 --batch-sizes 1,10,100,1000"
+ * </pre>
+ */
+public class QueueBatchBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> EVENT_TYPE = new TypeReference<>() {
+    };
+
+    private final Function<Map<String, Object>, Map<String, Object>> individual;
+    private final Function<Map<String, Object>, Map<String, Object>> individualProduct;
+    private final Function<Map<String, Object>, Map<String, Object>> corporate;
+
+    @SuppressWarnings("unchecked")
+    public QueueBatchBenchmark(ConfigurableApplicationContext context) {
+        this.individual = context.getBean("getKycRequirements", Function.class);
+        this.individualProduct = context.getBean("getIndividualProductKycRequirements", Function.class);
+        this.corporate = context.getBean("getCorporateKycRequirements", Function.class);
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        int messages = Integer.parseInt(options.getOrDefault("messages", "20000"));
+        List<Integer> batchSizes = new ArrayList<>();
+        for (String size : options.getOrDefault("batch-sizes", "1,10,100,1000").split(",")) {
+            batchSizes.add(Integer.parseInt(size.trim()));
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KycRulesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--kyc.grpc.enabled=false", "--kyc.schema-store.enabled=false",
+                        "--logging.level.com.example.kyc=WARN");
+        int status = 0;
+        try {
+            QueueBatchBenchmark benchmark = new QueueBatchBenchmark(context);
+            if (benchmark.verify()) {
+                benchmark.report(messages, batchSizes);
+            } else {
+                status = 1;
+            }
+        } finally {
+            context.close();
+        }
+        System.exit(status);
+    }
+
+    private boolean verify() {
+        // Stand-in for a runaway rule: the individual function reports a stopped evaluation
+        Function<Map<String, Object>, Map<String, Object>> stoppable = request -> "DRILL".equals(request.get("accountType"))
+                ? Map.of("error", true, "reason", "DEADLINE_EXCEEDED", "message", "Rule evaluation exceeded the deadline")
+                : individual.apply(request);
+        KycBatchProcessor processor = new KycBatchProcessor(stoppable, individualProduct, corporate, MAPPER, true);
+
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m2", "{\"accountType\":\"SAVINGS\",\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m3", "{\"product\":\"CREDIT_CARD\",\"pep\":true}");
+        bodies.put("m4", "{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}");
+        bodies.put("m5", "{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}");
+        bodies.put("m6", "not json");
+        bodies.put("m7", "{\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m8", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}");
+        bodies.put("m9", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}");
+        bodies.put("m10", "{\"customerType\":\"FOREIGNER\",\"accountType\":\"LOAN\"}");
+        Set<String> unwritable = Set.of("m5", "m10");
+
+        Map<String, KycQueueResult> written = new LinkedHashMap<>();
+        KycResultSink sink = result -> {
+            if (unwritable.contains(result.messageId())) {
+                throw new IOException("sink unavailable");
+            }
+            written.put(result.messageId(), toTree(result));
+        };
+        Map<String, Object> response = processor.handle(event(bodies), sink);
+
+        List<String> problems = new ArrayList<>();
+        Set<String> failures = new TreeSet<>();
+        for (Object failure : (List<?>) response.get("batchItemFailures")) {
+            failures.add((String) ((Map<?, ?>) failure).get("itemIdentifier"));
+        }
+        Set<String> expectedFailures = new TreeSet<>(Set.of("m5", "m8", "m9", "m10"));
+        if (!failures.equals(expectedFailures)) {
+            problems.add("batchItemFailures " + failures + " instead of " + expectedFailures);
+        }
+        for (String id : List.of("m1", "m2", "m3", "m4")) {
+            if (written.get(id) == null || written.get(id).status() != KycQueueResult.Status.EVALUATED) {
+                problems.add(id + " not written as EVALUATED");
+            }
+        }
+        for (String id : List.of("m6", "m7")) {
+            if (written.get(id) == null || written.get(id).status() != KycQueueResult.Status.REJECTED) {
+                problems.add(id + " not written as REJECTED");
+            }
+        }
+        if (written.get("m1") != null && written.get("m2") != null) {
+            Map<?, ?> first = (Map<?, ?>) written.get("m1").response().get("x-metadata");
+            Map<?, ?> second = (Map<?, ?>) written.get("m2").response().get("x-metadata");
+            if (first.get("referenceId").equals(second.get("referenceId"))) {
+                problems.add("duplicates m1 and m2 share a referenceId");
+            }
+            if (!written.get("m1").response().get("properties").equals(written.get("m2").response().get("properties"))) {
+                problems.add("duplicates m1 and m2 have different schemas");
+            }
+        }
+
+        problems.forEach(problem -> System.out.println("FAILED " + problem));
+        System.out.printf("Verified partial batch failures for %d records: %s, %d problems%n",
+                bodies.size(), failures, problems.size());
+        return problems.isEmpty();
+    }
+
+    private void report(int messages, List<Integer> batchSizes) {
+        List<String> pool = requestBodies();
+        LongAdder bytes = new LongAdder();
+        KycResultSink sink = result -> bytes.add(MAPPER.writeValueAsBytes(result).length);
+
+        // Warm up evaluation and serialization for every request before any timing
+        KycBatchProcessor warmup = new KycBatchProcessor(individual, individualProduct, corporate, MAPPER, false);
+        Random warmupRandom = new Random(7);
+        for (int i = 0; i < Math.max(1, messages / 100); i++) {
+            warmup.handle(parse(batchEvent(pool, 100, warmupRandom)), sink);
+        }
+
+        System.out.printf("%nRequest pool: %d distinct bodies, %d records per run%n", pool.size(), messages);
+        System.out.printf("%-12s %-8s %12s %10s %10s %10s %14s%n", "batch size", "dedupe", "records/s",
+                "mean ms", "p99 ms", "max ms", "evals/batch");
+        for (int batchSize : batchSizes) {
+            for (boolean deduplicate : List.of(false, true)) {
+                KycBatchProcessor processor = new KycBatchProcessor(individual, individualProduct, corporate,
+                        MAPPER, deduplicate);
+                Random random = new Random(42);
+                int batches = Math.max(1, messages / batchSize);
+
+                // Warm up with the same batch shape
+                for (int i = 0; i < Math.max(5, batches / 5); i++) {
+                    processor.handle(parse(batchEvent(pool, batchSize, random)), sink);
+                }
+
+                Histogram latency = new Histogram(3);
+                long evaluations = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < batches; i++) {
+                    String event = batchEvent(pool, batchSize, random);
+                    long batchStart = System.nanoTime();
+                    Map<String, Object> parsed = parse(event);
+                    evaluations += processor.process(KycBatchProcessor.messages(parsed), sink).evaluations();
+                    latency.recordValue((System.nanoTime() - batchStart) / 1000);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-12d %-8s %12.0f %10.2f %10.2f %10.2f %14.1f%n", batchSize, deduplicate,
+                        batches * batchSize / seconds, latency.getMean() / 1000,
+                        latency.getValueAtPercentile(99) / 1000.0, latency.getMaxValue() / 1000.0,
+                        (double) evaluations / batches);
+            }
+        }
+    }
+
+    // Individual profiles with and without extra answers, individual products and corporate products
+    private static List<String> requestBodies() {
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (String customerType : List.of("INDIVIDUAL", "FOREIGNER", "CORPORATE")) {
+            for (String accountType : List.of("SAVINGS", "CURRENT", "FIXED_DEPOSIT", "INVESTMENT", "LOAN", "CREDIT_CARD")) {
+                for (Map<String, Object> answers : List.<Map<String, Object>>of(Map.of(), Map.of("pep", true),
+                        Map.of("nationality", "MALAYSIA", "initialDeposit", 60000))) {
+                    Map<String, Object> request = new HashMap<>(answers);
+                    request.put("customerType", customerType);
+                    request.put("accountType", accountType);
+                    requests.add(request);
+                }
+            }
+        }
+        for (String product : List.of("SAVINGS", "CREDIT_CARD", "INVESTMENT")) {
+            requests.add(Map.of("product", product));
+        }
+        for (String product : List.of("CASA", "FX", "TRADING")) {
+            requests.add(Map.of("customerType", "CORPORATE", "product", product));
+        }
+        List<String> bodies = new ArrayList<>();
+        for (Map<String, Object> request : requests) {
+            try {
+                bodies.add(MAPPER.writeValueAsString(request));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return bodies;
+    }
+
+    private static String batchEvent(List<String> pool, int batchSize, Random random) {
+        Map<String, String> bodies = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            bodies.put("msg-" + i, pool.get(random.nextInt(pool.size())));
+        }
+        try {
+            return MAPPER.writeValueAsString(event(bodies));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The fields of an SQS event that the handler reads
+    private static Map<String, Object> event(Map<String, String> bodies) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        bodies.forEach((messageId, body) -> records.add(Map.of("messageId", messageId, "body", body,
+                "eventSource", "aws:sqs")));
+        return Map.of("Records", records);
+    }
+
+    private static Map<String, Object> parse(String event) {
+        try {
+            return MAPPER.readValue(event, EVENT_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Results as the file sink would store them
+    private static KycQueueResult toTree(KycQueueResult result) throws IOException {
+        Map<String, Object> response = MAPPER.readValue(MAPPER.writeValueAsBytes(result.response()), EVENT_TYPE);
+        return new KycQueueResult(result.messageId(), result.status(), response);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Side-by-side comparison of two saved load runs.
+ * Positive deltas mean the candidate run is slower than the baseline.
+ */
+public class RunComparison {
+
+    private final LoadRunReport baseline;
+    private final LoadRunReport candidate;
+
+    public RunComparison(LoadRunReport baseline, LoadRunReport candidate) {
+        this.baseline = baseline;
+        this.candidate = candidate;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n=== Comparison: %s (baseline) vs %s (candidate) ===%n", baseline.getLabel(), candidate.getLabel());
+        out.printf("Throughput: %.1f -> %.1f req/s (%+.1f%%)%n",
+                baseline.getThroughput(), candidate.getThroughput(),
+                percentChange(baseline.getThroughput(), candidate.getThroughput()));
+        out.printf("Errors:     %d -> %d%n", baseline.getErrorCount(), candidate.getErrorCount());
+
+        Map<String, Histogram> baselineLatencies = baseline.getLatencies();
+        Map<String, Histogram> candidateLatencies = candidate.getLatencies();
+        TreeSet<String> scenarios = new TreeSet<>(baselineLatencies.keySet());
+        scenarios.addAll(candidateLatencies.keySet());
+
+        for (String scenario : scenarios) {
+            Histogram before = baselineLatencies.get(scenario);
+            Histogram after = candidateLatencies.get(scenario);
+            if (before == null || after == null) {
+                out.printf("%n%s: only present in %s run%n", scenario, before == null ? "candidate" : "baseline");
+                continue;
+            }
+            printScenario(out, scenario, before, after);
+        }
+        printScenario(out, "ALL", baseline.getOverall(), candidate.getOverall());
+    }
+
+    private void printScenario(PrintStream out, String scenario, Histogram before, Histogram after) {
+        out.printf("%n%s (%d vs %d samples)%n", scenario, before.getTotalCount(), after.getTotalCount());
+        Map<String, Double> beforeSummary = LoadRunReport.summary(before);
+        Map<String, Double> afterSummary = LoadRunReport.summary(after);
+        beforeSummary.forEach((metric, value) -> {
+            double candidateValue = afterSummary.get(metric);
+            out.printf("  %-8s %10.2f ms -> %10.2f ms  (%+.1f%%)%n",
+                    metric, value, candidateValue, percentChange(value, candidateValue));
+        });
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100.0 / before;
+    }
+}
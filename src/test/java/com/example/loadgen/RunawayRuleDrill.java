@@ -0,0 +1,210 @@
+package com.example.loadgen;
+
+import com.example.kyc.config.RuleSetFingerprint;
+import com.example.kyc.engine.KycRuleEngine;
+import com.example.kyc.engine.RuleEvaluationException;
+import com.example.kyc.store.PersistentSchemaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.runtime.KieContainer;
+import org.kie.internal.io.ResourceFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks the runaway-rule protection of {@link KycRuleEngine} by adding two broken rules to
+ * the service's rule base:
+ * <ul>
+ *   <li>a modify loop for TRUST customers, which fires until the firing cap stops it, and</li>
+ *   <li>a slow consequence that loops for PARTNERSHIP LOAN applicants, which runs until the
+ *       deadline halts the session.</li>
+ * </ul>
+ * The drill prints the error for each broken profile, shows the circuit breaker opening for
+ * a profile that keeps failing, and then runs mixed traffic (mostly healthy profiles, some
+ * broken ones) on a fixed pool of threads, once with the circuit breaker and once without.
+ * The report shows healthy-request throughput and latency, and how much worker time the
+ * broken profiles used.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.RunawayRuleDrill \
+ *       -Dexec.args="--deadline-ms 200 --threads 8 --seconds 10"
+ * </pre>
+ */
+public class RunawayRuleDrill {
+
+    private static final String BROKEN_RULES = """
+            package com.example.kyc.rules;
+
+            import java.util.Map;
+
+            rule "Drill - Modify Loop"
+                when
+                    $request : Map(this["customerType"] == "TRUST")
+                then
+                    update($request);
+            end
+
+            rule "Drill - Slow Consequence"
+                when
+                    $request : Map(this["customerType"] == "PARTNERSHIP", this["accountType"] == "LOAN")
+                then
+                    java.util.concurrent.locks.LockSupport.parkNanos(20_000_000L);
+                    update($request);
+            end
+            """;
+
+    private static final List<Map<String, Object>> HEALTHY = List.of(
+            profile("INDIVIDUAL", "SAVINGS"), profile("INDIVIDUAL", "INVESTMENT"),
+            profile("FOREIGNER", "CURRENT"), profile("CORPORATE", "LOAN"), profile("PARTNERSHIP", "SAVINGS"));
+    private static final List<Map<String, Object>> BROKEN = List.of(
+            profile("TRUST", "SAVINGS"), profile("TRUST", "CREDIT_CARD"), profile("PARTNERSHIP", "LOAN"));
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        long deadlineMillis = Long.parseLong(options.getOrDefault("deadline-ms", "200"));
+        int maxFirings = Integer.parseInt(options.getOrDefault("max-firings", "1000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int brokenPercent = Integer.parseInt(options.getOrDefault("broken-percent", "5"));
+
+        KieContainer container = containerWithBrokenRules();
+        KycRuleEngine engine = engine(container, deadlineMillis, maxFirings, 3);
+
+        System.out.println("Broken profiles:");
+        for (Map<String, Object> profile : BROKEN) {
+            evaluateOnce(engine, profile);
+        }
+
+        System.out.println("\nRepeated failures of one profile:");
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            System.out.printf("  attempt %d: ", attempt);
+            evaluateOnce(engine, profile("TRUST", "LOAN"));
+        }
+
+        System.out.printf("%nMixed traffic: %d threads, %d s, %d%% broken profiles, deadline %d ms, cap %d firings%n",
+                threads, seconds, brokenPercent, deadlineMillis, maxFirings);
+        System.out.printf("%-18s %12s %10s %10s %10s %14s %12s%n", "circuit breaker", "healthy/s", "p50 us",
+                "p99 us", "max us", "broken time %", "rejected");
+        mixedTraffic("enabled", engine(container, deadlineMillis, maxFirings, 3), threads, seconds, brokenPercent);
+        mixedTraffic("disabled", engine(container, deadlineMillis, maxFirings, 0), threads, seconds, brokenPercent);
+        container.dispose();
+    }
+
+    private static void evaluateOnce(KycRuleEngine engine, Map<String, Object> profile) {
+        long start = System.nanoTime();
+        try {
+            engine.evaluate(new HashMap<>(profile), Map.of());
+            System.out.printf("%s/%s completed%n", profile.get("customerType"), profile.get("accountType"));
+        } catch (RuleEvaluationException e) {
+            System.out.printf("%s/%s %s in %.1f ms: %s%n      active rules: %s%n",
+                    profile.get("customerType"), profile.get("accountType"), e.getReason(),
+                    (System.nanoTime() - start) / 1e6, e.getMessage(), e.getActiveRules());
+        }
+    }
+
+    private static void mixedTraffic(String label, KycRuleEngine engine, int threads, int seconds, int brokenPercent)
+            throws InterruptedException {
+        Histogram healthy = new ConcurrentHistogram(3);
+        LongAdder healthyNanos = new LongAdder();
+        LongAdder brokenNanos = new LongAdder();
+        Map<RuleEvaluationException.Reason, LongAdder> failures = new ConcurrentHashMap<>();
+        AtomicLong rejected = new AtomicLong();
+
+        // Warm up healthy profiles outside the measurement
+        for (int i = 0; i < 2000; i++) {
+            engine.evaluate(new HashMap<>(HEALTHY.get(i % HEALTHY.size())), Map.of());
+        }
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    boolean broken = random.nextInt(100) < brokenPercent;
+                    List<Map<String, Object>> profiles = broken ? BROKEN : HEALTHY;
+                    Map<String, Object> profile = new HashMap<>(profiles.get(random.nextInt(profiles.size())));
+                    long start = System.nanoTime();
+                    try {
+                        engine.evaluate(profile, Map.of());
+                    } catch (RuleEvaluationException e) {
+                        failures.computeIfAbsent(e.getReason(), reason -> new LongAdder()).increment();
+                        if (e.getReason() == RuleEvaluationException.Reason.CIRCUIT_OPEN) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    if (broken) {
+                        brokenNanos.add(elapsed);
+                    } else {
+                        healthy.recordValue(elapsed / 1000);
+                        healthyNanos.add(elapsed);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        double brokenShare = 100.0 * brokenNanos.sum() / Math.max(1, brokenNanos.sum() + healthyNanos.sum());
+        System.out.printf("%-18s %12.0f %10d %10d %10d %14.1f %12d   %s%n", label,
+                (double) healthy.getTotalCount() / seconds, healthy.getValueAtPercentile(50),
+                healthy.getValueAtPercentile(99), healthy.getMaxValue(), brokenShare, rejected.get(), failures);
+    }
+
+    private static KycRuleEngine engine(KieContainer container, long deadlineMillis, int maxFirings,
+                                        int failureThreshold) throws IOException {
+        RuleSetFingerprint fingerprint = RuleSetFingerprint.of(ruleResources());
+        PersistentSchemaStore store = new PersistentSchemaStore(new ObjectMapper(), fingerprint, false,
+                Files.createTempDirectory("kyc-drill").toString(), false, 0, DataSize.ofBytes(0), 0);
+        return new KycRuleEngine(container, store, ObservationRegistry.NOOP, false, deadlineMillis, maxFirings,
+                failureThreshold, 30_000, "sequential", "sequential");
+    }
+
+    private static KieContainer containerWithBrokenRules() throws IOException {
+        KieServices kieServices = KieServices.Factory.get();
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        for (Resource ruleFile : ruleResources()) {
+            kieFileSystem.write(ResourceFactory.newClassPathResource("rules/" + ruleFile.getFilename(), "UTF-8"));
+        }
+        kieFileSystem.write("src/main/resources/rules/DrillRules.drl", BROKEN_RULES);
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem).buildAll();
+        if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
+            throw new IllegalStateException("Drill rules do not compile: " + kieBuilder.getResults().getMessages());
+        }
+        return kieServices.newKieContainer(kieBuilder.getKieModule().getReleaseId());
+    }
+
+    private static Resource[] ruleResources() throws IOException {
+        return new PathMatchingResourcePatternResolver().getResources("classpath*:rules/*.drl");
+    }
+
+    private static Map<String, Object> profile(String customerType, String accountType) {
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("customerType", customerType);
+        profile.put("accountType", accountType);
+        profile.put("country", "SINGAPORE");
+        return profile;
+    }
+}
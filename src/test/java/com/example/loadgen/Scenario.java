@@ -0,0 +1,74 @@
+package com.example.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A single weighted request type sent by the load generator.
+ * POST scenarios rotate through a fixed list of JSON bodies so that a run
+ * exercises several customer profiles rather than one hot cache entry.
+ */
+public class Scenario {
+
+    private final String name;
+    private final String method;
+    private final String path;
+    private final List<String> bodies;
+    private final int weight;
+
+    public Scenario(String name, String method, String path, List<String> bodies, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Scenario weight must not be negative: " + name);
+        }
+        this.name = name;
+        this.method = method;
+        this.path = path;
+        this.bodies = bodies == null ? List.of() : List.copyOf(bodies);
+        this.weight = weight;
+    }
+
+    public static Scenario get(String name, String path, int weight) {
+        return new Scenario(name, "GET", path, List.of(), weight);
+    }
+
+    public static Scenario post(String name, String path, int weight, String... bodies) {
+        return new Scenario(name, "POST", path, List.of(bodies), weight);
+    }
+
+    public Scenario withWeight(int newWeight) {
+        return new Scenario(name, method, path, bodies, newWeight);
+    }
+
+    public HttpRequest newRequest(URI baseUri, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if ("POST".equals(method)) {
+            String body = bodies.isEmpty() ? "{}" : bodies.get(ThreadLocalRandom.current().nextInt(bodies.size()));
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            builder.GET();
+        }
+        return builder.build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
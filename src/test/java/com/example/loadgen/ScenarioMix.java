@@ -0,0 +1,104 @@
+package com.example.loadgen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted selection over the scenarios of a run.
+ */
+public class ScenarioMix {
+
+    private final List<Scenario> scenarios;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    public ScenarioMix(List<Scenario> scenarios) {
+        List<Scenario> active = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            if (scenario.getWeight() > 0) {
+                active.add(scenario);
+            }
+        }
+        if (active.isEmpty()) {
+            throw new IllegalArgumentException("At least one scenario must have a positive weight");
+        }
+        this.scenarios = List.copyOf(active);
+        this.cumulativeWeights = new int[active.size()];
+        int sum = 0;
+        for (int i = 0; i < active.size(); i++) {
+            sum += active.get(i).getWeight();
+            cumulativeWeights[i] = sum;
+        }
+        this.totalWeight = sum;
+    }
+
+    /**
+     * The default mix: requirement evaluations dominate, catalog lookups make up the rest.
+     */
+    public static List<Scenario> defaultScenarios() {
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(Scenario.post("requirements", "/api/v1/kyc/requirements", 35,
+                "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\",\"nationality\":\"SINGAPORE\",\"pep\":false}",
+                "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"INVESTMENT\",\"nationality\":\"SINGAPORE\",\"pep\":false}",
+                "{\"customerType\":\"FOREIGNER\",\"accountType\":\"CURRENT\",\"nationality\":\"MALAYSIA\",\"pep\":false}",
+                "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"LOAN\",\"nationality\":\"INDIA\",\"pep\":true}",
+                "{\"customerType\":\"CORPORATE\",\"accountType\":\"CURRENT\",\"nationality\":\"SINGAPORE\",\"pep\":false}"));
+        scenarios.add(Scenario.post("product-requirements", "/api/v1/kyc/product/requirements", 20,
+                "{\"product\":\"SAVINGS\"}",
+                "{\"product\":\"CREDIT_CARD\"}",
+                "{\"product\":\"INVESTMENT\",\"country\":\"SINGAPORE\"}"));
+        scenarios.add(Scenario.post("corporate-requirements", "/api/v1/kyc/corporate/requirements", 20,
+                "{\"product\":\"CASA\"}",
+                "{\"product\":\"FX\"}",
+                "{\"product\":\"TRADING\"}"));
+        scenarios.add(Scenario.get("customer-types", "/api/v1/kyc/customer-types", 3));
+        scenarios.add(Scenario.get("account-types", "/api/v1/kyc/account-types", 3));
+        scenarios.add(Scenario.get("products", "/api/v1/kyc/products?country=SINGAPORE", 7));
+        scenarios.add(Scenario.get("corporate-products", "/api/v1/kyc/corporate/products", 7));
+        scenarios.add(Scenario.get("supported-countries", "/api/v1/kyc/supported-countries", 5));
+        return scenarios;
+    }
+
+    /**
+     * Applies weight overrides of the form {@code requirements=50,products=0}.
+     */
+    public static List<Scenario> withWeights(List<Scenario> scenarios, String overrides) {
+        if (overrides == null || overrides.isBlank()) {
+            return scenarios;
+        }
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : overrides.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid weight override: " + entry);
+            }
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        List<Scenario> result = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            Integer weight = weights.remove(scenario.getName());
+            result.add(weight == null ? scenario : scenario.withWeight(weight));
+        }
+        if (!weights.isEmpty()) {
+            throw new IllegalArgumentException("Unknown scenarios in weight overrides: " + weights.keySet());
+        }
+        return result;
+    }
+
+    public Scenario next() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return scenarios.get(i);
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    public List<Scenario> getScenarios() {
+        return scenarios;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.loadgen;
+
+import com.example.kyc.KycFunctionalApplication;
+import com.example.kyc.KycRulesApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.function.context.FunctionCatalog;
+import org.springframework.cloud.function.context.FunctionalSpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Compares cold starts of the start modes. Each run is a fresh JVM that starts the
+ * application, invokes getKycRequirements once through the function catalog (as the
+ * serverless adapters do) and reports its startup time, first invocation time, heap after
+ * a full GC, resident memory, loaded classes and bean count. The report shows the median
+ * of the runs per mode and rule base cache state:
+ * <ul>
+ *   <li>{@code rest}: {@link KycRulesApplication} as deployed today, with the web server</li>
+ *   <li>{@code annotation}: {@link KycRulesApplication} without a web server, which is how
+ *       the serverless adapters start it</li>
+ *   <li>{@code functional}: {@link KycFunctionalApplication}</li>
+ *   <li>{@code sidecar}: {@link KycFunctionalApplication} serving the REST API from its
+ *       built-in HTTP server</li>
+ * </ul>
+ *
+ * <p>With a {@code cold} rule base cache every run compiles the DRL files and writes the cache
+ * entry; with a {@code warm} one the entry of a priming run is loaded (see
+ * {@link com.example.kyc.config.KieModuleCache}). Each state uses its own temporary cache
+ * directory.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.StartupBenchmark \
+ *       -Dexec.args="--runs 5 --modes rest,annotation,functional,sidecar --rules-cache cold,warm"
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    private static final List<String> METRICS = List.of("startup-ms", "first-call-ms", "heap-mb", "rss-mb",
+            "classes", "beans");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        if (options.containsKey("probe")) {
+            probe(options.get("probe"), options.get("rules-cache-dir"));
+            return;
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> modes = List.of(options.getOrDefault("modes", "rest,annotation,functional,sidecar").split(","));
+        List<String> cacheStates = List.of(options.getOrDefault("rules-cache", "cold,warm").split(","));
+
+        System.out.printf("%-12s %-6s %12s %14s %10s %10s %10s %8s%n", "mode", "cache", "startup ms",
+                "first call ms", "heap MB", "RSS MB", "classes", "beans");
+        for (String mode : modes) {
+            for (String cacheState : cacheStates) {
+                if (!cacheState.equals("cold") && !cacheState.equals("warm")) {
+                    throw new IllegalArgumentException("--rules-cache takes cold and/or warm, not " + cacheState);
+                }
+                Path cacheDir = Files.createTempDirectory("kyc-startup-cache-");
+                if (cacheState.equals("warm")) {
+                    probeInChildJvm(mode, cacheDir);
+                }
+                Map<String, List<Double>> samples = new LinkedHashMap<>();
+                for (int run = 0; run < runs; run++) {
+                    if (cacheState.equals("cold")) {
+                        clear(cacheDir);
+                    }
+                    probeInChildJvm(mode, cacheDir).forEach((metric, value) ->
+                            samples.computeIfAbsent(metric, key -> new ArrayList<>()).add(value));
+                }
+                clear(cacheDir);
+                Files.delete(cacheDir);
+                System.out.printf("%-12s %-6s %12.0f %14.1f %10.1f %10.1f %10.0f %8.0f%n", mode, cacheState,
+                        median(samples.get("startup-ms")), median(samples.get("first-call-ms")),
+                        median(samples.get("heap-mb")), median(samples.get("rss-mb")),
+                        median(samples.get("classes")), median(samples.get("beans")));
+            }
+        }
+    }
+
+    private static Map<String, Double> probeInChildJvm(String mode, Path cacheDir) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), StartupBenchmark.class.getName(), "--probe", mode,
+                "--rules-cache-dir", cacheDir.toString())
+                .redirectErrorStream(true)
+                .start();
+        Map<String, Double> metrics = new HashMap<>();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+                if (line.startsWith("probe ")) {
+                    for (String pair : line.substring(6).split(" ")) {
+                        String[] keyValue = pair.split("=");
+                        metrics.put(keyValue[0], Double.parseDouble(keyValue[1]));
+                    }
+                }
+            }
+        }
+        if (process.waitFor() != 0 || !metrics.keySet().containsAll(METRICS)) {
+            output.forEach(System.err::println);
+            throw new IllegalStateException("Startup probe for mode " + mode + " failed");
+        }
+        return metrics;
+    }
+
+    private static void probe(String mode, String cacheDir) throws IOException {
+        String[] args = {"--kyc.grpc.port=0", "--server.port=0", "--logging.level.root=WARN",
+                "--spring.main.banner-mode=off", "--spring.cloud.function.definition=getKycRequirements",
+                "--kyc.rules.cache.enabled=true", "--kyc.rules.cache.dir=" + cacheDir};
+        ConfigurableApplicationContext context = switch (mode) {
+            case "rest" -> SpringApplication.run(KycRulesApplication.class, args);
+            case "annotation" -> new SpringApplicationBuilder(KycRulesApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run(args);
+            case "functional" -> FunctionalSpringApplication.run(KycFunctionalApplication.class, args);
+            case "sidecar" -> FunctionalSpringApplication.run(KycFunctionalApplication.class,
+                    Stream.concat(Stream.of(args), Stream.of("--kyc.http.enabled=true", "--kyc.http.port=0"))
+                            .toArray(String[]::new));
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+        long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        long start = System.nanoTime();
+        Function<Object, Object> function = context.getBean(FunctionCatalog.class).lookup("getKycRequirements");
+        Map<String, Object> request = new HashMap<>(Map.of("customerType", "INDIVIDUAL", "accountType", "SAVINGS"));
+        Object response = function.apply(request);
+        double firstCallMillis = (System.nanoTime() - start) / 1e6;
+        if (!(response instanceof Map<?, ?> map) || map.get("properties") == null) {
+            throw new IllegalStateException("Unexpected response " + response);
+        }
+
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.printf("probe startup-ms=%d first-call-ms=%.1f heap-mb=%.1f rss-mb=%.1f classes=%d beans=%d%n",
+                startupMillis, firstCallMillis, heap.getUsed() / 1048576.0, residentMegabytes(),
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(), context.getBeanDefinitionCount());
+        context.close();
+        System.exit(0);
+    }
+
+    private static void clear(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path entry : entries.toList()) {
+                Files.delete(entry);
+            }
+        }
+    }
+
+    // VmRSS from /proc, or 0 where it is not available
+    private static double residentMegabytes() throws IOException {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) / 1024.0;
+            }
+        }
+        return 0;
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.loadgen;
+
+import com.example.kyc.KycRulesApplication;
+import com.example.kyc.queue.KycBatchProcessor;
+import com.example.kyc.queue.KycQueueResult;
+import com.example.kyc.queue.KycStreamProcessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Exercises the message-driven mode (processKycStream) on Spring Cloud Stream's in-memory test
+ * binder, without a broker.
+ *
+ * <p>The tool starts the application context in-process with the stream profile and without
+ * the web and gRPC servers. It first sends valid records, duplicates, a malformed body and an
+ * invalid request to the input destination and checks that each produces exactly one result on
+ * the output destination, with the expected status and id headers, and that duplicates get their
+ * own referenceId. It then checks that records whose evaluation is stopped are published as
+ * FAILED. Any difference fails the run.
+ *
+ * <p>It then measures the micro-batching pipeline for each batch size and linger: throughput
+ * when all records are queued at once, and the latency from publishing a record to its result
+ * when records arrive at {@code --rate} per second. Records are drawn at random from the
+ * individual, individual product and corporate request profiles.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.StreamBatchBenchmark \
+ *       -Dexec.args="--messages 20000 --rate 2000 --batch-sizes 1,10,100 --lingers 1ms,5ms,20ms"
+ * </pre>
+ */
+public class StreamBatchBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> JSON_TYPE = new TypeReference<>() {
+    };
+    private static final String INPUT = "kyc-profiles";
+    private static final String OUTPUT = "kyc-requirements";
+    private static final String EVALUATED = KycQueueResult.Status.EVALUATED.name();
+
+    private final ConfigurableApplicationContext context;
+    private final Function<Map<String, Object>, Map<String, Object>> individual;
+    private final Function<Map<String, Object>, Map<String, Object>> individualProduct;
+    private final Function<Map<String, Object>, Map<String, Object>> corporate;
+
+    @SuppressWarnings("unchecked")
+    public StreamBatchBenchmark(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.individual = context.getBean("getKycRequirements", Function.class);
+        this.individualProduct = context.getBean("getIndividualProductKycRequirements", Function.class);
+        this.corporate = context.getBean("getCorporateKycRequirements", Function.class);
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        int messages = Integer.parseInt(options.getOrDefault("messages", "20000"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "2000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "2"));
+        List<Integer> batchSizes = new ArrayList<>();
+        for (String size : options.getOrDefault("batch-sizes", "1,10,100").split(",")) {
+            batchSizes.add(Integer.parseInt(size.trim()));
+        }
+        List<Duration> lingers = new ArrayList<>();
+        for (String linger : options.getOrDefault("lingers", "1ms,5ms,20ms").split(",")) {
+            lingers.add(LoadGenerator.parseDuration(linger.trim()));
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KycRulesApplication.class,
+                TestChannelBinderConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .profiles("stream")
+                .run("--kyc.grpc.enabled=false", "--kyc.schema-store.enabled=false",
+                        "--logging.level.com.example.kyc=WARN");
+        int status = 0;
+        try {
+            StreamBatchBenchmark benchmark = new StreamBatchBenchmark(context);
+            if (benchmark.verifyBinding() & benchmark.verifyFailed()) {
+                benchmark.report(messages, rate, concurrency, batchSizes, lingers);
+            } else {
+                status = 1;
+            }
+        } finally {
+            context.close();
+        }
+        System.exit(status);
+    }
+
+    private boolean verifyBinding() {
+        InputDestination input = context.getBean(InputDestination.class);
+        OutputDestination output = context.getBean(OutputDestination.class);
+
+        Map<String, String> bodies = new LinkedHashMap<>();
+        bodies.put("m1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}");
+        bodies.put("m2", "{\"accountType\":\"SAVINGS\",\"customerType\":\"INDIVIDUAL\"}");
+        bodies.put("m3", "{\"product\":\"CREDIT_CARD\",\"pep\":true}");
+        bodies.put("m4", "{\"customerType\":\"CORPORATE\",\"product\":\"FX\"}");
+        bodies.put("m5", "not json");
+        bodies.put("m6", "{\"customerType\":\"INDIVIDUAL\"}");
+        Map<String, KycQueueResult.Status> expected = Map.of("m1", KycQueueResult.Status.EVALUATED,
+                "m2", KycQueueResult.Status.EVALUATED, "m3", KycQueueResult.Status.EVALUATED,
+                "m4", KycQueueResult.Status.EVALUATED, "m5", KycQueueResult.Status.REJECTED,
+                "m6", KycQueueResult.Status.REJECTED);
+        bodies.forEach((messageId, body) -> input.send(MessageBuilder.withPayload(body.getBytes(StandardCharsets.UTF_8))
+                .setHeader(KycStreamProcessor.MESSAGE_ID_HEADER, messageId)
+                .build(), INPUT));
+        // Without the id header the result is keyed by the id of the message as delivered
+        Message<byte[]> anonymous = MessageBuilder.withPayload(bodies.get("m1").getBytes(StandardCharsets.UTF_8)).build();
+        input.send(anonymous, INPUT);
+
+        List<String> problems = new ArrayList<>();
+        Map<String, Map<String, Object>> results = new HashMap<>();
+        for (int i = 0; i < bodies.size() + 1; i++) {
+            Message<byte[]> message = output.receive(TimeUnit.SECONDS.toMillis(10), OUTPUT);
+            if (message == null) {
+                problems.add("only " + i + " of " + (bodies.size() + 1) + " results published");
+                break;
+            }
+            Map<String, Object> result = parse(message.getPayload());
+            String messageId = String.valueOf(message.getHeaders().get(KycStreamProcessor.MESSAGE_ID_HEADER));
+            if (!messageId.equals(result.get("messageId"))
+                    || !String.valueOf(result.get("status")).equals(message.getHeaders().get(KycStreamProcessor.STATUS_HEADER))) {
+                problems.add(messageId + " headers do not match its payload");
+            }
+            if (results.put(messageId, result) != null) {
+                problems.add(messageId + " published twice");
+            }
+        }
+        if (output.receive(200, OUTPUT) != null) {
+            problems.add("more results published than records sent");
+        }
+        expected.forEach((messageId, status) -> {
+            Map<String, Object> result = results.get(messageId);
+            if (result == null || !status.name().equals(result.get("status"))) {
+                problems.add(messageId + " not published as " + status);
+            }
+        });
+        if (results.keySet().stream().noneMatch(messageId -> !bodies.containsKey(messageId)
+                && EVALUATED.equals(results.get(messageId).get("status")))) {
+            problems.add("record without " + KycStreamProcessor.MESSAGE_ID_HEADER + " not evaluated");
+        }
+        if (results.get("m1") != null && results.get("m2") != null) {
+            if (referenceId(results.get("m1")).equals(referenceId(results.get("m2")))) {
+                problems.add("duplicates m1 and m2 share a referenceId");
+            }
+        }
+
+        problems.forEach(problem -> System.out.println("FAILED " + problem));
+        System.out.printf("Verified %d records through the test binder (%s -> %s): %d problems%n",
+                bodies.size() + 1, INPUT, OUTPUT, problems.size());
+        return problems.isEmpty();
+    }
+
+    private boolean verifyFailed() {
+        // Stand-in for a runaway rule: the individual function reports a stopped evaluation
+        Function<Map<String, Object>, Map<String, Object>> stoppable = request -> "DRILL".equals(request.get("accountType"))
+                ? Map.of("error", true, "reason", "DEADLINE_EXCEEDED", "message", "Rule evaluation exceeded the deadline")
+                : individual.apply(request);
+        KycStreamProcessor processor = new KycStreamProcessor(
+                new KycBatchProcessor(stoppable, individualProduct, corporate, MAPPER, true), 10, Duration.ofMillis(1), 1);
+        List<Message<String>> batch = List.of(
+                message("d1", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}"),
+                message("d2", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"DRILL\"}"),
+                message("d3", "{\"customerType\":\"INDIVIDUAL\",\"accountType\":\"SAVINGS\"}"));
+        Map<String, KycQueueResult.Status> statuses = new HashMap<>();
+        for (Message<KycQueueResult> result : processor.process(batch)) {
+            statuses.put(result.getPayload().messageId(), result.getPayload().status());
+        }
+        Map<String, KycQueueResult.Status> expected = Map.of("d1", KycQueueResult.Status.FAILED,
+                "d2", KycQueueResult.Status.FAILED, "d3", KycQueueResult.Status.EVALUATED);
+        boolean passed = statuses.equals(expected);
+        if (!passed) {
+            System.out.println("FAILED stopped evaluations published as " + statuses + " instead of " + expected);
+        }
+        System.out.printf("Verified stopped evaluations are published as FAILED: %s%n", passed ? "yes" : "no");
+        return passed;
+    }
+
+    private void report(int messages, int rate, int concurrency, List<Integer> batchSizes, List<Duration> lingers) {
+        List<String> pool = requestBodies();
+
+        // Warm up evaluation for every request and the pipeline for every batch size before any timing
+        for (int batchSize : batchSizes) {
+            burst(pool, Math.max(pool.size(), messages / 2), batchSize, lingers.get(0), concurrency, new Random(7));
+        }
+
+        System.out.printf("%nRequest pool: %d distinct bodies, %d records per run, %d concurrent batches%n",
+                pool.size(), messages, concurrency);
+        System.out.printf("%-12s %-10s %14s %14s %14s %14s%n", "batch size", "linger", "burst rec/s",
+                "paced mean ms", "paced p99 ms", "paced batch");
+        for (int batchSize : batchSizes) {
+            for (Duration linger : lingers) {
+                // Warm up with the same batch shape
+                burst(pool, Math.max(batchSize * 5, messages / 5), batchSize, linger, concurrency, new Random(7));
+                double throughput = burst(pool, messages, batchSize, linger, concurrency, new Random(42));
+                Paced paced = paced(pool, Math.min(messages, rate * 5), rate, batchSize, linger, concurrency,
+                        new Random(42));
+                System.out.printf("%-12d %-10s %14.0f %14.2f %14.2f %14.1f%n", batchSize, linger.toMillis() + "ms",
+                        throughput, paced.latency().getMean() / 1000, paced.latency().getValueAtPercentile(99) / 1000.0,
+                        paced.meanBatch());
+            }
+        }
+    }
+
+    private record Paced(Histogram latency, double meanBatch) {
+    }
+
+    // All records queued at once: records per second from the first publish to the last result
+    private double burst(List<String> pool, int messages, int batchSize, Duration linger, int concurrency, Random random) {
+        CountingProcessor processor = processor(batchSize, linger, concurrency);
+        Sinks.Many<Message<String>> input = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicLong results = new AtomicLong();
+        var done = processor.apply(input.asFlux()).doOnNext(result -> results.incrementAndGet()).then().toFuture();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            input.tryEmitNext(message("msg-" + i, pool.get(random.nextInt(pool.size()))));
+        }
+        input.tryEmitComplete();
+        done.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (results.get() != messages) {
+            throw new IllegalStateException(results.get() + " results for " + messages + " records");
+        }
+        return messages / seconds;
+    }
+
+    // Records published at a fixed rate: latency from publishing each record to its result
+    private Paced paced(List<String> pool, int messages, int rate, int batchSize, Duration linger, int concurrency,
+                        Random random) {
+        CountingProcessor processor = processor(batchSize, linger, concurrency);
+        Sinks.Many<Message<String>> input = Sinks.many().unicast().onBackpressureBuffer();
+        Map<String, Long> published = new ConcurrentHashMap<>();
+        Histogram latency = new Histogram(3);
+        var done = processor.apply(input.asFlux())
+                .doOnNext(result -> {
+                    long sent = published.remove(result.getPayload().messageId());
+                    synchronized (latency) {
+                        latency.recordValue((System.nanoTime() - sent) / 1000);
+                    }
+                })
+                .then().toFuture();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            String messageId = "msg-" + i;
+            published.put(messageId, System.nanoTime());
+            input.tryEmitNext(message(messageId, pool.get(random.nextInt(pool.size()))));
+            next += interval;
+        }
+        input.tryEmitComplete();
+        done.join();
+        return new Paced(latency, (double) messages / processor.batches.get());
+    }
+
+    private CountingProcessor processor(int batchSize, Duration linger, int concurrency) {
+        return new CountingProcessor(new KycBatchProcessor(individual, individualProduct, corporate, MAPPER, true),
+                batchSize, linger, concurrency);
+    }
+
+    // Counts the micro-batches the pipeline closed
+    private static final class CountingProcessor extends KycStreamProcessor {
+
+        private final AtomicLong batches = new AtomicLong();
+
+        CountingProcessor(KycBatchProcessor processor, int maxBatchSize, Duration linger, int concurrency) {
+            super(processor, maxBatchSize, linger, concurrency);
+        }
+
+        @Override
+        public List<Message<KycQueueResult>> process(List<Message<String>> batch) {
+            batches.incrementAndGet();
+            return super.process(batch);
+        }
+    }
+
+    private static Message<String> message(String messageId, String body) {
+        return MessageBuilder.withPayload(body).setHeader(KycStreamProcessor.MESSAGE_ID_HEADER, messageId).build();
+    }
+
+    // Individual profiles with and without extra answers, individual products and corporate products
+    private static List<String> requestBodies() {
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (String customerType : List.of("INDIVIDUAL", "FOREIGNER", "CORPORATE")) {
+            for (String accountType : List.of("SAVINGS", "CURRENT", "FIXED_DEPOSIT", "INVESTMENT", "LOAN", "CREDIT_CARD")) {
+                for (Map<String, Object> answers : List.<Map<String, Object>>of(Map.of(), Map.of("pep", true),
+                        Map.of("nationality", "MALAYSIA", "initialDeposit", 60000))) {
+                    Map<String, Object> request = new HashMap<>(answers);
+                    request.put("customerType", customerType);
+                    request.put("accountType", accountType);
+                    requests.add(request);
+                }
+            }
+        }
+        for (String product : List.of("SAVINGS", "CREDIT_CARD", "INVESTMENT")) {
+            requests.add(Map.of("product", product));
+        }
+        for (String product : List.of("CASA", "FX", "TRADING")) {
+            requests.add(Map.of("customerType", "CORPORATE", "product", product));
+        }
+        List<String> bodies = new ArrayList<>();
+        for (Map<String, Object> request : requests) {
+            try {
+                bodies.add(MAPPER.writeValueAsString(request));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return bodies;
+    }
+
+    private static Map<String, Object> parse(byte[] payload) {
+        try {
+            return MAPPER.readValue(payload, JSON_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object referenceId(Map<String, Object> result) {
+        Map<?, ?> response = (Map<?, ?>) result.get("response");
+        return ((Map<?, ?>) response.get("x-metadata")).get("referenceId");
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.loadgen;
+
+import com.example.kyc.capture.CaptureFile;
+import com.example.kyc.capture.CapturedRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a capture written by the service's TrafficCaptureFilter against a build under test.
+ *
+ * <p>Requests are sent at their captured arrival times, divided by {@code --speed}, whether or
+ * not earlier ones have been answered, and latency is measured from the scheduled send time,
+ * so a slower build shows up as queueing rather than as a lower request rate. The candidate's
+ * latencies are compared per route with the ones the capturing instance recorded.
+ *
+ * <p>With {@code --baseline}, every request is also sent to a second build at the same moment.
+ * Status codes and JSON bodies of the two are compared, ignoring referenceId and timestamp,
+ * and the two latency distributions are compared with each other. Exits with status 1 if any
+ * response differs.
+ *
+ * <p>Usage:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.mainClass=com.example.loadgen.TrafficReplay \
+ *       -Dexec.args="--capture /var/lib/kyc/capture/capture-2026-10-19T101500-123.jsonl.gz \
+ *       --target http://localhost:8081 --baseline http://localhost:8080 --speed 2 --output replay.json"
+ * </pre>
+ */
+public class TrafficReplay {
+
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration timeout;
+
+    private record Answer(int status, String body, long latencyMicros, String failure) {
+    }
+
+    private record Exchange(CapturedRequest request, Answer candidate, Answer baseline) {
+    }
+
+    TrafficReplay(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        if (!options.containsKey("capture")) {
+            System.err.println("--capture is required");
+            System.exit(2);
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        CaptureFile.Contents capture = CaptureFile.read(Path.of(options.get("capture")), objectMapper);
+        URI target = URI.create(options.getOrDefault("target", "http://localhost:8080"));
+        URI baseline = options.containsKey("baseline") ? URI.create(options.get("baseline")) : null;
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1.0"));
+        int limit = Integer.parseInt(options.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "10")));
+
+        List<CapturedRequest> requests = capture.requests().stream()
+                .sorted((a, b) -> Long.compare(a.atMicros(), b.atMicros()))
+                .limit(limit)
+                .toList();
+        if (requests.isEmpty()) {
+            System.err.println("The capture contains no requests");
+            System.exit(2);
+        }
+        System.out.printf("Replaying %d requests captured %s at %.0f%% sampling, %.1fx speed, against %s%s%n",
+                requests.size(), capture.started(), capture.sampleRate() * 100, speed, target,
+                baseline != null ? " and " + baseline : "");
+
+        TrafficReplay replay = new TrafficReplay(timeout);
+        long startMillis = System.currentTimeMillis();
+        List<Exchange> exchanges = replay.replay(requests, speed, target, baseline);
+        long durationMillis = System.currentTimeMillis() - startMillis;
+
+        LoadRunReport captured = new LoadRunReport("captured", "replay");
+        LoadRunReport candidateReport = new LoadRunReport(target.toString(), "replay");
+        LoadRunReport baselineReport = baseline != null ? new LoadRunReport(baseline.toString(), "replay") : null;
+        long capturedSpanMicros = requests.get(requests.size() - 1).atMicros() - requests.get(0).atMicros();
+        captured.setDurationMillis(Math.max(1, capturedSpanMicros / 1000));
+        candidateReport.setDurationMillis(durationMillis);
+        for (Exchange exchange : exchanges) {
+            String route = exchange.request().route();
+            captured.record(route, exchange.request().latencyMicros());
+            record(candidateReport, route, exchange.candidate());
+            if (baselineReport != null) {
+                record(baselineReport, route, exchange.baseline());
+            }
+        }
+
+        candidateReport.print(System.out);
+        System.out.println();
+        System.out.println("Captured latencies -> " + target + " (captured throughput is at the original rate):");
+        new RunComparison(captured, candidateReport).print(System.out);
+
+        int mismatches = 0;
+        if (baselineReport != null) {
+            baselineReport.setDurationMillis(durationMillis);
+            System.out.println();
+            System.out.println(baseline + " -> " + target + ":");
+            new RunComparison(baselineReport, candidateReport).print(System.out);
+            mismatches = replay.reportMismatches(exchanges);
+        }
+        if (options.containsKey("output")) {
+            candidateReport.save(Path.of(options.get("output")));
+            System.out.println("Report written to " + options.get("output"));
+        }
+        System.exit(mismatches > 0 ? 1 : 0);
+    }
+
+    private List<Exchange> replay(List<CapturedRequest> requests, double speed, URI target, URI baseline)
+            throws InterruptedException {
+        List<CompletableFuture<Exchange>> pending = new ArrayList<>(requests.size());
+        long firstMicros = requests.get(0).atMicros();
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (CapturedRequest request : requests) {
+                long scheduledNanos = startNanos + (long) ((request.atMicros() - firstMicros) * 1000 / speed);
+                long wait = scheduledNanos - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                CompletableFuture<Answer> candidate =
+                        CompletableFuture.supplyAsync(() -> send(request, target, scheduledNanos), executor);
+                CompletableFuture<Answer> reference = baseline == null ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.supplyAsync(() -> send(request, baseline, scheduledNanos), executor);
+                pending.add(candidate.thenCombine(reference, (a, b) -> new Exchange(request, a, b)));
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        }
+        return pending.stream().map(CompletableFuture::join).toList();
+    }
+
+    private Answer send(CapturedRequest request, URI base, long scheduledNanos) {
+        String target = request.query() == null ? request.path() : request.path() + "?" + request.query();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(target))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (request.contentType() != null) {
+            builder.header("Content-Type", request.contentType());
+        }
+        builder.method(request.method(), request.body() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(request.body()));
+        try {
+            HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            return new Answer(response.statusCode(), response.body(), elapsedMicros(scheduledNanos), null);
+        } catch (IOException e) {
+            return new Answer(0, null, elapsedMicros(scheduledNanos), e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Answer(0, null, elapsedMicros(scheduledNanos), "Interrupted");
+        }
+    }
+
+    private static long elapsedMicros(long scheduledNanos) {
+        return (System.nanoTime() - scheduledNanos) / 1000;
+    }
+
+    private static void record(LoadRunReport report, String route, Answer answer) {
+        if (answer.failure() != null) {
+            report.recordError(route, answer.failure(), answer.latencyMicros());
+        } else if (answer.status() >= 500) {
+            report.recordError(route, "HTTP " + answer.status(), answer.latencyMicros());
+        } else {
+            report.record(route, answer.latencyMicros());
+        }
+    }
+
+    private int reportMismatches(List<Exchange> exchanges) {
+        int mismatches = 0;
+        for (Exchange exchange : exchanges) {
+            String difference = difference(exchange.baseline(), exchange.candidate());
+            if (difference == null) {
+                continue;
+            }
+            if (++mismatches <= MAX_REPORTED_MISMATCHES) {
+                CapturedRequest request = exchange.request();
+                System.out.printf("DIFF %s%s %s%n       %s%n", request.route(),
+                        request.query() != null ? "?" + request.query() : "",
+                        request.body() != null ? request.body() : "", difference);
+            }
+        }
+        System.out.println();
+        System.out.printf("%d of %d responses match%n", exchanges.size() - mismatches, exchanges.size());
+        return mismatches;
+    }
+
+    private String difference(Answer expected, Answer actual) {
+        if (expected.failure() != null || actual.failure() != null) {
+            return "failure " + expected.failure() + " != " + actual.failure();
+        }
+        if (expected.status() != actual.status()) {
+            return "status " + expected.status() + " != " + actual.status();
+        }
+        JsonNode expectedBody = parse(expected.body());
+        JsonNode actualBody = parse(actual.body());
+        if (expectedBody == null || actualBody == null) {
+            return expected.body().equals(actual.body()) ? null : "body differs and is not JSON";
+        }
+        return firstDifference("", expectedBody, actualBody);
+    }
+
+    // Schemas run to several kilobytes, so only the first differing JSON pointer is reported
+    private static String firstDifference(String pointer, JsonNode expected, JsonNode actual) {
+        if (expected.equals(actual)) {
+            return null;
+        }
+        if (expected.isObject() && actual.isObject()) {
+            Set<String> names = new TreeSet<>();
+            expected.fieldNames().forEachRemaining(names::add);
+            actual.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                JsonNode left = expected.path(name);
+                JsonNode right = actual.path(name);
+                if (left.isMissingNode() || right.isMissingNode()) {
+                    return pointer + "/" + name + (left.isMissingNode() ? " only in candidate" : " only in baseline");
+                }
+                String difference = firstDifference(pointer + "/" + name, left, right);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+        }
+        if (expected.isArray() && actual.isArray() && expected.size() == actual.size()) {
+            for (int i = 0; i < expected.size(); i++) {
+                String difference = firstDifference(pointer + "/" + i, expected.get(i), actual.get(i));
+                if (difference != null) {
+                    return difference;
+                }
+            }
+        }
+        return (pointer.isEmpty() ? "/" : pointer) + ": " + abbreviate(expected) + " != " + abbreviate(actual);
+    }
+
+    static String abbreviate(JsonNode node) {
+        String text = node.toString();
+        return text.length() <= 120 ? text : text.substring(0, 117) + "...";
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return HttpParityCheck.normalize(objectMapper.readTree(body));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}